@@ -211,6 +211,7 @@ public class CmsGlobalConfigurationCacheEventHandler implements I_CmsEventListen
                 onlineCacheClear();
                 break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
                 //System.out.print(getEventName(event.getType()));
                 String publishIdStr = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
                 if (publishIdStr != null) {
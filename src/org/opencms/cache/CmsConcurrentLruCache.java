@@ -0,0 +1,366 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.main.CmsLog;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Implements a concurrent, cost based LRU (last recently used) cache.<p>
+ * 
+ * This cache offers the same contract as the {@link CmsLruCache}, but does not use a global lock.
+ * Instead of keeping the cached objects in a double linked list, every cached object gets an access
+ * stamp from a logical clock that only advances when objects are added. Touching an object only 
+ * updates its own stamp, and only if the stamp has changed since the last access. This way cache hits
+ * do not contend with each other, no matter how many threads access the cache at the same time.<p>
+ * 
+ * If the costs of all cached objects exceed the maximum cache costs, a single thread removes
+ * objects until the costs are below the average cache costs again. Like a clock hand, the thread
+ * walks round the cached objects and removes the object with the oldest access stamp out of each sample of
+ * the next few objects, so every removal has constant costs. The recency is thus only approximated: 
+ * the removed object is the last recently used one of its sample, and objects touched between two additions 
+ * are considered equally recent.<p>
+ * 
+ * The list pointers of the {@link I_CmsLruCacheObject} interface are not used by this cache 
+ * and are always set to <code>null</code>.<p>
+ *
+ * @see org.opencms.cache.I_CmsLruCacheObject
+ * 
+ * @since 9.5.0
+ */
+public class CmsConcurrentLruCache extends CmsLruCache {
+
+    /**
+     * The access record of a cached object.<p>
+     */
+    private static class CmsAccessRecord {
+
+        /** The costs of the object at the time it was added. */
+        protected final int m_costs;
+
+        /** The access stamp of the last access. */
+        protected volatile long m_lastAccess;
+
+        /** The cached object. */
+        protected final I_CmsLruCacheObject m_object;
+
+        /**
+         * Creates a new access record.<p>
+         * 
+         * @param object the cached object
+         * @param costs the costs of the object
+         * @param lastAccess the initial access stamp
+         */
+        protected CmsAccessRecord(I_CmsLruCacheObject object, int costs, long lastAccess) {
+
+            m_object = object;
+            m_costs = costs;
+            m_lastAccess = lastAccess;
+        }
+
+        /**
+         * Records an access with the given access stamp.<p>
+         * 
+         * @param stamp the current access stamp
+         */
+        protected void access(long stamp) {
+
+            // avoid writing to the shared record if the stamp has not changed
+            if (m_lastAccess != stamp) {
+                m_lastAccess = stamp;
+            }
+        }
+    }
+
+    /** The number of cached objects compared to find the next object to remove. */
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConcurrentLruCache.class);
+
+    /** The logical clock for the access stamps. */
+    private final AtomicLong m_clock;
+
+    /** The access records of all cached objects. */
+    private final ConcurrentHashMap<I_CmsLruCacheObject, CmsAccessRecord> m_entries;
+
+    /** The position of the thread removing objects, only used while holding the eviction lock. */
+    private Iterator<CmsAccessRecord> m_evictionHand;
+
+    /** The lock held by the thread that removes objects from the cache. */
+    private final ReentrantLock m_evictionLock;
+
+    /** The costs of all cached objects. */
+    private final AtomicLong m_objectCosts;
+
+    /** The sum of all cached objects. */
+    private final AtomicInteger m_objectCount;
+
+    /**
+     * The constructor with all options.<p>
+     *
+     * @param theMaxCacheCosts the maximum cache costs of all cached objects
+     * @param theAvgCacheCosts the average cache costs of all cached objects
+     * @param theMaxObjectCosts the maximum allowed cache costs per object. Set theMaxObjectCosts to -1 if you don't want to limit the max. allowed cache costs per object
+     */
+    public CmsConcurrentLruCache(long theMaxCacheCosts, long theAvgCacheCosts, int theMaxObjectCosts) {
+
+        super(theMaxCacheCosts, theAvgCacheCosts, theMaxObjectCosts);
+        m_clock = new AtomicLong();
+        m_entries = new ConcurrentHashMap<I_CmsLruCacheObject, CmsAccessRecord>();
+        m_evictionLock = new ReentrantLock();
+        m_objectCosts = new AtomicLong();
+        m_objectCount = new AtomicInteger();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#add(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            // null can't be added or touched in the cache 
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        int costs = theCacheObject.getLruCacheCosts();
+        if (isTooExpensive(costs)) {
+            return false;
+        }
+
+        CmsAccessRecord record = new CmsAccessRecord(theCacheObject, costs, m_clock.incrementAndGet());
+        // update the cache stats. first, so that a concurrent remove never sees them too low
+        m_objectCosts.addAndGet(costs);
+        m_objectCount.incrementAndGet();
+        CmsAccessRecord existing = m_entries.putIfAbsent(theCacheObject, record);
+        if (existing == null) {
+            theCacheObject.setNextLruObject(null);
+            theCacheObject.setPreviousLruObject(null);
+            theCacheObject.addToLruCache();
+        } else {
+            // the object is already cached, so it is touched instead
+            m_objectCosts.addAndGet(-costs);
+            m_objectCount.decrementAndGet();
+            existing.access(m_clock.get());
+        }
+
+        // check if the cache has to trash the last-recently-used objects
+        if (m_objectCosts.get() > getMaxCacheCosts()) {
+            gc();
+        }
+
+        return true;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#clear()
+     */
+    @Override
+    public void clear() {
+
+        for (I_CmsLruCacheObject cachedObject : new ArrayList<I_CmsLruCacheObject>(m_entries.keySet())) {
+            remove(cachedObject);
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#getObjectCosts()
+     */
+    @Override
+    public int getObjectCosts() {
+
+        return (int)Math.min(m_objectCosts.get(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#remove(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return null;
+        }
+        CmsAccessRecord record = m_entries.remove(theCacheObject);
+        if (record == null) {
+            // theCacheObject is not inside the cache
+            return null;
+        }
+
+        // notify the cached object and update the cache stats.
+        theCacheObject.removeFromLruCache();
+        m_objectCosts.addAndGet(-record.m_costs);
+        m_objectCount.decrementAndGet();
+
+        return theCacheObject;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#size()
+     */
+    @Override
+    public int size() {
+
+        return m_objectCount.get();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer();
+        buf.append("max. costs: " + getMaxCacheCosts()).append(", ");
+        buf.append("avg. costs: " + getAvgCacheCosts()).append(", ");
+        buf.append("max. costs/object: " + getMaxObjectCosts()).append(", ");
+        buf.append("costs: " + m_objectCosts.get()).append(", ");
+        buf.append("count: " + m_objectCount.get());
+        return buf.toString();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#touch(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return false;
+        }
+        CmsAccessRecord record = m_entries.get(theCacheObject);
+        if (record == null) {
+            return false;
+        }
+
+        // only objects with cache costs < the max. allowed object cache costs can be cached!
+        if (isTooExpensive(theCacheObject.getLruCacheCosts())) {
+            remove(theCacheObject);
+            return false;
+        }
+
+        record.access(m_clock.get());
+        return true;
+    }
+
+    /**
+     * Removes the last recently used objects from the cache as long
+     * as the costs of all cached objects are higher than the allowed avg. costs of the cache.<p>
+     * 
+     * If another thread is already removing objects, this method returns immediately.<p>
+     */
+    private void gc() {
+
+        if (!m_evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (m_objectCosts.get() < getAvgCacheCosts()) {
+                return;
+            }
+            while (m_objectCosts.get() >= getAvgCacheCosts()) {
+                CmsAccessRecord record = nextEvictionCandidate();
+                if (record == null) {
+                    // the cache is empty
+                    break;
+                }
+                if (remove(record.m_object) != null) {
+                    evicted(record.m_object);
+                }
+            }
+        } finally {
+            m_evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Checks if an object with the given costs exceeds the max. allowed cache costs per object.<p>
+     * 
+     * @param costs the costs of the object
+     * 
+     * @return <code>true</code> if the object can not be cached
+     */
+    private boolean isTooExpensive(int costs) {
+
+        if ((getMaxObjectCosts() != -1) && (costs > getMaxObjectCosts())) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(
+                    Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                    Integer.valueOf(costs),
+                    Integer.valueOf(getMaxObjectCosts())));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the last recently used object out of the next sample of cached objects.<p>
+     * 
+     * The sample starts where the previous sample has ended, and wraps round to the first object
+     * when the end of the cached objects is reached. 
+     * This method must only be called while holding the eviction lock.<p>
+     * 
+     * @return the access record of the object to remove, or <code>null</code> if the cache is empty
+     */
+    private CmsAccessRecord nextEvictionCandidate() {
+
+        CmsAccessRecord candidate = null;
+        boolean wrapped = false;
+        int sampled = 0;
+        while (sampled < EVICTION_SAMPLE_SIZE) {
+            if ((m_evictionHand == null) || !m_evictionHand.hasNext()) {
+                if (wrapped) {
+                    // all cached objects have been sampled
+                    break;
+                }
+                wrapped = true;
+                m_evictionHand = m_entries.values().iterator();
+                if (!m_evictionHand.hasNext()) {
+                    break;
+                }
+            }
+            CmsAccessRecord record = m_evictionHand.next();
+            sampled++;
+            if ((candidate == null) || (record.m_lastAccess < candidate.m_lastAccess)) {
+                candidate = record;
+            }
+        }
+        return candidate;
+    }
+}
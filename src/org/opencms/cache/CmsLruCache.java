@@ -324,6 +324,21 @@ public class CmsLruCache extends java.lang.Object {
         return true;
     }
 
+    /**
+     * Invoked after an object has been removed from this cache because the costs of all cached 
+     * objects exceeded the max. cache costs.<p>
+     * 
+     * The object has already been notified with {@link I_CmsLruCacheObject#removeFromLruCache()}.
+     * This implementation does nothing, subclasses can override it e.g. to move the object 
+     * to a second cache tier.<p>
+     * 
+     * @param theCacheObject the evicted object
+     */
+    protected void evicted(I_CmsLruCacheObject theCacheObject) {
+
+        // noop
+    }
+
     /**
      * Adds a cache object as the new haed to the list of all cached objects in this cache.<p>
      *
@@ -382,8 +397,10 @@ public class CmsLruCache extends java.lang.Object {
             if (m_objectCosts < m_avgCacheCosts) {
                 break;
             }
+            I_CmsLruCacheObject evictedObject = currentObject;
             currentObject = currentObject.getNextLruObject();
             removeTail();
+            evicted(evictedObject);
         }
     }
 
@@ -0,0 +1,848 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded, thread safe map using a striped W-TinyLFU eviction policy.<p>
+ *
+ * This map is intended as a drop-in replacement for a synchronized <code>LRUMap</code>
+ * in caches that are read far more often than they are written.<p>
+ *
+ * Reads are lock-free: they only look up the entry in a {@link ConcurrentHashMap},
+ * mark the entry as recently used and record the access in a frequency sketch.
+ * Writes are serialized per stripe, the stripe of a key is determined by its hash code.<p>
+ *
+ * Each stripe keeps a small "window" region (about 1% of its capacity) and a "main" region.
+ * New entries are added to the window. Entries leaving the window are only admitted to the
+ * main region if their estimated access frequency is higher than that of the entry the main
+ * region would have to evict for them. This way a burst of one-time accesses (e.g. a full
+ * site crawl) cannot flush the frequently used entries out of the cache.
+ * Recency inside both regions is approximated with a CLOCK ("second chance") scan,
+ * so that reads never have to reorder any list.<p>
+ *
+ * If an {@link I_CmsCacheWeigher} is given, the weight of each entry is calculated once when it is
+ * written, and the total weight of the map is maintained incrementally. The map can then also be
+ * bounded by a maximum total weight, which is split evenly among the stripes like the maximum size.<p>
+ *
+ * <code>null</code> keys are not supported.<p>
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @since 9.5.0
+ */
+public class CmsTinyLfuMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * The entry set view of this map.<p>
+     */
+    protected class CmsEntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        /**
+         * @see java.util.AbstractCollection#clear()
+         */
+        @Override
+        public void clear() {
+
+            CmsTinyLfuMap.this.clear();
+        }
+
+        /**
+         * @see java.util.AbstractCollection#iterator()
+         */
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+
+            final Iterator<CmsNode<K, V>> it = m_data.values().iterator();
+            return new Iterator<Map.Entry<K, V>>() {
+
+                private K m_lastKey;
+
+                public boolean hasNext() {
+
+                    return it.hasNext();
+                }
+
+                public Map.Entry<K, V> next() {
+
+                    CmsNode<K, V> node = it.next();
+                    m_lastKey = node.m_key;
+                    return new AbstractMap.SimpleImmutableEntry<K, V>(node.m_key, node.m_value);
+                }
+
+                public void remove() {
+
+                    if (m_lastKey == null) {
+                        throw new IllegalStateException();
+                    }
+                    CmsTinyLfuMap.this.remove(m_lastKey);
+                    m_lastKey = null;
+                }
+            };
+        }
+
+        /**
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+
+            return CmsTinyLfuMap.this.size();
+        }
+    }
+
+    /**
+     * A probabilistic counter of access frequencies (count-min sketch with 4 bit counters).<p>
+     *
+     * The counters are periodically halved, so that the sketch forgets old accesses.<p>
+     */
+    protected static class CmsFrequencySketch {
+
+        /** Mask to halve all 16 counters of a table slot. */
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        /** The seeds for the hash functions of the 4 sketch rows. */
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L,
+            0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L};
+
+        /** The number of recorded increments since the last reset. */
+        private final AtomicInteger m_additions = new AtomicInteger();
+
+        /** The number of increments after which the counters are halved. */
+        private final int m_sampleSize;
+
+        /** The counter table, each slot holds 16 counters of 4 bits. */
+        private final AtomicLongArray m_table;
+
+        /** The mask to calculate a table index from a hash. */
+        private final int m_tableMask;
+
+        /**
+         * Creates a new sketch suitable for a cache with the given capacity.<p>
+         *
+         * @param capacity the capacity of the cache
+         */
+        protected CmsFrequencySketch(int capacity) {
+
+            int length = ceilingPowerOfTwo(Math.max(capacity, 8));
+            m_table = new AtomicLongArray(length);
+            m_tableMask = length - 1;
+            m_sampleSize = 10 * Math.max(capacity, 8);
+        }
+
+        /**
+         * Returns the estimated access frequency for the given spread hash code, in the range 0 to 15.<p>
+         *
+         * @param hash the spread hash code
+         *
+         * @return the estimated access frequency
+         */
+        protected int frequency(int hash) {
+
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int)((m_table.get(index) >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        /**
+         * Records an access for the given spread hash code.<p>
+         *
+         * @param hash the spread hash code
+         */
+        protected void increment(int hash) {
+
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && (m_additions.incrementAndGet() == m_sampleSize)) {
+                reset();
+            }
+        }
+
+        /**
+         * Returns the table index of the given hash for the given sketch row.<p>
+         *
+         * @param hash the spread hash code
+         * @param row the sketch row
+         *
+         * @return the table index
+         */
+        private int indexOf(int hash, int row) {
+
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += (h >>> 32);
+            return ((int)h) & m_tableMask;
+        }
+
+        /**
+         * Increments the counter with the given offset in the given table slot, unless it is saturated.<p>
+         *
+         * @param index the table index
+         * @param counter the counter offset in the slot (0 to 15)
+         *
+         * @return <code>true</code> if the counter was incremented
+         */
+        private boolean incrementAt(int index, int counter) {
+
+            int shift = counter << 2;
+            long mask = 0xfL << shift;
+            while (true) {
+                long value = m_table.get(index);
+                if ((value & mask) == mask) {
+                    // counter is saturated
+                    return false;
+                }
+                if (m_table.compareAndSet(index, value, value + (1L << shift))) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Halves all counters of the sketch.<p>
+         */
+        private void reset() {
+
+            for (int i = 0, s = m_table.length(); i < s; i++) {
+                while (true) {
+                    long value = m_table.get(i);
+                    if (m_table.compareAndSet(i, value, (value >>> 1) & RESET_MASK)) {
+                        break;
+                    }
+                }
+            }
+            m_additions.addAndGet(-(m_sampleSize / 2));
+        }
+    }
+
+    /**
+     * A cache entry.<p>
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    protected static class CmsNode<K, V> {
+
+        /** The spread hash code of the key. */
+        protected final int m_hash;
+
+        /** Flag indicating if the node is in the window region, guarded by the stripe lock. */
+        protected boolean m_inWindow;
+
+        /** The key. */
+        protected final K m_key;
+
+        /** The next node in the region list, guarded by the stripe lock. */
+        protected CmsNode<K, V> m_next;
+
+        /** The previous node in the region list, guarded by the stripe lock. */
+        protected CmsNode<K, V> m_prev;
+
+        /** The CLOCK reference bit, set on every read. */
+        protected volatile boolean m_referenced;
+
+        /** The value. */
+        protected volatile V m_value;
+
+        /** The weight of the entry, guarded by the stripe lock. */
+        protected int m_weight;
+
+        /**
+         * Creates a new node.<p>
+         *
+         * @param key the key
+         * @param value the value
+         * @param hash the spread hash code of the key
+         */
+        protected CmsNode(K key, V value, int hash) {
+
+            m_key = key;
+            m_value = value;
+            m_hash = hash;
+        }
+    }
+
+    /**
+     * A stripe of the map, holding the eviction policy state for a subset of the keys.<p>
+     *
+     * All methods must be called while holding the lock of the stripe.<p>
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    protected static class CmsStripe<K, V> extends ReentrantLock {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = -3284851947219520712L;
+
+        /** The list head of the main region. */
+        protected final CmsNode<K, V> m_main = createSentinel();
+
+        /** The maximum size of the main region. */
+        protected final int m_mainMax;
+
+        /** The current size of the main region. */
+        protected int m_mainSize;
+
+        /** The maximum total weight of the entries of this stripe. */
+        protected final long m_maxWeight;
+
+        /** The access frequency sketch of this stripe. */
+        protected final CmsFrequencySketch m_sketch;
+
+        /** The list head of the window region. */
+        protected final CmsNode<K, V> m_window = createSentinel();
+
+        /** The maximum size of the window region. */
+        protected final int m_windowMax;
+
+        /** The total weight of the entries of this stripe, written with the stripe lock held. */
+        protected volatile long m_weight;
+
+        /** The current size of the window region. */
+        protected int m_windowSize;
+
+        /**
+         * Creates a new stripe.<p>
+         *
+         * @param capacity the capacity of the stripe
+         * @param maxWeight the maximum total weight of the entries of the stripe
+         */
+        protected CmsStripe(int capacity, long maxWeight) {
+
+            m_windowMax = Math.max(1, capacity / 100);
+            m_mainMax = capacity - m_windowMax;
+            m_maxWeight = maxWeight;
+            m_sketch = new CmsFrequencySketch(capacity);
+        }
+
+        /**
+         * Creates an empty list head.<p>
+         *
+         * @param <K> the key type
+         * @param <V> the value type
+         *
+         * @return the list head
+         */
+        private static <K, V> CmsNode<K, V> createSentinel() {
+
+            CmsNode<K, V> sentinel = new CmsNode<K, V>(null, null, 0);
+            sentinel.m_next = sentinel;
+            sentinel.m_prev = sentinel;
+            return sentinel;
+        }
+
+        /**
+         * Appends the node at the tail of the given list.<p>
+         *
+         * @param head the list head
+         * @param node the node to append
+         */
+        private static <K, V> void append(CmsNode<K, V> head, CmsNode<K, V> node) {
+
+            node.m_prev = head.m_prev;
+            node.m_next = head;
+            head.m_prev.m_next = node;
+            head.m_prev = node;
+        }
+
+        /**
+         * Removes the node from the list it is in.<p>
+         *
+         * @param node the node to remove
+         */
+        private static <K, V> void unlink(CmsNode<K, V> node) {
+
+            node.m_prev.m_next = node.m_next;
+            node.m_next.m_prev = node.m_prev;
+            node.m_prev = null;
+            node.m_next = null;
+        }
+
+        /**
+         * Adds a new node to the window region and evicts nodes as required.<p>
+         *
+         * @param node the node to add
+         * @param data the data map to remove evicted nodes from
+         * @param evicted the list to add the evicted nodes to
+         */
+        protected void add(CmsNode<K, V> node, Map<K, CmsNode<K, V>> data, List<CmsNode<K, V>> evicted) {
+
+            node.m_inWindow = true;
+            append(m_window, node);
+            m_windowSize++;
+            m_weight += node.m_weight;
+
+            while (m_windowSize > m_windowMax) {
+                CmsNode<K, V> candidate = selectVictim(m_window, m_windowSize);
+                unlink(candidate);
+                m_windowSize--;
+                candidate.m_inWindow = false;
+                if (m_mainSize < m_mainMax) {
+                    // there is still room in the main region
+                    append(m_main, candidate);
+                    m_mainSize++;
+                    continue;
+                }
+                CmsNode<K, V> victim = (m_mainSize > 0) ? selectVictim(m_main, m_mainSize) : null;
+                if ((victim != null) && (m_sketch.frequency(candidate.m_hash) > m_sketch.frequency(victim.m_hash))) {
+                    // the candidate is used more frequently than the main victim, so admit it
+                    unlink(victim);
+                    data.remove(victim.m_key);
+                    m_weight -= victim.m_weight;
+                    append(m_main, candidate);
+                    evicted.add(victim);
+                } else {
+                    data.remove(candidate.m_key);
+                    m_weight -= candidate.m_weight;
+                    evicted.add(candidate);
+                }
+            }
+            evictOverweight(data, evicted);
+        }
+
+        /**
+         * Removes all nodes from this stripe.<p>
+         */
+        protected void clear() {
+
+            m_window.m_next = m_window;
+            m_window.m_prev = m_window;
+            m_main.m_next = m_main;
+            m_main.m_prev = m_main;
+            m_windowSize = 0;
+            m_mainSize = 0;
+            m_weight = 0;
+        }
+
+        /**
+         * Evicts nodes until the total weight of this stripe does not exceed its maximum weight.<p>
+         *
+         * Nodes are evicted from the main region first, the last remaining node is never evicted.<p>
+         *
+         * @param data the data map to remove evicted nodes from
+         * @param evicted the list to add the evicted nodes to
+         */
+        protected void evictOverweight(Map<K, CmsNode<K, V>> data, List<CmsNode<K, V>> evicted) {
+
+            while ((m_weight > m_maxWeight) && ((m_windowSize + m_mainSize) > 1)) {
+                CmsNode<K, V> victim = (m_mainSize > 0) ? selectVictim(m_main, m_mainSize) : selectVictim(
+                    m_window,
+                    m_windowSize);
+                remove(victim);
+                data.remove(victim.m_key);
+                evicted.add(victim);
+            }
+        }
+
+        /**
+         * Removes the given node from this stripe.<p>
+         *
+         * @param node the node to remove
+         */
+        protected void remove(CmsNode<K, V> node) {
+
+            if (node.m_next == null) {
+                // already unlinked
+                return;
+            }
+            if (node.m_inWindow) {
+                m_windowSize--;
+            } else {
+                m_mainSize--;
+            }
+            m_weight -= node.m_weight;
+            unlink(node);
+        }
+
+        /**
+         * Selects the least recently used node of the given list using a CLOCK scan.<p>
+         *
+         * Nodes that have been referenced since the last scan get a "second chance"
+         * by being moved to the tail of the list.<p>
+         *
+         * @param head the list head
+         * @param size the size of the list
+         *
+         * @return the selected node
+         */
+        private CmsNode<K, V> selectVictim(CmsNode<K, V> head, int size) {
+
+            for (int i = 0; i < size; i++) {
+                CmsNode<K, V> node = head.m_next;
+                if (!node.m_referenced) {
+                    return node;
+                }
+                node.m_referenced = false;
+                unlink(node);
+                append(head, node);
+            }
+            return head.m_next;
+        }
+    }
+
+    /** The maximum number of stripes. */
+    private static final int MAX_STRIPES = 16;
+
+    /** The minimum capacity of a single stripe. */
+    private static final int MIN_STRIPE_CAPACITY = 32;
+
+    /** The data map. */
+    protected final ConcurrentHashMap<K, CmsNode<K, V>> m_data;
+
+    /** The number of evictions since this map was created. */
+    private final AtomicInteger m_evictionCount = new AtomicInteger();
+
+    /** The maximum size of this map. */
+    private final int m_maxSize;
+
+    /** The maximum total weight of this map, 0 for no limit. */
+    private final long m_maxWeight;
+
+    /** The stripes of this map. */
+    private final CmsStripe<K, V>[] m_stripes;
+
+    /** The weigher for the entries, <code>null</code> if the entries are not weighed. */
+    private final I_CmsCacheWeigher<? super K, ? super V> m_weigher;
+
+    /**
+     * Creates a new map with the given maximum size.<p>
+     *
+     * @param maxSize the maximum number of entries in this map
+     */
+    public CmsTinyLfuMap(int maxSize) {
+
+        this(maxSize, 0, null);
+    }
+
+    /**
+     * Creates a new map with the given maximum size, weighing its entries with the given weigher.<p>
+     *
+     * @param maxSize the maximum number of entries in this map
+     * @param maxWeight the maximum total weight of all entries, 0 for no limit
+     * @param weigher the weigher for the entries, or <code>null</code> to not weigh the entries
+     */
+    public CmsTinyLfuMap(int maxSize, long maxWeight, I_CmsCacheWeigher<? super K, ? super V> weigher) {
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        m_maxSize = maxSize;
+        m_maxWeight = maxWeight;
+        m_weigher = weigher;
+        int stripes = Math.min(
+            MAX_STRIPES,
+            Math.min(ceilingPowerOfTwo(Runtime.getRuntime().availableProcessors()), floorPowerOfTwo(Math.max(
+                1,
+                maxSize / MIN_STRIPE_CAPACITY))));
+        // generic arrays can not be created, the array only ever holds stripes created for this map
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        CmsStripe<K, V>[] stripeArray = new CmsStripe[stripes];
+        m_stripes = stripeArray;
+        long stripeMaxWeight = (maxWeight > 0) ? Math.max(1, maxWeight / stripes) : Long.MAX_VALUE;
+        for (int i = 0; i < stripes; i++) {
+            int capacity = (maxSize / stripes) + ((i < (maxSize % stripes)) ? 1 : 0);
+            m_stripes[i] = new CmsStripe<K, V>(capacity, stripeMaxWeight);
+        }
+        m_data = new ConcurrentHashMap<K, CmsNode<K, V>>(Math.min(maxSize, 1024), 0.75f, stripes);
+    }
+
+    /**
+     * Returns the smallest power of two greater or equal to the given value.<p>
+     *
+     * @param value the value
+     *
+     * @return the smallest power of two greater or equal to the given value
+     */
+    static int ceilingPowerOfTwo(int value) {
+
+        return 1 << (32 - Integer.numberOfLeadingZeros(Math.max(value, 1) - 1));
+    }
+
+    /**
+     * Returns the largest power of two less or equal to the given value.<p>
+     *
+     * @param value the value
+     *
+     * @return the largest power of two less or equal to the given value
+     */
+    static int floorPowerOfTwo(int value) {
+
+        return Integer.highestOneBit(Math.max(value, 1));
+    }
+
+    /**
+     * Applies a supplementary hash function to the hash code of a key.<p>
+     *
+     * @param key the key
+     *
+     * @return the spread hash code
+     */
+    private static int spread(Object key) {
+
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        h ^= (h >>> 16);
+        return h;
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        for (CmsStripe<K, V> stripe : m_stripes) {
+            stripe.lock();
+        }
+        try {
+            m_data.clear();
+            for (CmsStripe<K, V> stripe : m_stripes) {
+                stripe.clear();
+            }
+        } finally {
+            for (CmsStripe<K, V> stripe : m_stripes) {
+                stripe.unlock();
+            }
+        }
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return m_data.containsKey(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+
+        return new CmsEntrySet();
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        int hash = spread(key);
+        getStripe(hash).m_sketch.increment(hash);
+        CmsNode<K, V> node = m_data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (!node.m_referenced) {
+            // avoid writing to a shared cache line if the bit is already set
+            node.m_referenced = true;
+        }
+        return node.m_value;
+    }
+
+    /**
+     * Returns the number of entries that have been evicted from this map because of its size limit.<p>
+     *
+     * @return the number of evicted entries
+     */
+    public int getEvictionCount() {
+
+        return m_evictionCount.get();
+    }
+
+    /**
+     * Returns the maximum total weight of all entries.<p>
+     *
+     * @return the maximum total weight of all entries, 0 for no limit
+     */
+    public long getMaxWeight() {
+
+        return m_maxWeight;
+    }
+
+    /**
+     * Returns the number of stripes used by this map.<p>
+     *
+     * @return the number of stripes
+     */
+    public int getStripeCount() {
+
+        return m_stripes.length;
+    }
+
+    /**
+     * Returns the total weight of all entries.<p>
+     *
+     * The weights of the stripes are read without locking, so the result is only exact 
+     * if the map is not modified concurrently.<p>
+     *
+     * @return the total weight of all entries, 0 if the entries are not weighed
+     */
+    public long getWeight() {
+
+        long weight = 0;
+        for (CmsStripe<K, V> stripe : m_stripes) {
+            weight += stripe.m_weight;
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the maximum number of entries in this map.<p>
+     *
+     * @return the maximum number of entries in this map
+     */
+    public int maxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public V put(K key, V value) {
+
+        int hash = spread(key);
+        // weigh the entry before locking the stripe
+        int weight = (m_weigher != null) ? m_weigher.weigh(key, value) : 0;
+        CmsStripe<K, V> stripe = getStripe(hash);
+        stripe.m_sketch.increment(hash);
+        List<CmsNode<K, V>> evicted = new ArrayList<CmsNode<K, V>>(2);
+        V old = null;
+        stripe.lock();
+        try {
+            CmsNode<K, V> node = m_data.get(key);
+            if (node != null) {
+                old = node.m_value;
+                node.m_value = value;
+                node.m_referenced = true;
+                stripe.m_weight += weight - node.m_weight;
+                node.m_weight = weight;
+                stripe.evictOverweight(m_data, evicted);
+            } else {
+                node = new CmsNode<K, V>(key, value, hash);
+                node.m_weight = weight;
+                m_data.put(key, node);
+                stripe.add(node, m_data, evicted);
+            }
+        } finally {
+            stripe.unlock();
+        }
+        if (!evicted.isEmpty()) {
+            m_evictionCount.addAndGet(evicted.size());
+            // notify outside of the stripe lock, so that the callback may access this map
+            for (CmsNode<K, V> node : evicted) {
+                evicted(node.m_key, node.m_value);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public V remove(Object key) {
+
+        CmsStripe<K, V> stripe = getStripe(spread(key));
+        stripe.lock();
+        try {
+            CmsNode<K, V> node = m_data.remove(key);
+            if (node == null) {
+                return null;
+            }
+            stripe.remove(node);
+            return node.m_value;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_data.size();
+    }
+
+    /**
+     * Called after an entry has been evicted from this map because of its size or weight limit.<p>
+     *
+     * This is not called for entries that are removed explicitly or replaced.
+     * The default implementation does nothing.<p>
+     *
+     * @param key the key of the evicted entry
+     * @param value the value of the evicted entry
+     */
+    protected void evicted(K key, V value) {
+
+        // noop
+    }
+
+    /**
+     * Returns the stripe responsible for the given spread hash code.<p>
+     *
+     * @param hash the spread hash code
+     *
+     * @return the stripe
+     */
+    private CmsStripe<K, V> getStripe(int hash) {
+
+        return m_stripes[(hash >>> 24) & (m_stripes.length - 1)];
+    }
+}
@@ -28,6 +28,7 @@
 package org.opencms.cache;
 
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsEvent;
 import org.opencms.main.I_CmsEventListener;
@@ -92,6 +93,12 @@ public abstract class CmsVfsCache implements I_CmsEventListener {
                 flush(true);
                 break;
 
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
+                List<CmsPublishedResource> publishedResources = CmsCollectionsGenericWrapper.list(event.getData().get(
+                    I_CmsEventListener.KEY_RESOURCES));
+                uncacheOnlineResources(publishedResources);
+                break;
+
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 flush(true);
                 flush(false);
@@ -143,11 +150,24 @@ public abstract class CmsVfsCache implements I_CmsEventListener {
             I_CmsEventListener.EVENT_RESOURCE_MOVED,
             I_CmsEventListener.EVENT_RESOURCE_DELETED,
             I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT,
             I_CmsEventListener.EVENT_CLEAR_CACHES,
             I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
             I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES});
     }
 
+    /**
+     * Removes the given resources, published by another server of the cluster, from the online cache.<p>
+     * 
+     * The default implementation flushes the online cache.<p>
+     * 
+     * @param publishedResources the published resources
+     */
+    protected void uncacheOnlineResources(List<CmsPublishedResource> publishedResources) {
+
+        flush(true);
+    }
+
     /**
      * Removes a cached resource from the cache.<p>
      * 
@@ -27,12 +27,15 @@
 
 package org.opencms.cache;
 
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
 
+import java.util.List;
+
 import org.apache.commons.collections.Transformer;
 import org.apache.commons.logging.Log;
 
@@ -134,6 +137,17 @@ public class CmsVfsMemoryObjectCache extends CmsVfsCache {
         OpenCms.getMemoryMonitor().flushCache(CmsMemoryMonitor.CacheType.VFS_OBJECT);
     }
 
+    /**
+     * @see org.opencms.cache.CmsVfsCache#uncacheOnlineResources(java.util.List)
+     */
+    @Override
+    protected void uncacheOnlineResources(List<CmsPublishedResource> publishedResources) {
+
+        for (CmsPublishedResource publishedResource : publishedResources) {
+            OpenCms.getMemoryMonitor().uncacheVfsObject(getCacheKey(publishedResource.getRootPath(), true));
+        }
+    }
+
     /**
      * @see org.opencms.cache.CmsVfsCache#uncacheResource(org.opencms.file.CmsResource)
      */
@@ -0,0 +1,202 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * A <code>LRUMap</code> that keeps track of the total weight of its entries.<p>
+ * 
+ * The weight of an entry is calculated by an {@link I_CmsCacheWeigher} when the entry is added 
+ * or its value is replaced, and is stored with the entry. This way the total weight is updated 
+ * incrementally and can be read at any time without walking the entries.<p>
+ * 
+ * In addition to the maximum number of entries, the map can be bounded by a maximum total weight.
+ * If a new entry exceeds this limit, the least recently used entries are removed until the limit 
+ * is met again. The new entry itself is always kept, even if it exceeds the limit on its own.<p>
+ * 
+ * Like the <code>LRUMap</code>, this map is not thread safe. Changing the value of an entry through 
+ * the entry set view does not update its weight.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsWeightedLruMap extends LRUMap {
+
+    /**
+     * A map entry that stores its weight.<p>
+     */
+    protected static class CmsWeightedEntry extends LinkEntry {
+
+        /** The weight of the entry. */
+        protected int m_weight;
+
+        /**
+         * Creates a new entry.<p>
+         * 
+         * @param next the next entry in the hash bucket
+         * @param hashCode the hash code of the key
+         * @param key the key
+         * @param value the value
+         */
+        protected CmsWeightedEntry(HashEntry next, int hashCode, Object key, Object value) {
+
+            super(next, hashCode, key, value);
+        }
+    }
+
+    /** The serial version id. */
+    private static final long serialVersionUID = 6152869153702915314L;
+
+    /** The maximum total weight of all entries, 0 for no limit. */
+    private long m_maxWeight;
+
+    /** The weigher for the entries. */
+    private transient I_CmsCacheWeigher<Object, Object> m_weigher;
+
+    /** The total weight of all entries. */
+    private volatile long m_weight;
+
+    /**
+     * Creates a new map.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     * @param maxWeight the maximum total weight of all entries, 0 for no limit
+     * @param weigher the weigher for the entries
+     */
+    public CmsWeightedLruMap(int maxSize, long maxWeight, I_CmsCacheWeigher<Object, Object> weigher) {
+
+        super(maxSize);
+        m_maxWeight = maxWeight;
+        m_weigher = weigher;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractLinkedMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        super.clear();
+        m_weight = 0;
+    }
+
+    /**
+     * Returns the maximum total weight of all entries.<p>
+     * 
+     * @return the maximum total weight of all entries, 0 for no limit
+     */
+    public long getMaxWeight() {
+
+        return m_maxWeight;
+    }
+
+    /**
+     * Returns the total weight of all entries.<p>
+     * 
+     * @return the total weight of all entries
+     */
+    public long getWeight() {
+
+        return m_weight;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractHashedMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public Object put(Object key, Object value) {
+
+        Object result = super.put(key, value);
+        if (m_maxWeight > 0) {
+            // the new entry is the most recently used one, so it is removed last
+            while ((m_weight > m_maxWeight) && (size() > 1)) {
+                remove(firstKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractLinkedMap#createEntry(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, int, java.lang.Object, java.lang.Object)
+     */
+    @Override
+    protected HashEntry createEntry(HashEntry next, int hashCode, Object key, Object value) {
+
+        CmsWeightedEntry entry = new CmsWeightedEntry(next, hashCode, key, value);
+        addWeight(entry);
+        return entry;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractLinkedMap#removeEntry(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, int, org.apache.commons.collections.map.AbstractHashedMap.HashEntry)
+     */
+    @Override
+    protected void removeEntry(HashEntry entry, int hashIndex, HashEntry previous) {
+
+        m_weight -= ((CmsWeightedEntry)entry).m_weight;
+        super.removeEntry(entry, hashIndex, previous);
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractHashedMap#reuseEntry(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, int, int, java.lang.Object, java.lang.Object)
+     */
+    @Override
+    protected void reuseEntry(HashEntry entry, int hashIndex, int hashCode, Object key, Object value) {
+
+        // the weight of the reused entry has already been subtracted when it was removed
+        super.reuseEntry(entry, hashIndex, hashCode, key, value);
+        addWeight((CmsWeightedEntry)entry);
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.LRUMap#updateEntry(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, java.lang.Object)
+     */
+    @Override
+    protected void updateEntry(HashEntry entry, Object newValue) {
+
+        super.updateEntry(entry, newValue);
+        m_weight -= ((CmsWeightedEntry)entry).m_weight;
+        addWeight((CmsWeightedEntry)entry);
+    }
+
+    /**
+     * Calculates the weight of the given entry and adds it to the total weight.<p>
+     * 
+     * @param entry the entry
+     */
+    private void addWeight(CmsWeightedEntry entry) {
+
+        if (m_weigher == null) {
+            // the list header is created by the super constructor before the weigher is set
+            entry.m_weight = 0;
+            return;
+        }
+        entry.m_weight = m_weigher.weigh(entry.getKey(), entry.getValue());
+        m_weight += entry.m_weight;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+/**
+ * Calculates the weight of cache entries, i.e. the estimated number of bytes they occupy.<p>
+ * 
+ * Weighted caches call the weigher once when an entry is added or replaced and keep the result
+ * for the lifetime of the entry, so the total weight of a cache is always known without
+ * walking its entries.<p>
+ * 
+ * @param <K> the type of the cache keys
+ * @param <V> the type of the cached values
+ * 
+ * @since 9.5.0
+ */
+public interface I_CmsCacheWeigher<K, V> {
+
+    /**
+     * Returns the weight of the given cache entry.<p>
+     * 
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * 
+     * @return the weight of the entry, must not be negative
+     */
+    int weigh(K key, V value);
+}
@@ -55,6 +55,7 @@ import org.opencms.search.solr.CmsSolrQuery;
 import org.opencms.search.solr.CmsSolrResultList;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsSpooledInputStream;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
@@ -686,6 +687,21 @@ public class CmsCmisRepository extends A_CmsCmisRepository {
                 contents = renditionProvider.getContent(cms, resource);
             } else if (resource.isFolder()) {
                 throw new CmisStreamNotSupportedException("Not a file!");
+            } else if ((offset == null) && (length == null)) {
+                // stream the complete content, so that large files are not loaded into memory at once,
+                // but copy it first, so the database connection is not held while the client reads it
+                ContentStreamImpl result = new ContentStreamImpl();
+                result.setFileName(resource.getName());
+                result.setLength(BigInteger.valueOf(resource.getLength()));
+                result.setMimeType(OpenCms.getResourceManager().getMimeType(resource.getRootPath(), null, "text/plain"));
+                try {
+                    result.setStream(CmsSpooledInputStream.spool(
+                        cms.readFileContentStream(resource),
+                        CmsSpooledInputStream.DEFAULT_MEMORY_THRESHOLD));
+                } catch (IOException e) {
+                    throw new CmisRuntimeException(e.getLocalizedMessage(), e);
+                }
+                return result;
             } else {
                 CmsFile file = cms.readFile(resource);
                 contents = file.getContents();
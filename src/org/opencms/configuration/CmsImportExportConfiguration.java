@@ -208,6 +208,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export exportheaders node. */
     public static final String N_STATICEXPORT_EXPORTHEADERS = "exportheaders";
 
+    /**  The node name of the static export exporthostconnections node. */
+    public static final String N_STATICEXPORT_EXPORTHOSTCONNECTIONS = "exporthostconnections";
+
     /**  The node name of the static export exportpath node. */
     public static final String N_STATICEXPORT_EXPORTPATH = "exportpath";
 
@@ -217,6 +220,9 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
     /**  The node name of the static export export-rules node. */
     public static final String N_STATICEXPORT_EXPORTRULES = "export-rules";
 
+    /**  The node name of the static export exportthreads node. */
+    public static final String N_STATICEXPORT_EXPORTTHREADS = "exportthreads";
+
     /**  The node name of the static export exporturl node. */
     public static final String N_STATICEXPORT_EXPORTURL = "exporturl";
 
@@ -489,6 +495,20 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
             + N_STATICEXPORT_RENDERSETTINGS
             + "/"
             + N_STATICEXPORT_PLAINOPTIMIZATION, "setPlainExportOptimization", 0);
+        // export threads rule
+        digester.addCallMethod("*/"
+            + N_STATICEXPORT
+            + "/"
+            + N_STATICEXPORT_RENDERSETTINGS
+            + "/"
+            + N_STATICEXPORT_EXPORTTHREADS, "setExportThreads", 0);
+        // export host connections rule
+        digester.addCallMethod("*/"
+            + N_STATICEXPORT
+            + "/"
+            + N_STATICEXPORT_RENDERSETTINGS
+            + "/"
+            + N_STATICEXPORT_EXPORTHOSTCONNECTIONS, "setExportHostConnections", 0);
         // test resource rule
         digester.addCallMethod("*/"
             + N_STATICEXPORT
@@ -854,6 +874,14 @@ public class CmsImportExportConfiguration extends A_CmsXmlConfiguration {
         rendersettingsElement.addElement(N_STATICEXPORT_PLAINOPTIMIZATION).addText(
             m_staticExportManager.getPlainExportOptimization());
 
+        // <exportthreads> node
+        rendersettingsElement.addElement(N_STATICEXPORT_EXPORTTHREADS).addText(
+            String.valueOf(m_staticExportManager.getExportThreads()));
+
+        // <exporthostconnections> node
+        rendersettingsElement.addElement(N_STATICEXPORT_EXPORTHOSTCONNECTIONS).addText(
+            String.valueOf(m_staticExportManager.getExportHostConnections()));
+
         // <testresource> node
         Element testresourceElement = rendersettingsElement.addElement(N_STATICEXPORT_TESTRESOURCE);
         testresourceElement.addAttribute(A_URI, m_staticExportManager.getTestResource());
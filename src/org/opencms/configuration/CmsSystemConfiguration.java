@@ -47,6 +47,7 @@ import org.opencms.main.I_CmsRequestHandler;
 import org.opencms.main.I_CmsResourceInit;
 import org.opencms.main.I_CmsSessionStorageProvider;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.CmsMemoryMonitorConfiguration;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.scheduler.CmsScheduleManager;
@@ -101,6 +102,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The attribute name for the deleted node. */
     public static final String A_DELETED = "deleted";
 
+    /** The "engine" attribute. */
+    public static final String A_ENGINE = "engine";
+
     /** The "error" attribute. */
     public static final String A_ERROR = "error";
 
@@ -110,6 +114,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The "exclusive" attribute. */
     public static final String A_EXCLUSIVE = "exclusive";
 
+    /** The "interval" attribute. */
+    public static final String A_INTERVAL = "interval";
+
+    /** The "maxbytes" attribute. */
+    public static final String A_MAXBYTES = "maxbytes";
+
     /** The "maxvisited" attribute. */
     public static final String A_MAXVISITED = "maxvisited";
 
@@ -176,12 +186,24 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the cache-enabled node. */
     public static final String N_CACHE_ENABLED = "cache-enabled";
 
+    /** The node name for the cache-engine node. */
+    public static final String N_CACHE_ENGINE = "cache-engine";
+
+    /** The node name for the cache-engines node. */
+    public static final String N_CACHE_ENGINES = "cache-engines";
+
     /** The node name for the cache-offline node. */
     public static final String N_CACHE_OFFLINE = "cache-offline";
 
     /** The node name for a job class. */
     public static final String N_CLASS = "class";
 
+    /** The node name for the cluster transport of the publish manager. */
+    public static final String N_CLUSTER_TRANSPORT = "cluster-transport";
+
+    /** The node name for the concurrent LRU cache flag of the flexcache node. */
+    public static final String N_CONCURRENT_LRU = "concurrent-lru";
+
     /** The configuration node name. */
     public static final String N_CONFIGURATION = "configuration";
 
@@ -338,6 +360,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The duration after which responsibles will be notified about out-dated content. */
     public static final String N_NOTIFICATION_TIME = "notification-time";
 
+    /** The node name for the flex cache off-heap store size. */
+    public static final String N_OFFHEAPBYTES = "offheapbytes";
+
     /** The node name for the job parameters. */
     public static final String N_PARAMETERS = "parameters";
 
@@ -530,6 +555,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the workplace-server node. */
     public static final String N_WORKPLACE_SERVER = "workplace-server";
 
+    /** The node name for the XML contents cache node. */
+    public static final String N_XMLCONTENTS = "xmlcontents";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSystemConfiguration.class);
 
@@ -1053,6 +1081,27 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_EMAIL_RECEIVER + "/" + N_RECEIVER,
             "addEmailReceiver",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_ENGINES,
+            "setDefaultCacheEngine",
+            1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_ENGINES, 0, A_DEFAULT);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_ENGINES + "/" + N_CACHE_ENGINE,
+            "addCacheEngine",
+            3);
+        digester.addCallParam(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_ENGINES + "/" + N_CACHE_ENGINE,
+            0,
+            A_TYPE);
+        digester.addCallParam(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_ENGINES + "/" + N_CACHE_ENGINE,
+            1,
+            A_ENGINE);
+        digester.addCallParam(
+            "*/" + N_SYSTEM + "/" + N_MEMORYMONITOR + "/" + N_CACHE_ENGINES + "/" + N_CACHE_ENGINE,
+            2,
+            A_MAXBYTES);
 
         // set the MemoryMonitorConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_MEMORYMONITOR, "setCmsMemoryMonitorConfiguration");
@@ -1066,6 +1115,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_AVGCACHEBYTES, 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXENTRYBYTES, 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXKEYS, 5);
+        // add flexcache LRU cache implementation
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_CONCURRENT_LRU, "setConcurrentLru", 0);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPBYTES, "setOffHeapBytes", 0);
         // add flexcache device selector
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR,
@@ -1167,6 +1219,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_QUEUESHUTDOWNTIME,
             "setPublishQueueShutdowntime",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_CLUSTER_TRANSPORT,
+            "setClusterTransport",
+            2);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_CLUSTER_TRANSPORT, 0, A_CLASS);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER + "/" + N_CLUSTER_TRANSPORT, 1, A_INTERVAL);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_PUBLISHMANAGER, "setPublishManager");
 
         // add rule for session storage provider
@@ -1206,6 +1264,8 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+        digester.addCallMethod(adeCachePath + "/" + N_XMLCONTENTS, "setXmlContentOnlineSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_XMLCONTENTS, 0, A_ONLINE);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1516,6 +1576,26 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                     emailreceiverElement.addElement(N_RECEIVER).addText(iter.next());
                 }
             }
+            Map<CmsMemoryMonitor.CacheType, CmsMemoryMonitorConfiguration.CacheEngine> cacheEngines =
+                m_cmsMemoryMonitorConfiguration.getCacheEngines();
+            if (m_cmsMemoryMonitorConfiguration.isDefaultCacheEngineConfigured() || !cacheEngines.isEmpty()) {
+                Element cacheEnginesElement = memorymonitorElement.addElement(N_CACHE_ENGINES);
+                if (m_cmsMemoryMonitorConfiguration.isDefaultCacheEngineConfigured()) {
+                    cacheEnginesElement.addAttribute(
+                        A_DEFAULT,
+                        m_cmsMemoryMonitorConfiguration.getDefaultCacheEngine().name().toLowerCase());
+                }
+                for (Map.Entry<CmsMemoryMonitor.CacheType, CmsMemoryMonitorConfiguration.CacheEngine> entry :
+                    cacheEngines.entrySet()) {
+                    Element cacheEngineElement = cacheEnginesElement.addElement(N_CACHE_ENGINE);
+                    cacheEngineElement.addAttribute(A_TYPE, entry.getKey().name().toLowerCase());
+                    cacheEngineElement.addAttribute(A_ENGINE, entry.getValue().name().toLowerCase());
+                    long maxBytes = m_cmsMemoryMonitorConfiguration.getCacheMaxBytes(entry.getKey());
+                    if (maxBytes > 0) {
+                        cacheEngineElement.addAttribute(A_MAXBYTES, String.valueOf(maxBytes));
+                    }
+                }
+            }
         }
 
         // create <flexcache> node
@@ -1531,6 +1611,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         flexcacheElement.addElement(N_MAXENTRYBYTES).addText(
             String.valueOf(m_cmsFlexCacheConfiguration.getMaxEntryBytes()));
         flexcacheElement.addElement(N_MAXKEYS).addText(String.valueOf(m_cmsFlexCacheConfiguration.getMaxKeys()));
+        if (m_cmsFlexCacheConfiguration.isConcurrentLru()) {
+            flexcacheElement.addElement(N_CONCURRENT_LRU).addText(Boolean.TRUE.toString());
+        }
+        if (m_cmsFlexCacheConfiguration.getOffHeapBytes() > 0) {
+            flexcacheElement.addElement(N_OFFHEAPBYTES).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getOffHeapBytes()));
+        }
         if (m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration() != null) {
             Element flexcacheDeviceSelectorElement = flexcacheElement.addElement(N_DEVICESELECTOR);
             flexcacheDeviceSelectorElement.addAttribute(
@@ -1603,6 +1690,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 String.valueOf(m_publishManager.isPublishQueuePersistanceEnabled()));
             pubHistElement.addElement(N_QUEUESHUTDOWNTIME).setText(
                 String.valueOf(m_publishManager.getPublishQueueShutdowntime()));
+            // optional node for the cluster cache invalidation
+            if (m_publishManager.getClusterTransport() != null) {
+                Element clusterElement = pubHistElement.addElement(N_CLUSTER_TRANSPORT);
+                clusterElement.addAttribute(A_CLASS, m_publishManager.getClusterTransport());
+                clusterElement.addAttribute(A_INTERVAL, String.valueOf(m_publishManager.getClusterInterval()));
+            }
         }
 
         // session storage provider
@@ -1662,6 +1755,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(A_OFFLINE, ""
                     + getAdeCacheSettings().getGroupContainerOfflineSize());
                 groupContainerCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+                // XML content cache
+                Element xmlContentCacheElem = cacheElem.addElement(N_XMLCONTENTS);
+                xmlContentCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getXmlContentOnlineSize());
             }
         }
 
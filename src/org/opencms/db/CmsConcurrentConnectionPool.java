@@ -0,0 +1,633 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.main.CmsLog;
+
+import java.util.NoSuchElementException;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * Connection pool with low contention between the threads borrowing and returning connections.<p>
+ * 
+ * The generic commons-pool implementation synchronizes every borrow and return on the pool.
+ * This pool keeps the idle connections in a non-blocking queue and limits the number of active
+ * connections with a semaphore, so that threads only wait for each other if the pool is exhausted.<p>
+ * 
+ * The pool supports the same configuration as the {@link CmsGenericConnectionPool},
+ * idle connections are handed out in the order they have been returned.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsConcurrentConnectionPool implements I_CmsConnectionPool {
+
+    /**
+     * An idle connection together with the time it was returned to the pool.<p>
+     */
+    private static class CmsIdleObject {
+
+        /** The idle object. */
+        protected Object m_object;
+
+        /** The time the object was returned to the pool. */
+        protected long m_returned;
+
+        /**
+         * Creates a new idle object.<p>
+         * 
+         * @param object the idle object
+         */
+        protected CmsIdleObject(Object object) {
+
+            m_object = object;
+            m_returned = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Semaphore that allows to reduce the number of permits.<p>
+     */
+    private static class CmsPermits extends Semaphore {
+
+        /** The serial version id. */
+        private static final long serialVersionUID = -4785410353536208143L;
+
+        /**
+         * Creates a new semaphore.<p>
+         * 
+         * @param permits the initial number of permits
+         */
+        protected CmsPermits(int permits) {
+
+            super(permits);
+        }
+
+        /**
+         * @see java.util.concurrent.Semaphore#reducePermits(int)
+         */
+        @Override
+        protected void reducePermits(int reduction) {
+
+            super.reducePermits(reduction);
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsConcurrentConnectionPool.class);
+
+    /** The number of permits used if the number of active connections is not limited. */
+    private static final int UNLIMITED = Integer.MAX_VALUE / 2;
+
+    /** Flag indicating if the pool has been closed. */
+    private volatile boolean m_closed;
+
+    /** The timer running the evictor, or <code>null</code> if no evictor is running. */
+    private Timer m_evictor;
+
+    /** The factory to create, validate and destroy the connections. */
+    private volatile PoolableObjectFactory m_factory;
+
+    /** The number of connections borrowed without a permit because the pool was exhausted. */
+    private AtomicInteger m_grown;
+
+    /** The idle connections. */
+    private ConcurrentLinkedQueue<CmsIdleObject> m_idle;
+
+    /** The maximum number of active connections. */
+    private int m_maxActive;
+
+    /** The maximum number of idle connections. */
+    private volatile int m_maxIdle;
+
+    /** The maximum time to wait for a connection in milliseconds. */
+    private volatile long m_maxWait;
+
+    /** The usage metrics of this pool. */
+    private CmsConnectionPoolMetrics m_metrics;
+
+    /** The minimum time a connection must be idle before it is subject to eviction. */
+    private volatile long m_minEvictableIdleTime;
+
+    /** The minimum number of idle connections kept by the evictor. */
+    private volatile int m_minIdle;
+
+    /** The number of active connections. */
+    private AtomicInteger m_numActive;
+
+    /** The number of idle connections. */
+    private AtomicInteger m_numIdle;
+
+    /** The number of idle connections tested per eviction run. */
+    private volatile int m_numTestsPerEvictionRun;
+
+    /** The permits for active connections. */
+    private CmsPermits m_permits;
+
+    /** Flag indicating if connections are validated before they are borrowed. */
+    private volatile boolean m_testOnBorrow;
+
+    /** Flag indicating if idle connections are validated by the evictor. */
+    private volatile boolean m_testWhileIdle;
+
+    /** The action to take if the pool is exhausted. */
+    private volatile byte m_whenExhaustedAction;
+
+    /**
+     * Creates a new connection pool without a factory.<p>
+     * 
+     * The defaults are the same as for the commons-pool {@link GenericObjectPool}.<p>
+     */
+    public CmsConcurrentConnectionPool() {
+
+        m_grown = new AtomicInteger();
+        m_idle = new ConcurrentLinkedQueue<CmsIdleObject>();
+        m_maxActive = GenericObjectPool.DEFAULT_MAX_ACTIVE;
+        m_maxIdle = GenericObjectPool.DEFAULT_MAX_IDLE;
+        m_maxWait = GenericObjectPool.DEFAULT_MAX_WAIT;
+        m_metrics = new CmsConnectionPoolMetrics();
+        m_minEvictableIdleTime = GenericObjectPool.DEFAULT_MIN_EVICTABLE_IDLE_TIME_MILLIS;
+        m_minIdle = GenericObjectPool.DEFAULT_MIN_IDLE;
+        m_numActive = new AtomicInteger();
+        m_numIdle = new AtomicInteger();
+        m_numTestsPerEvictionRun = GenericObjectPool.DEFAULT_NUM_TESTS_PER_EVICTION_RUN;
+        m_permits = new CmsPermits(getPermits(m_maxActive));
+        m_testOnBorrow = GenericObjectPool.DEFAULT_TEST_ON_BORROW;
+        m_testWhileIdle = GenericObjectPool.DEFAULT_TEST_WHILE_IDLE;
+        m_whenExhaustedAction = GenericObjectPool.DEFAULT_WHEN_EXHAUSTED_ACTION;
+    }
+
+    /**
+     * Returns the number of permits to use for the given maximum number of active connections.<p>
+     * 
+     * @param maxActive the maximum number of active connections
+     * 
+     * @return the number of permits
+     */
+    private static int getPermits(int maxActive) {
+
+        return maxActive < 0 ? UNLIMITED : maxActive;
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#addObject()
+     */
+    public void addObject() throws Exception {
+
+        checkOpen();
+        Object obj = m_factory.makeObject();
+        try {
+            m_factory.passivateObject(obj);
+        } catch (Exception e) {
+            destroyObject(obj);
+            throw e;
+        }
+        addIdle(new CmsIdleObject(obj));
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#borrowObject()
+     */
+    public Object borrowObject() throws Exception {
+
+        long start = System.nanoTime();
+        checkOpen();
+        try {
+            acquirePermit();
+        } catch (Exception e) {
+            m_metrics.addBorrowFailure();
+            throw e;
+        }
+        try {
+            Object result = null;
+            while (result == null) {
+                CmsIdleObject idle = m_idle.poll();
+                boolean created = false;
+                if (idle != null) {
+                    m_numIdle.decrementAndGet();
+                    result = idle.m_object;
+                } else {
+                    result = m_factory.makeObject();
+                    created = true;
+                }
+                try {
+                    m_factory.activateObject(result);
+                    if (m_testOnBorrow && !m_factory.validateObject(result)) {
+                        throw new Exception("ValidateObject failed");
+                    }
+                } catch (Exception e) {
+                    destroyObject(result);
+                    result = null;
+                    if (created) {
+                        throw new NoSuchElementException("Could not create a validated object, cause: "
+                            + e.getMessage());
+                    }
+                }
+            }
+            m_numActive.incrementAndGet();
+            m_metrics.addBorrow(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            releasePermit();
+            m_metrics.addBorrowFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#clear()
+     */
+    public void clear() {
+
+        CmsIdleObject idle = m_idle.poll();
+        while (idle != null) {
+            m_numIdle.decrementAndGet();
+            destroyObject(idle.m_object);
+            idle = m_idle.poll();
+        }
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#close()
+     */
+    public void close() {
+
+        m_closed = true;
+        synchronized (this) {
+            if (m_evictor != null) {
+                m_evictor.cancel();
+                m_evictor = null;
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Runs the evictor once.<p>
+     * 
+     * Tests the configured number of idle connections, destroys the connections that are idle too long 
+     * or that fail the validation and finally creates new idle connections until the minimum number
+     * of idle connections is reached.<p>
+     */
+    public void evict() {
+
+        int tests = m_numTestsPerEvictionRun;
+        int numIdle = m_numIdle.get();
+        tests = (tests >= 0) ? Math.min(tests, numIdle) : (int)Math.ceil(numIdle / Math.abs((double)tests));
+        long now = System.currentTimeMillis();
+        for (int i = 0; (i < tests) && !m_closed; i++) {
+            CmsIdleObject idle = m_idle.poll();
+            if (idle == null) {
+                break;
+            }
+            m_numIdle.decrementAndGet();
+            boolean keep = true;
+            if ((m_minEvictableIdleTime > 0)
+                && ((now - idle.m_returned) > m_minEvictableIdleTime)
+                && (m_numIdle.get() >= m_minIdle)) {
+                keep = false;
+            } else if (m_testWhileIdle) {
+                try {
+                    m_factory.activateObject(idle.m_object);
+                    keep = m_factory.validateObject(idle.m_object);
+                    if (keep) {
+                        m_factory.passivateObject(idle.m_object);
+                    }
+                } catch (Exception e) {
+                    keep = false;
+                }
+            }
+            if (keep) {
+                addIdle(idle);
+            } else {
+                destroyObject(idle.m_object);
+            }
+        }
+        try {
+            while (!m_closed && (m_numIdle.get() < m_minIdle) && (m_permits.availablePermits() > 0)) {
+                addObject();
+            }
+        } catch (Exception e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#getMaxActive()
+     */
+    public synchronized int getMaxActive() {
+
+        return m_maxActive;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#getMetrics()
+     */
+    public CmsConnectionPoolMetrics getMetrics() {
+
+        return m_metrics;
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#getNumActive()
+     */
+    public int getNumActive() {
+
+        return m_numActive.get();
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#getNumIdle()
+     */
+    public int getNumIdle() {
+
+        return m_numIdle.get();
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#invalidateObject(java.lang.Object)
+     */
+    public void invalidateObject(Object obj) {
+
+        m_numActive.decrementAndGet();
+        try {
+            destroyObject(obj);
+        } finally {
+            releasePermit();
+        }
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#returnObject(java.lang.Object)
+     */
+    public void returnObject(Object obj) {
+
+        m_numActive.decrementAndGet();
+        try {
+            int maxIdle = m_maxIdle;
+            if (m_closed || ((maxIdle >= 0) && (m_numIdle.get() >= maxIdle))) {
+                destroyObject(obj);
+            } else {
+                try {
+                    m_factory.passivateObject(obj);
+                    addIdle(new CmsIdleObject(obj));
+                } catch (Exception e) {
+                    destroyObject(obj);
+                }
+            }
+        } finally {
+            releasePermit();
+        }
+    }
+
+    /**
+     * @see org.apache.commons.pool.ObjectPool#setFactory(org.apache.commons.pool.PoolableObjectFactory)
+     */
+    // deprecated in the pool API, but still used by the DBCP connection factory to register itself
+    @SuppressWarnings("deprecation")
+    public void setFactory(PoolableObjectFactory factory) throws IllegalStateException {
+
+        if (m_numActive.get() > 0) {
+            throw new IllegalStateException("Objects are already active");
+        }
+        clear();
+        m_factory = factory;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setMaxActive(int)
+     */
+    public synchronized void setMaxActive(int maxActive) {
+
+        int delta = getPermits(maxActive) - getPermits(m_maxActive);
+        if (delta > 0) {
+            m_permits.release(delta);
+        } else if (delta < 0) {
+            m_permits.reducePermits(-delta);
+        }
+        m_maxActive = maxActive;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setMaxIdle(int)
+     */
+    public void setMaxIdle(int maxIdle) {
+
+        m_maxIdle = maxIdle;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setMaxWait(long)
+     */
+    public void setMaxWait(long maxWait) {
+
+        m_maxWait = maxWait;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setMinEvictableIdleTimeMillis(long)
+     */
+    public void setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis) {
+
+        m_minEvictableIdleTime = minEvictableIdleTimeMillis;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setMinIdle(int)
+     */
+    public void setMinIdle(int minIdle) {
+
+        m_minIdle = minIdle;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setNumTestsPerEvictionRun(int)
+     */
+    public void setNumTestsPerEvictionRun(int numTestsPerEvictionRun) {
+
+        m_numTestsPerEvictionRun = numTestsPerEvictionRun;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setTestOnBorrow(boolean)
+     */
+    public void setTestOnBorrow(boolean testOnBorrow) {
+
+        m_testOnBorrow = testOnBorrow;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setTestWhileIdle(boolean)
+     */
+    public void setTestWhileIdle(boolean testWhileIdle) {
+
+        m_testWhileIdle = testWhileIdle;
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setTimeBetweenEvictionRunsMillis(long)
+     */
+    public synchronized void setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis) {
+
+        if (m_evictor != null) {
+            m_evictor.cancel();
+            m_evictor = null;
+        }
+        if ((timeBetweenEvictionRunsMillis > 0) && !m_closed) {
+            m_evictor = new Timer("OpenCms: Connection pool evictor", true);
+            m_evictor.schedule(new TimerTask() {
+
+                /**
+                 * @see java.util.TimerTask#run()
+                 */
+                @Override
+                public void run() {
+
+                    try {
+                        evict();
+                    } catch (Throwable t) {
+                        LOG.error(t.getLocalizedMessage(), t);
+                    }
+                }
+            }, timeBetweenEvictionRunsMillis, timeBetweenEvictionRunsMillis);
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#setWhenExhaustedAction(byte)
+     */
+    public void setWhenExhaustedAction(byte whenExhaustedAction) {
+
+        m_whenExhaustedAction = whenExhaustedAction;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[" + getClass().getName() + ", active: " + getNumActive() + ", idle: " + getNumIdle() + "]";
+    }
+
+    /**
+     * Acquires a permit for borrowing a connection, according to the configured "when exhausted" action.<p>
+     * 
+     * @throws InterruptedException if the thread is interrupted while waiting for a permit
+     * @throws NoSuchElementException if no permit is available
+     */
+    private void acquirePermit() throws InterruptedException, NoSuchElementException {
+
+        if (m_permits.tryAcquire()) {
+            return;
+        }
+        switch (m_whenExhaustedAction) {
+            case GenericObjectPool.WHEN_EXHAUSTED_GROW:
+                m_grown.incrementAndGet();
+                break;
+            case GenericObjectPool.WHEN_EXHAUSTED_FAIL:
+                throw new NoSuchElementException("Pool exhausted");
+            default:
+                long maxWait = m_maxWait;
+                if (maxWait <= 0) {
+                    m_permits.acquire();
+                } else if (!m_permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                    throw new NoSuchElementException("Timeout waiting for idle object");
+                }
+        }
+    }
+
+    /**
+     * Adds an idle connection to the pool.<p>
+     * 
+     * @param idle the idle connection
+     */
+    private void addIdle(CmsIdleObject idle) {
+
+        m_idle.offer(idle);
+        m_numIdle.incrementAndGet();
+        if (m_closed) {
+            // the pool may have been closed concurrently
+            clear();
+        }
+    }
+
+    /**
+     * Ensures the pool has not been closed.<p>
+     * 
+     * @throws IllegalStateException if the pool has been closed
+     */
+    private void checkOpen() throws IllegalStateException {
+
+        if (m_closed) {
+            throw new IllegalStateException("Pool not open");
+        }
+    }
+
+    /**
+     * Destroys a connection, ignoring all errors.<p>
+     * 
+     * @param obj the connection to destroy
+     */
+    private void destroyObject(Object obj) {
+
+        try {
+            m_factory.destroyObject(obj);
+        } catch (Exception e) {
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+    }
+
+    /**
+     * Releases the permit of a borrowed connection.<p>
+     * 
+     * Connections that have been borrowed without a permit because the pool was exhausted
+     * are accounted for first.<p>
+     */
+    private void releasePermit() {
+
+        int grown = m_grown.get();
+        while (grown > 0) {
+            if (m_grown.compareAndSet(grown, grown - 1)) {
+                return;
+            }
+            grown = m_grown.get();
+        }
+        m_permits.release();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the usage metrics of a database connection pool.<p>
+ * 
+ * The time needed to borrow a connection is recorded in a histogram with fixed bucket bounds,
+ * in addition the prepared statement requests and the statements actually prepared 
+ * by the database are counted if statement pooling is enabled.<p>
+ * 
+ * All counters are updated without locking, so the values read while the pool is in use
+ * are not necessarily consistent with each other.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsConnectionPoolMetrics {
+
+    /** The upper bounds of the borrow wait histogram buckets in milliseconds, the last bucket has no bound. */
+    private static final long[] BORROW_WAIT_BOUNDS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+
+    /** The number of failed borrow attempts. */
+    private AtomicLong m_borrowFailures;
+
+    /** The borrow wait histogram. */
+    private AtomicLongArray m_borrowWaitHistogram;
+
+    /** The maximum borrow wait time in nanoseconds. */
+    private AtomicLong m_maxBorrowWait;
+
+    /** The number of statements prepared by the database. */
+    private AtomicLong m_statementPrepares;
+
+    /** The number of prepared statement requests. */
+    private AtomicLong m_statementRequests;
+
+    /** The total borrow wait time in nanoseconds. */
+    private AtomicLong m_totalBorrowWait;
+
+    /**
+     * Creates new, empty pool metrics.<p>
+     */
+    public CmsConnectionPoolMetrics() {
+
+        m_borrowFailures = new AtomicLong();
+        m_borrowWaitHistogram = new AtomicLongArray(BORROW_WAIT_BOUNDS.length + 1);
+        m_maxBorrowWait = new AtomicLong();
+        m_statementPrepares = new AtomicLong();
+        m_statementRequests = new AtomicLong();
+        m_totalBorrowWait = new AtomicLong();
+    }
+
+    /**
+     * Records a successful borrow of a connection.<p>
+     * 
+     * @param waitNanos the time needed to borrow the connection in nanoseconds
+     */
+    public void addBorrow(long waitNanos) {
+
+        long waitMillis = waitNanos / 1000000L;
+        int bucket = 0;
+        while ((bucket < BORROW_WAIT_BOUNDS.length) && (waitMillis >= BORROW_WAIT_BOUNDS[bucket])) {
+            bucket++;
+        }
+        m_borrowWaitHistogram.incrementAndGet(bucket);
+        m_totalBorrowWait.addAndGet(waitNanos);
+        long max = m_maxBorrowWait.get();
+        while ((waitNanos > max) && !m_maxBorrowWait.compareAndSet(max, waitNanos)) {
+            max = m_maxBorrowWait.get();
+        }
+    }
+
+    /**
+     * Records a failed attempt to borrow a connection.<p>
+     */
+    public void addBorrowFailure() {
+
+        m_borrowFailures.incrementAndGet();
+    }
+
+    /**
+     * Records a statement prepared by the database because it was not found in the statement pool.<p>
+     */
+    public void addStatementPrepare() {
+
+        m_statementPrepares.incrementAndGet();
+    }
+
+    /**
+     * Records a request for a prepared statement.<p>
+     */
+    public void addStatementRequest() {
+
+        m_statementRequests.incrementAndGet();
+    }
+
+    /**
+     * Returns the average time needed to borrow a connection.<p>
+     * 
+     * @return the average borrow wait time in milliseconds
+     */
+    public double getAverageBorrowWait() {
+
+        long count = getBorrowCount();
+        if (count == 0) {
+            return 0;
+        }
+        return m_totalBorrowWait.get() / (count * 1000000.0);
+    }
+
+    /**
+     * Returns the number of connections successfully borrowed from the pool.<p>
+     * 
+     * @return the number of connections successfully borrowed
+     */
+    public long getBorrowCount() {
+
+        long result = 0;
+        for (int i = 0; i < m_borrowWaitHistogram.length(); i++) {
+            result += m_borrowWaitHistogram.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of failed attempts to borrow a connection.<p>
+     * 
+     * @return the number of failed borrow attempts
+     */
+    public long getBorrowFailureCount() {
+
+        return m_borrowFailures.get();
+    }
+
+    /**
+     * Returns the upper bounds of the borrow wait histogram buckets.<p>
+     * 
+     * The histogram has one more bucket than bounds, which counts all borrows that took longer
+     * than the last bound.<p>
+     * 
+     * @return the upper bounds of the histogram buckets in milliseconds
+     */
+    public long[] getBorrowWaitBounds() {
+
+        return BORROW_WAIT_BOUNDS.clone();
+    }
+
+    /**
+     * Returns the borrow wait histogram.<p>
+     * 
+     * @return the number of borrows per bucket
+     * 
+     * @see #getBorrowWaitBounds()
+     */
+    public long[] getBorrowWaitHistogram() {
+
+        long[] result = new long[m_borrowWaitHistogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = m_borrowWaitHistogram.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the borrow wait histogram as a String.<p>
+     * 
+     * @return the borrow wait histogram as a String
+     */
+    public String getBorrowWaitHistogramString() {
+
+        long[] histogram = getBorrowWaitHistogram();
+        StringBuffer result = new StringBuffer();
+        for (int i = 0; i < histogram.length; i++) {
+            if (i > 0) {
+                result.append(' ');
+            }
+            if (i < BORROW_WAIT_BOUNDS.length) {
+                result.append('<').append(BORROW_WAIT_BOUNDS[i]);
+            } else {
+                result.append(">=").append(BORROW_WAIT_BOUNDS[BORROW_WAIT_BOUNDS.length - 1]);
+            }
+            result.append("ms:").append(histogram[i]);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the maximum time needed to borrow a connection.<p>
+     * 
+     * @return the maximum borrow wait time in milliseconds
+     */
+    public long getMaxBorrowWait() {
+
+        return m_maxBorrowWait.get() / 1000000L;
+    }
+
+    /**
+     * Returns the number of statements prepared by the database.<p>
+     * 
+     * @return the number of statements prepared by the database
+     */
+    public long getStatementPrepareCount() {
+
+        return m_statementPrepares.get();
+    }
+
+    /**
+     * Returns the number of prepared statement requests served by the statement pool.<p>
+     * 
+     * @return the number of prepared statement requests
+     */
+    public long getStatementRequestCount() {
+
+        return m_statementRequests.get();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer();
+        result.append("borrows: ").append(getBorrowCount());
+        result.append(", failures: ").append(getBorrowFailureCount());
+        result.append(", max wait: ").append(getMaxBorrowWait()).append("ms");
+        result.append(", wait histogram: [").append(getBorrowWaitHistogramString()).append(']');
+        result.append(", statement requests: ").append(getStatementRequestCount());
+        result.append(", statements prepared: ").append(getStatementPrepareCount());
+        return result.toString();
+    }
+}
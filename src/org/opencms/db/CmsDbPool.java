@@ -63,6 +63,9 @@ public final class CmsDbPool {
     /** This prefix is required to make the JDBC DriverManager return pooled DBCP connections. */
     public static final String DBCP_JDBC_URL_PREFIX = "jdbc:apache:commons:dbcp:";
 
+    /** The default connection pool implementation class. */
+    public static final String DEFAULT_POOL_CLASS = CmsGenericConnectionPool.class.getName();
+
     /** Key for number of connection attempts. */
     public static final String KEY_CONNECT_ATTEMTS = "connects";
 
@@ -117,6 +120,9 @@ public final class CmsDbPool {
     /** Key for database password. */
     public static final String KEY_PASSWORD = "password";
 
+    /** Key for the connection pool implementation class. */
+    public static final String KEY_POOL_CLASS = "poolClass";
+
     /** Key for default. */
     public static final String KEY_POOL_DEFAULT = "default";
 
@@ -263,24 +269,13 @@ public final class CmsDbPool {
         // create an instance of the JDBC driver
         Class.forName(jdbcDriver).newInstance();
 
-        // initialize a keyed object pool to store connections
-        GenericObjectPool connectionPool = new GenericObjectPool(null);
-
-        /* Abandoned pool configuration:
-         *  
-         * In case the systems encounters "pool exhaustion" (runs out of connections),
-         * comment the above line with "new GenericObjectPool(null)" and uncomment the 
-         * 5 lines below. This will generate an "abandoned pool" configuration that logs 
-         * abandoned connections to the System.out. Unfortunatly this code is deprecated,
-         * so to avoid code warnings it's also disabled here. 
-         * Tested with commons-pool v 1.2.
-         */
-
-        //        AbandonedConfig abandonedConfig = new AbandonedConfig();
-        //        abandonedConfig.setLogAbandoned(true);
-        //        abandonedConfig.setRemoveAbandoned(true);
-        //        abandonedConfig.setRemoveAbandonedTimeout(5);
-        //        GenericObjectPool connectionPool = new AbandonedObjectPool(null, abandonedConfig);
+        // initialize the configured object pool implementation to store connections
+        String poolClass = config.getString(
+            KEY_DATABASE_POOL + '.' + key + '.' + KEY_POOL_CLASS,
+            DEFAULT_POOL_CLASS).trim();
+        I_CmsConnectionPool connectionPool = Class.forName(poolClass).asSubclass(
+            I_CmsConnectionPool.class).getConstructor().newInstance();
+
         // initialize an object pool to store connections
         connectionPool.setMaxActive(maxActive);
         connectionPool.setMaxIdle(maxIdle);
@@ -309,8 +304,8 @@ public final class CmsDbPool {
         // Set up statement pool, if desired
         GenericKeyedObjectPoolFactory statementFactory = null;
         if (poolingStmts) {
-            statementFactory = new GenericKeyedObjectPoolFactory(
-                null,
+            statementFactory = new CmsStatementPoolFactory(
+                connectionPool.getMetrics(),
                 maxActiveStmts,
                 whenStmtsExhaustedAction,
                 maxWaitStmts,
@@ -355,6 +350,7 @@ public final class CmsDbPool {
 
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JDBC_POOL_2, poolUrl, jdbcUrl));
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JDBC_POOL_CLASS_2, poolUrl, poolClass));
         }
         return driver;
     }
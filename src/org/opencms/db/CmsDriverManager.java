@@ -108,12 +108,16 @@ import org.opencms.security.CmsRole;
 import org.opencms.security.CmsSecurityException;
 import org.opencms.security.I_CmsPermissionHandler;
 import org.opencms.security.I_CmsPrincipal;
+import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsStripedLock;
 import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.commons.CmsProgressThread;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -128,6 +132,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -337,7 +342,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     private CmsLockManager m_lockManager;
 
     /** The log entry cache. */
-    private List<CmsLogEntry> m_log = new ArrayList<CmsLogEntry>();
+    private List<CmsLogEntry> m_log = Collections.synchronizedList(new ArrayList<CmsLogEntry>());
 
     /** Local reference to the memory monitor to avoid multiple lookups through the OpenCms singleton. */
     private CmsMemoryMonitor m_monitor;
@@ -354,6 +359,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** Object used for synchronizing updates to the user publish list. */
     private Object m_publishListUpdateLock = new Object();
 
+    /** Object used for synchronizing the enqueuing of publish jobs. */
+    private Object m_publishProjectLock = new Object();
+
+    /** The locks for creating resources, by resource path and structure id. */
+    private CmsStripedLock m_resourceLocks = new CmsStripedLock();
+
     /** The security manager (for access checks). */
     private CmsSecurityManager m_securityManager;
 
@@ -533,7 +544,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             I_CmsEventListener.EVENT_CLEAR_CACHES,
             I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
             I_CmsEventListener.EVENT_USER_MODIFIED,
-            I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT});
 
         // return the configured driver manager
         return driverManager;
@@ -979,6 +991,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 writeExportPoints(dbc, report, publishHistoryId);
                 break;
 
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
+                List<CmsPublishedResource> publishedResources = CmsCollectionsGenericWrapper.list(event.getData().get(
+                    I_CmsEventListener.KEY_RESOURCES));
+                m_monitor.uncachePublishedResources(publishedResources);
+                break;
+
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 m_monitor.clearCache();
                 break;
@@ -1045,7 +1063,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(destination);
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -1201,7 +1219,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         copyAccessControlEntries(dbc, source, newResource, false);
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(newResource);
 
         List<CmsResource> modifiedResources = new ArrayList<CmsResource>();
         modifiedResources.add(source);
@@ -1581,7 +1599,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      *
      * @throws CmsException if something goes wrong
      */
-    public synchronized CmsResource createResource(
+    public CmsResource createResource(
         CmsDbContext dbc,
         String resourcePath,
         CmsResource resource,
@@ -1589,426 +1607,135 @@ public final class CmsDriverManager implements I_CmsEventListener {
         List<CmsProperty> properties,
         boolean importCase) throws CmsException {
 
-        CmsResource newResource = null;
-        if (resource.isFolder()) {
-            resourcePath = CmsFileUtil.addTrailingSeparator(resourcePath);
+        List<Lock> locks;
+        if (importCase && !OpenCms.getImportExportManager().overwriteCollidingResources()) {
+            // an import may move a colliding resource to the "lost and found" folder,
+            // which creates further resources with paths not known in advance
+            locks = m_resourceLocks.lockAll();
+        } else {
+            // serialize the creation of resources with the same path or the same structure id,
+            // resources with different paths can be created in parallel
+            CmsUUID structureId = resource.getStructureId();
+            locks = m_resourceLocks.lock(
+                CmsFileUtil.removeTrailingSeparator(resourcePath),
+                structureId.isNullUUID() ? null : structureId);
         }
-
         try {
-            // need to provide the parent folder id for resource creation
-            String parentFolderName = CmsResource.getParentFolder(resourcePath);
-            CmsResource parentFolder = readFolder(dbc, parentFolderName, CmsResourceFilter.IGNORE_EXPIRATION);
-
-            CmsLock parentLock = getLock(dbc, parentFolder);
-            // it is not allowed to create a resource in a folder locked by other user
-            if (!parentLock.isUnlocked() && !parentLock.isOwnedBy(dbc.currentUser())) {
-                // one exception is if the admin user tries to create a temporary resource
-                if (!CmsResource.getName(resourcePath).startsWith(TEMP_FILE_PREFIX)
-                    || !m_securityManager.hasRole(dbc, dbc.currentUser(), CmsRole.ROOT_ADMIN)) {
-                    throw new CmsLockException(Messages.get().container(
-                        Messages.ERR_CREATE_RESOURCE_PARENT_LOCK_1,
-                        dbc.removeSiteRoot(resourcePath)));
-                }
-            }
-            if (CmsResourceTypeJsp.isJsp(resource)) {
-                // security check when trying to create a new jsp file
-                m_securityManager.checkRoleForResource(dbc, CmsRole.DEVELOPER, parentFolder);
-            }
+            return internalCreateResource(dbc, resourcePath, resource, content, properties, importCase);
+        } finally {
+            m_resourceLocks.unlock(locks);
+        }
+    }
 
-            // check import configuration of "lost and found" folder
-            boolean useLostAndFound = importCase && !OpenCms.getImportExportManager().overwriteCollidingResources();
+    /**
+     * Creates a new resource of the given resource type
+     * with the provided content and properties.<p>
+     *
+     * If the provided content is null and the resource is not a folder,
+     * the content will be set to an empty byte array.<p>
+     *
+     * @param dbc the current database context
+     * @param resourcename the name of the resource to create (full path)
+     * @param type the type of the resource to create
+     * @param content the content for the new resource
+     * @param properties the properties for the new resource
+     *
+     * @return the created resource
+     *
+     * @throws CmsException if something goes wrong
+     * @throws CmsIllegalArgumentException if the <code>resourcename</code> argument is null or of length 0
+     *
+     * @see CmsObject#createResource(String, int, byte[], List)
+     * @see CmsObject#createResource(String, int)
+     * @see I_CmsResourceType#createResource(CmsObject, CmsSecurityManager, String, byte[], List)
+     */
+    public CmsResource createResource(
+        CmsDbContext dbc,
+        String resourcename,
+        int type,
+        byte[] content,
+        List<CmsProperty> properties) throws CmsException, CmsIllegalArgumentException {
 
-            // check if the resource already exists by name
-            CmsResource currentResourceByName = null;
-            try {
-                currentResourceByName = readResource(dbc, resourcePath, CmsResourceFilter.ALL);
-            } catch (CmsVfsResourceNotFoundException e) {
-                // if the resource does exist, we have to check the id later to decide what to do
-            }
+        String targetName = resourcename;
 
-            // check if the resource already exists by id
-            try {
-                CmsResource currentResourceById = readResource(dbc, resource.getStructureId(), CmsResourceFilter.ALL);
-                // it is not allowed to import resources when there is already a resource with the same id but different path
-                if (!currentResourceById.getRootPath().equals(resourcePath)) {
-                    throw new CmsVfsResourceAlreadyExistsException(Messages.get().container(
-                        Messages.ERR_RESOURCE_WITH_ID_ALREADY_EXISTS_3,
-                        dbc.removeSiteRoot(resourcePath),
-                        dbc.removeSiteRoot(currentResourceById.getRootPath()),
-                        currentResourceById.getStructureId()));
-                }
-            } catch (CmsVfsResourceNotFoundException e) {
-                // if the resource does exist, we have to check the id later to decide what to do
-            }
+        if (content == null) {
+            // name based resource creation MUST have a content
+            content = new byte[0];
+        }
+        int size;
 
-            // check the permissions
-            if (currentResourceByName == null) {
-                // resource does not exist - check parent folder
-                m_securityManager.checkPermissions(
-                    dbc,
-                    parentFolder,
-                    CmsPermissionSet.ACCESS_WRITE,
-                    false,
-                    CmsResourceFilter.IGNORE_EXPIRATION);
-            } else {
-                // resource already exists - check existing resource
-                m_securityManager.checkPermissions(
-                    dbc,
-                    currentResourceByName,
-                    CmsPermissionSet.ACCESS_WRITE,
-                    !importCase,
-                    CmsResourceFilter.ALL);
+        if (CmsFolder.isFolderType(type)) {
+            // must cut of trailing '/' for folder creation
+            if (CmsResource.isFolder(targetName)) {
+                targetName = targetName.substring(0, targetName.length() - 1);
             }
+            size = -1;
+        } else {
+            size = content.length;
+        }
 
-            // now look for the resource by name
-            if (currentResourceByName != null) {
-                boolean overwrite = true;
-                if (currentResourceByName.getState().isDeleted()) {
-                    if (!currentResourceByName.isFolder()) {
-                        // if a non-folder resource was deleted it's treated like a new resource
-                        overwrite = false;
-                    }
-                } else {
-                    if (!importCase) {
-                        // direct "overwrite" of a resource is possible only during import,
-                        // or if the resource has been deleted
-                        throw new CmsVfsResourceAlreadyExistsException(org.opencms.db.generic.Messages.get().container(
-                            org.opencms.db.generic.Messages.ERR_RESOURCE_WITH_NAME_ALREADY_EXISTS_1,
-                            dbc.removeSiteRoot(resource.getRootPath())));
-                    }
-                    // the resource already exists
-                    if (!resource.isFolder()
-                        && useLostAndFound
-                        && (!currentResourceByName.getResourceId().equals(resource.getResourceId()))) {
-                        // semantic change: the current resource is moved to L&F and the imported resource will overwrite the old one
-                        // will leave the resource with state deleted,
-                        // but it does not matter, since the state will be set later again
-                        moveToLostAndFound(dbc, currentResourceByName, false);
-                    }
-                }
-                if (!overwrite) {
-                    // lock the resource, will throw an exception if not lockable
-                    lockResource(dbc, currentResourceByName, CmsLockType.EXCLUSIVE);
+        // create a new resource
+        CmsResource newResource = new CmsResource(CmsUUID.getNullUUID(), // uuids will be "corrected" later
+            CmsUUID.getNullUUID(),
+            targetName,
+            type,
+            CmsFolder.isFolderType(type),
+            0,
+            dbc.currentProject().getUuid(),
+            CmsResource.STATE_NEW,
+            0,
+            dbc.currentUser().getId(),
+            0,
+            dbc.currentUser().getId(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            size,
+            0, // version number does not matter since it will be computed later
+            0); // content time will be corrected later
 
-                    // trigger createResource instead of writeResource
-                    currentResourceByName = null;
-                }
-            }
-            // if null, create new resource, if not null write resource
-            CmsResource overwrittenResource = currentResourceByName;
+        return createResource(dbc, targetName, newResource, content, properties, false);
+    }
 
-            // extract the name (without path)
-            String targetName = CmsResource.getName(resourcePath);
+    /**
+     * Creates a new sibling of the source resource.<p>
+     *
+     * @param dbc the current database context
+     * @param source the resource to create a sibling for
+     * @param destination the name of the sibling to create with complete path
+     * @param properties the individual properties for the new sibling
+     *
+     * @return the new created sibling
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#createSibling(String, String, List)
+     * @see I_CmsResourceType#createSibling(CmsObject, CmsSecurityManager, CmsResource, String, List)
+     */
+    public CmsResource createSibling(
+        CmsDbContext dbc,
+        CmsResource source,
+        String destination,
+        List<CmsProperty> properties) throws CmsException {
 
-            int contentLength;
+        if (source.isFolder()) {
+            throw new CmsVfsException(Messages.get().container(Messages.ERR_VFS_FOLDERS_DONT_SUPPORT_SIBLINGS_0));
+        }
 
-            // modify target name and content length in case of folder creation
-            if (resource.isFolder()) {
-                // folders never have any content
-                contentLength = -1;
-                // must cut of trailing '/' for folder creation (or name check fails)
-                if (CmsResource.isFolder(targetName)) {
-                    targetName = targetName.substring(0, targetName.length() - 1);
-                }
-            } else {
-                // otherwise ensure content and content length are set correctly
-                if (content != null) {
-                    // if a content is provided, in each case the length is the length of this content
-                    contentLength = content.length;
-                } else if (overwrittenResource != null) {
-                    // we have no content, but an already existing resource - length remains unchanged
-                    contentLength = overwrittenResource.getLength();
-                } else {
-                    // we have no content - length is used as set in the resource
-                    contentLength = resource.getLength();
-                }
-            }
+        // determine destination folder and resource name
+        String destinationFoldername = CmsResource.getParentFolder(destination);
 
-            // check if the target name is valid (forbidden chars etc.),
-            // if not throw an exception
-            // must do this here since targetName is modified in folder case (see above)
-            CmsResource.checkResourceName(targetName);
+        // read the destination folder (will also check read permissions)
+        CmsFolder destinationFolder = readFolder(dbc, destinationFoldername, CmsResourceFilter.IGNORE_EXPIRATION);
 
-            // set structure and resource ids as given
-            CmsUUID structureId = resource.getStructureId();
-            CmsUUID resourceId = resource.getResourceId();
+        // no further permission check required here, will be done in createResource()
 
-            // decide which structure id to use
-            if (overwrittenResource != null) {
-                // resource exists, re-use existing ids
-                structureId = overwrittenResource.getStructureId();
-            }
-            if (structureId.isNullUUID()) {
-                // need a new structure id
-                structureId = new CmsUUID();
-            }
-
-            // decide which resource id to use
-            if (overwrittenResource != null) {
-                // if we are overwriting we have to assure the resource id is the same
-                resourceId = overwrittenResource.getResourceId();
-            }
-            if (resourceId.isNullUUID()) {
-                // need a new resource id
-                resourceId = new CmsUUID();
-            }
-
-            try {
-                // check online resource
-                CmsResource onlineResource = getVfsDriver(dbc).readResource(
-                    dbc,
-                    CmsProject.ONLINE_PROJECT_ID,
-                    resourcePath,
-                    true);
-                // only allow to overwrite with different id if importing (createResource will set the right id)
-                try {
-                    CmsResource offlineResource = getVfsDriver(dbc).readResource(
-                        dbc,
-                        dbc.currentProject().getUuid(),
-                        onlineResource.getStructureId(),
-                        true);
-                    if (!offlineResource.getRootPath().equals(onlineResource.getRootPath())) {
-                        throw new CmsVfsOnlineResourceAlreadyExistsException(Messages.get().container(
-                            Messages.ERR_ONLINE_RESOURCE_EXISTS_2,
-                            dbc.removeSiteRoot(resourcePath),
-                            dbc.removeSiteRoot(offlineResource.getRootPath())));
-                    }
-                } catch (CmsVfsResourceNotFoundException e) {
-                    // there is no problem for now
-                    // but should never happen
-                    if (LOG.isErrorEnabled()) {
-                        LOG.error(e.getLocalizedMessage(), e);
-                    }
-                }
-            } catch (CmsVfsResourceNotFoundException e) {
-                // ok, there is no online entry to worry about
-            }
-
-            // now create a resource object with all informations
-            newResource = new CmsResource(
-                structureId,
-                resourceId,
-                resourcePath,
-                resource.getTypeId(),
-                resource.isFolder(),
-                resource.getFlags(),
-                dbc.currentProject().getUuid(),
-                resource.getState(),
-                resource.getDateCreated(),
-                resource.getUserCreated(),
-                resource.getDateLastModified(),
-                resource.getUserLastModified(),
-                resource.getDateReleased(),
-                resource.getDateExpired(),
-                1,
-                contentLength,
-                resource.getDateContent(),
-                resource.getVersion()); // version number does not matter since it will be computed later
-
-            // ensure date is updated only if required
-            if (resource.isTouched()) {
-                // this will trigger the internal "is touched" state on the new resource
-                newResource.setDateLastModified(resource.getDateLastModified());
-            }
-
-            if (resource.isFile()) {
-                // check if a sibling to the imported resource lies in a marked site
-                if (labelResource(dbc, resource, resourcePath, 2)) {
-                    int flags = resource.getFlags();
-                    flags |= CmsResource.FLAG_LABELED;
-                    resource.setFlags(flags);
-                }
-                // ensure siblings don't overwrite existing resource records
-                if (content == null) {
-                    newResource.setState(CmsResource.STATE_KEEP);
-                }
-            }
-
-            // delete all relations for the resource, before writing the content
-            getVfsDriver(dbc).deleteRelations(
-                dbc,
-                dbc.currentProject().getUuid(),
-                newResource,
-                CmsRelationFilter.TARGETS);
-            if (overwrittenResource == null) {
-                CmsLock lock = getLock(dbc, newResource);
-                if (lock.getEditionLock().isExclusive()) {
-                    unlockResource(dbc, newResource, true, false);
-                }
-                // resource does not exist.
-                newResource = getVfsDriver(dbc).createResource(
-                    dbc,
-                    dbc.currentProject().getUuid(),
-                    newResource,
-                    content);
-            } else {
-                // resource already exists.
-                // probably the resource is a merged page file that gets overwritten during import, or it gets
-                // overwritten by a copy operation. if so, the structure & resource state are not modified to changed.
-                int updateStates = (overwrittenResource.getState().isNew()
-                ? CmsDriverManager.NOTHING_CHANGED
-                : CmsDriverManager.UPDATE_ALL);
-                getVfsDriver(dbc).writeResource(dbc, dbc.currentProject().getUuid(), newResource, updateStates);
-
-                if ((content != null) && resource.isFile()) {
-                    // also update file content if required
-                    getVfsDriver(dbc).writeContent(dbc, newResource.getResourceId(), content);
-                }
-            }
-
-            // write the properties (internal operation, no events or duplicate permission checks)
-            writePropertyObjects(dbc, newResource, properties, false);
-
-            // lock the created resource
-            try {
-                // if it is locked by another user (copied or moved resource) this lock should be preserved and
-                // the exception is OK: locks on created resources are a slave feature to original locks
-                lockResource(dbc, newResource, CmsLockType.EXCLUSIVE);
-            } catch (CmsLockException cle) {
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(
-                        Messages.ERR_CREATE_RESOURCE_LOCK_1,
-                        new Object[] {dbc.removeSiteRoot(newResource.getRootPath())}));
-                }
-            }
-
-            if (!importCase) {
-                log(dbc, new CmsLogEntry(
-                    dbc,
-                    newResource.getStructureId(),
-                    CmsLogEntryType.RESOURCE_CREATED,
-                    new String[] {resource.getRootPath()}), false);
-            } else {
-                log(dbc, new CmsLogEntry(
-                    dbc,
-                    newResource.getStructureId(),
-                    CmsLogEntryType.RESOURCE_IMPORTED,
-                    new String[] {resource.getRootPath()}), false);
-            }
-        } finally {
-            // clear the internal caches
-            m_monitor.clearAccessControlListCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
-
-            if (newResource != null) {
-                // fire an event that a new resource has been created
-                OpenCms.fireCmsEvent(new CmsEvent(
-                    I_CmsEventListener.EVENT_RESOURCE_CREATED,
-                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, newResource)));
-            }
-        }
-        return newResource;
-    }
-
-    /**
-     * Creates a new resource of the given resource type
-     * with the provided content and properties.<p>
-     *
-     * If the provided content is null and the resource is not a folder,
-     * the content will be set to an empty byte array.<p>
-     *
-     * @param dbc the current database context
-     * @param resourcename the name of the resource to create (full path)
-     * @param type the type of the resource to create
-     * @param content the content for the new resource
-     * @param properties the properties for the new resource
-     *
-     * @return the created resource
-     *
-     * @throws CmsException if something goes wrong
-     * @throws CmsIllegalArgumentException if the <code>resourcename</code> argument is null or of length 0
-     *
-     * @see CmsObject#createResource(String, int, byte[], List)
-     * @see CmsObject#createResource(String, int)
-     * @see I_CmsResourceType#createResource(CmsObject, CmsSecurityManager, String, byte[], List)
-     */
-    public CmsResource createResource(
-        CmsDbContext dbc,
-        String resourcename,
-        int type,
-        byte[] content,
-        List<CmsProperty> properties) throws CmsException, CmsIllegalArgumentException {
-
-        String targetName = resourcename;
-
-        if (content == null) {
-            // name based resource creation MUST have a content
-            content = new byte[0];
-        }
-        int size;
-
-        if (CmsFolder.isFolderType(type)) {
-            // must cut of trailing '/' for folder creation
-            if (CmsResource.isFolder(targetName)) {
-                targetName = targetName.substring(0, targetName.length() - 1);
-            }
-            size = -1;
-        } else {
-            size = content.length;
-        }
-
-        // create a new resource
-        CmsResource newResource = new CmsResource(CmsUUID.getNullUUID(), // uuids will be "corrected" later
-            CmsUUID.getNullUUID(),
-            targetName,
-            type,
-            CmsFolder.isFolderType(type),
-            0,
-            dbc.currentProject().getUuid(),
-            CmsResource.STATE_NEW,
-            0,
-            dbc.currentUser().getId(),
-            0,
-            dbc.currentUser().getId(),
-            CmsResource.DATE_RELEASED_DEFAULT,
-            CmsResource.DATE_EXPIRED_DEFAULT,
-            1,
-            size,
-            0, // version number does not matter since it will be computed later
-            0); // content time will be corrected later
-
-        return createResource(dbc, targetName, newResource, content, properties, false);
-    }
-
-    /**
-     * Creates a new sibling of the source resource.<p>
-     *
-     * @param dbc the current database context
-     * @param source the resource to create a sibling for
-     * @param destination the name of the sibling to create with complete path
-     * @param properties the individual properties for the new sibling
-     *
-     * @return the new created sibling
-     *
-     * @throws CmsException if something goes wrong
-     *
-     * @see CmsObject#createSibling(String, String, List)
-     * @see I_CmsResourceType#createSibling(CmsObject, CmsSecurityManager, CmsResource, String, List)
-     */
-    public CmsResource createSibling(
-        CmsDbContext dbc,
-        CmsResource source,
-        String destination,
-        List<CmsProperty> properties) throws CmsException {
-
-        if (source.isFolder()) {
-            throw new CmsVfsException(Messages.get().container(Messages.ERR_VFS_FOLDERS_DONT_SUPPORT_SIBLINGS_0));
-        }
-
-        // determine destination folder and resource name
-        String destinationFoldername = CmsResource.getParentFolder(destination);
-
-        // read the destination folder (will also check read permissions)
-        CmsFolder destinationFolder = readFolder(dbc, destinationFoldername, CmsResourceFilter.IGNORE_EXPIRATION);
-
-        // no further permission check required here, will be done in createResource()
-
-        // check the resource flags
-        int flags = source.getFlags();
-        if (labelResource(dbc, source, destination, 1)) {
-            // set "labeled" link flag for new resource
-            flags |= CmsResource.FLAG_LABELED;
-        }
+        // check the resource flags
+        int flags = source.getFlags();
+        if (labelResource(dbc, source, destination, 1)) {
+            // set "labeled" link flag for new resource
+            flags |= CmsResource.FLAG_LABELED;
+        }
 
         // create the new resource
         CmsResource newResource = new CmsResource(
@@ -3751,6 +3478,39 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return new ArrayList<CmsGroup>(allChildren);
     }
 
+    /**
+     * Returns the usage metrics of a pool.<p>
+     *
+     * @param dbPoolUrl the url of a pool
+     * @return the usage metrics of the pool, or <code>null</code> if the pool does not collect metrics
+     * @throws CmsDbException if something goes wrong
+     */
+    public CmsConnectionPoolMetrics getConnectionPoolMetrics(String dbPoolUrl) throws CmsDbException {
+
+        boolean found = false;
+        try {
+            for (PoolingDriver d : m_connectionPools) {
+                ObjectPool p = d.getConnectionPool(dbPoolUrl);
+                if (p instanceof I_CmsConnectionPool) {
+                    return ((I_CmsConnectionPool)p).getMetrics();
+                }
+                if (p != null) {
+                    found = true;
+                }
+            }
+        } catch (Exception exc) {
+            CmsMessageContainer message = Messages.get().container(Messages.ERR_ACCESSING_POOL_1, dbPoolUrl);
+            throw new CmsDbException(message, exc);
+        }
+        if (found) {
+            // the pool exists but does not collect metrics
+            return null;
+        }
+
+        CmsMessageContainer message = Messages.get().container(Messages.ERR_UNKNOWN_POOL_URL_1, dbPoolUrl);
+        throw new CmsDbException(message);
+    }
+
     /**
      * Returns the date when the resource was last visited by the user.<p>
      *
@@ -4645,7 +4405,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         result = Collections.unmodifiableList(result);
-        m_monitor.cacheRoleList(key, result);
+        m_monitor.cacheRoleList(key, result, resource.getRootPath());
         return result;
     }
 
@@ -4916,7 +4676,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         while (i.hasNext()) {
             userDriver.writeAccessControlEntry(dbc, dbc.currentProject(), i.next());
         }
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(resource);
     }
 
     /**
@@ -5312,7 +5072,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void lockResource(CmsDbContext dbc, CmsResource resource, CmsLockType type) throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
 
         CmsProject project = dbc.currentProject();
 
@@ -5998,103 +5758,106 @@ public final class CmsDriverManager implements I_CmsEventListener {
      *
      * @see #fillPublishList(CmsDbContext, CmsPublishList)
      */
-    public synchronized void publishProject(
+    public void publishProject(
         CmsObject cms,
         CmsDbContext dbc,
         CmsPublishList publishList,
         I_CmsReport report) throws CmsException {
 
-        // check the parent folders
-        checkParentFolders(dbc, publishList);
-        ensureSubResourcesOfMovedFoldersPublished(cms, dbc, publishList);
+        // publish jobs are enqueued one after another, but this does not block other operations on the driver manager
+        synchronized (m_publishProjectLock) {
+            // check the parent folders
+            checkParentFolders(dbc, publishList);
+            ensureSubResourcesOfMovedFoldersPublished(cms, dbc, publishList);
 
-        try {
-            // fire an event that a project is to be published
-            Map<String, Object> eventData = new HashMap<String, Object>();
-            eventData.put(I_CmsEventListener.KEY_REPORT, report);
-            eventData.put(I_CmsEventListener.KEY_PUBLISHLIST, publishList);
-            eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
-            eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
-            CmsEvent beforePublishEvent = new CmsEvent(I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT, eventData);
-            OpenCms.fireCmsEvent(beforePublishEvent);
-        } catch (Throwable t) {
-            if (report != null) {
-                report.addError(t);
-                report.println(t);
-            }
-            if (LOG.isErrorEnabled()) {
-                LOG.error(t.getLocalizedMessage(), t);
+            try {
+                // fire an event that a project is to be published
+                Map<String, Object> eventData = new HashMap<String, Object>();
+                eventData.put(I_CmsEventListener.KEY_REPORT, report);
+                eventData.put(I_CmsEventListener.KEY_PUBLISHLIST, publishList);
+                eventData.put(I_CmsEventListener.KEY_PROJECTID, dbc.currentProject().getUuid());
+                eventData.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
+                CmsEvent beforePublishEvent = new CmsEvent(I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT, eventData);
+                OpenCms.fireCmsEvent(beforePublishEvent);
+            } catch (Throwable t) {
+                if (report != null) {
+                    report.addError(t);
+                    report.println(t);
+                }
+                if (LOG.isErrorEnabled()) {
+                    LOG.error(t.getLocalizedMessage(), t);
+                }
             }
-        }
 
-        // lock all resources with the special publish lock
-        Iterator<CmsResource> itResources = new ArrayList<CmsResource>(publishList.getAllResources()).iterator();
-        while (itResources.hasNext()) {
-            CmsResource resource = itResources.next();
-            CmsLock lock = m_lockManager.getLock(dbc, resource, false);
-            if (lock.getSystemLock().isUnlocked() && lock.isLockableBy(dbc.currentUser())) {
-                if (getLock(dbc, resource).getEditionLock().isNullLock()) {
-                    lockResource(dbc, resource, CmsLockType.PUBLISH);
+            // lock all resources with the special publish lock
+            Iterator<CmsResource> itResources = new ArrayList<CmsResource>(publishList.getAllResources()).iterator();
+            while (itResources.hasNext()) {
+                CmsResource resource = itResources.next();
+                CmsLock lock = m_lockManager.getLock(dbc, resource, false);
+                if (lock.getSystemLock().isUnlocked() && lock.isLockableBy(dbc.currentUser())) {
+                    if (getLock(dbc, resource).getEditionLock().isNullLock()) {
+                        lockResource(dbc, resource, CmsLockType.PUBLISH);
+                    } else {
+                        changeLock(dbc, resource, CmsLockType.PUBLISH);
+                    }
+                } else if (lock.getSystemLock().isPublish()) {
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(Messages.get().getBundle().key(
+                            Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
+                            dbc.removeSiteRoot(resource.getRootPath())));
+                    }
+                    // remove files that are already waiting to be published
+                    publishList.remove(resource);
+                    continue;
                 } else {
+                    // this is needed to fix TestPublishIsssues#testPublishScenarioE
                     changeLock(dbc, resource, CmsLockType.PUBLISH);
                 }
-            } else if (lock.getSystemLock().isPublish()) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(Messages.get().getBundle().key(
-                        Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
-                        dbc.removeSiteRoot(resource.getRootPath())));
-                }
-                // remove files that are already waiting to be published
-                publishList.remove(resource);
-                continue;
-            } else {
-                // this is needed to fix TestPublishIsssues#testPublishScenarioE
-                changeLock(dbc, resource, CmsLockType.PUBLISH);
-            }
-            // now re-check the lock state
-            lock = m_lockManager.getLock(dbc, resource, false);
-            if (!lock.getSystemLock().isPublish()) {
-                if (report != null) {
-                    report.println(
-                        Messages.get().container(
+                // now re-check the lock state
+                lock = m_lockManager.getLock(dbc, resource, false);
+                if (!lock.getSystemLock().isPublish()) {
+                    if (report != null) {
+                        report.println(
+                            Messages.get().container(
+                                Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
+                                dbc.removeSiteRoot(resource.getRootPath())),
+                            I_CmsReport.FORMAT_WARNING);
+                    }
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(Messages.get().getBundle().key(
                             Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
-                            dbc.removeSiteRoot(resource.getRootPath())),
-                        I_CmsReport.FORMAT_WARNING);
-                }
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(Messages.get().getBundle().key(
-                        Messages.RPT_PUBLISH_REMOVED_RESOURCE_1,
-                        dbc.removeSiteRoot(resource.getRootPath())));
+                            dbc.removeSiteRoot(resource.getRootPath())));
+                    }
+                    // remove files that could not be locked
+                    publishList.remove(resource);
                 }
-                // remove files that could not be locked
-                publishList.remove(resource);
             }
-        }
 
-        // enqueue the publish job
-        CmsException enqueueException = null;
-        try {
-            m_publishEngine.enqueuePublishJob(cms, publishList, report);
-        } catch (CmsException exc) {
-            enqueueException = exc;
-        }
+            // enqueue the publish job
+            CmsException enqueueException = null;
+            try {
+                m_publishEngine.enqueuePublishJob(cms, publishList, report);
+            } catch (CmsException exc) {
+                enqueueException = exc;
+            }
 
-        // if an exception was raised, remove the publish locks
-        // and throw the exception again
-        if (enqueueException != null) {
-            itResources = publishList.getAllResources().iterator();
-            while (itResources.hasNext()) {
-                CmsResource resource = itResources.next();
-                CmsLock lock = m_lockManager.getLock(dbc, resource, false);
-                if (lock.getSystemLock().isPublish()
-                    && lock.getSystemLock().isOwnedInProjectBy(
-                        cms.getRequestContext().getCurrentUser(),
-                        cms.getRequestContext().getCurrentProject())) {
-                    unlockResource(dbc, resource, true, true);
+            // if an exception was raised, remove the publish locks
+            // and throw the exception again
+            if (enqueueException != null) {
+                itResources = publishList.getAllResources().iterator();
+                while (itResources.hasNext()) {
+                    CmsResource resource = itResources.next();
+                    CmsLock lock = m_lockManager.getLock(dbc, resource, false);
+                    if (lock.getSystemLock().isPublish()
+                        && lock.getSystemLock().isOwnedInProjectBy(
+                            cms.getRequestContext().getCurrentUser(),
+                            cms.getRequestContext().getCurrentProject())) {
+                        unlockResource(dbc, resource, true, true);
+                    }
                 }
-            }
 
-            throw enqueueException;
+                throw enqueueException;
+            }
         }
     }
 
@@ -6426,7 +6189,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // cache the sub resources
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, resourceList, resource.getRootPath(), false);
             }
         }
 
@@ -6696,6 +6459,37 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return file;
     }
 
+    /**
+     * Reads the binary content of a file resource from the VFS as a stream.<p>
+     *
+     * The content is not loaded into memory at once, which makes this method suitable for
+     * sending large files to a client. The returned stream must always be closed.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource to read the content for
+     * @return the content of the file as a stream
+     * @throws CmsException if operation was not successful
+     *
+     * @see #readFile(CmsDbContext, CmsResource)
+     */
+    public InputStream readFileContentStream(CmsDbContext dbc, CmsResource resource) throws CmsException {
+
+        if (resource.isFolder()) {
+            throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                Messages.ERR_ACCESS_FOLDER_AS_FILE_1,
+                dbc.removeSiteRoot(resource.getRootPath())));
+        }
+
+        if (resource instanceof I_CmsHistoryResource) {
+            // historical contents are not streamed
+            return new ByteArrayInputStream(getHistoryDriver(dbc).readContent(
+                dbc,
+                resource.getResourceId(),
+                ((I_CmsHistoryResource)resource).getPublishTag()));
+        }
+        return getVfsDriver(dbc).readContentStream(dbc, dbc.currentProject().getUuid(), resource.getResourceId());
+    }
+
     /**
      * Reads a folder from the VFS,
      * using the specified resource filter.<p>
@@ -7281,35 +7075,29 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((properties == null) || !dbc.getProjectId().isNullUUID()) {
             // result not cached, let's look it up in the DB
             if (search) {
-                boolean cont;
-                properties = new ArrayList<CmsProperty>();
-                List<CmsProperty> parentProperties = null;
-
-                do {
+                properties = readPropertyObjects(dbc, resource, false);
+                if (resource.getRootPath().length() > 1) {
+                    // the searched properties of the parent folder already contain the properties of all upper
+                    // folders, they are cached once per folder and shared by all resources below the folder
+                    List<CmsProperty> parentProperties = null;
                     try {
-                        parentProperties = readPropertyObjects(dbc, resource, false);
-
-                        // make sure properties from lower folders "overwrite" properties from upper folders
-                        parentProperties.removeAll(properties);
-                        parentProperties.addAll(properties);
-
-                        properties.clear();
-                        properties.addAll(parentProperties);
-
-                        cont = resource.getRootPath().length() > 1;
-                    } catch (CmsSecurityException se) {
-                        // a security exception (probably no read permission) we return the current result
-                        cont = false;
-                    }
-                    if (cont) {
                         // no permission check on parent folder is required since we must have "read"
                         // permissions to read the child resource anyway
-                        resource = readResource(
+                        CmsResource parent = readResource(
                             dbc,
                             CmsResource.getParentFolder(resource.getRootPath()),
                             CmsResourceFilter.ALL);
+                        parentProperties = readPropertyObjects(dbc, parent, true);
+                    } catch (CmsSecurityException se) {
+                        // a security exception (probably no read permission) we return the current result
+                    }
+                    if (parentProperties != null) {
+                        // make sure properties from lower folders "overwrite" properties from upper folders
+                        parentProperties.removeAll(properties);
+                        parentProperties.addAll(properties);
+                        properties = parentProperties;
                     }
-                } while (cont);
+                }
             } else {
                 properties = getVfsDriver(dbc).readPropertyObjects(dbc, dbc.currentProject(), resource);
                 //                for (CmsProperty prop : properties) {
@@ -7321,7 +7109,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsProperty.setFrozen(properties);
             if (dbc.getProjectId().isNullUUID()) {
                 // store the result in the cache if needed
-                m_monitor.cachePropertyList(cacheKey, properties);
+                m_monitor.cachePropertyList(cacheKey, properties, resource);
             }
         }
 
@@ -7553,7 +7341,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, resourceList, parent.getRootPath(), readTree);
             }
         }
         // we must always apply the result filter and update the context dates
@@ -7636,7 +7424,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             resourceList = filterPermissions(dbc, resourceList, filter);
             // store the result in the resourceList cache
             if (dbc.getProjectId().isNullUUID()) {
-                m_monitor.cacheResourceList(cacheKey, resourceList);
+                m_monitor.cacheResourceList(cacheKey, resourceList, folder.getRootPath(), true);
             }
         }
         // we must always apply the result filter and update the context dates
@@ -7976,7 +7764,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         setDateLastModified(dbc, resource, resource.getDateLastModified());
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(resource);
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8206,7 +7994,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         if ((properties != null) && !properties.isEmpty()) {
             // write the properties
             getVfsDriver(dbc).writePropertyObjects(dbc, dbc.currentProject(), resource, properties);
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.clearPropertyCache(resource);
         }
 
         // update the resource state
@@ -8229,7 +8017,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         deleteRelationsWithSiblings(dbc, resource);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
 
         if ((properties != null) && !properties.isEmpty()) {
             // resource and properties were modified
@@ -8523,7 +8311,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             // write them to the restored resource
             writePropertyObjects(dbc, newResource, historyProperties, false);
 
-            m_monitor.clearResourceCache();
+            m_monitor.clearResourceCache(newResource, false);
         }
 
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8625,7 +8413,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8667,7 +8455,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8708,7 +8496,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             new String[] {resource.getRootPath()}), false);
 
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
 
         // fire the event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8866,7 +8654,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsLogEntryType.RESOURCE_UNDELETED,
             new String[] {resource.getRootPath()}), false);
         // clear the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
 
         // fire change event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -8980,7 +8768,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsException {
 
         // update the resource cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
 
         // now update lock status
         m_lockManager.removeResource(dbc, resource, force, removeSystemLock);
@@ -9157,12 +8945,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         synchronized (m_publishListUpdateLock) {
 
-            if (m_log.isEmpty()) {
-                return;
+            List<CmsLogEntry> log;
+            synchronized (m_log) {
+                if (m_log.isEmpty()) {
+                    return;
+                }
+                log = new ArrayList<CmsLogEntry>(m_log);
+                m_log.clear();
             }
-
-            List<CmsLogEntry> log = new ArrayList<CmsLogEntry>(m_log);
-            m_log.clear();
             String logTableEnabledStr = (String)OpenCms.getRuntimeProperty(PARAM_LOG_TABLE_ENABLED);
             if (Boolean.parseBoolean(logTableEnabledStr)) { // defaults to 'false' if value not set 
                 m_projectDriver.log(dbc, log);
@@ -9343,7 +9133,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         setDateLastModified(dbc, resource, resource.getDateLastModified());
 
         // clear the cache
-        m_monitor.clearAccessControlListCache();
+        m_monitor.clearAccessControlListCache(resource);
 
         // fire a resource modification event
         Map<String, Object> data = new HashMap<String, Object>(2);
@@ -9501,37 +9291,104 @@ public final class CmsDriverManager implements I_CmsEventListener {
      * @see CmsObject#writeFile(CmsFile)
      * @see I_CmsResourceType#writeFile(CmsObject, CmsSecurityManager, CmsFile)
      */
-    public CmsFile writeFile(CmsDbContext dbc, CmsFile resource) throws CmsException {
-
-        resource.setUserLastModified(dbc.currentUser().getId());
-        resource.setContents(resource.getContents()); // to be sure the content date is updated
-
-        getVfsDriver(dbc).writeResource(dbc, dbc.currentProject().getUuid(), resource, UPDATE_RESOURCE_STATE);
+    public CmsFile writeFile(CmsDbContext dbc, CmsFile resource) throws CmsException {
+
+        resource.setUserLastModified(dbc.currentUser().getId());
+        resource.setContents(resource.getContents()); // to be sure the content date is updated
+
+        getVfsDriver(dbc).writeResource(dbc, dbc.currentProject().getUuid(), resource, UPDATE_RESOURCE_STATE);
+
+        byte[] contents = resource.getContents();
+        getVfsDriver(dbc).writeContent(dbc, resource.getResourceId(), contents);
+        // log it
+        log(dbc, new CmsLogEntry(
+            dbc,
+            resource.getStructureId(),
+            CmsLogEntryType.RESOURCE_CONTENT_MODIFIED,
+            new String[] {resource.getRootPath()}), false);
+
+        // read the file back from db
+        resource = new CmsFile(readResource(dbc, resource.getStructureId(), CmsResourceFilter.ALL));
+        resource.setContents(contents);
+
+        deleteRelationsWithSiblings(dbc, resource);
+
+        // update the cache
+        m_monitor.clearResourceCache(resource, false);
+
+        Map<String, Object> data = new HashMap<String, Object>(2);
+        data.put(I_CmsEventListener.KEY_RESOURCE, resource);
+        data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CHANGED_CONTENT));
+        OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data));
+
+        return resource;
+    }
+
+    /**
+     * Writes the content of a file resource from a stream.<p>
+     *
+     * In contrast to {@link #writeFile(CmsDbContext, CmsFile)}, the content is not loaded into memory,
+     * so it is written as it is, without being processed by the resource type.
+     * The stream is not closed by this method.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the file resource to write the content for
+     * @param content the new content of the file
+     * @param length the number of bytes to read from the stream
+     *
+     * @return the written resource
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#writeFileContentStream(CmsResource, InputStream, int)
+     */
+    public CmsResource writeFileContentStream(CmsDbContext dbc, CmsResource resource, InputStream content, int length)
+    throws CmsException {
 
-        byte[] contents = resource.getContents();
-        getVfsDriver(dbc).writeContent(dbc, resource.getResourceId(), contents);
+        // the length and the content date are written with the resource
+        CmsFile file = new CmsFile(
+            resource.getStructureId(),
+            resource.getResourceId(),
+            resource.getRootPath(),
+            resource.getTypeId(),
+            resource.getFlags(),
+            resource.getProjectLastModified(),
+            resource.getState(),
+            resource.getDateCreated(),
+            resource.getUserCreated(),
+            resource.getDateLastModified(),
+            dbc.currentUser().getId(),
+            resource.getDateReleased(),
+            resource.getDateExpired(),
+            resource.getSiblingCount(),
+            length,
+            System.currentTimeMillis(),
+            resource.getVersion(),
+            null);
+
+        getVfsDriver(dbc).writeResource(dbc, dbc.currentProject().getUuid(), file, UPDATE_RESOURCE_STATE);
+        getVfsDriver(dbc).writeContentStream(dbc, file.getResourceId(), content, length);
         // log it
         log(dbc, new CmsLogEntry(
             dbc,
-            resource.getStructureId(),
+            file.getStructureId(),
             CmsLogEntryType.RESOURCE_CONTENT_MODIFIED,
-            new String[] {resource.getRootPath()}), false);
+            new String[] {file.getRootPath()}), false);
 
         // read the file back from db
-        resource = new CmsFile(readResource(dbc, resource.getStructureId(), CmsResourceFilter.ALL));
-        resource.setContents(contents);
+        CmsResource result = readResource(dbc, file.getStructureId(), CmsResourceFilter.ALL);
 
-        deleteRelationsWithSiblings(dbc, resource);
+        deleteRelationsWithSiblings(dbc, result);
 
         // update the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(result, false);
 
         Map<String, Object> data = new HashMap<String, Object>(2);
-        data.put(I_CmsEventListener.KEY_RESOURCE, resource);
-        data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CHANGED_CONTENT));
+        data.put(I_CmsEventListener.KEY_RESOURCE, result);
+        data.put(I_CmsEventListener.KEY_CHANGE, Integer.valueOf(CHANGED_CONTENT));
         OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data));
 
-        return resource;
+        return result;
     }
 
     /**
@@ -9711,8 +9568,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.clearResourceCache(resource, false);
+            m_monitor.clearPropertyCache(resource);
 
             // fire an event that a property of a resource has been modified
             Map<String, Object> data = new HashMap<String, Object>();
@@ -9792,8 +9649,8 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // update the driver manager cache
-            m_monitor.clearResourceCache();
-            m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            m_monitor.clearResourceCache(resource, false);
+            m_monitor.clearPropertyCache(resource);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -9860,7 +9717,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // update the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(resource, false);
         Map<String, Object> data = new HashMap<String, Object>(2);
         data.put(I_CmsEventListener.KEY_RESOURCE, resource);
         data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CHANGED_RESOURCE));
@@ -10243,749 +10100,1103 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         }
 
-        // 2. step: delete all new folders
-        for (int i = 0; i < modifiedFolders.size(); i++) {
-            CmsResource currentFolder = modifiedFolders.get(i);
-            if (currentFolder.getState().isNew()) {
-                // delete the properties
-                getVfsDriver(dbc).deletePropertyObjects(
-                    dbc,
-                    projectId,
-                    currentFolder,
-                    CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_AND_RESOURCE_VALUES);
-                // delete the folder
-                getVfsDriver(dbc).removeFolder(dbc, dbc.currentProject(), currentFolder);
-                // remove the access control entries
-                getUserDriver(dbc).removeAccessControlEntries(dbc, dbc.currentProject(), currentFolder.getResourceId());
-                // fire the corresponding event
-                OpenCms.fireCmsEvent(new CmsEvent(
-                    I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
-                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, currentFolder)));
-            }
+        // 2. step: delete all new folders
+        for (int i = 0; i < modifiedFolders.size(); i++) {
+            CmsResource currentFolder = modifiedFolders.get(i);
+            if (currentFolder.getState().isNew()) {
+                // delete the properties
+                getVfsDriver(dbc).deletePropertyObjects(
+                    dbc,
+                    projectId,
+                    currentFolder,
+                    CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_AND_RESOURCE_VALUES);
+                // delete the folder
+                getVfsDriver(dbc).removeFolder(dbc, dbc.currentProject(), currentFolder);
+                // remove the access control entries
+                getUserDriver(dbc).removeAccessControlEntries(dbc, dbc.currentProject(), currentFolder.getResourceId());
+                // fire the corresponding event
+                OpenCms.fireCmsEvent(new CmsEvent(
+                    I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, currentFolder)));
+            }
+        }
+
+        // 3. step: undo changes on all changed or deleted folders
+        for (int i = 0; i < modifiedFolders.size(); i++) {
+            CmsResource currentFolder = modifiedFolders.get(i);
+            if ((currentFolder.getState().isChanged()) || (currentFolder.getState().isDeleted())) {
+                CmsLock lock = getLock(dbc, currentFolder);
+                if (lock.isNullLock()) {
+                    // lock the resource
+                    lockResource(dbc, currentFolder, CmsLockType.EXCLUSIVE);
+                } else if (!lock.isOwnedBy(dbc.currentUser()) || !lock.isInProject(dbc.currentProject())) {
+                    changeLock(dbc, currentFolder, CmsLockType.EXCLUSIVE);
+                }
+                // undo all changes in the folder
+                undoChanges(dbc, currentFolder, CmsResource.UNDO_CONTENT);
+                // fire the corresponding event
+                OpenCms.fireCmsEvent(new CmsEvent(
+                    I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, currentFolder)));
+            }
+        }
+
+        // 4. step: undo changes on all changed or deleted files
+        for (int i = 0; i < modifiedFiles.size(); i++) {
+            CmsResource currentFile = modifiedFiles.get(i);
+            if (currentFile.getState().isChanged() || currentFile.getState().isDeleted()) {
+                CmsLock lock = getLock(dbc, currentFile);
+                if (lock.isNullLock()) {
+                    // lock the resource
+                    lockResource(dbc, currentFile, CmsLockType.EXCLUSIVE);
+                } else if (!lock.isOwnedInProjectBy(dbc.currentUser(), dbc.currentProject())) {
+                    if (lock.isLockableBy(dbc.currentUser())) {
+                        changeLock(dbc, currentFile, CmsLockType.EXCLUSIVE);
+                    }
+                }
+                // undo all changes in the file
+                undoChanges(dbc, currentFile, CmsResource.UNDO_CONTENT);
+                // fire the corresponding event
+                OpenCms.fireCmsEvent(new CmsEvent(
+                    I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, currentFile)));
+            }
+        }
+    }
+
+    /**
+     * Counts the total number of users which fit the given criteria.<p>
+     *
+     * @param dbc the database context
+     * @param searchParams the user search criteria
+     *
+     * @return the total number of users matching the criteria
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    long countUsers(CmsDbContext dbc, CmsUserSearchParameters searchParams) throws CmsDataAccessException {
+
+        return getUserDriver(dbc).countUsers(dbc, searchParams);
+    }
+
+    /**
+     * Adds all sub-resources of the given resource to the publish list.<p>
+     *
+     * @param dbc the database context
+     * @param publishList the publish list
+     * @param directPublishResource the resource to get the sub-resources for
+     *
+     * @throws CmsDataAccessException if something goes wrong accessing the database
+     */
+    private void addSubResources(CmsDbContext dbc, CmsPublishList publishList, CmsResource directPublishResource)
+    throws CmsDataAccessException {
+
+        int flags = CmsDriverManager.READMODE_INCLUDE_TREE | CmsDriverManager.READMODE_EXCLUDE_STATE;
+        if (!directPublishResource.getState().isDeleted()) {
+            // fix for org.opencms.file.TestPublishIssues#testPublishFolderWithDeletedFileFromOtherProject
+            flags = flags | CmsDriverManager.READMODE_INCLUDE_PROJECT;
+        }
+
+        // add all sub resources of the folder
+        List<CmsResource> folderList = getVfsDriver(dbc).readResourceTree(
+            dbc,
+            dbc.currentProject().getUuid(),
+            directPublishResource.getRootPath(),
+            CmsDriverManager.READ_IGNORE_TYPE,
+            CmsResource.STATE_UNCHANGED,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            flags | CmsDriverManager.READMODE_ONLY_FOLDERS);
+
+        publishList.addAll(filterResources(dbc, publishList, folderList), true);
+
+        List<CmsResource> fileList = getVfsDriver(dbc).readResourceTree(
+            dbc,
+            dbc.currentProject().getUuid(),
+            directPublishResource.getRootPath(),
+            CmsDriverManager.READ_IGNORE_TYPE,
+            CmsResource.STATE_UNCHANGED,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            flags | CmsDriverManager.READMODE_ONLY_FILES);
+
+        publishList.addAll(filterResources(dbc, publishList, fileList), true);
+    }
+
+    /**
+     * Helper method to check whether we should bother with reading the group for a given role in a given OU.<p>
+     * 
+     * This is important because webuser OUs don't have most role groups, and their absence is not cached, so we want to avoid reading them.
+     * 
+     * @param ou the OU 
+     * @param role the role 
+     * @return true if we should read the role in the OU
+     */
+    private boolean canReadRoleInOu(CmsOrganizationalUnit ou, CmsRole role) {
+
+        if (ou.hasFlagWebuser() && !role.getRoleName().equals(CmsRole.ACCOUNT_MANAGER.getRoleName())) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks the parent of a resource during publishing.<p>
+     *
+     * @param dbc the current database context
+     * @param deletedFolders a list of deleted folders
+     * @param res a resource to check the parent for
+     *
+     * @return <code>true</code> if the parent resource will be deleted during publishing
+     */
+    private boolean checkDeletedParentFolder(CmsDbContext dbc, List<CmsResource> deletedFolders, CmsResource res) {
+
+        String parentPath = CmsResource.getParentFolder(res.getRootPath());
+
+        if (parentPath == null) {
+            // resource has no parent
+            return false;
+        }
+
+        CmsResource parent;
+        try {
+            parent = readResource(dbc, parentPath, CmsResourceFilter.ALL);
+        } catch (Exception e) {
+            // failure: if we cannot read the parent, we should not publish the resource
+            return false;
+        }
+
+        if (!parent.getState().isDeleted()) {
+            // parent is not deleted
+            return false;
+        }
+
+        for (int j = 0; j < deletedFolders.size(); j++) {
+            if ((deletedFolders.get(j)).getStructureId().equals(parent.getStructureId())) {
+                // parent is deleted, and it will get published
+                return true;
+            }
+        }
+
+        // parent is new, but it will not get published
+        return false;
+    }
+
+    /**
+     * Checks that no one of the resources to be published has a 'new' parent (that has not been published yet).<p>
+     *
+     * @param dbc the db context
+     * @param publishList the publish list to check
+     *
+     * @throws CmsVfsException if there is a resource to be published with a 'new' parent
+     */
+    private void checkParentFolders(CmsDbContext dbc, CmsPublishList publishList) throws CmsVfsException {
+
+        boolean directPublish = publishList.isDirectPublish();
+        // if we direct publish a file, check if all parent folders are already published
+        if (directPublish) {
+            // first get the names of all parent folders
+            Iterator<CmsResource> it = publishList.getDirectPublishResources().iterator();
+            List<String> parentFolderNames = new ArrayList<String>();
+            while (it.hasNext()) {
+                CmsResource res = it.next();
+                String parentFolderName = CmsResource.getParentFolder(res.getRootPath());
+                if (parentFolderName != null) {
+                    parentFolderNames.add(parentFolderName);
+                }
+            }
+            // remove duplicate parent folder names
+            parentFolderNames = CmsFileUtil.removeRedundancies(parentFolderNames);
+            String parentFolderName = null;
+            try {
+                I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
+                // now check all folders if they exist in the online project
+                Iterator<String> parentIt = parentFolderNames.iterator();
+                while (parentIt.hasNext()) {
+                    parentFolderName = parentIt.next();
+                    vfsDriver.readFolder(dbc, CmsProject.ONLINE_PROJECT_ID, parentFolderName);
+                }
+            } catch (CmsException e) {
+                throw new CmsVfsException(Messages.get().container(
+                    Messages.RPT_PARENT_FOLDER_NOT_PUBLISHED_1,
+                    parentFolderName));
+            }
+        }
+    }
+
+    /**
+     * Checks the parent of a resource during publishing.<p>
+     *
+     * @param dbc the current database context
+     * @param folderList a list of folders
+     * @param res a resource to check the parent for
+     *
+     * @return true if the resource should be published
+     */
+    private boolean checkParentResource(CmsDbContext dbc, List<CmsResource> folderList, CmsResource res) {
+
+        String parentPath = CmsResource.getParentFolder(res.getRootPath());
+
+        if (parentPath == null) {
+            // resource has no parent
+            return true;
         }
 
-        // 3. step: undo changes on all changed or deleted folders
-        for (int i = 0; i < modifiedFolders.size(); i++) {
-            CmsResource currentFolder = modifiedFolders.get(i);
-            if ((currentFolder.getState().isChanged()) || (currentFolder.getState().isDeleted())) {
-                CmsLock lock = getLock(dbc, currentFolder);
-                if (lock.isNullLock()) {
-                    // lock the resource
-                    lockResource(dbc, currentFolder, CmsLockType.EXCLUSIVE);
-                } else if (!lock.isOwnedBy(dbc.currentUser()) || !lock.isInProject(dbc.currentProject())) {
-                    changeLock(dbc, currentFolder, CmsLockType.EXCLUSIVE);
-                }
-                // undo all changes in the folder
-                undoChanges(dbc, currentFolder, CmsResource.UNDO_CONTENT);
-                // fire the corresponding event
-                OpenCms.fireCmsEvent(new CmsEvent(
-                    I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
-                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, currentFolder)));
-            }
+        CmsResource parent;
+        try {
+            parent = readResource(dbc, parentPath, CmsResourceFilter.ALL);
+        } catch (Exception e) {
+            // failure: if we cannot read the parent, we should not publish the resource
+            return false;
         }
 
-        // 4. step: undo changes on all changed or deleted files
-        for (int i = 0; i < modifiedFiles.size(); i++) {
-            CmsResource currentFile = modifiedFiles.get(i);
-            if (currentFile.getState().isChanged() || currentFile.getState().isDeleted()) {
-                CmsLock lock = getLock(dbc, currentFile);
-                if (lock.isNullLock()) {
-                    // lock the resource
-                    lockResource(dbc, currentFile, CmsLockType.EXCLUSIVE);
-                } else if (!lock.isOwnedInProjectBy(dbc.currentUser(), dbc.currentProject())) {
-                    if (lock.isLockableBy(dbc.currentUser())) {
-                        changeLock(dbc, currentFile, CmsLockType.EXCLUSIVE);
-                    }
-                }
-                // undo all changes in the file
-                undoChanges(dbc, currentFile, CmsResource.UNDO_CONTENT);
-                // fire the corresponding event
-                OpenCms.fireCmsEvent(new CmsEvent(
-                    I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
-                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, currentFile)));
+        if (!parent.getState().isNew()) {
+            // parent is already published
+            return true;
+        }
+
+        for (int j = 0; j < folderList.size(); j++) {
+            if (folderList.get(j).getStructureId().equals(parent.getStructureId())) {
+                // parent is new, but it will get published
+                return true;
             }
         }
+
+        // parent is new, but it will not get published
+        return false;
     }
 
     /**
-     * Counts the total number of users which fit the given criteria.<p>
+     * Copies all relations from the source resource to the target resource.<p>
      *
      * @param dbc the database context
-     * @param searchParams the user search criteria
-     *
-     * @return the total number of users matching the criteria
+     * @param source the source
+     * @param target the target
      *
-     * @throws CmsDataAccessException if something goes wrong
+     * @throws CmsException if something goes wrong
      */
-    long countUsers(CmsDbContext dbc, CmsUserSearchParameters searchParams) throws CmsDataAccessException {
+    private void copyRelations(CmsDbContext dbc, CmsResource source, CmsResource target) throws CmsException {
 
-        return getUserDriver(dbc).countUsers(dbc, searchParams);
+        // copy relations all relations
+        CmsObject cms = new CmsObject(getSecurityManager(), dbc.getRequestContext());
+        Iterator<CmsRelation> itRelations = getRelationsForResource(
+            dbc,
+            source,
+            CmsRelationFilter.TARGETS.filterNotDefinedInContent()).iterator();
+        while (itRelations.hasNext()) {
+            CmsRelation relation = itRelations.next();
+            try {
+                CmsResource relTarget = relation.getTarget(cms, CmsResourceFilter.ALL);
+                addRelationToResource(dbc, target, relTarget, relation.getType(), true);
+            } catch (CmsVfsResourceNotFoundException e) {
+                // ignore this broken relation
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        // repair categories
+        repairCategories(dbc, getProjectIdForContext(dbc), target);
     }
 
     /**
-     * Adds all sub-resources of the given resource to the publish list.<p>
+     * Filters the given list of resources, removes all resources where the current user
+     * does not have READ permissions, plus the filter is applied.<p>
      *
-     * @param dbc the database context
-     * @param publishList the publish list
-     * @param directPublishResource the resource to get the sub-resources for
+     * @param dbc the current database context
+     * @param resourceList a list of CmsResources
+     * @param filter the resource filter to use
      *
-     * @throws CmsDataAccessException if something goes wrong accessing the database
+     * @return the filtered list of resources
+     *
+     * @throws CmsException in case errors testing the permissions
      */
-    private void addSubResources(CmsDbContext dbc, CmsPublishList publishList, CmsResource directPublishResource)
-    throws CmsDataAccessException {
+    private List<CmsResource> filterPermissions(
+        CmsDbContext dbc,
+        List<CmsResource> resourceList,
+        CmsResourceFilter filter) throws CmsException {
 
-        int flags = CmsDriverManager.READMODE_INCLUDE_TREE | CmsDriverManager.READMODE_EXCLUDE_STATE;
-        if (!directPublishResource.getState().isDeleted()) {
-            // fix for org.opencms.file.TestPublishIssues#testPublishFolderWithDeletedFileFromOtherProject
-            flags = flags | CmsDriverManager.READMODE_INCLUDE_PROJECT;
+        if (filter.requireTimerange()) {
+            // never check time range here - this must be done later in #updateContextDates(...)
+            filter = filter.addExcludeTimerange();
+        }
+        ArrayList<CmsResource> result = new ArrayList<CmsResource>(resourceList.size());
+        for (int i = 0; i < resourceList.size(); i++) {
+            // check the permission of all resources
+            CmsResource currentResource = resourceList.get(i);
+            if (m_securityManager.hasPermissions(dbc, currentResource, CmsPermissionSet.ACCESS_READ, true, filter).isAllowed()) {
+                // only return resources where permission was granted
+                result.add(currentResource);
+            }
         }
+        // return the result
+        return result;
+    }
 
-        // add all sub resources of the folder
-        List<CmsResource> folderList = getVfsDriver(dbc).readResourceTree(
-            dbc,
-            dbc.currentProject().getUuid(),
-            directPublishResource.getRootPath(),
-            CmsDriverManager.READ_IGNORE_TYPE,
-            CmsResource.STATE_UNCHANGED,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            flags | CmsDriverManager.READMODE_ONLY_FOLDERS);
+    /**
+     * Returns a filtered list of resources for publishing.<p>
+     * Contains all resources, which are not locked
+     * and which have a parent folder that is already published or will be published, too.<p>
+     *
+     * @param dbc the current database context
+     * @param publishList the filling publish list
+     * @param resourceList the list of resources to filter
+     *
+     * @return a filtered list of resources
+     */
+    private List<CmsResource> filterResources(
+        CmsDbContext dbc,
+        CmsPublishList publishList,
+        List<CmsResource> resourceList) {
 
-        publishList.addAll(filterResources(dbc, publishList, folderList), true);
+        List<CmsResource> result = new ArrayList<CmsResource>();
 
-        List<CmsResource> fileList = getVfsDriver(dbc).readResourceTree(
-            dbc,
-            dbc.currentProject().getUuid(),
-            directPublishResource.getRootPath(),
-            CmsDriverManager.READ_IGNORE_TYPE,
-            CmsResource.STATE_UNCHANGED,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            flags | CmsDriverManager.READMODE_ONLY_FILES);
+        // local folder list for adding new publishing subfolders
+        // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioD} problem.
+        List<CmsResource> newFolderList = new ArrayList<CmsResource>(publishList == null
+        ? resourceList
+        : publishList.getFolderList());
 
-        publishList.addAll(filterResources(dbc, publishList, fileList), true);
+        for (int i = 0; i < resourceList.size(); i++) {
+            CmsResource res = resourceList.get(i);
+            try {
+                CmsLock lock = getLock(dbc, res);
+                if (lock.isPublish()) {
+                    // if already enqueued
+                    continue;
+                }
+                if (!lock.isLockableBy(dbc.currentUser())) {
+                    // checks if there is a shared lock and if the resource is deleted
+                    // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioE} problem.
+                    if (lock.isShared() && (publishList != null)) {
+                        if (!res.getState().isDeleted()
+                            || !checkDeletedParentFolder(dbc, publishList.getDeletedFolderList(), res)) {
+                            continue;
+                        }
+                    } else {
+                        // don't add locked resources
+                        continue;
+                    }
+                }
+                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, newFolderList, res)) {
+                    continue;
+                }
+                // check permissions
+                try {
+                    m_securityManager.checkPermissions(
+                        dbc,
+                        res,
+                        CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
+                        false,
+                        CmsResourceFilter.ALL);
+                } catch (CmsException e) {
+                    // skip if not enough permissions
+                    continue;
+                }
+                if (res.isFolder()) {
+                    newFolderList.add(res);
+                }
+                result.add(res);
+            } catch (Exception e) {
+                // should never happen
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        return result;
     }
 
     /**
-     * Helper method to check whether we should bother with reading the group for a given role in a given OU.<p>
-     * 
-     * This is important because webuser OUs don't have most role groups, and their absence is not cached, so we want to avoid reading them.
-     * 
-     * @param ou the OU 
-     * @param role the role 
-     * @return true if we should read the role in the OU
+     * Returns a filtered list of sibling resources for publishing.<p>
+     *
+     * Contains all siblings of the given resources, which are not locked
+     * and which have a parent folder that is already published or will be published, too.<p>
+     *
+     * @param dbc the current database context
+     * @param publishList the unfinished publish list
+     * @param resourceList the list of siblings to filter
+     *
+     * @return a filtered list of sibling resources for publishing
      */
-    private boolean canReadRoleInOu(CmsOrganizationalUnit ou, CmsRole role) {
+    private List<CmsResource> filterSiblings(
+        CmsDbContext dbc,
+        CmsPublishList publishList,
+        Collection<CmsResource> resourceList) {
 
-        if (ou.hasFlagWebuser() && !role.getRoleName().equals(CmsRole.ACCOUNT_MANAGER.getRoleName())) {
-            return false;
+        List<CmsResource> result = new ArrayList<CmsResource>();
+
+        // removed internal extendible folder list, since iterated (sibling) resources are files in any case, never folders
+
+        for (CmsResource res : resourceList) {
+            try {
+                CmsLock lock = getLock(dbc, res);
+                if (lock.isPublish()) {
+                    // if already enqueued
+                    continue;
+                }
+                if (!lock.isLockableBy(dbc.currentUser())) {
+                    // checks if there is a shared lock and if the resource is deleted
+                    // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioE} problem.
+                    if (lock.isShared() && (publishList != null)) {
+                        if (!res.getState().isDeleted()
+                            || !checkDeletedParentFolder(dbc, publishList.getDeletedFolderList(), res)) {
+                            continue;
+                        }
+                    } else {
+                        // don't add locked resources
+                        continue;
+                    }
+                }
+                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, publishList.getFolderList(), res)) {
+                    // don't add resources that have no parent in the online project
+                    continue;
+                }
+                // check permissions
+                try {
+                    m_securityManager.checkPermissions(
+                        dbc,
+                        res,
+                        CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
+                        false,
+                        CmsResourceFilter.ALL);
+                } catch (CmsException e) {
+                    // skip if not enough permissions
+                    continue;
+                }
+                result.add(res);
+            } catch (Exception e) {
+                // should never happen
+                LOG.error(e.getLocalizedMessage(), e);
+            }
         }
-        return true;
+        return result;
     }
 
     /**
-     * Checks the parent of a resource during publishing.<p>
+     * Returns the access control list of a given resource.<p>
      *
      * @param dbc the current database context
-     * @param deletedFolders a list of deleted folders
-     * @param res a resource to check the parent for
+     * @param resource the resource
+     * @param forFolder should be true if resource is a folder
+     * @param depth the depth to include non-inherited access entries, also
+     * @param inheritedOnly flag indicates to collect inherited permissions only
      *
-     * @return <code>true</code> if the parent resource will be deleted during publishing
+     * @return the access control list of the resource
+     *
+     * @throws CmsException if something goes wrong
      */
-    private boolean checkDeletedParentFolder(CmsDbContext dbc, List<CmsResource> deletedFolders, CmsResource res) {
-
-        String parentPath = CmsResource.getParentFolder(res.getRootPath());
+    private CmsAccessControlList getAccessControlList(
+        CmsDbContext dbc,
+        CmsResource resource,
+        boolean inheritedOnly,
+        boolean forFolder,
+        int depth) throws CmsException {
 
-        if (parentPath == null) {
-            // resource has no parent
-            return false;
+        // the entries inherited from a parent folder do not depend on the depth of the resource they are read for,
+        // except for the direct parent of a file, so they are cached once per folder and shared by the whole subtree
+        boolean readInherited = (depth > 1) || ((depth > 0) && forFolder);
+        String cacheKey;
+        if (depth > 0) {
+            cacheKey = getCacheKey(
+                new String[] {"i", readInherited ? "+" : "-", resource.getStructureId().toString()},
+                dbc);
+        } else {
+            cacheKey = getCacheKey(
+                new String[] {
+                    inheritedOnly ? "+" : "-",
+                    forFolder ? "+" : "-",
+                    Integer.toString(depth),
+                    resource.getStructureId().toString()},
+                dbc);
         }
 
-        CmsResource parent;
-        try {
-            parent = readResource(dbc, parentPath, CmsResourceFilter.ALL);
-        } catch (Exception e) {
-            // failure: if we cannot read the parent, we should not publish the resource
-            return false;
-        }
+        CmsAccessControlList acl = m_monitor.getCachedACL(cacheKey);
 
-        if (!parent.getState().isDeleted()) {
-            // parent is not deleted
-            return false;
+        // return the cached acl if already available
+        if ((acl != null) && dbc.getProjectId().isNullUUID()) {
+            return acl;
         }
 
-        for (int j = 0; j < deletedFolders.size(); j++) {
-            if ((deletedFolders.get(j)).getStructureId().equals(parent.getStructureId())) {
-                // parent is deleted, and it will get published
-                return true;
+        List<CmsAccessControlEntry> aces = getUserDriver(dbc).readAccessControlEntries(
+            dbc,
+            dbc.currentProject(),
+            resource.getResourceId(),
+            readInherited);
+
+        // sort the list of aces
+        boolean overwriteAll = sortAceList(aces);
+
+        // if no 'overwrite all' ace was found
+        if (!overwriteAll) {
+            // get the acl of the parent
+            CmsResource parentResource = null;
+            try {
+                // try to recurse over the id
+                parentResource = getVfsDriver(dbc).readParentFolder(
+                    dbc,
+                    dbc.currentProject().getUuid(),
+                    resource.getStructureId());
+            } catch (CmsVfsResourceNotFoundException e) {
+                // should never happen, but try with the path
+                String parentPath = CmsResource.getParentFolder(resource.getRootPath());
+                if (parentPath != null) {
+                    parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentPath);
+                }
+            }
+            if (parentResource != null) {
+                acl = (CmsAccessControlList)getAccessControlList(
+                    dbc,
+                    parentResource,
+                    inheritedOnly,
+                    forFolder,
+                    depth + 1).clone();
             }
         }
+        if (acl == null) {
+            acl = new CmsAccessControlList();
+        }
 
-        // parent is new, but it will not get published
-        return false;
-    }
+        if (!((depth == 0) && inheritedOnly)) {
+            Iterator<CmsAccessControlEntry> itAces = aces.iterator();
+            while (itAces.hasNext()) {
+                CmsAccessControlEntry acEntry = itAces.next();
+                if (depth > 0) {
+                    acEntry.setFlags(CmsAccessControlEntry.ACCESS_FLAGS_INHERITED);
+                }
 
-    /**
-     * Checks that no one of the resources to be published has a 'new' parent (that has not been published yet).<p>
-     *
-     * @param dbc the db context
-     * @param publishList the publish list to check
-     *
-     * @throws CmsVfsException if there is a resource to be published with a 'new' parent
-     */
-    private void checkParentFolders(CmsDbContext dbc, CmsPublishList publishList) throws CmsVfsException {
+                acl.add(acEntry);
 
-        boolean directPublish = publishList.isDirectPublish();
-        // if we direct publish a file, check if all parent folders are already published
-        if (directPublish) {
-            // first get the names of all parent folders
-            Iterator<CmsResource> it = publishList.getDirectPublishResources().iterator();
-            List<String> parentFolderNames = new ArrayList<String>();
-            while (it.hasNext()) {
-                CmsResource res = it.next();
-                String parentFolderName = CmsResource.getParentFolder(res.getRootPath());
-                if (parentFolderName != null) {
-                    parentFolderNames.add(parentFolderName);
-                }
-            }
-            // remove duplicate parent folder names
-            parentFolderNames = CmsFileUtil.removeRedundancies(parentFolderNames);
-            String parentFolderName = null;
-            try {
-                I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
-                // now check all folders if they exist in the online project
-                Iterator<String> parentIt = parentFolderNames.iterator();
-                while (parentIt.hasNext()) {
-                    parentFolderName = parentIt.next();
-                    vfsDriver.readFolder(dbc, CmsProject.ONLINE_PROJECT_ID, parentFolderName);
+                // if the overwrite flag is set, reset the allowed permissions to the permissions of this entry
+                // denied permissions are kept or extended
+                if ((acEntry.getFlags() & CmsAccessControlEntry.ACCESS_FLAGS_OVERWRITE) > 0) {
+                    acl.setAllowedPermissions(acEntry);
                 }
-            } catch (CmsException e) {
-                throw new CmsVfsException(Messages.get().container(
-                    Messages.RPT_PARENT_FOLDER_NOT_PUBLISHED_1,
-                    parentFolderName));
             }
         }
+        if (dbc.getProjectId().isNullUUID()) {
+            m_monitor.cacheACL(cacheKey, acl, resource);
+        }
+        return acl;
     }
 
     /**
-     * Checks the parent of a resource during publishing.<p>
+     * Return a cache key build from the provided information.<p>
      *
-     * @param dbc the current database context
-     * @param folderList a list of folders
-     * @param res a resource to check the parent for
+     * @param prefix a prefix for the key
+     * @param flag a boolean flag for the key (only used if prefix is not null)
+     * @param projectId the project for which to generate the key
+     * @param resource the resource for which to generate the key
      *
-     * @return true if the resource should be published
+     * @return String a cache key build from the provided information
      */
-    private boolean checkParentResource(CmsDbContext dbc, List<CmsResource> folderList, CmsResource res) {
-
-        String parentPath = CmsResource.getParentFolder(res.getRootPath());
-
-        if (parentPath == null) {
-            // resource has no parent
-            return true;
-        }
-
-        CmsResource parent;
-        try {
-            parent = readResource(dbc, parentPath, CmsResourceFilter.ALL);
-        } catch (Exception e) {
-            // failure: if we cannot read the parent, we should not publish the resource
-            return false;
-        }
-
-        if (!parent.getState().isNew()) {
-            // parent is already published
-            return true;
-        }
-
-        for (int j = 0; j < folderList.size(); j++) {
-            if (folderList.get(j).getStructureId().equals(parent.getStructureId())) {
-                // parent is new, but it will get published
-                return true;
-            }
-        }
+    private String getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
 
-        // parent is new, but it will not get published
-        return false;
+        StringBuffer b = new StringBuffer(64);
+        if (prefix != null) {
+            b.append(prefix);
+            b.append(flag ? '+' : '-');
+        }
+        b.append(CmsProject.isOnlineProject(projectId) ? '+' : '-');
+        return b.append(resource).toString();
     }
 
     /**
-     * Copies all relations from the source resource to the target resource.<p>
+     * Return a cache key build from the provided information.<p>
      *
-     * @param dbc the database context
-     * @param source the source
-     * @param target the target
+     * @param keys an array of keys to generate the cache key from
+     * @param dbc the database context for which to generate the key
      *
-     * @throws CmsException if something goes wrong
+     * @return String a cache key build from the provided information
      */
-    private void copyRelations(CmsDbContext dbc, CmsResource source, CmsResource target) throws CmsException {
+    private String getCacheKey(String[] keys, CmsDbContext dbc) {
 
-        // copy relations all relations
-        CmsObject cms = new CmsObject(getSecurityManager(), dbc.getRequestContext());
-        Iterator<CmsRelation> itRelations = getRelationsForResource(
-            dbc,
-            source,
-            CmsRelationFilter.TARGETS.filterNotDefinedInContent()).iterator();
-        while (itRelations.hasNext()) {
-            CmsRelation relation = itRelations.next();
-            try {
-                CmsResource relTarget = relation.getTarget(cms, CmsResourceFilter.ALL);
-                addRelationToResource(dbc, target, relTarget, relation.getType(), true);
-            } catch (CmsVfsResourceNotFoundException e) {
-                // ignore this broken relation
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(e.getLocalizedMessage(), e);
-                }
+        if (!dbc.getProjectId().isNullUUID()) {
+            return "";
+        }
+        StringBuffer b = new StringBuffer(64);
+        int len = keys.length;
+        if (len > 0) {
+            for (int i = 0; i < len; i++) {
+                b.append(keys[i]);
+                b.append('_');
             }
         }
-        // repair categories
-        repairCategories(dbc, getProjectIdForContext(dbc), target);
+        if (dbc.currentProject().isOnlineProject()) {
+            b.append("+");
+        } else {
+            b.append("-");
+        }
+        return b.toString();
     }
 
     /**
-     * Filters the given list of resources, removes all resources where the current user
-     * does not have READ permissions, plus the filter is applied.<p>
-     *
-     * @param dbc the current database context
-     * @param resourceList a list of CmsResources
-     * @param filter the resource filter to use
+     * Returns the correct project id.<p>
      *
-     * @return the filtered list of resources
+     * @param dbc the database context
      *
-     * @throws CmsException in case errors testing the permissions
+     * @return the correct project id
      */
-    private List<CmsResource> filterPermissions(
-        CmsDbContext dbc,
-        List<CmsResource> resourceList,
-        CmsResourceFilter filter) throws CmsException {
+    private CmsUUID getProjectIdForContext(CmsDbContext dbc) {
 
-        if (filter.requireTimerange()) {
-            // never check time range here - this must be done later in #updateContextDates(...)
-            filter = filter.addExcludeTimerange();
-        }
-        ArrayList<CmsResource> result = new ArrayList<CmsResource>(resourceList.size());
-        for (int i = 0; i < resourceList.size(); i++) {
-            // check the permission of all resources
-            CmsResource currentResource = resourceList.get(i);
-            if (m_securityManager.hasPermissions(dbc, currentResource, CmsPermissionSet.ACCESS_READ, true, filter).isAllowed()) {
-                // only return resources where permission was granted
-                result.add(currentResource);
-            }
+        CmsUUID projectId = dbc.getProjectId();
+        if (projectId.isNullUUID()) {
+            projectId = dbc.currentProject().getUuid();
         }
-        // return the result
-        return result;
+        return projectId;
     }
 
     /**
-     * Returns a filtered list of resources for publishing.<p>
-     * Contains all resources, which are not locked
-     * and which have a parent folder that is already published or will be published, too.<p>
+     * Returns if and what state needs to be updated.<p>
      *
-     * @param dbc the current database context
-     * @param publishList the filling publish list
-     * @param resourceList the list of resources to filter
+     * @param dbc the db context
+     * @param resource the resource
+     * @param properties the properties to check
      *
-     * @return a filtered list of resources
+     * @return 0: none, 1: structure, 2: resource
+     *
+     * @throws CmsDataAccessException if something goes wrong
      */
-    private List<CmsResource> filterResources(
-        CmsDbContext dbc,
-        CmsPublishList publishList,
-        List<CmsResource> resourceList) {
+    private int getUpdateState(CmsDbContext dbc, CmsResource resource, List<CmsProperty> properties)
+    throws CmsDataAccessException {
 
-        List<CmsResource> result = new ArrayList<CmsResource>();
+        int updateState = 0;
+        I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
+        Iterator<CmsProperty> it = properties.iterator();
+        while (it.hasNext() && (updateState < 2)) {
+            CmsProperty property = it.next();
 
-        // local folder list for adding new publishing subfolders
-        // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioD} problem.
-        List<CmsResource> newFolderList = new ArrayList<CmsResource>(publishList == null
-        ? resourceList
-        : publishList.getFolderList());
+            // read existing property
+            CmsProperty existingProperty = vfsDriver.readPropertyObject(
+                dbc,
+                property.getName(),
+                dbc.currentProject(),
+                resource);
 
-        for (int i = 0; i < resourceList.size(); i++) {
-            CmsResource res = resourceList.get(i);
-            try {
-                CmsLock lock = getLock(dbc, res);
-                if (lock.isPublish()) {
-                    // if already enqueued
-                    continue;
+            // check the shared property
+            if (property.getResourceValue() != null) {
+                if (property.isDeleteResourceValue()) {
+                    if (existingProperty.getResourceValue() != null) {
+                        updateState = 2; // deleted
+                    }
+                } else {
+                    if (existingProperty.getResourceValue() == null) {
+                        updateState = 2; // created
+                    } else {
+                        if (!property.getResourceValue().equals(existingProperty.getResourceValue())) {
+                            updateState = 2; // updated
+                        }
+                    }
                 }
-                if (!lock.isLockableBy(dbc.currentUser())) {
-                    // checks if there is a shared lock and if the resource is deleted
-                    // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioE} problem.
-                    if (lock.isShared() && (publishList != null)) {
-                        if (!res.getState().isDeleted()
-                            || !checkDeletedParentFolder(dbc, publishList.getDeletedFolderList(), res)) {
-                            continue;
+            }
+            if (updateState == 0) {
+                // check the individual property only if needed
+                if (property.getStructureValue() != null) {
+                    if (property.isDeleteStructureValue()) {
+                        if (existingProperty.getStructureValue() != null) {
+                            updateState = 1; // deleted
                         }
                     } else {
-                        // don't add locked resources
-                        continue;
+                        if (existingProperty.getStructureValue() == null) {
+                            updateState = 1; // created
+                        } else {
+                            if (!property.getStructureValue().equals(existingProperty.getStructureValue())) {
+                                updateState = 1; // updated
+                            }
+                        }
                     }
                 }
-                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, newFolderList, res)) {
-                    continue;
-                }
-                // check permissions
-                try {
-                    m_securityManager.checkPermissions(
-                        dbc,
-                        res,
-                        CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
-                        false,
-                        CmsResourceFilter.ALL);
-                } catch (CmsException e) {
-                    // skip if not enough permissions
-                    continue;
-                }
-                if (res.isFolder()) {
-                    newFolderList.add(res);
-                }
-                result.add(res);
-            } catch (Exception e) {
-                // should never happen
-                LOG.error(e.getLocalizedMessage(), e);
             }
         }
-        return result;
+        return updateState;
     }
 
     /**
-     * Returns a filtered list of sibling resources for publishing.<p>
+     * Returns all groups that are virtualizing the given role in the given ou.<p>
      *
-     * Contains all siblings of the given resources, which are not locked
-     * and which have a parent folder that is already published or will be published, too.<p>
+     * @param dbc the database context
+     * @param role the role
      *
-     * @param dbc the current database context
-     * @param publishList the unfinished publish list
-     * @param resourceList the list of siblings to filter
+     * @return all groups that are virtualizing the given role (or a child of it)
      *
-     * @return a filtered list of sibling resources for publishing
+     * @throws CmsException if something goes wrong
      */
-    private List<CmsResource> filterSiblings(
-        CmsDbContext dbc,
-        CmsPublishList publishList,
-        Collection<CmsResource> resourceList) {
-
-        List<CmsResource> result = new ArrayList<CmsResource>();
-
-        // removed internal extendible folder list, since iterated (sibling) resources are files in any case, never folders
+    private List<CmsGroup> getVirtualGroupsForRole(CmsDbContext dbc, CmsRole role) throws CmsException {
 
-        for (CmsResource res : resourceList) {
-            try {
-                CmsLock lock = getLock(dbc, res);
-                if (lock.isPublish()) {
-                    // if already enqueued
-                    continue;
-                }
-                if (!lock.isLockableBy(dbc.currentUser())) {
-                    // checks if there is a shared lock and if the resource is deleted
-                    // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioE} problem.
-                    if (lock.isShared() && (publishList != null)) {
-                        if (!res.getState().isDeleted()
-                            || !checkDeletedParentFolder(dbc, publishList.getDeletedFolderList(), res)) {
-                            continue;
-                        }
-                    } else {
-                        // don't add locked resources
-                        continue;
-                    }
-                }
-                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, publishList.getFolderList(), res)) {
-                    // don't add resources that have no parent in the online project
-                    continue;
-                }
-                // check permissions
-                try {
-                    m_securityManager.checkPermissions(
-                        dbc,
-                        res,
-                        CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
-                        false,
-                        CmsResourceFilter.ALL);
-                } catch (CmsException e) {
-                    // skip if not enough permissions
-                    continue;
+        Set<Integer> roleFlags = new HashSet<Integer>();
+        // add role flag
+        Integer flags = new Integer(role.getVirtualGroupFlags());
+        roleFlags.add(flags);
+        // collect all child role flags
+        Iterator<CmsRole> itChildRoles = role.getChildren(true).iterator();
+        while (itChildRoles.hasNext()) {
+            CmsRole child = itChildRoles.next();
+            flags = new Integer(child.getVirtualGroupFlags());
+            roleFlags.add(flags);
+        }
+        // iterate all groups matching the flags
+        List<CmsGroup> groups = new ArrayList<CmsGroup>();
+        Iterator<CmsGroup> it = getGroups(dbc, readOrganizationalUnit(dbc, role.getOuFqn()), false, false).iterator();
+        while (it.hasNext()) {
+            CmsGroup group = it.next();
+            if (group.isVirtual()) {
+                CmsRole r = CmsRole.valueOf(group);
+                if (roleFlags.contains(new Integer(r.getVirtualGroupFlags()))) {
+                    groups.add(group);
                 }
-                result.add(res);
-            } catch (Exception e) {
-                // should never happen
-                LOG.error(e.getLocalizedMessage(), e);
             }
         }
-        return result;
+        return groups;
     }
 
     /**
-     * Returns the access control list of a given resource.<p>
+     * Creates a new resource with the provided content and properties, the caller must hold the
+     * locks for the resource path and the structure id.<p>
      *
      * @param dbc the current database context
-     * @param resource the resource
-     * @param forFolder should be true if resource is a folder
-     * @param depth the depth to include non-inherited access entries, also
-     * @param inheritedOnly flag indicates to collect inherited permissions only
+     * @param resourcePath the name of the resource to create (full path)
+     * @param resource the new resource to create
+     * @param content the content for the new resource
+     * @param properties the properties for the new resource
+     * @param importCase if <code>true</code>, signals that this operation is done while
+     *                      importing resource, causing different lock behavior and
+     *                      potential "lost and found" usage
      *
-     * @return the access control list of the resource
+     * @return the created resource
      *
      * @throws CmsException if something goes wrong
+     *
+     * @see #createResource(CmsDbContext, String, CmsResource, byte[], List, boolean)
      */
-    private CmsAccessControlList getAccessControlList(
+    private CmsResource internalCreateResource(
         CmsDbContext dbc,
+        String resourcePath,
         CmsResource resource,
-        boolean inheritedOnly,
-        boolean forFolder,
-        int depth) throws CmsException {
-
-        String cacheKey = getCacheKey(
-            new String[] {
-                inheritedOnly ? "+" : "-",
-                forFolder ? "+" : "-",
-                Integer.toString(depth),
-                resource.getStructureId().toString()},
-            dbc);
+        byte[] content,
+        List<CmsProperty> properties,
+        boolean importCase) throws CmsException {
 
-        CmsAccessControlList acl = m_monitor.getCachedACL(cacheKey);
+        CmsResource newResource = null;
 
-        // return the cached acl if already available
-        if ((acl != null) && dbc.getProjectId().isNullUUID()) {
-            return acl;
+        if (resource.isFolder()) {
+            resourcePath = CmsFileUtil.addTrailingSeparator(resourcePath);
         }
 
-        List<CmsAccessControlEntry> aces = getUserDriver(dbc).readAccessControlEntries(
-            dbc,
-            dbc.currentProject(),
-            resource.getResourceId(),
-            (depth > 1) || ((depth > 0) && forFolder));
+        try {
+            // need to provide the parent folder id for resource creation
+            String parentFolderName = CmsResource.getParentFolder(resourcePath);
+            CmsResource parentFolder = readFolder(dbc, parentFolderName, CmsResourceFilter.IGNORE_EXPIRATION);
 
-        // sort the list of aces
-        boolean overwriteAll = sortAceList(aces);
+            CmsLock parentLock = getLock(dbc, parentFolder);
+            // it is not allowed to create a resource in a folder locked by other user
+            if (!parentLock.isUnlocked() && !parentLock.isOwnedBy(dbc.currentUser())) {
+                // one exception is if the admin user tries to create a temporary resource
+                if (!CmsResource.getName(resourcePath).startsWith(TEMP_FILE_PREFIX)
+                    || !m_securityManager.hasRole(dbc, dbc.currentUser(), CmsRole.ROOT_ADMIN)) {
+                    throw new CmsLockException(Messages.get().container(
+                        Messages.ERR_CREATE_RESOURCE_PARENT_LOCK_1,
+                        dbc.removeSiteRoot(resourcePath)));
+                }
+            }
+            if (CmsResourceTypeJsp.isJsp(resource)) {
+                // security check when trying to create a new jsp file
+                m_securityManager.checkRoleForResource(dbc, CmsRole.DEVELOPER, parentFolder);
+            }
 
-        // if no 'overwrite all' ace was found
-        if (!overwriteAll) {
-            // get the acl of the parent
-            CmsResource parentResource = null;
+            // check import configuration of "lost and found" folder
+            boolean useLostAndFound = importCase && !OpenCms.getImportExportManager().overwriteCollidingResources();
+
+            // check if the resource already exists by name
+            CmsResource currentResourceByName = null;
             try {
-                // try to recurse over the id
-                parentResource = getVfsDriver(dbc).readParentFolder(
-                    dbc,
-                    dbc.currentProject().getUuid(),
-                    resource.getStructureId());
+                currentResourceByName = readResource(dbc, resourcePath, CmsResourceFilter.ALL);
             } catch (CmsVfsResourceNotFoundException e) {
-                // should never happen, but try with the path
-                String parentPath = CmsResource.getParentFolder(resource.getRootPath());
-                if (parentPath != null) {
-                    parentResource = getVfsDriver(dbc).readFolder(dbc, dbc.currentProject().getUuid(), parentPath);
+                // if the resource does exist, we have to check the id later to decide what to do
+            }
+
+            // check if the resource already exists by id
+            try {
+                CmsResource currentResourceById = readResource(dbc, resource.getStructureId(), CmsResourceFilter.ALL);
+                // it is not allowed to import resources when there is already a resource with the same id but different path
+                if (!currentResourceById.getRootPath().equals(resourcePath)) {
+                    throw new CmsVfsResourceAlreadyExistsException(Messages.get().container(
+                        Messages.ERR_RESOURCE_WITH_ID_ALREADY_EXISTS_3,
+                        dbc.removeSiteRoot(resourcePath),
+                        dbc.removeSiteRoot(currentResourceById.getRootPath()),
+                        currentResourceById.getStructureId()));
                 }
+            } catch (CmsVfsResourceNotFoundException e) {
+                // if the resource does exist, we have to check the id later to decide what to do
             }
-            if (parentResource != null) {
-                acl = (CmsAccessControlList)getAccessControlList(
+
+            // check the permissions
+            if (currentResourceByName == null) {
+                // resource does not exist - check parent folder
+                m_securityManager.checkPermissions(
                     dbc,
-                    parentResource,
-                    inheritedOnly,
-                    forFolder,
-                    depth + 1).clone();
+                    parentFolder,
+                    CmsPermissionSet.ACCESS_WRITE,
+                    false,
+                    CmsResourceFilter.IGNORE_EXPIRATION);
+            } else {
+                // resource already exists - check existing resource
+                m_securityManager.checkPermissions(
+                    dbc,
+                    currentResourceByName,
+                    CmsPermissionSet.ACCESS_WRITE,
+                    !importCase,
+                    CmsResourceFilter.ALL);
             }
-        }
-        if (acl == null) {
-            acl = new CmsAccessControlList();
-        }
 
-        if (!((depth == 0) && inheritedOnly)) {
-            Iterator<CmsAccessControlEntry> itAces = aces.iterator();
-            while (itAces.hasNext()) {
-                CmsAccessControlEntry acEntry = itAces.next();
-                if (depth > 0) {
-                    acEntry.setFlags(CmsAccessControlEntry.ACCESS_FLAGS_INHERITED);
+            // now look for the resource by name
+            if (currentResourceByName != null) {
+                boolean overwrite = true;
+                if (currentResourceByName.getState().isDeleted()) {
+                    if (!currentResourceByName.isFolder()) {
+                        // if a non-folder resource was deleted it's treated like a new resource
+                        overwrite = false;
+                    }
+                } else {
+                    if (!importCase) {
+                        // direct "overwrite" of a resource is possible only during import,
+                        // or if the resource has been deleted
+                        throw new CmsVfsResourceAlreadyExistsException(org.opencms.db.generic.Messages.get().container(
+                            org.opencms.db.generic.Messages.ERR_RESOURCE_WITH_NAME_ALREADY_EXISTS_1,
+                            dbc.removeSiteRoot(resource.getRootPath())));
+                    }
+                    // the resource already exists
+                    if (!resource.isFolder()
+                        && useLostAndFound
+                        && (!currentResourceByName.getResourceId().equals(resource.getResourceId()))) {
+                        // semantic change: the current resource is moved to L&F and the imported resource will overwrite the old one
+                        // will leave the resource with state deleted,
+                        // but it does not matter, since the state will be set later again
+                        moveToLostAndFound(dbc, currentResourceByName, false);
+                    }
                 }
+                if (!overwrite) {
+                    // lock the resource, will throw an exception if not lockable
+                    lockResource(dbc, currentResourceByName, CmsLockType.EXCLUSIVE);
 
-                acl.add(acEntry);
-
-                // if the overwrite flag is set, reset the allowed permissions to the permissions of this entry
-                // denied permissions are kept or extended
-                if ((acEntry.getFlags() & CmsAccessControlEntry.ACCESS_FLAGS_OVERWRITE) > 0) {
-                    acl.setAllowedPermissions(acEntry);
+                    // trigger createResource instead of writeResource
+                    currentResourceByName = null;
                 }
             }
-        }
-        if (dbc.getProjectId().isNullUUID()) {
-            m_monitor.cacheACL(cacheKey, acl);
-        }
-        return acl;
-    }
-
-    /**
-     * Return a cache key build from the provided information.<p>
-     *
-     * @param prefix a prefix for the key
-     * @param flag a boolean flag for the key (only used if prefix is not null)
-     * @param projectId the project for which to generate the key
-     * @param resource the resource for which to generate the key
-     *
-     * @return String a cache key build from the provided information
-     */
-    private String getCacheKey(String prefix, boolean flag, CmsUUID projectId, String resource) {
+            // if null, create new resource, if not null write resource
+            CmsResource overwrittenResource = currentResourceByName;
 
-        StringBuffer b = new StringBuffer(64);
-        if (prefix != null) {
-            b.append(prefix);
-            b.append(flag ? '+' : '-');
-        }
-        b.append(CmsProject.isOnlineProject(projectId) ? '+' : '-');
-        return b.append(resource).toString();
-    }
+            // extract the name (without path)
+            String targetName = CmsResource.getName(resourcePath);
 
-    /**
-     * Return a cache key build from the provided information.<p>
-     *
-     * @param keys an array of keys to generate the cache key from
-     * @param dbc the database context for which to generate the key
-     *
-     * @return String a cache key build from the provided information
-     */
-    private String getCacheKey(String[] keys, CmsDbContext dbc) {
+            int contentLength;
 
-        if (!dbc.getProjectId().isNullUUID()) {
-            return "";
-        }
-        StringBuffer b = new StringBuffer(64);
-        int len = keys.length;
-        if (len > 0) {
-            for (int i = 0; i < len; i++) {
-                b.append(keys[i]);
-                b.append('_');
+            // modify target name and content length in case of folder creation
+            if (resource.isFolder()) {
+                // folders never have any content
+                contentLength = -1;
+                // must cut of trailing '/' for folder creation (or name check fails)
+                if (CmsResource.isFolder(targetName)) {
+                    targetName = targetName.substring(0, targetName.length() - 1);
+                }
+            } else {
+                // otherwise ensure content and content length are set correctly
+                if (content != null) {
+                    // if a content is provided, in each case the length is the length of this content
+                    contentLength = content.length;
+                } else if (overwrittenResource != null) {
+                    // we have no content, but an already existing resource - length remains unchanged
+                    contentLength = overwrittenResource.getLength();
+                } else {
+                    // we have no content - length is used as set in the resource
+                    contentLength = resource.getLength();
+                }
             }
-        }
-        if (dbc.currentProject().isOnlineProject()) {
-            b.append("+");
-        } else {
-            b.append("-");
-        }
-        return b.toString();
-    }
-
-    /**
-     * Returns the correct project id.<p>
-     *
-     * @param dbc the database context
-     *
-     * @return the correct project id
-     */
-    private CmsUUID getProjectIdForContext(CmsDbContext dbc) {
 
-        CmsUUID projectId = dbc.getProjectId();
-        if (projectId.isNullUUID()) {
-            projectId = dbc.currentProject().getUuid();
-        }
-        return projectId;
-    }
+            // check if the target name is valid (forbidden chars etc.),
+            // if not throw an exception
+            // must do this here since targetName is modified in folder case (see above)
+            CmsResource.checkResourceName(targetName);
 
-    /**
-     * Returns if and what state needs to be updated.<p>
-     *
-     * @param dbc the db context
-     * @param resource the resource
-     * @param properties the properties to check
-     *
-     * @return 0: none, 1: structure, 2: resource
-     *
-     * @throws CmsDataAccessException if something goes wrong
-     */
-    private int getUpdateState(CmsDbContext dbc, CmsResource resource, List<CmsProperty> properties)
-    throws CmsDataAccessException {
+            // set structure and resource ids as given
+            CmsUUID structureId = resource.getStructureId();
+            CmsUUID resourceId = resource.getResourceId();
 
-        int updateState = 0;
-        I_CmsVfsDriver vfsDriver = getVfsDriver(dbc);
-        Iterator<CmsProperty> it = properties.iterator();
-        while (it.hasNext() && (updateState < 2)) {
-            CmsProperty property = it.next();
+            // decide which structure id to use
+            if (overwrittenResource != null) {
+                // resource exists, re-use existing ids
+                structureId = overwrittenResource.getStructureId();
+            }
+            if (structureId.isNullUUID()) {
+                // need a new structure id
+                structureId = new CmsUUID();
+            }
 
-            // read existing property
-            CmsProperty existingProperty = vfsDriver.readPropertyObject(
-                dbc,
-                property.getName(),
-                dbc.currentProject(),
-                resource);
+            // decide which resource id to use
+            if (overwrittenResource != null) {
+                // if we are overwriting we have to assure the resource id is the same
+                resourceId = overwrittenResource.getResourceId();
+            }
+            if (resourceId.isNullUUID()) {
+                // need a new resource id
+                resourceId = new CmsUUID();
+            }
 
-            // check the shared property
-            if (property.getResourceValue() != null) {
-                if (property.isDeleteResourceValue()) {
-                    if (existingProperty.getResourceValue() != null) {
-                        updateState = 2; // deleted
+            try {
+                // check online resource
+                CmsResource onlineResource = getVfsDriver(dbc).readResource(
+                    dbc,
+                    CmsProject.ONLINE_PROJECT_ID,
+                    resourcePath,
+                    true);
+                // only allow to overwrite with different id if importing (createResource will set the right id)
+                try {
+                    CmsResource offlineResource = getVfsDriver(dbc).readResource(
+                        dbc,
+                        dbc.currentProject().getUuid(),
+                        onlineResource.getStructureId(),
+                        true);
+                    if (!offlineResource.getRootPath().equals(onlineResource.getRootPath())) {
+                        throw new CmsVfsOnlineResourceAlreadyExistsException(Messages.get().container(
+                            Messages.ERR_ONLINE_RESOURCE_EXISTS_2,
+                            dbc.removeSiteRoot(resourcePath),
+                            dbc.removeSiteRoot(offlineResource.getRootPath())));
                     }
-                } else {
-                    if (existingProperty.getResourceValue() == null) {
-                        updateState = 2; // created
-                    } else {
-                        if (!property.getResourceValue().equals(existingProperty.getResourceValue())) {
-                            updateState = 2; // updated
-                        }
+                } catch (CmsVfsResourceNotFoundException e) {
+                    // there is no problem for now
+                    // but should never happen
+                    if (LOG.isErrorEnabled()) {
+                        LOG.error(e.getLocalizedMessage(), e);
                     }
                 }
+            } catch (CmsVfsResourceNotFoundException e) {
+                // ok, there is no online entry to worry about
             }
-            if (updateState == 0) {
-                // check the individual property only if needed
-                if (property.getStructureValue() != null) {
-                    if (property.isDeleteStructureValue()) {
-                        if (existingProperty.getStructureValue() != null) {
-                            updateState = 1; // deleted
-                        }
-                    } else {
-                        if (existingProperty.getStructureValue() == null) {
-                            updateState = 1; // created
-                        } else {
-                            if (!property.getStructureValue().equals(existingProperty.getStructureValue())) {
-                                updateState = 1; // updated
-                            }
-                        }
-                    }
+
+            // now create a resource object with all informations
+            newResource = new CmsResource(
+                structureId,
+                resourceId,
+                resourcePath,
+                resource.getTypeId(),
+                resource.isFolder(),
+                resource.getFlags(),
+                dbc.currentProject().getUuid(),
+                resource.getState(),
+                resource.getDateCreated(),
+                resource.getUserCreated(),
+                resource.getDateLastModified(),
+                resource.getUserLastModified(),
+                resource.getDateReleased(),
+                resource.getDateExpired(),
+                1,
+                contentLength,
+                resource.getDateContent(),
+                resource.getVersion()); // version number does not matter since it will be computed later
+
+            // ensure date is updated only if required
+            if (resource.isTouched()) {
+                // this will trigger the internal "is touched" state on the new resource
+                newResource.setDateLastModified(resource.getDateLastModified());
+            }
+
+            if (resource.isFile()) {
+                // check if a sibling to the imported resource lies in a marked site
+                if (labelResource(dbc, resource, resourcePath, 2)) {
+                    int flags = resource.getFlags();
+                    flags |= CmsResource.FLAG_LABELED;
+                    resource.setFlags(flags);
+                }
+                // ensure siblings don't overwrite existing resource records
+                if (content == null) {
+                    newResource.setState(CmsResource.STATE_KEEP);
                 }
             }
-        }
-        return updateState;
-    }
 
-    /**
-     * Returns all groups that are virtualizing the given role in the given ou.<p>
-     *
-     * @param dbc the database context
-     * @param role the role
-     *
-     * @return all groups that are virtualizing the given role (or a child of it)
-     *
-     * @throws CmsException if something goes wrong
-     */
-    private List<CmsGroup> getVirtualGroupsForRole(CmsDbContext dbc, CmsRole role) throws CmsException {
+            // delete all relations for the resource, before writing the content
+            getVfsDriver(dbc).deleteRelations(
+                dbc,
+                dbc.currentProject().getUuid(),
+                newResource,
+                CmsRelationFilter.TARGETS);
+            if (overwrittenResource == null) {
+                CmsLock lock = getLock(dbc, newResource);
+                if (lock.getEditionLock().isExclusive()) {
+                    unlockResource(dbc, newResource, true, false);
+                }
+                // resource does not exist.
+                newResource = getVfsDriver(dbc).createResource(
+                    dbc,
+                    dbc.currentProject().getUuid(),
+                    newResource,
+                    content);
+            } else {
+                // resource already exists.
+                // probably the resource is a merged page file that gets overwritten during import, or it gets
+                // overwritten by a copy operation. if so, the structure & resource state are not modified to changed.
+                int updateStates = (overwrittenResource.getState().isNew()
+                ? CmsDriverManager.NOTHING_CHANGED
+                : CmsDriverManager.UPDATE_ALL);
+                getVfsDriver(dbc).writeResource(dbc, dbc.currentProject().getUuid(), newResource, updateStates);
 
-        Set<Integer> roleFlags = new HashSet<Integer>();
-        // add role flag
-        Integer flags = new Integer(role.getVirtualGroupFlags());
-        roleFlags.add(flags);
-        // collect all child role flags
-        Iterator<CmsRole> itChildRoles = role.getChildren(true).iterator();
-        while (itChildRoles.hasNext()) {
-            CmsRole child = itChildRoles.next();
-            flags = new Integer(child.getVirtualGroupFlags());
-            roleFlags.add(flags);
-        }
-        // iterate all groups matching the flags
-        List<CmsGroup> groups = new ArrayList<CmsGroup>();
-        Iterator<CmsGroup> it = getGroups(dbc, readOrganizationalUnit(dbc, role.getOuFqn()), false, false).iterator();
-        while (it.hasNext()) {
-            CmsGroup group = it.next();
-            if (group.isVirtual()) {
-                CmsRole r = CmsRole.valueOf(group);
-                if (roleFlags.contains(new Integer(r.getVirtualGroupFlags()))) {
-                    groups.add(group);
+                if ((content != null) && resource.isFile()) {
+                    // also update file content if required
+                    getVfsDriver(dbc).writeContent(dbc, newResource.getResourceId(), content);
+                }
+            }
+
+            // write the properties (internal operation, no events or duplicate permission checks)
+            writePropertyObjects(dbc, newResource, properties, false);
+
+            // lock the created resource
+            try {
+                // if it is locked by another user (copied or moved resource) this lock should be preserved and
+                // the exception is OK: locks on created resources are a slave feature to original locks
+                lockResource(dbc, newResource, CmsLockType.EXCLUSIVE);
+            } catch (CmsLockException cle) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.ERR_CREATE_RESOURCE_LOCK_1,
+                        new Object[] {dbc.removeSiteRoot(newResource.getRootPath())}));
                 }
             }
+
+            if (!importCase) {
+                log(dbc, new CmsLogEntry(
+                    dbc,
+                    newResource.getStructureId(),
+                    CmsLogEntryType.RESOURCE_CREATED,
+                    new String[] {resource.getRootPath()}), false);
+            } else {
+                log(dbc, new CmsLogEntry(
+                    dbc,
+                    newResource.getStructureId(),
+                    CmsLogEntryType.RESOURCE_IMPORTED,
+                    new String[] {resource.getRootPath()}), false);
+            }
+        } finally {
+            // clear the internal caches
+            if (newResource != null) {
+                m_monitor.clearAccessControlListCache(newResource);
+                m_monitor.clearPropertyCache(newResource);
+            } else {
+                m_monitor.clearAccessControlListCache();
+                m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
+            }
+
+            if (newResource != null) {
+                // fire an event that a new resource has been created
+                OpenCms.fireCmsEvent(new CmsEvent(
+                    I_CmsEventListener.EVENT_RESOURCE_CREATED,
+                    Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, newResource)));
+            }
         }
-        return groups;
+        return newResource;
     }
 
     /**
@@ -11236,7 +11447,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             if (attrModified) {
                 vfsDriver.transferResource(dbc, project, resource, createdUser, lastModUser);
                 // clear the cache
-                m_monitor.clearResourceCache();
+                m_monitor.clearResourceCache(resource, false);
             }
             boolean aceModified = false;
             // check aces
@@ -11466,7 +11677,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
 
         // update the cache
-        m_monitor.clearResourceCache();
+        m_monitor.clearResourceCache(onlineResource, moveUndone);
+        if (offlineResource != null) {
+            m_monitor.clearResourceCache(offlineResource, moveUndone);
+        }
         m_monitor.flushCache(CmsMemoryMonitor.CacheType.PROPERTY, CmsMemoryMonitor.CacheType.PROPERTY_LIST);
 
         if ((offlineResource == null) || offlineResource.getRootPath().equals(onlineResource.getRootPath())) {
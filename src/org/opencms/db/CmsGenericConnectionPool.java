@@ -0,0 +1,78 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * The default connection pool, based on the commons-pool {@link GenericObjectPool}.<p>
+ * 
+ * In addition to the generic object pool, the time needed to borrow a connection is recorded 
+ * in the pool metrics.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsGenericConnectionPool extends GenericObjectPool implements I_CmsConnectionPool {
+
+    /** The usage metrics of this pool. */
+    private CmsConnectionPoolMetrics m_metrics;
+
+    /**
+     * Creates a new connection pool without a factory.<p>
+     */
+    public CmsGenericConnectionPool() {
+
+        super(null);
+        m_metrics = new CmsConnectionPoolMetrics();
+    }
+
+    /**
+     * @see org.apache.commons.pool.impl.GenericObjectPool#borrowObject()
+     */
+    @Override
+    public Object borrowObject() throws Exception {
+
+        long start = System.nanoTime();
+        try {
+            Object result = super.borrowObject();
+            m_metrics.addBorrow(System.nanoTime() - start);
+            return result;
+        } catch (Exception e) {
+            m_metrics.addBorrowFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsConnectionPool#getMetrics()
+     */
+    public CmsConnectionPoolMetrics getMetrics() {
+
+        return m_metrics;
+    }
+}
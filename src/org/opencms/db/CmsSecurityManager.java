@@ -92,6 +92,7 @@ import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -131,6 +132,9 @@ public final class CmsSecurityManager {
     /** Permission handler implementation. */
     private I_CmsPermissionHandler m_permissionHandler;
 
+    /** Object used for synchronizing property value changes in folders, which affect the whole subtree. */
+    private Object m_propertyChangeLock = new Object();
+
     /**
      * Default constructor.<p>
      */
@@ -334,7 +338,7 @@ public final class CmsSecurityManager {
      * @throws CmsVfsException for now only when the search for the old value fails
      * @throws CmsException if operation was not successful
      */
-    public synchronized List<CmsResource> changeResourcesInFolderWithProperty(
+    public List<CmsResource> changeResourcesInFolderWithProperty(
         CmsRequestContext context,
         CmsResource resource,
         String propertyDefinition,
@@ -345,13 +349,15 @@ public final class CmsSecurityManager {
         CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
         List<CmsResource> result = null;
         try {
-            result = m_driverManager.changeResourcesInFolderWithProperty(
-                dbc,
-                resource,
-                propertyDefinition,
-                oldValue,
-                newValue,
-                recursive);
+            synchronized (m_propertyChangeLock) {
+                result = m_driverManager.changeResourcesInFolderWithProperty(
+                    dbc,
+                    resource,
+                    propertyDefinition,
+                    oldValue,
+                    newValue,
+                    recursive);
+            }
         } catch (Exception e) {
             dbc.report(
                 null,
@@ -1089,7 +1095,7 @@ public final class CmsSecurityManager {
      *
      * @see org.opencms.file.types.I_CmsResourceType#createResource(CmsObject, CmsSecurityManager, String, byte[], List)
      */
-    public synchronized CmsResource createResource(
+    public CmsResource createResource(
         CmsRequestContext context,
         String resourcename,
         int type,
@@ -3076,7 +3082,7 @@ public final class CmsSecurityManager {
         if (result == null) {
             result = Boolean.FALSE;
         }
-        OpenCms.getMemoryMonitor().cacheRole(key, result.booleanValue());
+        OpenCms.getMemoryMonitor().cacheRole(key, result.booleanValue(), resource.getRootPath());
         return result.booleanValue();
     }
 
@@ -4189,6 +4195,34 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads the binary content of a file resource from the VFS as a stream.<p>
+     *
+     * The returned stream must always be closed by the caller.<p>
+     *
+     * @param context the current request context
+     * @param resource the resource to read the content for
+     *
+     * @return the content of the file as a stream
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see #readFile(CmsRequestContext, CmsResource)
+     */
+    public InputStream readFileContentStream(CmsRequestContext context, CmsResource resource) throws CmsException {
+
+        InputStream result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readFileContentStream(dbc, resource);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads a folder resource from the VFS,
      * using the specified resource filter.<p>
@@ -6470,6 +6504,45 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Writes the content of a file resource from a stream.<p>
+     *
+     * The content is written as it is, without being processed by the resource type.
+     * The stream is not closed by this method.<p>
+     *
+     * @param context the current request context
+     * @param resource the resource to write the content for
+     * @param content the new content of the file
+     * @param length the number of bytes to read from the stream
+     *
+     * @return the written resource
+     *
+     * @throws CmsSecurityException if the user has insufficient permission for the given resource ({@link CmsPermissionSet#ACCESS_WRITE} required)
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsObject#writeFileContentStream(CmsResource, InputStream, int)
+     * @see org.opencms.file.types.I_CmsResourceType#writeFileContentStream(CmsObject, CmsSecurityManager, CmsResource, InputStream, int)
+     */
+    public CmsResource writeFileContentStream(
+        CmsRequestContext context,
+        CmsResource resource,
+        InputStream content,
+        int length) throws CmsException, CmsSecurityException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        CmsResource result = null;
+        try {
+            checkOfflineProject(dbc);
+            checkPermissions(dbc, resource, CmsPermissionSet.ACCESS_WRITE, true, CmsResourceFilter.ALL);
+            result = m_driverManager.writeFileContentStream(dbc, resource, content, length);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_WRITE_FILE_1, context.getSitePath(resource)), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Writes an already existing group.<p>
      *
@@ -96,6 +96,18 @@ public class CmsSqlManager {
         return DriverManager.getConnection(dbPoolUrl);
     }
 
+    /** 
+     * Returns the usage metrics of a pool.<p> 
+     * 
+     * @param dbPoolUrl the url of a pool 
+     * @return the usage metrics of the pool, or <code>null</code> if the pool does not collect metrics 
+     * @throws CmsDbException if something goes wrong 
+     */
+    public CmsConnectionPoolMetrics getConnectionPoolMetrics(String dbPoolUrl) throws CmsDbException {
+
+        return m_driverManager.getConnectionPoolMetrics(dbPoolUrl);
+    }
+
     /**
      * Returns a list of available database connection pool names.<p>
      * 
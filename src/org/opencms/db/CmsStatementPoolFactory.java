@@ -0,0 +1,174 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.apache.commons.pool.KeyedObjectPool;
+import org.apache.commons.pool.KeyedPoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
+
+/**
+ * Creates the prepared statement pools of the pooled connections of a database pool.<p>
+ * 
+ * Every pooled connection gets its own statement pool, the requests for prepared statements and 
+ * the statements actually prepared by the database are counted in the metrics of the connection pool.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsStatementPoolFactory extends GenericKeyedObjectPoolFactory {
+
+    /**
+     * Statement pool that counts the statement requests and statement creations.<p>
+     */
+    private static class CmsStatementPool extends GenericKeyedObjectPool {
+
+        /** The metrics to update. */
+        protected CmsConnectionPoolMetrics m_metrics;
+
+        /**
+         * Creates a new statement pool.<p>
+         * 
+         * @param factory the pool factory to read the configuration from
+         * @param metrics the metrics to update
+         */
+        protected CmsStatementPool(GenericKeyedObjectPoolFactory factory, CmsConnectionPoolMetrics metrics) {
+
+            super(
+                null,
+                factory.getMaxActive(),
+                factory.getWhenExhaustedAction(),
+                factory.getMaxWait(),
+                factory.getMaxIdle(),
+                factory.getMaxTotal(),
+                factory.getMinIdle(),
+                factory.getTestOnBorrow(),
+                factory.getTestOnReturn(),
+                factory.getTimeBetweenEvictionRunsMillis(),
+                factory.getNumTestsPerEvictionRun(),
+                factory.getMinEvictableIdleTimeMillis(),
+                factory.getTestWhileIdle(),
+                factory.getLifo());
+            m_metrics = metrics;
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#borrowObject(java.lang.Object)
+         */
+        @Override
+        public Object borrowObject(Object key) throws Exception {
+
+            m_metrics.addStatementRequest();
+            return super.borrowObject(key);
+        }
+
+        /**
+         * @see org.apache.commons.pool.impl.GenericKeyedObjectPool#setFactory(org.apache.commons.pool.KeyedPoolableObjectFactory)
+         */
+        // deprecated in the pool API, but still used by the DBCP connection factory to register itself
+        @Override
+        @SuppressWarnings("deprecation")
+        public void setFactory(final KeyedPoolableObjectFactory factory) throws IllegalStateException {
+
+            super.setFactory(new KeyedPoolableObjectFactory() {
+
+                /**
+                 * @see org.apache.commons.pool.KeyedPoolableObjectFactory#activateObject(java.lang.Object, java.lang.Object)
+                 */
+                public void activateObject(Object key, Object obj) throws Exception {
+
+                    factory.activateObject(key, obj);
+                }
+
+                /**
+                 * @see org.apache.commons.pool.KeyedPoolableObjectFactory#destroyObject(java.lang.Object, java.lang.Object)
+                 */
+                public void destroyObject(Object key, Object obj) throws Exception {
+
+                    factory.destroyObject(key, obj);
+                }
+
+                /**
+                 * @see org.apache.commons.pool.KeyedPoolableObjectFactory#makeObject(java.lang.Object)
+                 */
+                public Object makeObject(Object key) throws Exception {
+
+                    m_metrics.addStatementPrepare();
+                    return factory.makeObject(key);
+                }
+
+                /**
+                 * @see org.apache.commons.pool.KeyedPoolableObjectFactory#passivateObject(java.lang.Object, java.lang.Object)
+                 */
+                public void passivateObject(Object key, Object obj) throws Exception {
+
+                    factory.passivateObject(key, obj);
+                }
+
+                /**
+                 * @see org.apache.commons.pool.KeyedPoolableObjectFactory#validateObject(java.lang.Object, java.lang.Object)
+                 */
+                public boolean validateObject(Object key, Object obj) {
+
+                    return factory.validateObject(key, obj);
+                }
+            });
+        }
+    }
+
+    /** The metrics of the connection pool. */
+    private CmsConnectionPoolMetrics m_metrics;
+
+    /**
+     * Creates a new statement pool factory.<p>
+     * 
+     * @param metrics the metrics of the connection pool
+     * @param maxActive the maximum number of active statements per statement key 
+     * @param whenExhaustedAction the action to take if the statement pool is exhausted
+     * @param maxWait the maximum time to wait for a statement if the statement pool is exhausted
+     * @param maxIdle the maximum number of idle statements per statement key
+     */
+    public CmsStatementPoolFactory(
+        CmsConnectionPoolMetrics metrics,
+        int maxActive,
+        byte whenExhaustedAction,
+        long maxWait,
+        int maxIdle) {
+
+        super(null, maxActive, whenExhaustedAction, maxWait, maxIdle);
+        m_metrics = metrics;
+    }
+
+    /**
+     * @see org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory#createPool()
+     */
+    @Override
+    public KeyedObjectPool createPool() {
+
+        return new CmsStatementPool(this, m_metrics);
+    }
+}
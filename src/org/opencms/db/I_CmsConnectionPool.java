@@ -0,0 +1,133 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.apache.commons.pool.ObjectPool;
+
+/**
+ * Describes a pool for the JDBC connections of a database pool configured in the <code>opencms.properties</code>.<p>
+ * 
+ * The implementation to use is configured with the <code>db.pool.&lt;name&gt;.poolClass</code> property,
+ * the other pool properties are passed to the setters of this interface before the pool is used.
+ * The <code>whenExhaustedAction</code> values are the constants of 
+ * {@link org.apache.commons.pool.impl.GenericObjectPool}.<p>
+ * 
+ * Implementations must provide a public constructor without arguments.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see org.opencms.db.CmsDbPool#createDriverManagerConnectionPool(org.opencms.configuration.CmsParameterConfiguration, String)
+ */
+public interface I_CmsConnectionPool extends ObjectPool {
+
+    /**
+     * Returns the maximum number of connections that can be borrowed from the pool at the same time.<p>
+     * 
+     * @return the maximum number of active connections, a negative value means no limit
+     */
+    int getMaxActive();
+
+    /**
+     * Returns the usage metrics of this pool.<p>
+     * 
+     * @return the usage metrics of this pool
+     */
+    CmsConnectionPoolMetrics getMetrics();
+
+    /**
+     * Sets the maximum number of connections that can be borrowed from the pool at the same time.<p>
+     * 
+     * @param maxActive the maximum number of active connections, a negative value means no limit
+     */
+    void setMaxActive(int maxActive);
+
+    /**
+     * Sets the maximum number of idle connections kept in the pool.<p>
+     * 
+     * @param maxIdle the maximum number of idle connections, a negative value means no limit
+     */
+    void setMaxIdle(int maxIdle);
+
+    /**
+     * Sets the maximum time to wait for a connection if the pool is exhausted.<p>
+     * 
+     * @param maxWait the maximum time to wait in milliseconds, a value <code>&lt;= 0</code> waits forever
+     */
+    void setMaxWait(long maxWait);
+
+    /**
+     * Sets the minimum time a connection must be idle before it is subject to eviction.<p>
+     * 
+     * @param minEvictableIdleTimeMillis the minimum idle time in milliseconds
+     */
+    void setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis);
+
+    /**
+     * Sets the minimum number of idle connections the evictor keeps in the pool.<p>
+     * 
+     * @param minIdle the minimum number of idle connections
+     */
+    void setMinIdle(int minIdle);
+
+    /**
+     * Sets the number of idle connections tested in a run of the evictor.<p>
+     * 
+     * @param numTestsPerEvictionRun the number of idle connections tested per eviction run
+     */
+    void setNumTestsPerEvictionRun(int numTestsPerEvictionRun);
+
+    /**
+     * Sets if connections are validated before they are borrowed from the pool.<p>
+     * 
+     * @param testOnBorrow if <code>true</code>, connections are validated before they are borrowed
+     */
+    void setTestOnBorrow(boolean testOnBorrow);
+
+    /**
+     * Sets if idle connections are validated by the evictor.<p>
+     * 
+     * @param testWhileIdle if <code>true</code>, idle connections are validated by the evictor
+     */
+    void setTestWhileIdle(boolean testWhileIdle);
+
+    /**
+     * Sets the time between two runs of the evictor.<p>
+     * 
+     * @param timeBetweenEvictionRunsMillis the time between two eviction runs in milliseconds, 
+     *      a value <code>&lt;= 0</code> disables the evictor 
+     */
+    void setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis);
+
+    /**
+     * Sets the action to take if the pool is exhausted.<p>
+     * 
+     * @param whenExhaustedAction one of the <code>WHEN_EXHAUSTED_*</code> constants of 
+     *      {@link org.apache.commons.pool.impl.GenericObjectPool}
+     */
+    void setWhenExhaustedAction(byte whenExhaustedAction);
+}
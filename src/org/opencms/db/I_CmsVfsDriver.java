@@ -41,6 +41,7 @@ import org.opencms.relations.CmsRelationFilter;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
@@ -464,6 +465,24 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Reads the content of a file specified by it's resource ID as a stream.<p>
+     *
+     * In contrast to {@link #readContent(CmsDbContext, CmsUUID, CmsUUID)}, the content is not 
+     * loaded into memory at once. The returned stream may hold database resources, so it must 
+     * always be closed by the caller.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceId the id of the resource
+     *
+     * @return the file content as a stream
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -912,6 +931,22 @@ public interface I_CmsVfsDriver {
      */
     void writeContent(CmsDbContext dbc, CmsUUID resourceId, byte[] content) throws CmsDataAccessException;
 
+    /**
+     * Writes the resource content with the specified resource id from a stream.<p>
+     *
+     * In contrast to {@link #writeContent(CmsDbContext, CmsUUID, byte[])}, the content is not 
+     * loaded into memory at once. The stream is not closed by this method.<p>
+     *
+     * @param dbc the current database context
+     * @param resourceId the id of the resource used to identify the content to update
+     * @param content the new content of the file
+     * @param length the number of bytes to read from the stream
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void writeContentStream(CmsDbContext dbc, CmsUUID resourceId, InputStream content, int length)
+    throws CmsDataAccessException;
+
     /**
      * Writes the "last-modified-in-project" ID of a resource.<p>
      *
@@ -1370,7 +1370,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getBatchConnection(dbc);
             for (Map.Entry<CmsProperty, CmsPropertyDefinition> entry : propDefs.entrySet()) {
 
                 for (int i = 0; i < 2; i++) {
@@ -1395,7 +1395,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                         }
                     }
 
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_CREATE");
+                    stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_PROPERTIES_HISTORY_CREATE");
 
                     stmt.setString(1, resource.getStructureId().toString());
                     stmt.setString(2, entry.getValue().getId().toString());
@@ -1404,7 +1404,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                     stmt.setString(5, m_sqlManager.validateEmpty(value));
                     stmt.setInt(6, publishTag);
 
-                    stmt.executeUpdate();
+                    m_sqlManager.executeBatchUpdate(dbc, stmt);
                     m_sqlManager.closeAll(dbc, null, stmt, null);
                 }
             }
@@ -1485,10 +1485,10 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                 parentId = parent.getStructureId();
             }
 
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getBatchConnection(dbc);
             if (!valResource) {
                 // write the resource
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_HISTORY_WRITE");
+                stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_RESOURCES_HISTORY_WRITE");
                 stmt.setString(1, resource.getResourceId().toString());
                 stmt.setInt(2, resource.getTypeId());
                 stmt.setInt(3, resource.getFlags());
@@ -1503,11 +1503,11 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                 stmt.setInt(12, resource.getSiblingCount());
                 stmt.setInt(13, resourceVersion);
                 stmt.setInt(14, publishTag);
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
             // write the structure
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_WRITE");
+            stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_STRUCTURE_HISTORY_WRITE");
             stmt.setString(1, resource.getStructureId().toString());
             stmt.setString(2, resource.getResourceId().toString());
             stmt.setString(3, resource.getRootPath());
@@ -1518,7 +1518,7 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
             stmt.setString(8, parentId.toString());
             stmt.setInt(9, publishTag);
             stmt.setInt(10, resource.getVersion());
-            stmt.executeUpdate();
+            m_sqlManager.executeBatchUpdate(dbc, stmt);
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
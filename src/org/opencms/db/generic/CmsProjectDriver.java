@@ -74,6 +74,7 @@ import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobInfoBean;
 import org.opencms.relations.CmsRelationFilter;
+import org.opencms.report.CmsBufferedReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.I_CmsPrincipal;
@@ -110,6 +111,244 @@ import com.google.common.collect.Sets;
  */
 public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
+    /**
+     * Publishes the resources of a publish job.<p>
+     *
+     * With a publish batch, the report output, the events and the log entries of the published resources
+     * are kept until the publish transaction has been committed. If publishing a resource or committing
+     * fails, the transaction is rolled back and its resources are published again one by one, each in its
+     * own transaction, so the error is reported for the resource that caused it, and the resources published
+     * before it are kept. Without publish batch, every resource is published and reported immediately.<p>
+     */
+    private class CmsPublishTransaction {
+
+        /** The publish batch, <code>null</code> if the resources are not published in batches. */
+        private CmsPublishBatch m_batch;
+
+        /** The ids of the contents published before the resources of the current transaction. */
+        private Set<CmsUUID> m_committedContentIds;
+
+        /** The current database context. */
+        private CmsDbContext m_dbc;
+
+        /** The online project. */
+        private CmsProject m_onlineProject;
+
+        /** The ids of the published contents. */
+        private Set<CmsUUID> m_publishedContentIds;
+
+        /** The current publish process id. */
+        private CmsUUID m_publishHistoryId;
+
+        /** The current publish process tag. */
+        private int m_publishTag;
+
+        /** The report to write the output to. */
+        private I_CmsReport m_report;
+
+        /** The resources published in the current transaction. */
+        private List<CmsUncommittedResource> m_uncommitted;
+
+        /**
+         * Creates a new publish transaction.<p>
+         *
+         * @param dbc the current database context
+         * @param report the report to write the output to
+         * @param batch the publish batch, <code>null</code> to publish without batches
+         * @param onlineProject the online project
+         * @param publishHistoryId the current publish process id
+         * @param publishTag the current publish process tag
+         */
+        public CmsPublishTransaction(
+            CmsDbContext dbc,
+            I_CmsReport report,
+            CmsPublishBatch batch,
+            CmsProject onlineProject,
+            CmsUUID publishHistoryId,
+            int publishTag) {
+
+            m_dbc = dbc;
+            m_report = report;
+            m_batch = batch;
+            m_onlineProject = onlineProject;
+            m_publishHistoryId = publishHistoryId;
+            m_publishTag = publishTag;
+            m_publishedContentIds = new HashSet<CmsUUID>();
+            m_committedContentIds = new HashSet<CmsUUID>();
+            m_uncommitted = new ArrayList<CmsUncommittedResource>();
+        }
+
+        /**
+         * Commits the publish transaction, then reports, unlocks and logs its resources.<p>
+         *
+         * @throws CmsException if a resource could not be published
+         */
+        public void commit() throws CmsException {
+
+            if ((m_batch == null) || m_uncommitted.isEmpty()) {
+                return;
+            }
+            try {
+                m_batch.commit();
+            } catch (Throwable t) {
+                republish();
+                return;
+            }
+            for (CmsUncommittedResource resource : m_uncommitted) {
+                resource.getReport().flush();
+                finish(resource.getResource(), resource.getState());
+            }
+            m_uncommitted.clear();
+        }
+
+        /**
+         * Publishes a resource of the publish list.<p>
+         *
+         * @param resource the resource to publish
+         * @param m the number of the resource in its publish list
+         * @param n the size of the publish list of the resource
+         *
+         * @throws CmsException if the resource could not be published
+         */
+        public void publish(CmsResource resource, int m, int n) throws CmsException {
+
+            CmsResourceState state = resource.getState();
+            if (m_batch == null) {
+                try {
+                    internalPublishResource(
+                        m_dbc,
+                        m_report,
+                        m,
+                        n,
+                        m_onlineProject,
+                        resource,
+                        m_publishedContentIds,
+                        m_publishHistoryId,
+                        m_publishTag);
+                } catch (Throwable t) {
+                    m_dbc.report(m_report, getErrorMessage(resource, state), t);
+                }
+                finish(resource, state);
+                return;
+            }
+            if (m_uncommitted.isEmpty()) {
+                m_committedContentIds = new HashSet<CmsUUID>(m_publishedContentIds);
+            }
+            CmsUncommittedResource uncommitted = new CmsUncommittedResource(resource, m, n, new CmsBufferedReport(
+                m_report));
+            m_uncommitted.add(uncommitted);
+            try {
+                internalPublishResource(
+                    m_dbc,
+                    uncommitted.getReport(),
+                    m,
+                    n,
+                    m_onlineProject,
+                    resource,
+                    m_publishedContentIds,
+                    m_publishHistoryId,
+                    m_publishTag);
+            } catch (Throwable t) {
+                // the error may as well be caused by the pending batches of the resources published before
+                republish();
+                return;
+            }
+            if (m_uncommitted.size() >= m_publishCommitInterval) {
+                commit();
+            }
+        }
+
+        /**
+         * Unlocks and logs a published resource.<p>
+         *
+         * @param resource the published resource
+         * @param state the state of the resource before it was published
+         *
+         * @throws CmsException if something goes wrong
+         */
+        private void finish(CmsResource resource, CmsResourceState state) throws CmsException {
+
+            try {
+                internalFinishPublishResource(m_dbc, resource, state);
+            } catch (Throwable t) {
+                m_dbc.report(m_report, getErrorMessage(resource, state), t);
+            }
+        }
+
+        /**
+         * Returns the error message for a resource that could not be published.<p>
+         *
+         * @param resource the resource
+         * @param state the state of the resource before it was published
+         *
+         * @return the error message
+         */
+        private CmsMessageContainer getErrorMessage(CmsResource resource, CmsResourceState state) {
+
+            if (!resource.isFolder()) {
+                return Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, resource.getRootPath());
+            } else if (state.isDeleted()) {
+                return Messages.get().container(
+                    Messages.ERR_ERROR_PUBLISHING_DELETED_FOLDER_1,
+                    resource.getRootPath());
+            }
+            return Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FOLDER_1, resource.getRootPath());
+        }
+
+        /**
+         * Rolls back the publish transaction and publishes its resources again, each in its own transaction.<p>
+         *
+         * @throws CmsException if a resource could not be published
+         */
+        private void republish() throws CmsException {
+
+            List<CmsUncommittedResource> uncommitted = new ArrayList<CmsUncommittedResource>(m_uncommitted);
+            m_uncommitted.clear();
+            rollback();
+            for (CmsUncommittedResource resource : uncommitted) {
+                resource.getResource().setState(resource.getState());
+            }
+            for (CmsUncommittedResource resource : uncommitted) {
+                m_committedContentIds = new HashSet<CmsUUID>(m_publishedContentIds);
+                resource.getReport().clear();
+                try {
+                    internalPublishResource(
+                        m_dbc,
+                        resource.getReport(),
+                        resource.getM(),
+                        resource.getN(),
+                        m_onlineProject,
+                        resource.getResource(),
+                        m_publishedContentIds,
+                        m_publishHistoryId,
+                        m_publishTag);
+                    m_batch.commit();
+                } catch (Throwable t) {
+                    rollback();
+                    resource.getResource().setState(resource.getState());
+                    resource.getReport().flush();
+                    m_dbc.report(m_report, getErrorMessage(resource.getResource(), resource.getState()), t);
+                }
+                resource.getReport().flush();
+                finish(resource.getResource(), resource.getState());
+            }
+        }
+
+        /**
+         * Rolls back the publish transaction.<p>
+         */
+        private void rollback() {
+
+            try {
+                m_batch.rollback();
+            } catch (SQLException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_PUBLISH_BATCH_0), e);
+            }
+            m_publishedContentIds.clear();
+            m_publishedContentIds.addAll(m_committedContentIds);
+        }
+    }
+
     /**
      * This private class is a temporary storage for the method {@link CmsProjectDriver#readLocks(CmsDbContext)}.<p>
      */
@@ -185,6 +424,94 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /**
+     * A resource published in a publish transaction that has not been committed yet.<p>
+     */
+    private class CmsUncommittedResource {
+
+        /** The number of the resource in its publish list. */
+        private int m_m;
+
+        /** The size of the publish list of the resource. */
+        private int m_n;
+
+        /** The report output of publishing the resource. */
+        private CmsBufferedReport m_report;
+
+        /** The resource. */
+        private CmsResource m_resource;
+
+        /** The state of the resource before it was published. */
+        private CmsResourceState m_state;
+
+        /**
+         * The constructor.<p>
+         *
+         * @param resource the resource
+         * @param m the number of the resource in its publish list
+         * @param n the size of the publish list of the resource
+         * @param report the report output of publishing the resource
+         */
+        public CmsUncommittedResource(CmsResource resource, int m, int n, CmsBufferedReport report) {
+
+            m_resource = resource;
+            m_state = resource.getState();
+            m_m = m;
+            m_n = n;
+            m_report = report;
+        }
+
+        /**
+         * Returns the number of the resource in its publish list.<p>
+         *
+         * @return the number of the resource in its publish list
+         */
+        public int getM() {
+
+            return m_m;
+        }
+
+        /**
+         * Returns the size of the publish list of the resource.<p>
+         *
+         * @return the size of the publish list of the resource
+         */
+        public int getN() {
+
+            return m_n;
+        }
+
+        /**
+         * Returns the report output of publishing the resource.<p>
+         *
+         * @return the report output of publishing the resource
+         */
+        public CmsBufferedReport getReport() {
+
+            return m_report;
+        }
+
+        /**
+         * Returns the resource.<p>
+         *
+         * @return the resource
+         */
+        public CmsResource getResource() {
+
+            return m_resource;
+        }
+
+        /**
+         * Returns the state of the resource before it was published.<p>
+         *
+         * @return the state of the resource before it was published
+         */
+        public CmsResourceState getState() {
+
+            return m_state;
+        }
+    }
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
@@ -194,6 +521,12 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
+    /** The number of statements executed in a single JDBC batch when publishing, 0 to disable batching. */
+    protected int m_publishBatchSize;
+
+    /** The number of published resources after which the publish transaction is committed. */
+    protected int m_publishCommitInterval;
+
     /** The SQL manager. */
     protected CmsSqlManager m_sqlManager;
 
@@ -869,8 +1202,17 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         m_driverManager = driverManager;
 
+        m_publishBatchSize = configuration.getInteger("db.project.publishBatchSize", 0);
+        m_publishCommitInterval = configuration.getInteger("db.project.publishCommitInterval", 500);
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_ASSIGNED_POOL_1, poolUrl));
+            if (m_publishBatchSize > 0) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_PUBLISH_BATCH_2,
+                    String.valueOf(m_publishBatchSize),
+                    String.valueOf(m_publishCommitInterval)));
+            }
         }
 
         if ((successiveDrivers != null) && !successiveDrivers.isEmpty()) {
@@ -1118,7 +1460,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
         } finally {
             // notify the app. that the published folder and it's properties have been modified offline
-            OpenCms.fireCmsEvent(new CmsEvent(
+            CmsPublishBatch.fireCmsEvent(dbc, new CmsEvent(
                 I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
                 Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, currentFolder)));
         }
@@ -1280,7 +1622,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             throw new CmsDataAccessException(e.getMessageContainer(), e);
         } finally {
             // notify the app. that the published file and it's properties have been modified offline
-            OpenCms.fireCmsEvent(new CmsEvent(
+            CmsPublishBatch.fireCmsEvent(dbc, new CmsEvent(
                 I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
                 Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, offlineResource)));
         }
@@ -1577,7 +1919,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
         } finally {
             // notify the app. that the published folder and it's properties have been modified offline
-            OpenCms.fireCmsEvent(new CmsEvent(
+            CmsPublishBatch.fireCmsEvent(dbc, new CmsEvent(
                 I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
                 Collections.<String, Object> singletonMap(I_CmsEventListener.KEY_RESOURCE, offlineFolder)));
         }
@@ -1596,8 +1938,19 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishedFolderCount = 0;
         int deletedFolderCount = 0;
         int publishedFileCount = 0;
-        Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
-        Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+
+        CmsPublishBatch batch = null;
+        if (m_publishBatchSize > 0) {
+            batch = new CmsPublishBatch(m_publishBatchSize);
+            dbc.setAttribute(CmsPublishBatch.ATTR_PUBLISH_BATCH, batch);
+        }
+        CmsPublishTransaction transaction = new CmsPublishTransaction(
+            dbc,
+            report,
+            batch,
+            onlineProject,
+            publishList.getPublishHistoryId(),
+            publishTag);
 
         try {
 
@@ -1609,6 +1962,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     // write an entry in the publish project log
                     m_driverManager.getHistoryDriver(dbc).writeProject(dbc, publishTag, System.currentTimeMillis());
                     dbc.pop();
+                    if (batch != null) {
+                        batch.commit();
+                    }
                 } catch (Throwable t) {
                     dbc.report(
                         report,
@@ -1638,76 +1994,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
 
             Iterator<CmsResource> itFolders = publishList.getFolderList().iterator();
-            I_CmsProjectDriver projectDriver = m_driverManager.getProjectDriver(dbc);
-            I_CmsHistoryDriver historyDriver = m_driverManager.getHistoryDriver(dbc);
             while (itFolders.hasNext()) {
-                CmsResource currentFolder = itFolders.next();
-                try {
-                    if (currentFolder.getState().isNew() || currentFolder.getState().isChanged()) {
-                        // bounce the current publish task through all project drivers
-                        projectDriver.publishFolder(
-                            dbc,
-                            report,
-                            ++publishedFolderCount,
-                            foldersSize,
-                            onlineProject,
-                            new CmsFolder(currentFolder),
-                            publishList.getPublishHistoryId(),
-                            publishTag);
-
-                        dbc.pop();
-
-                        publishedIds.add(currentFolder.getStructureId());
-                        // log it
-                        CmsLogEntryType type = currentFolder.getState().isNew()
-                        ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW
-                        : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED;
-                        m_driverManager.log(dbc, new CmsLogEntry(
-                            dbc,
-                            currentFolder.getStructureId(),
-                            type,
-                            new String[] {currentFolder.getRootPath()}), true);
-
-                        // delete old historical entries
-                        historyDriver.deleteEntries(
-                            dbc,
-                            new CmsHistoryFile(currentFolder),
-                            OpenCms.getSystemInfo().getHistoryVersions(),
-                            -1);
-
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentFolder);
-
-                        m_driverManager.unlockResource(dbc, currentFolder, true, true);
-                    } else {
-                        // state == unchanged !!?? something went really wrong
-                        report.print(Messages.get().container(Messages.RPT_PUBLISH_FOLDER_0), I_CmsReport.FORMAT_NOTE);
-                        report.print(org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            dbc.removeSiteRoot(currentFolder.getRootPath())));
-                        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-                        report.println(
-                            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                            I_CmsReport.FORMAT_ERROR);
-
-                        if (LOG.isErrorEnabled()) {
-                            // the whole resource is printed out here
-                            LOG.error(Messages.get().getBundle().key(
-                                Messages.LOG_PUBLISHING_FILE_3,
-                                String.valueOf(++publishedFolderCount),
-                                String.valueOf(foldersSize),
-                                currentFolder));
-                        }
-                    }
-
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
-                        report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FOLDER_1, currentFolder.getRootPath()),
-                        t);
-                }
+                transaction.publish(itFolders.next(), ++publishedFolderCount, foldersSize);
             }
+            transaction.commit();
 
             if (foldersSize > 0) {
                 report.println(
@@ -1741,47 +2031,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
             Iterator<CmsResource> itFiles = publishList.getFileList().iterator();
             while (itFiles.hasNext()) {
-                CmsResource currentResource = itFiles.next();
-                try {
-                    // bounce the current publish task through all project drivers
-                    projectDriver.publishFile(
-                        dbc,
-                        report,
-                        ++publishedFileCount,
-                        filesSize,
-                        onlineProject,
-                        currentResource,
-                        publishedContentIds,
-                        publishList.getPublishHistoryId(),
-                        publishTag);
-
-                    CmsResourceState state = currentResource.getState();
-                    if (!state.isDeleted()) {
-                        // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
-                        internalResetResourceState(dbc, currentResource);
-                    }
-
-                    // unlock it
-                    m_driverManager.unlockResource(dbc, currentResource, true, true);
-                    // log it
-                    CmsLogEntryType type = state.isNew() ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW : (state.isDeleted()
-                    ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
-                    : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
-                    m_driverManager.log(dbc, new CmsLogEntry(
-                        dbc,
-                        currentResource.getStructureId(),
-                        type,
-                        new String[] {currentResource.getRootPath()}), true);
-
-                    publishedIds.add(currentResource.getStructureId());
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
-                        report,
-                        Messages.get().container(Messages.ERR_ERROR_PUBLISHING_FILE_1, currentResource.getRootPath()),
-                        t);
-                }
+                transaction.publish(itFiles.next(), ++publishedFileCount, filesSize);
             }
+            transaction.commit();
 
             if (filesSize > 0) {
                 report.println(Messages.get().container(Messages.RPT_PUBLISH_FILES_END_0), I_CmsReport.FORMAT_HEADLINE);
@@ -1805,48 +2057,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
             Iterator<CmsResource> itDeletedFolders = deletedFolders.iterator();
             while (itDeletedFolders.hasNext()) {
-                CmsResource currentFolder = itDeletedFolders.next();
-
-                try {
-                    // bounce the current publish task through all project drivers
-                    projectDriver.publishDeletedFolder(
-                        dbc,
-                        report,
-                        ++deletedFolderCount,
-                        deletedFoldersSize,
-                        onlineProject,
-                        new CmsFolder(currentFolder),
-                        publishList.getPublishHistoryId(),
-                        publishTag);
-
-                    dbc.pop();
-                    // delete old historical entries
-                    m_driverManager.getHistoryDriver(dbc).deleteEntries(
-                        dbc,
-                        new CmsHistoryFile(currentFolder),
-                        OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
-                        -1);
-
-                    publishedIds.add(currentFolder.getStructureId());
-                    // unlock it
-                    m_driverManager.unlockResource(dbc, currentFolder, true, true);
-                    // log it
-                    m_driverManager.log(dbc, new CmsLogEntry(
-                        dbc,
-                        currentFolder.getStructureId(),
-                        CmsLogEntryType.RESOURCE_PUBLISHED_DELETED,
-                        new String[] {currentFolder.getRootPath()}), true);
-
-                    dbc.pop();
-                } catch (Throwable t) {
-                    dbc.report(
-                        report,
-                        Messages.get().container(
-                            Messages.ERR_ERROR_PUBLISHING_DELETED_FOLDER_1,
-                            currentFolder.getRootPath()),
-                        t);
-                }
+                transaction.publish(itDeletedFolders.next(), ++deletedFolderCount, deletedFoldersSize);
             }
+            transaction.commit();
 
             if (deletedFoldersSize > 0) {
                 report.println(Messages.get().container(Messages.RPT_DELETE_FOLDERS_END_0), I_CmsReport.FORMAT_HEADLINE);
@@ -1863,6 +2076,11 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            if (batch != null) {
+                // roll back the publish writes that have not been committed because of an error
+                batch.close();
+                dbc.removeAttribute(CmsPublishBatch.ATTR_PUBLISH_BATCH);
+            }
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
@@ -2580,6 +2798,26 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         m_driverManager = driverManager;
     }
 
+    /**
+     * Sets the number of statements executed in a single JDBC batch when publishing.<p>
+     * 
+     * @param publishBatchSize the batch size, 0 to publish without batches
+     */
+    public void setPublishBatchSize(int publishBatchSize) {
+
+        m_publishBatchSize = publishBatchSize;
+    }
+
+    /**
+     * Sets the number of published resources after which the publish transaction is committed.<p>
+     * 
+     * @param publishCommitInterval the commit interval
+     */
+    public void setPublishCommitInterval(int publishCommitInterval) {
+
+        m_publishCommitInterval = publishCommitInterval;
+    }
+
     /**
      * @see org.opencms.db.I_CmsProjectDriver#setSqlManager(org.opencms.db.CmsSqlManager)
      */
@@ -2710,8 +2948,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         PreparedStatement stmt = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
+            conn = m_sqlManager.getBatchConnection(dbc);
+            stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_RESOURCES_WRITE_PUBLISH_HISTORY");
             stmt.setInt(1, resource.getPublishTag());
             stmt.setString(2, resource.getStructureId().toString());
             stmt.setString(3, resource.getResourceId().toString());
@@ -2720,7 +2958,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             stmt.setInt(6, resource.getType());
             stmt.setString(7, publishId.toString());
             stmt.setInt(8, resource.getSiblingCount());
-            stmt.executeUpdate();
+            m_sqlManager.executeBatchUpdate(dbc, stmt);
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -3076,6 +3314,145 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return (CmsPublishList)oin.readObject();
     }
 
+    /**
+     * Unlocks and logs a resource after it has been published.<p>
+     *
+     * @param dbc the current database context
+     * @param resource the published resource
+     * @param state the state of the resource before it was published
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void internalFinishPublishResource(CmsDbContext dbc, CmsResource resource, CmsResourceState state)
+    throws CmsException {
+
+        if (resource.isFolder() && state.isUnchanged()) {
+            // the folder has not been published
+            return;
+        }
+        // unlock it
+        m_driverManager.unlockResource(dbc, resource, true, true);
+        // log it
+        CmsLogEntryType type = state.isNew() ? CmsLogEntryType.RESOURCE_PUBLISHED_NEW : (state.isDeleted()
+        ? CmsLogEntryType.RESOURCE_PUBLISHED_DELETED
+        : CmsLogEntryType.RESOURCE_PUBLISHED_MODIFIED);
+        m_driverManager.log(
+            dbc,
+            new CmsLogEntry(dbc, resource.getStructureId(), type, new String[] {resource.getRootPath()}),
+            true);
+    }
+
+    /**
+     * Publishes a resource of a publish list.<p>
+     *
+     * The resource is written to the online project and its offline state is reset,
+     * it is unlocked and logged by {@link #internalFinishPublishResource(CmsDbContext, CmsResource, CmsResourceState)}.<p>
+     *
+     * @param dbc the current database context
+     * @param report the report to write the output to
+     * @param m the number of the resource in its publish list
+     * @param n the size of the publish list of the resource
+     * @param onlineProject the online project
+     * @param resource the resource to publish
+     * @param publishedContentIds the ids of the contents published before
+     * @param publishHistoryId the current publish process id
+     * @param publishTag the current publish process tag
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void internalPublishResource(
+        CmsDbContext dbc,
+        I_CmsReport report,
+        int m,
+        int n,
+        CmsProject onlineProject,
+        CmsResource resource,
+        Set<CmsUUID> publishedContentIds,
+        CmsUUID publishHistoryId,
+        int publishTag) throws CmsException {
+
+        I_CmsProjectDriver projectDriver = m_driverManager.getProjectDriver(dbc);
+        if (!resource.isFolder()) {
+            // bounce the current publish task through all project drivers
+            projectDriver.publishFile(
+                dbc,
+                report,
+                m,
+                n,
+                onlineProject,
+                resource,
+                publishedContentIds,
+                publishHistoryId,
+                publishTag);
+
+            if (!resource.getState().isDeleted()) {
+                // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+                internalResetResourceState(dbc, resource);
+            }
+        } else if (resource.getState().isDeleted()) {
+            // bounce the current publish task through all project drivers
+            projectDriver.publishDeletedFolder(
+                dbc,
+                report,
+                m,
+                n,
+                onlineProject,
+                new CmsFolder(resource),
+                publishHistoryId,
+                publishTag);
+
+            dbc.pop();
+            // delete old historical entries
+            m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                dbc,
+                new CmsHistoryFile(resource),
+                OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
+                -1);
+        } else if (resource.getState().isNew() || resource.getState().isChanged()) {
+            // bounce the current publish task through all project drivers
+            projectDriver.publishFolder(
+                dbc,
+                report,
+                m,
+                n,
+                onlineProject,
+                new CmsFolder(resource),
+                publishHistoryId,
+                publishTag);
+
+            dbc.pop();
+            // delete old historical entries
+            m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                dbc,
+                new CmsHistoryFile(resource),
+                OpenCms.getSystemInfo().getHistoryVersions(),
+                -1);
+
+            // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
+            internalResetResourceState(dbc, resource);
+        } else {
+            // state == unchanged !!?? something went really wrong
+            report.print(Messages.get().container(Messages.RPT_PUBLISH_FOLDER_0), I_CmsReport.FORMAT_NOTE);
+            report.print(org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                dbc.removeSiteRoot(resource.getRootPath())));
+            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                I_CmsReport.FORMAT_ERROR);
+
+            if (LOG.isErrorEnabled()) {
+                // the whole resource is printed out here
+                LOG.error(Messages.get().getBundle().key(
+                    Messages.LOG_PUBLISHING_FILE_3,
+                    String.valueOf(m),
+                    String.valueOf(n),
+                    resource));
+            }
+        }
+        dbc.pop();
+    }
+
     /**
      * Creates a new {@link CmsLogEntry} object from the given result set entry.<p>
      *
@@ -0,0 +1,476 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Runs the database writes of a publish job in a transaction and collects them in JDBC batches.<p>
+ *
+ * While a publish batch is stored as attribute {@link #ATTR_PUBLISH_BATCH} in the database context,
+ * the SQL manager returns the publish connection of the batch for every connection requested with
+ * this context, so all statements of the publish job run in the publish transaction. The drivers add
+ * their publish writes to JDBC batches with
+ * {@link CmsSqlManager#executeBatchUpdate(CmsDbContext, PreparedStatement)}.<p>
+ *
+ * The pending batches of a table are executed in the order they were added as soon as any other statement
+ * that uses the table is prepared on a publish connection, so a statement always reads the rows written before.
+ * Batches of tables that are only written are therefore collected across the published resources, until the
+ * configured batch size is reached or the publish transaction is committed.<p>
+ *
+ * Events fired with {@link #fireCmsEvent(CmsDbContext, CmsEvent)} are kept until the publish transaction
+ * has been committed, and are dropped if it is rolled back.<p>
+ *
+ * @since 9.5.0
+ */
+public class CmsPublishBatch {
+
+    /** Database context attribute name for the publish batch. */
+    public static final String ATTR_PUBLISH_BATCH = "ATTR_PUBLISH_BATCH";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsPublishBatch.class);
+
+    /** Pattern matching the characters that separate the names used in a statement. */
+    private static final Pattern PATTERN_NAME_SEPARATOR = Pattern.compile("[^\\w]+");
+
+    /** Pattern matching the table written by an insert, update or delete statement. */
+    private static final Pattern PATTERN_WRITTEN_TABLE = Pattern.compile(
+        "^\\s*(?:INSERT\\s+INTO|UPDATE|DELETE\\s+(?:FROM\\s+)?)\\s*([\\w.\"]+)",
+        Pattern.CASE_INSENSITIVE);
+
+    /** The publish batches of the open publish connections, replaced as a whole whenever it changes. */
+    private static volatile Map<Connection, CmsPublishBatch> m_batchConnections = Collections.emptyMap();
+
+    /** The number of statements executed in a single JDBC batch. */
+    private int m_batchSize;
+
+    /** The publish connections, by pool URL. */
+    private Map<String, Connection> m_connections;
+
+    /** The events fired when the publish transaction is committed. */
+    private List<CmsEvent> m_events;
+
+    /** The statement added last to the pending batches, by table. */
+    private Map<String, PreparedStatement> m_lastPending;
+
+    /** The names used in the prepared SQL queries, by query. */
+    private Map<String, Set<String>> m_names;
+
+    /** The number of statements in the pending JDBC batches, by statement in the order they were added. */
+    private Map<PreparedStatement, Integer> m_pending;
+
+    /** The prepared statements of this batch, by pool URL and SQL query. */
+    private Map<String, PreparedStatement> m_statements;
+
+    /** The table written by the prepared statements of this batch, by statement. */
+    private Map<PreparedStatement, String> m_tables;
+
+    /**
+     * Creates a new publish batch.<p>
+     *
+     * @param batchSize the number of statements executed in a single JDBC batch
+     */
+    public CmsPublishBatch(int batchSize) {
+
+        m_batchSize = Math.max(1, batchSize);
+        m_connections = new LinkedHashMap<String, Connection>();
+        m_events = new ArrayList<CmsEvent>();
+        m_lastPending = new HashMap<String, PreparedStatement>();
+        m_names = new HashMap<String, Set<String>>();
+        m_pending = new LinkedHashMap<PreparedStatement, Integer>();
+        m_statements = new LinkedHashMap<String, PreparedStatement>();
+        m_tables = new HashMap<PreparedStatement, String>();
+    }
+
+    /**
+     * Fires the given event when the publish transaction of the given database context is committed.<p>
+     *
+     * If the context does not publish in batches, the event is fired immediately.<p>
+     *
+     * @param dbc the current database context
+     * @param event the event to fire
+     */
+    public static void fireCmsEvent(CmsDbContext dbc, CmsEvent event) {
+
+        CmsPublishBatch batch = getBatch(dbc);
+        if (batch != null) {
+            batch.m_events.add(event);
+        } else {
+            OpenCms.fireCmsEvent(event);
+        }
+    }
+
+    /**
+     * Returns the publish batch of the given database context.<p>
+     *
+     * @param dbc the current database context, may be <code>null</code>
+     *
+     * @return the publish batch, or <code>null</code> if the context does not publish in batches
+     */
+    public static CmsPublishBatch getBatch(CmsDbContext dbc) {
+
+        if (dbc == null) {
+            return null;
+        }
+        return (CmsPublishBatch)dbc.getAttribute(ATTR_PUBLISH_BATCH);
+    }
+
+    /**
+     * Returns the publish batch the given connection belongs to.<p>
+     *
+     * @param conn the connection, may be <code>null</code>
+     *
+     * @return the publish batch, or <code>null</code> if the connection is not a publish connection
+     */
+    public static CmsPublishBatch getBatch(Connection conn) {
+
+        if (conn == null) {
+            return null;
+        }
+        return m_batchConnections.get(conn);
+    }
+
+    /**
+     * Adds the current parameters of the given statement to its JDBC batch.<p>
+     *
+     * The batches of a table keep the order of its statements. If other statements on the same table have been
+     * added since the last parameters of the given statement, or if the batch size is reached, the pending batches
+     * of the table are executed.<p>
+     *
+     * @param stmt a statement returned by {@link #getPreparedStatement(CmsSqlManager, String)}
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void addBatch(PreparedStatement stmt) throws SQLException {
+
+        String table = m_tables.get(stmt);
+        if (table == null) {
+            // the statement can not be ordered with the pending batches of its table
+            executeBatches();
+            stmt.executeUpdate();
+            return;
+        }
+        Integer count = m_pending.get(stmt);
+        if ((count != null) && (stmt != m_lastPending.get(table))) {
+            // the batch of the statement must not be executed before the statements on the table added after it
+            executeBatches(table);
+            count = null;
+        }
+        stmt.addBatch();
+        int pending = (count == null) ? 1 : count.intValue() + 1;
+        m_pending.put(stmt, Integer.valueOf(pending));
+        m_lastPending.put(table, stmt);
+        if (pending >= m_batchSize) {
+            executeBatches(table);
+        }
+    }
+
+    /**
+     * Closes the statements and the connections of this batch.<p>
+     *
+     * Work that has not been committed is rolled back.<p>
+     */
+    public void close() {
+
+        for (PreparedStatement stmt : m_statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_CLOSING_PUBLISH_BATCH_0), e);
+            }
+        }
+        m_statements.clear();
+        m_tables.clear();
+        m_pending.clear();
+        m_lastPending.clear();
+        m_events.clear();
+        for (Connection conn : m_connections.values()) {
+            setBatchConnection(conn, null);
+            try {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_CLOSING_PUBLISH_BATCH_0), e);
+            } finally {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    LOG.error(Messages.get().getBundle().key(Messages.LOG_CLOSING_PUBLISH_BATCH_0), e);
+                }
+            }
+        }
+        m_connections.clear();
+    }
+
+    /**
+     * Executes the pending batches, commits the publish transaction and fires the events
+     * kept since the last commit.<p>
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void commit() throws SQLException {
+
+        executeBatches();
+        for (Connection conn : m_connections.values()) {
+            conn.commit();
+        }
+        List<CmsEvent> events = new ArrayList<CmsEvent>(m_events);
+        m_events.clear();
+        for (CmsEvent event : events) {
+            OpenCms.fireCmsEvent(event);
+        }
+    }
+
+    /**
+     * Executes all pending batches in the order they were added.<p>
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void executeBatches() throws SQLException {
+
+        m_lastPending.clear();
+        Iterator<PreparedStatement> it = m_pending.keySet().iterator();
+        while (it.hasNext()) {
+            PreparedStatement stmt = it.next();
+            it.remove();
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Executes the pending batches of the tables used by the given SQL query, so the query reads
+     * the rows written before.<p>
+     *
+     * @param query the SQL query of a statement that is not batched
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void executeBatchesForQuery(String query) throws SQLException {
+
+        if (m_pending.isEmpty()) {
+            return;
+        }
+        Set<String> names = m_names.get(query);
+        if (names == null) {
+            names = new HashSet<String>(Arrays.asList(PATTERN_NAME_SEPARATOR.split(
+                query.toUpperCase(Locale.ENGLISH))));
+            m_names.put(query, names);
+        }
+        Iterator<PreparedStatement> it = m_pending.keySet().iterator();
+        while (it.hasNext()) {
+            PreparedStatement stmt = it.next();
+            String table = m_tables.get(stmt);
+            if (names.contains(table)) {
+                it.remove();
+                m_lastPending.remove(table);
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Returns the publish connection for the pool of the given SQL manager.<p>
+     *
+     * The connection belongs to this batch and is not closed by
+     * {@link CmsSqlManager#closeAll(CmsDbContext, Connection, Statement, java.sql.ResultSet)}.<p>
+     *
+     * @param sqlManager the SQL manager of the calling driver
+     *
+     * @return the publish connection
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public Connection getConnection(CmsSqlManager sqlManager) throws SQLException {
+
+        Connection conn = m_connections.get(sqlManager.m_poolUrl);
+        if (conn == null) {
+            conn = sqlManager.getConnectionByUrl(sqlManager.m_poolUrl);
+            try {
+                conn.setAutoCommit(false);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            m_connections.put(sqlManager.m_poolUrl, conn);
+            setBatchConnection(conn, this);
+        }
+        return conn;
+    }
+
+    /**
+     * Returns the prepared statement of this batch for the given SQL query.<p>
+     *
+     * The statement belongs to this batch and is not closed by
+     * {@link CmsSqlManager#closeAll(CmsDbContext, Connection, Statement, java.sql.ResultSet)}.<p>
+     *
+     * @param sqlManager the SQL manager of the calling driver
+     * @param query the SQL query of an insert, update or delete statement
+     *
+     * @return the prepared statement
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public PreparedStatement getPreparedStatement(CmsSqlManager sqlManager, String query) throws SQLException {
+
+        String key = sqlManager.m_poolUrl + "|" + query;
+        PreparedStatement stmt = m_statements.get(key);
+        if (stmt == null) {
+            stmt = getConnection(sqlManager).prepareStatement(query);
+            m_statements.put(key, stmt);
+            m_tables.put(stmt, getWrittenTable(query));
+        }
+        return stmt;
+    }
+
+    /**
+     * Checks if the given connection is a publish connection of this batch.<p>
+     *
+     * @param conn the connection to check
+     *
+     * @return <code>true</code> if the connection belongs to this batch
+     */
+    public boolean isBatchConnection(Connection conn) {
+
+        return m_connections.containsValue(conn);
+    }
+
+    /**
+     * Checks if the given statement is a prepared statement of this batch.<p>
+     *
+     * @param stmt the statement to check
+     *
+     * @return <code>true</code> if the statement belongs to this batch
+     */
+    public boolean isBatchStatement(Statement stmt) {
+
+        return m_statements.containsValue(stmt);
+    }
+
+    /**
+     * Rolls back the publish transaction.<p>
+     *
+     * The pending batches and the events kept since the last commit are dropped.<p>
+     *
+     * @throws SQLException if something goes wrong
+     */
+    public void rollback() throws SQLException {
+
+        m_events.clear();
+        m_lastPending.clear();
+        Iterator<PreparedStatement> it = m_pending.keySet().iterator();
+        while (it.hasNext()) {
+            PreparedStatement stmt = it.next();
+            it.remove();
+            stmt.clearBatch();
+        }
+        for (Connection conn : m_connections.values()) {
+            conn.rollback();
+        }
+    }
+
+    /**
+     * Executes the pending batches of the given table in the order they were added.<p>
+     *
+     * @param table the table
+     *
+     * @throws SQLException if something goes wrong
+     */
+    private void executeBatches(String table) throws SQLException {
+
+        m_lastPending.remove(table);
+        Iterator<PreparedStatement> it = m_pending.keySet().iterator();
+        while (it.hasNext()) {
+            PreparedStatement stmt = it.next();
+            if (table.equals(m_tables.get(stmt))) {
+                it.remove();
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Returns the table written by the given insert, update or delete statement.<p>
+     *
+     * @param query the SQL query
+     *
+     * @return the upper case name of the table, or <code>null</code> if the query could not be parsed
+     */
+    private static String getWrittenTable(String query) {
+
+        Matcher matcher = PATTERN_WRITTEN_TABLE.matcher(query);
+        if (!matcher.find()) {
+            return null;
+        }
+        String table = matcher.group(1).replace("\"", "").toUpperCase(Locale.ENGLISH);
+        // ignore the schema of the table
+        return table.substring(table.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Registers or unregisters the publish batch of the given connection.<p>
+     *
+     * @param conn the publish connection
+     * @param batch the publish batch, or <code>null</code> to unregister the connection
+     */
+    private static synchronized void setBatchConnection(Connection conn, CmsPublishBatch batch) {
+
+        Map<Connection, CmsPublishBatch> batchConnections = new IdentityHashMap<Connection, CmsPublishBatch>(
+            m_batchConnections);
+        if (batch != null) {
+            batchConnections.put(conn, batch);
+        } else {
+            batchConnections.remove(conn);
+        }
+        m_batchConnections = batchConnections;
+    }
+}
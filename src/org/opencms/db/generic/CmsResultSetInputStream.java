@@ -0,0 +1,113 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db.generic;
+
+import org.opencms.db.CmsDbContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Input stream that reads a binary column of a result set and keeps the 
+ * database resources open until the stream is closed.<p>
+ * 
+ * Closing the stream closes the result set, the statement and the connection,
+ * so callers must always close the stream, usually in a <code>finally</code> block.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsResultSetInputStream extends FilterInputStream {
+
+    /** Flag indicating if the stream has been closed. */
+    private boolean m_closed;
+
+    /** The connection to close. */
+    private Connection m_conn;
+
+    /** The current database context. */
+    private CmsDbContext m_dbc;
+
+    /** The result set to close. */
+    private ResultSet m_res;
+
+    /** The SQL manager used to close the database resources. */
+    private CmsSqlManager m_sqlManager;
+
+    /** The statement to close. */
+    private Statement m_stmt;
+
+    /**
+     * Creates a new result set input stream.<p>
+     * 
+     * @param in the stream to read from
+     * @param sqlManager the SQL manager used to close the database resources
+     * @param dbc the current database context
+     * @param conn the connection to close
+     * @param stmt the statement to close
+     * @param res the result set to close
+     */
+    public CmsResultSetInputStream(
+        InputStream in,
+        CmsSqlManager sqlManager,
+        CmsDbContext dbc,
+        Connection conn,
+        Statement stmt,
+        ResultSet res) {
+
+        super(in);
+        m_sqlManager = sqlManager;
+        m_dbc = dbc;
+        m_conn = conn;
+        m_stmt = stmt;
+        m_res = res;
+    }
+
+    /**
+     * @see java.io.FilterInputStream#close()
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (m_closed) {
+            return;
+        }
+        m_closed = true;
+        try {
+            super.close();
+        } finally {
+            m_sqlManager.closeAll(m_dbc, m_conn, m_stmt, m_res);
+            m_conn = null;
+            m_stmt = null;
+            m_res = null;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -150,6 +151,17 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
 
+        CmsPublishBatch batch = CmsPublishBatch.getBatch(dbc);
+        if (batch != null) {
+            // the statements and connections of the publish batch are closed when the publish ends
+            if ((stmnt != null) && batch.isBatchStatement(stmnt)) {
+                stmnt = null;
+            }
+            if ((con != null) && batch.isBatchConnection(con)) {
+                con = null;
+            }
+        }
+
         try {
             // first, close the result set          
             if (res != null) {
@@ -185,6 +197,131 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
 
     }
 
+    /**
+     * Executes an insert, update or delete statement returned by one of the <code>getBatchStatement</code> methods.<p>
+     * 
+     * If the database context publishes in batches, the statement is added to its JDBC batch,
+     * otherwise it is executed immediately.<p>
+     * 
+     * @param dbc the current database context
+     * @param stmt the statement to execute
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public void executeBatchUpdate(CmsDbContext dbc, PreparedStatement stmt) throws SQLException {
+
+        CmsPublishBatch batch = CmsPublishBatch.getBatch(dbc);
+        if ((batch != null) && batch.isBatchStatement(stmt)) {
+            batch.addBatch(stmt);
+        } else {
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns a JDBC connection for insert, update and delete statements which are added to the 
+     * publish batch of the database context.<p>
+     * 
+     * The connection must only be used for statements returned by one of the <code>getBatchStatement</code>
+     * methods and executed with {@link #executeBatchUpdate(CmsDbContext, PreparedStatement)}.<p>
+     * 
+     * @param dbc the current database context
+     * 
+     * @return a JDBC connection
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public Connection getBatchConnection(CmsDbContext dbc) throws SQLException {
+
+        CmsPublishBatch batch = CmsPublishBatch.getBatch(dbc);
+        if (batch != null) {
+            return batch.getConnection(this);
+        }
+        return getConnection(dbc);
+    }
+
+    /**
+     * Returns a PreparedStatement for an insert, update or delete statement specified by the key 
+     * of a SQL query and the project-ID, which is added to the publish batch of the database context.<p>
+     * 
+     * @param dbc the current database context
+     * @param con the JDBC connection returned by {@link #getBatchConnection(CmsDbContext)}
+     * @param projectId the ID of the specified CmsProject
+     * @param queryKey the key of the SQL query
+     * 
+     * @return the PreparedStatement
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public PreparedStatement getBatchStatement(CmsDbContext dbc, Connection con, CmsUUID projectId, String queryKey)
+    throws SQLException {
+
+        return getBatchStatementForSql(dbc, con, readQuery(projectId, queryKey));
+    }
+
+    /**
+     * Returns a PreparedStatement for an insert, update or delete statement specified by the key 
+     * of a SQL query, which is added to the publish batch of the database context.<p>
+     * 
+     * @param dbc the current database context
+     * @param con the JDBC connection returned by {@link #getBatchConnection(CmsDbContext)}
+     * @param queryKey the key of the SQL query
+     * 
+     * @return the PreparedStatement
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public PreparedStatement getBatchStatement(CmsDbContext dbc, Connection con, String queryKey)
+    throws SQLException {
+
+        return getBatchStatementForSql(dbc, con, readQuery(CmsUUID.getNullUUID(), queryKey));
+    }
+
+    /**
+     * Returns a PreparedStatement for an insert, update or delete statement specified by the SQL query,
+     * which is added to the publish batch of the database context.<p>
+     * 
+     * If the database context publishes in batches, the statement belongs to the publish batch, 
+     * otherwise a new PreparedStatement is created for the given connection.<p>
+     * 
+     * @param dbc the current database context
+     * @param con the JDBC connection returned by {@link #getBatchConnection(CmsDbContext)}
+     * @param query the SQL query
+     * 
+     * @return the PreparedStatement
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public PreparedStatement getBatchStatementForSql(CmsDbContext dbc, Connection con, String query)
+    throws SQLException {
+
+        CmsPublishBatch batch = CmsPublishBatch.getBatch(dbc);
+        if (batch != null) {
+            return batch.getPreparedStatement(this, query);
+        }
+        return getPreparedStatementForSql(con, query);
+    }
+
+    /**
+     * Retrieves the value of the designated column in the current row of this ResultSet object as 
+     * a stream of uninterpreted bytes.<p>
+     * 
+     * The stream must be read before the next value is read from the result set, and before the 
+     * result set is closed. Overwrite this method if another database server requires a different 
+     * handling of byte attributes in tables.<p>
+     * 
+     * @param res the result set
+     * @param attributeName the name of the table attribute
+     * 
+     * @return the column value as a stream; if the value is SQL NULL, the value returned is null 
+     * 
+     * @throws SQLException if a database access error occurs
+     */
+    public InputStream getBinaryStream(ResultSet res, String attributeName) throws SQLException {
+
+        return res.getBinaryStream(attributeName);
+    }
+
     /**
      * Retrieves the value of the designated column in the current row of this ResultSet object as 
      * a byte array in the Java programming language.<p>
@@ -209,6 +346,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      * 
      * Use this method to get a connection for reading/writing project independent data.<p>
      * 
+     * If the database context publishes in batches, the publish connection is returned.
+     * Statements prepared on it first execute the pending batches of the tables they use.<p>
+     * 
      * @param dbc the current database context
      * 
      * @return a JDBC connection
@@ -220,6 +360,10 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         if (dbc == null) {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
+        CmsPublishBatch batch = CmsPublishBatch.getBatch(dbc);
+        if (batch != null) {
+            return batch.getConnection(this);
+        }
         // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
         return getConnectionByUrl(m_poolUrl);
     }
@@ -278,6 +422,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /**
      * Returns a PreparedStatement for a JDBC connection specified by the SQL query.<p>
      * 
+     * If the connection is a publish connection, the pending batches of the tables used by the query
+     * are executed first, so the statement sees the rows written before.<p>
+     * 
      * @param con the JDBC connection
      * @param query the SQL query
      * @return PreparedStatement a new PreparedStatement containing the pre-compiled SQL statement 
@@ -285,6 +432,10 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      */
     public PreparedStatement getPreparedStatementForSql(Connection con, String query) throws SQLException {
 
+        CmsPublishBatch batch = CmsPublishBatch.getBatch(con);
+        if (batch != null) {
+            batch.executeBatchesForQuery(query);
+        }
         // unfortunately, this wrapper is essential, because some JDBC driver 
         // implementations don't accept the delegated objects of DBCP's connection pool. 
         return con.prepareStatement(query);
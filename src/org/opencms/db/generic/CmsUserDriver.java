@@ -261,8 +261,8 @@ public class CmsUserDriver implements I_CmsUserDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_CREATE_5");
+            conn = m_sqlManager.getBatchConnection(dbc);
+            stmt = m_sqlManager.getBatchStatement(dbc, conn, project.getUuid(), "C_ACCESS_CREATE_5");
 
             stmt.setString(1, resource.toString());
             stmt.setString(2, principal.toString());
@@ -270,7 +270,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
             stmt.setInt(4, denied);
             stmt.setInt(5, flags);
 
-            stmt.executeUpdate();
+            m_sqlManager.executeBatchUpdate(dbc, stmt);
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -1049,8 +1049,22 @@ public class CmsUserDriver implements I_CmsUserDriver {
             false);
         dbc.setProjectId(dbcProjectId);
 
+        if (CmsPublishBatch.getBatch(dbc) == null) {
+            for (CmsAccessControlEntry ace : aces) {
+                m_driverManager.getUserDriver(dbc).writeAccessControlEntry(dbc, onlineProject, ace);
+            }
+            return;
+        }
+        // all online entries of the resource have been removed, so the entries can be created without reading them
         for (CmsAccessControlEntry ace : aces) {
-            m_driverManager.getUserDriver(dbc).writeAccessControlEntry(dbc, onlineProject, ace);
+            m_driverManager.getUserDriver(dbc).createAccessControlEntry(
+                dbc,
+                onlineProject,
+                onlineId,
+                ace.getPrincipal(),
+                ace.getAllowedPermissions(),
+                ace.getDeniedPermissions(),
+                ace.getFlags());
         }
     }
 
@@ -1595,12 +1609,12 @@ public class CmsUserDriver implements I_CmsUserDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_ACCESS_REMOVE_ALL_1");
+            conn = m_sqlManager.getBatchConnection(dbc);
+            stmt = m_sqlManager.getBatchStatement(dbc, conn, project.getUuid(), "C_ACCESS_REMOVE_ALL_1");
 
             stmt.setString(1, resource.toString());
 
-            stmt.executeUpdate();
+            m_sqlManager.executeBatchUpdate(dbc, stmt);
 
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
@@ -80,6 +80,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -469,26 +470,26 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getBatchConnection(dbc);
             boolean dbcHasProjectId = (dbc.getProjectId() != null) && !dbc.getProjectId().isNullUUID();
 
             if (needToUpdateContent || dbcHasProjectId) {
                 if (dbcHasProjectId || !OpenCms.getSystemInfo().isHistoryEnabled()) {
                     // remove the online content for this resource id
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_DELETE");
+                    stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_ONLINE_CONTENTS_DELETE");
                     stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
+                    m_sqlManager.executeBatchUpdate(dbc, stmt);
                     m_sqlManager.closeAll(dbc, null, stmt, null);
                 } else {
                     // put the online content in the history, only if explicit requested
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
+                    stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_ONLINE_CONTENTS_HISTORY");
                     stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
+                    m_sqlManager.executeBatchUpdate(dbc, stmt);
                     m_sqlManager.closeAll(dbc, null, stmt, null);
                 }
 
                 // create new online content
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_WRITE");
+                stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_ONLINE_CONTENTS_WRITE");
 
                 stmt.setString(1, resourceId.toString());
                 if (contents.length < 2000) {
@@ -499,21 +500,21 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setInt(3, publishTag);
                 stmt.setInt(4, publishTag);
                 stmt.setInt(5, keepOnline ? 1 : 0);
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             } else {
                 // update old content entry
-                stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_CONTENTS_UPDATE");
+                stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_HISTORY_CONTENTS_UPDATE");
                 stmt.setInt(1, publishTag);
                 stmt.setString(2, resourceId.toString());
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
 
                 if (!keepOnline) {
                     // put the online content in the history
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_ONLINE_CONTENTS_HISTORY");
+                    stmt = m_sqlManager.getBatchStatement(dbc, conn, "C_ONLINE_CONTENTS_HISTORY");
                     stmt.setString(1, resourceId.toString());
-                    stmt.executeUpdate();
+                    m_sqlManager.executeBatchUpdate(dbc, stmt);
                     m_sqlManager.closeAll(dbc, null, stmt, null);
                 }
             }
@@ -565,8 +566,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_CREATE_RELATION");
+            conn = m_sqlManager.getBatchConnection(dbc);
+            stmt = m_sqlManager.getBatchStatement(dbc, conn, projectId, "C_CREATE_RELATION");
             stmt.setString(1, relation.getSourceId().toString());
             stmt.setString(2, relation.getSourcePath());
             stmt.setString(3, relation.getTargetId().toString());
@@ -579,7 +580,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                     String.valueOf(projectId),
                     relation));
             }
-            stmt.executeUpdate();
+            m_sqlManager.executeBatchUpdate(dbc, stmt);
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -1059,11 +1060,12 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getBatchConnection(dbc);
 
             if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_AND_RESOURCE_VALUES) {
                 // delete both the structure and resource property values mapped to the specified resource
-                stmt = m_sqlManager.getPreparedStatement(
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
                     conn,
                     projectId,
                     "C_PROPERTIES_DELETE_ALL_STRUCTURE_AND_RESOURCE_VALUES");
@@ -1073,7 +1075,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setInt(4, CmsProperty.STRUCTURE_RECORD_MAPPING);
             } else if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_STRUCTURE_VALUES) {
                 // delete the structure values mapped to the specified resource
-                stmt = m_sqlManager.getPreparedStatement(
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
                     conn,
                     projectId,
                     "C_PROPERTIES_DELETE_ALL_VALUES_FOR_MAPPING_TYPE");
@@ -1081,7 +1084,8 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setInt(2, CmsProperty.STRUCTURE_RECORD_MAPPING);
             } else if (deleteOption == CmsProperty.DELETE_OPTION_DELETE_RESOURCE_VALUES) {
                 // delete the resource property values mapped to the specified resource
-                stmt = m_sqlManager.getPreparedStatement(
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
                     conn,
                     projectId,
                     "C_PROPERTIES_DELETE_ALL_VALUES_FOR_MAPPING_TYPE");
@@ -1091,7 +1095,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 throw new CmsDataAccessException(Messages.get().container(Messages.ERR_INVALID_DELETE_OPTION_1));
             }
 
-            stmt.executeUpdate();
+            m_sqlManager.executeBatchUpdate(dbc, stmt);
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -1111,7 +1115,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getBatchConnection(dbc);
 
             if (filter.isSource()) {
                 List<Object> params = new ArrayList<Object>(7);
@@ -1120,7 +1124,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 queryBuf.append(m_sqlManager.readQuery(projectId, "C_DELETE_RELATIONS"));
                 queryBuf.append(prepareRelationConditions(projectId, filter, resource, params, true));
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+                stmt = m_sqlManager.getBatchStatementForSql(dbc, conn, queryBuf.toString());
                 for (int i = 0; i < params.size(); i++) {
                     if (params.get(i) instanceof Integer) {
                         stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
@@ -1128,7 +1132,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                         stmt.setString(i + 1, (String)params.get(i));
                     }
                 }
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
             if (filter.isTarget()) {
@@ -1138,7 +1142,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 queryBuf.append(m_sqlManager.readQuery(projectId, "C_DELETE_RELATIONS"));
                 queryBuf.append(prepareRelationConditions(projectId, filter, resource, params, false));
 
-                stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+                stmt = m_sqlManager.getBatchStatementForSql(dbc, conn, queryBuf.toString());
                 for (int i = 0; i < params.size(); i++) {
                     if (params.get(i) instanceof Integer) {
                         stmt.setInt(i + 1, ((Integer)params.get(i)).intValue());
@@ -1146,7 +1150,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                         stmt.setString(i + 1, (String)params.get(i));
                     }
                 }
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
         } catch (SQLException e) {
@@ -1522,11 +1526,21 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 dbc,
                 onlineProject.getUuid(),
                 offlineResource.getResourceId());
-            conn = m_sqlManager.getConnection(dbc);
+            // read the parent id
+            String parentId = internalReadParentId(dbc, onlineProject.getUuid(), resourcePath);
+            boolean structureExists = validateStructureIdExists(
+                dbc,
+                onlineProject.getUuid(),
+                offlineResource.getStructureId());
+            conn = m_sqlManager.getBatchConnection(dbc);
             if (resourceExists) {
                 // the resource record exists online already
                 // update the online resource record
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_RESOURCES_UPDATE_RESOURCES");
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
+                    conn,
+                    onlineProject.getUuid(),
+                    "C_RESOURCES_UPDATE_RESOURCES");
                 stmt.setInt(1, offlineResource.getTypeId());
                 stmt.setInt(2, offlineResource.getFlags());
                 stmt.setLong(3, offlineResource.getDateLastModified());
@@ -1537,12 +1551,12 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setString(8, offlineResource.getProjectLastModified().toString());
                 stmt.setInt(9, sibCount);
                 stmt.setString(10, offlineResource.getResourceId().toString());
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, conn, stmt, null);
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
+                m_sqlManager.closeAll(dbc, null, stmt, null);
             } else {
                 // the resource record does NOT exist online yet
                 // create the resource record online
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_RESOURCES_WRITE");
+                stmt = m_sqlManager.getBatchStatement(dbc, conn, onlineProject.getUuid(), "C_RESOURCES_WRITE");
                 stmt.setString(1, offlineResource.getResourceId().toString());
                 stmt.setInt(2, offlineResource.getTypeId());
                 stmt.setInt(3, offlineResource.getFlags());
@@ -1556,20 +1570,17 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setString(11, offlineResource.getProjectLastModified().toString());
                 stmt.setInt(12, 1); // initial siblings count
                 stmt.setInt(13, 1); // initial resource version
-                stmt.executeUpdate();
-                m_sqlManager.closeAll(dbc, conn, stmt, null);
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
+                m_sqlManager.closeAll(dbc, null, stmt, null);
             }
 
-            // read the parent id
-            String parentId = internalReadParentId(dbc, onlineProject.getUuid(), resourcePath);
-            boolean structureExists = validateStructureIdExists(
-                dbc,
-                onlineProject.getUuid(),
-                offlineResource.getStructureId());
-            conn = m_sqlManager.getConnection(dbc);
             if (structureExists) {
                 // update the online structure record
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_RESOURCES_UPDATE_STRUCTURE");
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
+                    conn,
+                    onlineProject.getUuid(),
+                    "C_RESOURCES_UPDATE_STRUCTURE");
                 stmt.setString(1, offlineResource.getResourceId().toString());
                 stmt.setString(2, resourcePath);
                 stmt.setInt(3, CmsResource.STATE_UNCHANGED.getState());
@@ -1577,11 +1588,11 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setLong(5, offlineResource.getDateExpired());
                 stmt.setString(6, parentId);
                 stmt.setString(7, offlineResource.getStructureId().toString());
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             } else {
                 // create the structure record online
-                stmt = m_sqlManager.getPreparedStatement(conn, onlineProject, "C_STRUCTURE_WRITE");
+                stmt = m_sqlManager.getBatchStatement(dbc, conn, onlineProject.getUuid(), "C_STRUCTURE_WRITE");
                 stmt.setString(1, offlineResource.getStructureId().toString());
                 stmt.setString(2, offlineResource.getResourceId().toString());
                 stmt.setString(3, resourcePath);
@@ -1590,7 +1601,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
                 stmt.setLong(6, offlineResource.getDateExpired());
                 stmt.setString(7, parentId);
                 stmt.setInt(8, resourceExists ? 1 : 0); // new resources start with 0, new siblings with 1
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
         } catch (SQLException e) {
@@ -1844,6 +1855,53 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, org.opencms.util.CmsUUID)
+     */
+    public InputStream readContentStream(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        Connection conn = null;
+        InputStream result = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
+            } else {
+                stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_OFFLINE_FILES_CONTENT");
+            }
+            stmt.setString(1, resourceId.toString());
+            res = stmt.executeQuery();
+
+            if (!res.next()) {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_READ_CONTENT_WITH_RESOURCE_ID_2,
+                    resourceId,
+                    Boolean.valueOf(projectId.equals(CmsProject.ONLINE_PROJECT_ID))));
+            }
+            InputStream content = m_sqlManager.getBinaryStream(
+                res,
+                m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT"));
+            if (content == null) {
+                content = new ByteArrayInputStream(new byte[0]);
+            }
+            // the database resources are closed when the stream is closed
+            result = new CmsResultSetInputStream(content, m_sqlManager, dbc, conn, stmt, res);
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            if (result == null) {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -3131,9 +3189,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     }
 
     /**
-     * @see org.opencms.db.I_CmsVfsDriver#writeLastModifiedProjectId(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, CmsUUID, org.opencms.file.CmsResource)
+     * @see org.opencms.db.I_CmsVfsDriver#writeContentStream(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.io.InputStream, int)
      */
-    public void writeLastModifiedProjectId(CmsDbContext dbc, CmsProject project, CmsUUID projectId, CmsResource resource)
+    public void writeContentStream(CmsDbContext dbc, CmsUUID resourceId, InputStream content, int length)
     throws CmsDataAccessException {
 
         Connection conn = null;
@@ -3141,9 +3199,10 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
         try {
             conn = m_sqlManager.getConnection(dbc);
-            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_PROJECT_LASTMODIFIED");
-            stmt.setString(1, projectId.toString());
-            stmt.setString(2, resource.getResourceId().toString());
+            stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_OFFLINE_CONTENTS_UPDATE");
+            // update the file content in the database, without loading it into memory
+            stmt.setBinaryStream(1, content, length);
+            stmt.setString(2, resourceId.toString());
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
@@ -3155,149 +3214,20 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     }
 
     /**
-     * @see org.opencms.db.I_CmsVfsDriver#writePropertyObject(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, org.opencms.file.CmsProperty)
+     * @see org.opencms.db.I_CmsVfsDriver#writeLastModifiedProjectId(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, CmsUUID, org.opencms.file.CmsResource)
      */
-    public void writePropertyObject(CmsDbContext dbc, CmsProject project, CmsResource resource, CmsProperty property)
+    public void writeLastModifiedProjectId(CmsDbContext dbc, CmsProject project, CmsUUID projectId, CmsResource resource)
     throws CmsDataAccessException {
 
-        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
-        ? project.getUuid()
-        : dbc.getProjectId();
-
-        // TODO: check if we need autocreation for link property definition types too
-        CmsPropertyDefinition propertyDefinition = null;
-        try {
-            // read the property definition
-            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
-        } catch (CmsDbEntryNotFoundException e) {
-            if (property.autoCreatePropertyDefinition()) {
-                propertyDefinition = createPropertyDefinition(
-                    dbc,
-                    projectId,
-                    property.getName(),
-                    CmsPropertyDefinition.TYPE_NORMAL);
-                try {
-                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
-                } catch (CmsDataAccessException e1) {
-                    createPropertyDefinition(
-                        dbc,
-                        CmsProject.ONLINE_PROJECT_ID,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                try {
-                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
-                } catch (CmsDataAccessException e1) {
-                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
-                        dbc,
-                        property.getName(),
-                        CmsPropertyDefinition.TYPE_NORMAL);
-                }
-                OpenCms.fireCmsEvent(new CmsEvent(
-                    I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
-                    Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
-
-            } else {
-                throw new CmsDbEntryNotFoundException(Messages.get().container(
-                    Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1,
-                    property.getName()));
-            }
-        }
-
-        PreparedStatement stmt = null;
         Connection conn = null;
+        PreparedStatement stmt = null;
 
         try {
-            // read the existing property to test if we need the
-            // insert or update query to write a property value
-            CmsProperty existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
-
-            if (existingProperty.isIdentical(property)) {
-                // property already has the identical values set, no write required
-                return;
-            }
-
             conn = m_sqlManager.getConnection(dbc);
-
-            for (int i = 0; i < 2; i++) {
-                int mappingType = -1;
-                String value = null;
-                CmsUUID id = null;
-                boolean existsPropertyValue = false;
-                boolean deletePropertyValue = false;
-
-                // 1) take any required decisions to choose and fill the correct SQL query
-
-                if (i == 0) {
-                    // write/delete the *structure value* on the first cycle
-                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getStructureValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no structure value set or the structure value is an empty string,
-                            // continue with the resource value
-                            continue;
-                        }
-                    }
-
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
-                    id = resource.getStructureId();
-                    existsPropertyValue = existingProperty.getStructureValue() != null;
-                } else {
-                    // write/delete the *resource value* on the second cycle
-                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
-                        // this property value is marked to be deleted
-                        deletePropertyValue = true;
-                    } else {
-                        value = property.getResourceValue();
-                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
-                            // no resource value set or the resource value is an empty string,
-                            // break out of the loop
-                            break;
-                        }
-                    }
-
-                    // set the vars to be written to the database
-                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
-                    id = resource.getResourceId();
-                    existsPropertyValue = existingProperty.getResourceValue() != null;
-                }
-
-                // 2) execute the SQL query
-                try {
-                    if (!deletePropertyValue) {
-                        // insert/update the property value
-                        if (existsPropertyValue) {
-                            // {structure|resource} property value already exists- use update statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_UPDATE");
-                            stmt.setString(1, m_sqlManager.validateEmpty(value));
-                            stmt.setString(2, id.toString());
-                            stmt.setInt(3, mappingType);
-                            stmt.setString(4, propertyDefinition.getId().toString());
-                        } else {
-                            // {structure|resource} property value doesn't exist- use create statement
-                            stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_CREATE");
-                            stmt.setString(1, new CmsUUID().toString());
-                            stmt.setString(2, propertyDefinition.getId().toString());
-                            stmt.setString(3, id.toString());
-                            stmt.setInt(4, mappingType);
-                            stmt.setString(5, m_sqlManager.validateEmpty(value));
-                        }
-                    } else {
-                        // {structure|resource} property value marked as deleted- use delete statement
-                        stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_PROPERTIES_DELETE");
-                        stmt.setString(1, propertyDefinition.getId().toString());
-                        stmt.setString(2, id.toString());
-                        stmt.setInt(3, mappingType);
-                    }
-                    stmt.executeUpdate();
-                } finally {
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
-                }
-            }
+            stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_PROJECT_LASTMODIFIED");
+            stmt.setString(1, projectId.toString());
+            stmt.setString(2, resource.getResourceId().toString());
+            stmt.executeUpdate();
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -3307,6 +3237,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#writePropertyObject(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, org.opencms.file.CmsProperty)
+     */
+    public void writePropertyObject(CmsDbContext dbc, CmsProject project, CmsResource resource, CmsProperty property)
+    throws CmsDataAccessException {
+
+        internalWritePropertyObject(dbc, project, resource, property, null);
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#writePropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, org.opencms.file.CmsResource, java.util.List)
      */
@@ -3316,11 +3255,30 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsResource resource,
         List<CmsProperty> properties) throws CmsDataAccessException {
 
+        Map<String, CmsProperty> existingProperties = null;
+        Set<String> writtenNames = new HashSet<String>();
+        if (CmsPublishBatch.getBatch(dbc) != null) {
+            // read the existing values of all properties first, so the pending batched
+            // property writes are not executed again for every single property
+            existingProperties = new HashMap<String, CmsProperty>();
+            for (CmsProperty existingProperty : readPropertyObjects(dbc, project, resource)) {
+                existingProperties.put(existingProperty.getName(), existingProperty);
+            }
+        }
+
         CmsProperty property = null;
 
         for (int i = 0; i < properties.size(); i++) {
             property = properties.get(i);
-            writePropertyObject(dbc, project, resource, property);
+            CmsProperty existingProperty = null;
+            if ((existingProperties != null) && writtenNames.add(property.getName())) {
+                // the values read before are only valid as long as the property has not been written
+                existingProperty = existingProperties.get(property.getName());
+                if (existingProperty == null) {
+                    existingProperty = CmsProperty.getNullProperty();
+                }
+            }
+            internalWritePropertyObject(dbc, project, resource, property, existingProperty);
         }
     }
 
@@ -3443,53 +3401,73 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getBatchConnection(dbc);
 
             if (changed == CmsDriverManager.UPDATE_RESOURCE_PROJECT) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RESOURCE_PROJECT");
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
+                    conn,
+                    project.getUuid(),
+                    "C_RESOURCES_UPDATE_RESOURCE_PROJECT");
                 stmt.setInt(1, resource.getFlags());
                 stmt.setString(2, project.getUuid().toString());
                 stmt.setString(3, resource.getResourceId().toString());
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
 
             if (changed == CmsDriverManager.UPDATE_RESOURCE) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RESOURCE_STATELASTMODIFIED");
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
+                    conn,
+                    project.getUuid(),
+                    "C_RESOURCES_UPDATE_RESOURCE_STATELASTMODIFIED");
                 stmt.setInt(1, resource.getState().getState());
                 stmt.setLong(2, resource.getDateLastModified());
                 stmt.setString(3, resource.getUserLastModified().toString());
                 stmt.setString(4, project.getUuid().toString());
                 stmt.setString(5, resource.getResourceId().toString());
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
 
             if ((changed == CmsDriverManager.UPDATE_RESOURCE_STATE) || (changed == CmsDriverManager.UPDATE_ALL)) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RESOURCE_STATE");
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
+                    conn,
+                    project.getUuid(),
+                    "C_RESOURCES_UPDATE_RESOURCE_STATE");
                 stmt.setInt(1, resource.getState().getState());
                 stmt.setString(2, project.getUuid().toString());
                 stmt.setString(3, resource.getResourceId().toString());
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
 
             if ((changed == CmsDriverManager.UPDATE_STRUCTURE)
                 || (changed == CmsDriverManager.UPDATE_ALL)
                 || (changed == CmsDriverManager.UPDATE_STRUCTURE_STATE)) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_STRUCTURE_STATE");
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
+                    conn,
+                    project.getUuid(),
+                    "C_RESOURCES_UPDATE_STRUCTURE_STATE");
                 stmt.setInt(1, resource.getState().getState());
                 stmt.setString(2, resource.getStructureId().toString());
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
 
             if ((changed == CmsDriverManager.UPDATE_STRUCTURE) || (changed == CmsDriverManager.UPDATE_ALL)) {
-                stmt = m_sqlManager.getPreparedStatement(conn, project, "C_RESOURCES_UPDATE_RELEASE_EXPIRED");
+                stmt = m_sqlManager.getBatchStatement(
+                    dbc,
+                    conn,
+                    project.getUuid(),
+                    "C_RESOURCES_UPDATE_RELEASE_EXPIRED");
                 stmt.setLong(1, resource.getDateReleased());
                 stmt.setLong(2, resource.getDateExpired());
                 stmt.setString(3, resource.getStructureId().toString());
-                stmt.executeUpdate();
+                m_sqlManager.executeBatchUpdate(dbc, stmt);
                 m_sqlManager.closeAll(dbc, null, stmt, null);
             }
         } catch (SQLException e) {
@@ -4027,6 +4005,174 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
             resource.getRootPath()));
     }
 
+    /**
+     * Writes the structure and/or resource record(s) of an existing property definition.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resource the resource where the property should be attached to
+     * @param property a CmsProperty object containing both the structure and resource value of the property
+     * @param existingProperty the values of the property already stored for the resource,
+     *      or <code>null</code> to read them
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalWritePropertyObject(
+        CmsDbContext dbc,
+        CmsProject project,
+        CmsResource resource,
+        CmsProperty property,
+        CmsProperty existingProperty) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // TODO: check if we need autocreation for link property definition types too
+        CmsPropertyDefinition propertyDefinition = null;
+        try {
+            // read the property definition
+            propertyDefinition = readPropertyDefinition(dbc, property.getName(), projectId);
+        } catch (CmsDbEntryNotFoundException e) {
+            if (property.autoCreatePropertyDefinition()) {
+                propertyDefinition = createPropertyDefinition(
+                    dbc,
+                    projectId,
+                    property.getName(),
+                    CmsPropertyDefinition.TYPE_NORMAL);
+                try {
+                    readPropertyDefinition(dbc, property.getName(), CmsProject.ONLINE_PROJECT_ID);
+                } catch (CmsDataAccessException e1) {
+                    createPropertyDefinition(
+                        dbc,
+                        CmsProject.ONLINE_PROJECT_ID,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                try {
+                    m_driverManager.getHistoryDriver(dbc).readPropertyDefinition(dbc, property.getName());
+                } catch (CmsDataAccessException e1) {
+                    m_driverManager.getHistoryDriver(dbc).createPropertyDefinition(
+                        dbc,
+                        property.getName(),
+                        CmsPropertyDefinition.TYPE_NORMAL);
+                }
+                OpenCms.fireCmsEvent(new CmsEvent(
+                    I_CmsEventListener.EVENT_PROPERTY_DEFINITION_CREATED,
+                    Collections.<String, Object> singletonMap("propertyDefinition", propertyDefinition)));
+
+            } else {
+                throw new CmsDbEntryNotFoundException(Messages.get().container(
+                    Messages.ERR_NO_PROPERTYDEF_WITH_NAME_1,
+                    property.getName()));
+            }
+        }
+
+        PreparedStatement stmt = null;
+        Connection conn = null;
+
+        try {
+            if (existingProperty == null) {
+                // read the existing property to test if we need the
+                // insert or update query to write a property value
+                existingProperty = readPropertyObject(dbc, propertyDefinition.getName(), project, resource);
+            }
+
+            if (existingProperty.isIdentical(property)) {
+                // property already has the identical values set, no write required
+                return;
+            }
+
+            conn = m_sqlManager.getBatchConnection(dbc);
+
+            for (int i = 0; i < 2; i++) {
+                int mappingType = -1;
+                String value = null;
+                CmsUUID id = null;
+                boolean existsPropertyValue = false;
+                boolean deletePropertyValue = false;
+
+                // 1) take any required decisions to choose and fill the correct SQL query
+
+                if (i == 0) {
+                    // write/delete the *structure value* on the first cycle
+                    if ((existingProperty.getStructureValue() != null) && property.isDeleteStructureValue()) {
+                        // this property value is marked to be deleted
+                        deletePropertyValue = true;
+                    } else {
+                        value = property.getStructureValue();
+                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                            // no structure value set or the structure value is an empty string,
+                            // continue with the resource value
+                            continue;
+                        }
+                    }
+
+                    // set the vars to be written to the database
+                    mappingType = CmsProperty.STRUCTURE_RECORD_MAPPING;
+                    id = resource.getStructureId();
+                    existsPropertyValue = existingProperty.getStructureValue() != null;
+                } else {
+                    // write/delete the *resource value* on the second cycle
+                    if ((existingProperty.getResourceValue() != null) && property.isDeleteResourceValue()) {
+                        // this property value is marked to be deleted
+                        deletePropertyValue = true;
+                    } else {
+                        value = property.getResourceValue();
+                        if (CmsStringUtil.isEmptyOrWhitespaceOnly(value)) {
+                            // no resource value set or the resource value is an empty string,
+                            // break out of the loop
+                            break;
+                        }
+                    }
+
+                    // set the vars to be written to the database
+                    mappingType = CmsProperty.RESOURCE_RECORD_MAPPING;
+                    id = resource.getResourceId();
+                    existsPropertyValue = existingProperty.getResourceValue() != null;
+                }
+
+                // 2) execute the SQL query
+                try {
+                    if (!deletePropertyValue) {
+                        // insert/update the property value
+                        if (existsPropertyValue) {
+                            // {structure|resource} property value already exists- use update statement
+                            stmt = m_sqlManager.getBatchStatement(dbc, conn, projectId, "C_PROPERTIES_UPDATE");
+                            stmt.setString(1, m_sqlManager.validateEmpty(value));
+                            stmt.setString(2, id.toString());
+                            stmt.setInt(3, mappingType);
+                            stmt.setString(4, propertyDefinition.getId().toString());
+                        } else {
+                            // {structure|resource} property value doesn't exist- use create statement
+                            stmt = m_sqlManager.getBatchStatement(dbc, conn, projectId, "C_PROPERTIES_CREATE");
+                            stmt.setString(1, new CmsUUID().toString());
+                            stmt.setString(2, propertyDefinition.getId().toString());
+                            stmt.setString(3, id.toString());
+                            stmt.setInt(4, mappingType);
+                            stmt.setString(5, m_sqlManager.validateEmpty(value));
+                        }
+                    } else {
+                        // {structure|resource} property value marked as deleted- use delete statement
+                        stmt = m_sqlManager.getBatchStatement(dbc, conn, projectId, "C_PROPERTIES_DELETE");
+                        stmt.setString(1, propertyDefinition.getId().toString());
+                        stmt.setString(2, id.toString());
+                        stmt.setInt(3, mappingType);
+                    }
+                    m_sqlManager.executeBatchUpdate(dbc, stmt);
+                } finally {
+                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * Moves all relations of a resource to the new path.<p>
      *
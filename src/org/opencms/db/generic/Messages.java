@@ -160,6 +160,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PATH_NOT_IN_PARENT_ORGUNIT_SCOPE_2 = "ERR_PATH_NOT_IN_PARENT_ORGUNIT_SCOPE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_PUBLISH_BATCH_0 = "ERR_PUBLISH_BATCH_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PUBLISHLIST_DESERIALIZATION_FAILED_1 = "ERR_PUBLISHLIST_DESERIALIZATION_FAILED_1";
 
@@ -202,6 +205,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READING_ADDITIONAL_INFO_1 = "ERR_READING_ADDITIONAL_INFO_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READING_FROM_INPUT_STREAM_1 = "ERR_READING_FROM_INPUT_STREAM_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READING_USER_0 = "ERR_READING_USER_0";
 
@@ -298,6 +304,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_FILL_DEFAULTS_0 = "INIT_FILL_DEFAULTS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_PUBLISH_BATCH_2 = "INIT_PUBLISH_BATCH_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ROOT_ORGUNIT_DEFAULTS_INITIALIZED_0 = "INIT_ROOT_ORGUNIT_DEFAULTS_INITIALIZED_0";
 
@@ -322,6 +331,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SYSTEM_ROLES_CREATION_FAILED_0 = "INIT_SYSTEM_ROLES_CREATION_FAILED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLOSING_PUBLISH_BATCH_0 = "LOG_CLOSING_PUBLISH_BATCH_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CREATE_RELATION_2 = "LOG_CREATE_RELATION_2";
 
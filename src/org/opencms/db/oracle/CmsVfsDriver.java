@@ -38,7 +38,9 @@ import org.opencms.file.CmsProject;
 import org.opencms.main.OpenCms;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -82,7 +84,7 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
         }
 
         // now update the file content
-        internalWriteContent(dbc, projectId, resourceId, content, -1);
+        internalWriteContent(dbc, projectId, resourceId, new ByteArrayInputStream(content), -1);
     }
 
     /**
@@ -128,7 +130,12 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
                 m_sqlManager.closeAll(dbc, conn, stmt, null);
 
                 // now update the file content
-                internalWriteContent(dbc, CmsProject.ONLINE_PROJECT_ID, resourceId, contents, publishTag);
+                internalWriteContent(
+                    dbc,
+                    CmsProject.ONLINE_PROJECT_ID,
+                    resourceId,
+                    new ByteArrayInputStream(contents),
+                    publishTag);
             } else {
                 // update old content entry                        
                 stmt = m_sqlManager.getPreparedStatement(conn, "C_HISTORY_CONTENTS_UPDATE");
@@ -169,6 +176,16 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
     @Override
     public void writeContent(CmsDbContext dbc, CmsUUID resourceId, byte[] content) throws CmsDataAccessException {
 
+        internalWriteContent(dbc, dbc.currentProject().getUuid(), resourceId, new ByteArrayInputStream(content), -1);
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#writeContentStream(CmsDbContext, CmsUUID, InputStream, int)
+     */
+    @Override
+    public void writeContentStream(CmsDbContext dbc, CmsUUID resourceId, InputStream content, int length)
+    throws CmsDataAccessException {
+
         internalWriteContent(dbc, dbc.currentProject().getUuid(), resourceId, content, -1);
     }
 
@@ -178,7 +195,7 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
      * @param dbc the current database context
      * @param projectId the id of the current project
      * @param resourceId the id of the resource used to identify the content to update
-     * @param contents the new content of the file
+     * @param contents the new content of the file, the stream is not closed by this method
      * @param publishTag the publish tag if to be written to the online content
      * 
      * @throws CmsDataAccessException if something goes wrong
@@ -187,7 +204,7 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
         CmsDbContext dbc,
         CmsUUID projectId,
         CmsUUID resourceId,
-        byte[] contents,
+        InputStream contents,
         int publishTag) throws CmsDataAccessException {
 
         PreparedStatement stmt = null;
@@ -223,7 +240,11 @@ public class CmsVfsDriver extends org.opencms.db.generic.CmsVfsDriver {
             }
             // write file content 
             OutputStream output = CmsUserDriver.getOutputStreamFromBlob(res, "FILE_CONTENT");
-            output.write(contents, 0, contents.length);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = contents.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
             output.close();
 
             if (!wasInTransaction) {
@@ -65,6 +65,8 @@ import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsWorkplace;
 import org.opencms.xml.content.CmsNumberSuffixNameSequence;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -2493,6 +2495,37 @@ public final class CmsObject {
         return readFile(resource);
     }
 
+    /**
+     * Reads the binary content of a file resource as a stream.<p>
+     *
+     * In contrast to {@link #readFile(CmsResource)}, the content is not loaded into memory at once,
+     * which is preferable when large files are sent to a client. The returned stream may hold
+     * database resources, so it must always be closed, usually in a <code>finally</code> block.<p>
+     *
+     * As with {@link #readFile(CmsResource)}, no resource filter is applied. If the given resource
+     * is a file that has the contents already available, a stream on these contents is returned.<p>
+     *
+     * @param resource the resource to read the content for
+     *
+     * @return the content of the file as a stream
+     *
+     * @throws CmsException if the file content could not be read for any reason
+     *
+     * @see #readFile(CmsResource)
+     */
+    public InputStream readFileContentStream(CmsResource resource) throws CmsException {
+
+        if (resource instanceof CmsFile) {
+            CmsFile file = (CmsFile)resource;
+            if ((file.getContents() != null) && (file.getContents().length > 0)) {
+                // file has the contents already available
+                return new ByteArrayInputStream(file.getContents());
+            }
+        }
+
+        return m_securityManager.readFileContentStream(m_context, resource);
+    }
+
     /**
      * Reads a folder resource from the VFS,
      * using the <code>{@link CmsResourceFilter#DEFAULT}</code> filter.<p>
@@ -3822,6 +3855,28 @@ public final class CmsObject {
         return getResourceType(resource).writeFile(this, m_securityManager, resource);
     }
 
+    /**
+     * Writes the content of a file resource from a stream.<p>
+     *
+     * Resource types that do not process the content, like binary files, write it without
+     * loading it into memory. Other resource types read the stream completely and
+     * write the content like {@link #writeFile(CmsFile)}.
+     * The stream is not closed by this method.<p>
+     *
+     * @param resource the resource to write the content for
+     * @param content the new content of the file
+     * @param length the number of bytes to read from the stream
+     *
+     * @return the written resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsResource writeFileContentStream(CmsResource resource, InputStream content, int length)
+    throws CmsException {
+
+        return getResourceType(resource).writeFileContentStream(this, m_securityManager, resource, content, length);
+    }
+
     /**
      * Writes an already existing group.<p>
      *
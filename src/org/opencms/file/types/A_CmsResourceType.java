@@ -54,6 +54,8 @@ import org.opencms.util.CmsMacroResolver;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.containerpage.CmsFormatterConfiguration;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -959,6 +961,34 @@ public abstract class A_CmsResourceType implements I_CmsResourceType {
             cms.getSitePath(resource)));
     }
 
+    /**
+     * @see org.opencms.file.types.I_CmsResourceType#writeFileContentStream(org.opencms.file.CmsObject, CmsSecurityManager, CmsResource, java.io.InputStream, int)
+     */
+    public CmsResource writeFileContentStream(
+        CmsObject cms,
+        CmsSecurityManager securityManager,
+        CmsResource resource,
+        InputStream content,
+        int length) throws CmsException {
+
+        if (resource.isFolder()) {
+            // folders can never be written like a file
+            throw new CmsVfsException(Messages.get().container(
+                Messages.ERR_WRITE_FILE_IS_FOLDER_1,
+                cms.getSitePath(resource)));
+        }
+        // the content may have to be processed by the resource type, so it is loaded completely by default
+        CmsFile file = new CmsFile(resource);
+        try {
+            file.setContents(CmsFileUtil.readFully(content, length, false));
+        } catch (IOException e) {
+            throw new CmsVfsException(Messages.get().container(
+                Messages.ERR_READING_FROM_INPUT_STREAM_1,
+                cms.getSitePath(resource)), e);
+        }
+        return writeFile(cms, securityManager, file);
+    }
+
     /**
      * @see org.opencms.file.types.I_CmsResourceType#writePropertyObject(org.opencms.file.CmsObject, org.opencms.db.CmsSecurityManager, CmsResource, org.opencms.file.CmsProperty)
      */
@@ -28,9 +28,16 @@
 package org.opencms.file.types;
 
 import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.db.CmsSecurityManager;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsVfsException;
 import org.opencms.loader.CmsDumpLoader;
+import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 
+import java.io.InputStream;
+
 /**
  * Resource type descriptor for the type "binary".<p>
  * 
@@ -120,4 +127,33 @@ public class CmsResourceTypeBinary extends A_CmsResourceType {
         // set static members with values from the configuration        
         m_staticTypeId = m_typeId;
     }
+
+    /**
+     * Writes the content without loading it into memory, since binary content is not processed.<p>
+     * 
+     * @see org.opencms.file.types.A_CmsResourceType#writeFileContentStream(org.opencms.file.CmsObject, org.opencms.db.CmsSecurityManager, org.opencms.file.CmsResource, java.io.InputStream, int)
+     */
+    @Override
+    public CmsResource writeFileContentStream(
+        CmsObject cms,
+        CmsSecurityManager securityManager,
+        CmsResource resource,
+        InputStream content,
+        int length) throws CmsException {
+
+        if (resource.isFile()) {
+            CmsResource result = securityManager.writeFileContentStream(
+                cms.getRequestContext(),
+                resource,
+                content,
+                length);
+            // binary files contain no links, but old relations have to be removed
+            securityManager.updateRelationsForResource(cms.getRequestContext(), result, null);
+            return result;
+        }
+        // folders can never be written like a file
+        throw new CmsVfsException(Messages.get().container(
+            Messages.ERR_WRITE_FILE_IS_FOLDER_1,
+            cms.getSitePath(resource)));
+    }
 }
\ No newline at end of file
@@ -40,6 +40,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.xml.containerpage.CmsFormatterConfiguration;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -891,6 +892,32 @@ public interface I_CmsResourceType extends I_CmsConfigurationParameterHandler {
      */
     CmsFile writeFile(CmsObject cms, CmsSecurityManager securityManager, CmsFile resource) throws CmsException;
 
+    /**
+     * Writes the content of a file resource from a stream.<p>
+     * 
+     * Resource types that do not need to process the content can write it without
+     * loading it into memory. The stream is not closed by this method.<p>
+     * 
+     * @param cms the current cms context
+     * @param securityManager the initialized OpenCms security manager
+     * @param resource the resource to apply this operation to
+     * @param content the new content of the file
+     * @param length the number of bytes to read from the stream
+     *
+     * @return the written resource
+     *
+     * @throws CmsException if something goes wrong
+     * 
+     * @see CmsObject#writeFileContentStream(CmsResource, InputStream, int)
+     * @see CmsSecurityManager#writeFileContentStream(org.opencms.file.CmsRequestContext, CmsResource, InputStream, int)
+     */
+    CmsResource writeFileContentStream(
+        CmsObject cms,
+        CmsSecurityManager securityManager,
+        CmsResource resource,
+        InputStream content,
+        int length) throws CmsException;
+
     /**
      * Writes a property for a specified resource.<p>
      * 
@@ -67,6 +67,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READING_FORMATTER_CONFIGURATION_1 = "ERR_READING_FORMATTER_CONFIGURATION_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READING_FROM_INPUT_STREAM_1 = "ERR_READING_FROM_INPUT_STREAM_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_REPLACE_RESOURCE_FOLDER_1 = "ERR_REPLACE_RESOURCE_FOLDER_1";
 
@@ -50,8 +50,12 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -580,6 +584,37 @@ public class CmsObjectWrapper {
         return res;
     }
 
+    /**
+     * Reads the binary content of a file resource as a stream.<p>
+     * 
+     * If the resource is handled by one of the configured resource wrappers, or if a byte order mark
+     * has to be added to the content, the content is read with {@link #readFile(String, CmsResourceFilter)}.
+     * Otherwise the content is streamed directly from the VFS.<p>
+     * 
+     * The returned stream must always be closed by the caller.<p>
+     * 
+     * @see CmsObject#readFileContentStream(CmsResource)
+     * 
+     * @param resource the resource to read the content for, as returned by this wrapper
+     * @param filter the resource filter to use if the file has to be read
+     * 
+     * @return the content of the file as a stream
+     *
+     * @throws CmsException if the file content could not be read for any reason
+     */
+    public InputStream readFileContentStream(CmsResource resource, CmsResourceFilter filter) throws CmsException {
+
+        boolean wrapped = needUtf8Marker(resource);
+        Iterator<I_CmsResourceWrapper> iter = getWrappers().iterator();
+        while (!wrapped && iter.hasNext()) {
+            wrapped = iter.next().isWrappedResource(m_cms, resource);
+        }
+        if (wrapped) {
+            return new ByteArrayInputStream(readFile(m_cms.getSitePath(resource), filter).getContents());
+        }
+        return m_cms.readFileContentStream(resource);
+    }
+
     /**
      * Delegate method for {@link CmsObject#readPropertyObject(CmsResource, String, boolean)}.<p>
      * 
@@ -857,6 +892,35 @@ public class CmsObjectWrapper {
         return res;
     }
 
+    /**
+     * Writes the content of a file resource from a stream.<p>
+     * 
+     * If the resource is handled by a resource wrapper or has to be written without an 
+     * added UTF-8 marker, the stream is read completely and written with {@link #writeFile(CmsFile)}.
+     * The stream is not closed by this method.<p>
+     * 
+     * @see CmsObject#writeFileContentStream(CmsResource, InputStream, int)
+     * 
+     * @param resource the resource to write the content for
+     * @param content the new content of the file
+     * @param length the number of bytes to read from the stream
+     * 
+     * @return the written resource
+     *
+     * @throws CmsException if something goes wrong
+     * @throws IOException if reading the stream fails
+     */
+    public CmsResource writeFileContentStream(CmsResource resource, InputStream content, int length)
+    throws CmsException, IOException {
+
+        if (needUtf8Marker(resource) || !m_cms.existsResource(m_cms.getSitePath(resource))) {
+            CmsFile file = new CmsFile(resource);
+            file.setContents(CmsFileUtil.readFully(content, length, false));
+            return writeFile(file);
+        }
+        return m_cms.writeFileContentStream(resource, content, length);
+    }
+
     /**
      * Try to find a resource type wrapper for the resource.<p>
      * 
@@ -0,0 +1,171 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of the fixed size byte chunks used to buffer the output of Flex responses.<p>
+ * 
+ * A Flex response buffers its output in a chain of chunks taken from this pool, 
+ * see {@link CmsFlexOutputBuffer}. When an included response has been processed, 
+ * its chunks are returned to the pool and reused by the next response, so the output 
+ * of an include neither has to be copied when the buffer grows, nor is a new buffer 
+ * allocated for each include.<p>
+ * 
+ * The pool keeps at most {@link #MAX_POOLED_CHUNKS} chunks, chunks returned to a full 
+ * pool are left to the garbage collector. The counters of this class allow to check 
+ * how many chunks have been allocated and reused.<p>
+ * 
+ * @since 9.5.0
+ */
+public final class CmsFlexBufferPool {
+
+    /** The size of a chunk in bytes. */
+    public static final int CHUNK_SIZE = 4096;
+
+    /** The maximum number of chunks kept in the pool. */
+    public static final int MAX_POOLED_CHUNKS = 1024;
+
+    /** The number of chunks that have been allocated. */
+    private static AtomicLong m_allocatedChunks = new AtomicLong();
+
+    /** The pooled chunks. */
+    private static Queue<byte[]> m_chunks = new ConcurrentLinkedQueue<byte[]>();
+
+    /** The number of chunks that have been returned to the pool but were discarded since the pool was full. */
+    private static AtomicLong m_discardedChunks = new AtomicLong();
+
+    /** The number of pooled chunks. */
+    private static AtomicInteger m_pooledChunks = new AtomicInteger();
+
+    /** The number of chunks that have been taken from the pool. */
+    private static AtomicLong m_reusedChunks = new AtomicLong();
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsFlexBufferPool() {
+
+        // empty
+    }
+
+    /**
+     * Returns the number of chunks that have been allocated.<p>
+     * 
+     * @return the number of chunks that have been allocated
+     */
+    public static long getAllocatedChunks() {
+
+        return m_allocatedChunks.get();
+    }
+
+    /**
+     * Returns the number of chunks that have been discarded because the pool was full.<p>
+     * 
+     * @return the number of discarded chunks
+     */
+    public static long getDiscardedChunks() {
+
+        return m_discardedChunks.get();
+    }
+
+    /**
+     * Returns the number of chunks currently kept in the pool.<p>
+     * 
+     * @return the number of chunks currently kept in the pool
+     */
+    public static int getPooledChunks() {
+
+        return m_pooledChunks.get();
+    }
+
+    /**
+     * Returns the number of chunks that have been taken from the pool instead of being allocated.<p>
+     * 
+     * @return the number of reused chunks
+     */
+    public static long getReusedChunks() {
+
+        return m_reusedChunks.get();
+    }
+
+    /**
+     * Returns a String representation of the pool counters, e.g. for logging.<p>
+     * 
+     * @return a String representation of the pool counters
+     */
+    public static String getStatistics() {
+
+        return "allocated chunks: "
+            + getAllocatedChunks()
+            + ", reused chunks: "
+            + getReusedChunks()
+            + ", discarded chunks: "
+            + getDiscardedChunks()
+            + ", pooled chunks: "
+            + getPooledChunks();
+    }
+
+    /**
+     * Takes a chunk from the pool, or allocates a new chunk if the pool is empty.<p>
+     * 
+     * @return a chunk of {@link #CHUNK_SIZE} bytes
+     */
+    static byte[] acquire() {
+
+        byte[] chunk = m_chunks.poll();
+        if (chunk != null) {
+            m_pooledChunks.decrementAndGet();
+            m_reusedChunks.incrementAndGet();
+            return chunk;
+        }
+        m_allocatedChunks.incrementAndGet();
+        return new byte[CHUNK_SIZE];
+    }
+
+    /**
+     * Returns a chunk to the pool.<p>
+     * 
+     * The chunk must no longer be used by the caller.<p>
+     * 
+     * @param chunk the chunk to return
+     */
+    static void release(byte[] chunk) {
+
+        if (m_pooledChunks.incrementAndGet() > MAX_POOLED_CHUNKS) {
+            m_pooledChunks.decrementAndGet();
+            m_discardedChunks.incrementAndGet();
+            return;
+        }
+        m_chunks.offer(chunk);
+    }
+}
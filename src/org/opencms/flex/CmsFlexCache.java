@@ -27,28 +27,30 @@
 
 package org.opencms.flex;
 
+import org.opencms.cache.CmsConcurrentLruCache;
 import org.opencms.cache.CmsLruCache;
+import org.opencms.cache.CmsTinyLfuMap;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.file.CmsObject;
 import org.opencms.loader.CmsJspLoader;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsAsyncEventListener;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsCacheMetrics;
 import org.opencms.security.CmsRole;
-import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
 import java.io.File;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 /**
@@ -89,7 +91,12 @@ import org.apache.commons.logging.Log;
  *
  * Cache clearing is handled using events.
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT} 
- * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
+ * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught. If another server of the cluster has published
+ * a project ({@link I_CmsEventListener#EVENT_REMOTE_PUBLISH_PROJECT}), only the online entries are removed.<p>
+ * 
+ * Optionally, entries evicted because the max. cache bytes have been reached are demoted to a second tier 
+ * outside of the Java heap, see {@link CmsFlexCacheOffHeapStore}. They are promoted back on the next 
+ * cache hit. All cache clearing operations apply to both tiers.<p>
  * 
  * @since 6.0.0 
  * 
@@ -98,7 +105,7 @@ import org.apache.commons.logging.Log;
  * @see org.opencms.cache.CmsLruCache
  * @see org.opencms.cache.I_CmsLruCacheObject
  */
-public class CmsFlexCache extends Object implements I_CmsEventListener {
+public class CmsFlexCache extends Object implements I_CmsAsyncEventListener {
 
     /**
      * A simple data container class for the FlexCache variations.<p>
@@ -124,12 +131,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     }
 
     /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
+     * Concurrent key map that handles the variations in case a key is evicted.<p>
      */
-    class CmsFlexKeyMap extends LRUMap {
-
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
+    class CmsFlexKeyMap extends CmsTinyLfuMap<String, CmsFlexCacheVariation> {
 
         /**
          * Initialize the map with the given size.<p>
@@ -143,24 +147,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
 
         /**
          * Ensures that all variations that referenced by this key are released
-         * if the key is released.<p>
-         * 
-         * @param entry the entry to remove
+         * if the key is evicted.<p>
          * 
-         * @return <code>true</code> to actually delete the entry
-         * 
-         * @see LRUMap#removeLRU(LinkEntry)
+         * @see org.opencms.cache.CmsTinyLfuMap#evicted(java.lang.Object, java.lang.Object)
          */
         @Override
-        protected boolean removeLRU(LinkEntry entry) {
+        protected void evicted(String key, CmsFlexCacheVariation v) {
 
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
             if (v == null) {
-                return true;
+                return;
             }
             Map<String, I_CmsLruCacheObject> m = v.m_map;
             if ((m == null) || (m.size() == 0)) {
-                return true;
+                return;
             }
             Collection<I_CmsLruCacheObject> entries = m.values();
             synchronized (m_variationCache) {
@@ -169,9 +168,11 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 }
                 v.m_map.clear();
                 v.m_map = null;
+                if ((m_offHeapStore != null) && (v.m_key != null)) {
+                    m_offHeapStore.removeResource(v.m_key.getResource());
+                }
                 v.m_key = null;
             }
-            return true;
         }
     }
 
@@ -223,12 +224,24 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
+    /** The hit and miss metrics of the cache entries on the heap. */
+    private CmsCacheMetrics m_heapMetrics;
+
     /** Map to store the entries for fast lookup. */
     private Map<String, CmsFlexCacheVariation> m_keyCache;
 
+    /** The hit and miss metrics of the cache entries demoted to the off-heap store. */
+    private CmsCacheMetrics m_offHeapMetrics;
+
+    /** The second tier for evicted cache entries, or <code>null</code> if not used. */
+    private CmsFlexCacheOffHeapStore m_offHeapStore;
+
     /** Counter for the size. */
     private int m_size;
 
+    /** Indicates if cache hits are recorded in the LRU cache. */
+    private boolean m_touchOnHit;
+
     /**
      * Constructor for class CmsFlexCache.<p>
      *
@@ -250,16 +263,44 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        m_heapMetrics = new CmsCacheMetrics();
+        m_offHeapMetrics = new CmsCacheMetrics();
+        if (m_enabled && (configuration.getOffHeapBytes() > 0)) {
+            m_offHeapStore = new CmsFlexCacheOffHeapStore(configuration.getOffHeapBytes());
+        }
+
+        // entries evicted from the LRU cache are demoted to the off-heap store, if available
+        if (configuration.isConcurrentLru()) {
+            // the concurrent LRU cache does not need a lock for touching an entry, so hits can be recorded
+            m_variationCache = new CmsConcurrentLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes) {
+
+                @Override
+                protected void evicted(I_CmsLruCacheObject theCacheObject) {
+
+                    demote(theCacheObject);
+                }
+            };
+            m_touchOnHit = true;
+        } else {
+            m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes) {
+
+                @Override
+                protected void evicted(I_CmsLruCacheObject theCacheObject) {
+
+                    demote(theCacheObject);
+                }
+            };
+        }
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
             CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(CmsCollectionsGenericWrapper.<String, CmsFlexCacheVariation> map(flexKeyMap));
+            m_keyCache = flexKeyMap;
             OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
 
             OpenCms.addCmsEventListener(this, new int[] {
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
                 I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR});
@@ -270,6 +311,11 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 Messages.INIT_FLEXCACHE_CREATED_2,
                 Boolean.valueOf(m_enabled),
                 Boolean.valueOf(m_cacheOffline)));
+            if (m_offHeapStore != null) {
+                LOG.info(Messages.get().getBundle().key(
+                    Messages.INIT_FLEXCACHE_OFFHEAP_STORE_1,
+                    Long.valueOf(m_offHeapStore.getMaxBytes())));
+            }
         }
     }
 
@@ -303,6 +349,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 }
                 clear();
                 break;
+            case I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT:
+                // the entries may depend on any published resource, but the keys and the offline entries are still valid
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_REMOTE_PUBLISH_0));
+                }
+                clearOnlineEntries();
+                break;
             case I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY:
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_PURGE_REPOSITORY_0));
@@ -428,6 +481,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return null;
     }
 
+    /**
+     * The cache is cleared synchronously after a project has been published, so that no outdated 
+     * content is delivered. All other events only clear the cache and can be coalesced.<p>
+     * 
+     * @see org.opencms.main.I_CmsAsyncEventListener#getEventDelivery(org.opencms.main.CmsEvent)
+     */
+    public Delivery getEventDelivery(CmsEvent event) {
+
+        if (event.getType() == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            return Delivery.SYNCHRONOUS;
+        }
+        return Delivery.COALESCED;
+    }
+
     /**
      * Returns the LRU cache where the CacheEntries are cached.<p>
      *
@@ -438,6 +505,40 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_variationCache;
     }
 
+    /**
+     * Returns the hit and miss metrics of the cache entries kept on the heap.<p>
+     * 
+     * Only lookups of cacheable variations are recorded.<p>
+     * 
+     * @return the hit and miss metrics of the cache entries kept on the heap
+     */
+    public CmsCacheMetrics getHeapMetrics() {
+
+        return m_heapMetrics;
+    }
+
+    /**
+     * Returns the hit and miss metrics of the cache entries demoted to the off-heap store.<p>
+     * 
+     * Only lookups that missed the entries on the heap are recorded.<p>
+     * 
+     * @return the hit and miss metrics of the off-heap store
+     */
+    public CmsCacheMetrics getOffHeapMetrics() {
+
+        return m_offHeapMetrics;
+    }
+
+    /**
+     * Returns the second tier for evicted cache entries.<p>
+     * 
+     * @return the off-heap store, or <code>null</code> if no second tier is configured
+     */
+    public CmsFlexCacheOffHeapStore getOffHeapStore() {
+
+        return m_offHeapStore;
+    }
+
     /**
      * Indicates if the cache is enabled (i.e. actually
      * caching entries) or not.<p>
@@ -500,14 +601,20 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             }
             CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
             if (entry == null) {
-                // no cache entry available for variation
-                return null;
+                // no cache entry available for variation on the heap
+                m_heapMetrics.addMiss();
+                return promote(v, variation);
             }
             if (entry.getDateExpires() < System.currentTimeMillis()) {
                 // cache entry avaiable but expired, remove entry
                 m_variationCache.remove(entry);
+                m_heapMetrics.addMiss();
                 return null;
             }
+            m_heapMetrics.addHit();
+            if (m_touchOnHit) {
+                m_variationCache.touch(entry);
+            }
             // return the found cache entry
             return entry;
         } else {
@@ -636,6 +743,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 getEntryLruCache().remove(old);
             }
         }
+        if (m_offHeapStore != null) {
+            m_offHeapStore.remove(key.getResource(), key.getVariation());
+        }
     }
 
     /**
@@ -650,6 +760,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         m_size = 0;
 
         m_variationCache.clear();
+        if (m_offHeapStore != null) {
+            m_offHeapStore.clear();
+        }
 
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_0));
@@ -702,6 +815,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 }
             }
         }
+        if (m_offHeapStore != null) {
+            m_offHeapStore.removeBySuffix(suffix);
+        }
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(
                 Messages.LOG_FLEXCACHE_CLEAR_HALF_2,
@@ -739,6 +855,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             }
             v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
+        if (m_offHeapStore != null) {
+            m_offHeapStore.clear();
+        }
         m_size = 0;
     }
 
@@ -820,6 +939,73 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Demotes a cache entry evicted from the LRU cache to the off-heap store, if available.<p>
+     * 
+     * @param evicted the evicted cache entry
+     */
+    private void demote(I_CmsLruCacheObject evicted) {
+
+        if ((m_offHeapStore == null) || !(evicted instanceof CmsFlexCacheEntry)) {
+            return;
+        }
+        CmsFlexCacheEntry entry = (CmsFlexCacheEntry)evicted;
+        if (m_offHeapStore.demote(entry.getResourceName(), entry.getVariationKey(), entry)
+            && LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_FLEXCACHE_DEMOTED_ENTRY_2,
+                entry.getResourceName(),
+                entry.getVariationKey()));
+        }
+    }
+
+    /**
+     * Promotes the entry for the given variation from the off-heap store back to the cache.<p>
+     * 
+     * @param v the variations of the resource
+     * @param variation the requested variation
+     * 
+     * @return the promoted entry, or <code>null</code> if the off-heap store contains no valid entry
+     */
+    private CmsFlexCacheEntry promote(CmsFlexCacheVariation v, String variation) {
+
+        if (m_offHeapStore == null) {
+            return null;
+        }
+        CmsFlexCacheKey key = v.m_key;
+        Map<String, I_CmsLruCacheObject> m = v.m_map;
+        if ((key == null) || (m == null)) {
+            // the key has been removed from the cache concurrently
+            return null;
+        }
+        long clearGeneration = m_offHeapStore.getClearGeneration(key.getResource());
+        CmsFlexCacheEntry entry = m_offHeapStore.promote(key.getResource(), variation);
+        if (entry == null) {
+            m_offHeapMetrics.addMiss();
+            return null;
+        }
+        entry.setClearGeneration(clearGeneration);
+        if (m_variationCache.add(entry)) {
+            entry.setResourceName(key.getResource());
+            entry.setVariationData(variation, m);
+            m.put(variation, entry);
+        }
+        if (clearGeneration != m_offHeapStore.getClearGeneration(key.getResource())) {
+            // the cache has been cleared concurrently, so the promoted entry may be stale
+            m_variationCache.remove(entry);
+            m_offHeapMetrics.addMiss();
+            return null;
+        }
+        m_offHeapMetrics.addHit();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_FLEXCACHE_PROMOTED_ENTRY_2,
+                key.getResource(),
+                variation));
+        }
+        return entry;
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -863,6 +1049,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (key.getTimeout() > 0) {
             theCacheEntry.setDateExpiresToNextTimeout(key.getTimeout());
         }
+        if (m_offHeapStore != null) {
+            // entries added before the next clear must not be demoted after it
+            theCacheEntry.setClearGeneration(m_offHeapStore.getClearGeneration(key.getResource()));
+        }
         if (o != null) {
             // We already have a variation map for this resource
             Map<String, I_CmsLruCacheObject> m = o.m_map;
@@ -874,6 +1064,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             }
 
             if (wasAdded) {
+                theCacheEntry.setResourceName(key.getResource());
                 theCacheEntry.setVariationData(key.getVariation(), m);
                 m.put(key.getVariation(), theCacheEntry);
             }
@@ -884,11 +1075,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             boolean wasAdded = m_variationCache.add(theCacheEntry);
 
             if (wasAdded) {
+                theCacheEntry.setResourceName(key.getResource());
                 theCacheEntry.setVariationData(key.getVariation(), list.m_map);
                 list.m_map.put(key.getVariation(), theCacheEntry);
                 m_keyCache.put(key.getResource(), list);
             }
         }
+        if (m_offHeapStore != null) {
+            // the new entry replaces an entry that may have been demoted before
+            m_offHeapStore.remove(key.getResource(), key.getVariation());
+        }
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(
@@ -52,6 +52,9 @@ public class CmsFlexCacheConfiguration {
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** Indicates if the concurrent LRU cache should be used for the cache entries. */
+    private boolean m_concurrentLru;
+
     /** The device selector. */
     private I_CmsJspDeviceSelector m_deviceSelector;
 
@@ -74,6 +77,9 @@ public class CmsFlexCacheConfiguration {
     /** The maximum key. */
     private int m_maxKeys;
 
+    /** The max bytes of the off-heap store for evicted entries, 0 disables the store. */
+    private long m_offHeapBytes;
+
     /**
      * Empty public constructor for the digester.
      */
@@ -145,6 +151,18 @@ public class CmsFlexCacheConfiguration {
         return m_maxKeys;
     }
 
+    /**
+     * Returns the max bytes of the off-heap store for evicted entries.<p>
+     *
+     * A value of 0 (the default) disables the off-heap store.<p>
+     *
+     * @return the max bytes of the off-heap store
+     */
+    public long getOffHeapBytes() {
+
+        return m_offHeapBytes;
+    }
+
     /**
      * Initializes the flex cache configuration with required parameters.<p>
      * 
@@ -181,6 +199,18 @@ public class CmsFlexCacheConfiguration {
         return m_cacheEnabled;
     }
 
+    /**
+     * Checks if the concurrent LRU cache is used for the cache entries.<p>
+     *
+     * @return true if the concurrent LRU cache is used; otherwise false
+     *
+     * @see org.opencms.cache.CmsConcurrentLruCache
+     */
+    public boolean isConcurrentLru() {
+
+        return m_concurrentLru;
+    }
+
     /**
      * Checks the cacheOffline.<p>
      *
@@ -221,6 +251,26 @@ public class CmsFlexCacheConfiguration {
         m_cacheOffline = cacheOffline;
     }
 
+    /**
+     * Sets if the concurrent LRU cache is used for the cache entries.<p>
+     *
+     * @param concurrentLru the concurrentLru to set
+     */
+    public void setConcurrentLru(boolean concurrentLru) {
+
+        m_concurrentLru = concurrentLru;
+    }
+
+    /**
+     * Sets if the concurrent LRU cache is used for the cache entries.<p>
+     *
+     * @param concurrentLru the concurrentLru to set, as String
+     */
+    public void setConcurrentLru(String concurrentLru) {
+
+        setConcurrentLru(Boolean.valueOf(concurrentLru).booleanValue());
+    }
+
     /**
      * Sets the device selector configuration.<p>
      *
@@ -285,4 +335,24 @@ public class CmsFlexCacheConfiguration {
 
         m_maxKeys = maxKeys;
     }
+
+    /**
+     * Sets the max bytes of the off-heap store for evicted entries.<p>
+     *
+     * @param offHeapBytes the max bytes of the off-heap store to set
+     */
+    public void setOffHeapBytes(long offHeapBytes) {
+
+        m_offHeapBytes = offHeapBytes;
+    }
+
+    /**
+     * Sets the max bytes of the off-heap store for evicted entries.<p>
+     *
+     * @param offHeapBytes the max bytes of the off-heap store to set, as String
+     */
+    public void setOffHeapBytes(String offHeapBytes) {
+
+        setOffHeapBytes(Long.parseLong(offHeapBytes.trim()));
+    }
 }
@@ -80,6 +80,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** The CacheEntry's size in bytes. */
     private int m_byteSize;
 
+    /** The clear generation of the off-heap store when this cache entry was added to the FlexCache. */
+    private long m_clearGeneration;
+
     /** Indicates if this cache entry is completed. */
     private boolean m_completed;
 
@@ -104,6 +107,9 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
     /** A redirection target (if redirection is set). */
     private String m_redirectTarget;
 
+    /** The resource name of the cache key under which this cache entry is stored. */
+    private String m_resourceName;
+
     /** The key under which this cache entry is stored in the variation map. */
     private String m_variationKey;
 
@@ -547,4 +553,78 @@ public class CmsFlexCacheEntry implements I_CmsLruCacheObject, I_CmsMemoryMonito
         }
         return str;
     }
+
+    /**
+     * Returns the clear generation of the off-heap store when this cache entry was added to the FlexCache.<p>
+     * 
+     * @return the clear generation of the off-heap store
+     * 
+     * @see CmsFlexCacheOffHeapStore#getClearGeneration(String)
+     */
+    long getClearGeneration() {
+
+        return m_clearGeneration;
+    }
+
+    /**
+     * Returns the map of cached headers, or <code>null</code> if no headers have been added.<p>
+     * 
+     * @return the map of cached headers
+     */
+    Map<String, List<String>> getHeaders() {
+
+        return m_headers;
+    }
+
+    /**
+     * Returns the redirect target, or <code>null</code> if no redirect target is set.<p>
+     * 
+     * @return the redirect target
+     */
+    String getRedirectTarget() {
+
+        return m_redirectTarget;
+    }
+
+    /**
+     * Returns the resource name of the cache key under which this cache entry is stored.<p>
+     * 
+     * @return the resource name of the cache key, including the online or offline suffix
+     */
+    String getResourceName() {
+
+        return m_resourceName;
+    }
+
+    /**
+     * Returns the key under which this cache entry is stored in the variation map.<p>
+     * 
+     * @return the variation key
+     */
+    String getVariationKey() {
+
+        return m_variationKey;
+    }
+
+    /**
+     * Sets the clear generation of the off-heap store when this cache entry is added to the FlexCache.<p>
+     * 
+     * @param clearGeneration the clear generation of the off-heap store
+     */
+    void setClearGeneration(long clearGeneration) {
+
+        m_clearGeneration = clearGeneration;
+    }
+
+    /**
+     * Sets the resource name of the cache key under which this cache entry is stored.<p>
+     * 
+     * This is required for the second tier of the FlexCache.<p>
+     * 
+     * @param resourceName the resource name of the cache key, including the online or offline suffix
+     */
+    void setResourceName(String resourceName) {
+
+        m_resourceName = resourceName;
+    }
 }
@@ -53,6 +53,423 @@ import org.apache.commons.logging.Log;
  */
 public class CmsFlexCacheKey {
 
+    /**
+     * Matcher compiled once from the parsed cache directives of a key.<p>
+     * 
+     * The matcher keeps the directives in arrays in the order in which they are evaluated
+     * and precomputes all constant parts of the variation String, so matching a request key
+     * requires neither iterators over the directive sets nor a growing, synchronized buffer.<p>
+     */
+    private static final class CmsKeyMatcher {
+
+        /** Request value segment: container element. */
+        private static final int SEGMENT_CONTAINER_ELEMENT = 0;
+
+        /** Request value segment: device. */
+        private static final int SEGMENT_DEVICE = 1;
+
+        /** Request value segment: element. */
+        private static final int SEGMENT_ELEMENT = 2;
+
+        /** Request value segment: encoding. */
+        private static final int SEGMENT_ENCODING = 3;
+
+        /** Request value segment: ip. */
+        private static final int SEGMENT_IP = 4;
+
+        /** Request value segment: locale. */
+        private static final int SEGMENT_LOCALE = 5;
+
+        /** Request value segment: site. */
+        private static final int SEGMENT_SITE = 6;
+
+        /** Request value segment: uri. */
+        private static final int SEGMENT_URI = 7;
+
+        /** Request value segment: user. */
+        private static final int SEGMENT_USER = 8;
+
+        /** Flag indicating the resource is always cached. */
+        private boolean m_always;
+
+        /** The names of the attributes to match, an empty array matches all attributes. */
+        private String[] m_attrs;
+
+        /** The initial capacity of the buffer used to build the variation. */
+        private int m_capacity;
+
+        /** The names of the "blocking" attributes, an empty array blocks all attributes. */
+        private String[] m_noAttrs;
+
+        /** The names of the "blocking" parameters, an empty array blocks all parameters. */
+        private String[] m_noParams;
+
+        /** The names of the parameters to match, an empty array matches all parameters. */
+        private String[] m_params;
+
+        /** The allowed ports. */
+        private Set<Integer> m_ports;
+
+        /** The allowed schemes. */
+        private Set<String> m_schemes;
+
+        /** The names of the session attributes to match. */
+        private String[] m_session;
+
+        /** The precomputed timeout segment. */
+        private String m_timeout;
+
+        /** The precomputed prefixes of the request value segments. */
+        private String[] m_valuePrefixes;
+
+        /** The request value segments to match, in the order they are added to the variation. */
+        private int[] m_valueSegments;
+
+        /**
+         * Compiles the parsed cache directives of the given key.<p>
+         * 
+         * @param key the key to compile the matcher for
+         */
+        CmsKeyMatcher(CmsFlexCacheKey key) {
+
+            m_always = key.m_always > 0;
+            m_noParams = toArray(key.m_noparams);
+            m_noAttrs = toArray(key.m_noattrs);
+
+            // the order of the segments must not change, since it determines the variation String
+            int[] segments = new int[9];
+            int count = 0;
+            if (key.m_uri != null) {
+                segments[count++] = SEGMENT_URI;
+            }
+            if (key.m_site != null) {
+                segments[count++] = SEGMENT_SITE;
+            }
+            if (key.m_element != null) {
+                segments[count++] = SEGMENT_ELEMENT;
+            }
+            if (key.m_device != null) {
+                segments[count++] = SEGMENT_DEVICE;
+            }
+            if (key.m_containerElement != null) {
+                segments[count++] = SEGMENT_CONTAINER_ELEMENT;
+            }
+            if (key.m_locale != null) {
+                segments[count++] = SEGMENT_LOCALE;
+            }
+            if (key.m_encoding != null) {
+                segments[count++] = SEGMENT_ENCODING;
+            }
+            if (key.m_ip != null) {
+                segments[count++] = SEGMENT_IP;
+            }
+            if (key.m_user != null) {
+                segments[count++] = SEGMENT_USER;
+            }
+            m_valueSegments = new int[count];
+            m_valuePrefixes = new String[count];
+            int capacity = 16;
+            for (int i = 0; i < count; i++) {
+                m_valueSegments[i] = segments[i];
+                m_valuePrefixes[i] = getSegmentName(segments[i]) + "=(";
+                capacity += m_valuePrefixes[i].length() + 32;
+            }
+
+            m_params = toArray(key.m_params);
+            m_attrs = toArray(key.m_attrs);
+            m_session = toArray(key.m_session);
+            m_schemes = key.m_schemes;
+            m_ports = key.m_ports;
+            if (key.m_timeout > 0) {
+                m_timeout = CACHE_06_TIMEOUT + "=(" + key.m_timeout + ");";
+            }
+            if (m_params != null) {
+                capacity += 32 * (m_params.length + 1);
+            }
+            if (m_attrs != null) {
+                capacity += 32 * (m_attrs.length + 1);
+            }
+            if (m_session != null) {
+                capacity += 32 * m_session.length;
+            }
+            m_capacity = capacity;
+        }
+
+        /**
+         * Returns the name of the given request value segment.<p>
+         * 
+         * @param segment the request value segment
+         * 
+         * @return the name of the segment
+         */
+        private static String getSegmentName(int segment) {
+
+            switch (segment) {
+                case SEGMENT_CONTAINER_ELEMENT:
+                    return CACHE_22_CONTAINER_ELEMENT;
+                case SEGMENT_DEVICE:
+                    return CACHE_20_DEVICE;
+                case SEGMENT_ELEMENT:
+                    return CACHE_14_ELEMENT;
+                case SEGMENT_ENCODING:
+                    return CACHE_16_ENCODING;
+                case SEGMENT_IP:
+                    return CACHE_13_IP;
+                case SEGMENT_LOCALE:
+                    return CACHE_15_LOCALE;
+                case SEGMENT_SITE:
+                    return CACHE_17_SITE;
+                case SEGMENT_URI:
+                    return CACHE_02_URI;
+                default:
+                    return CACHE_03_USER;
+            }
+        }
+
+        /**
+         * Returns the value of the given request value segment from the request key.<p>
+         * 
+         * @param key the request key
+         * @param segment the request value segment
+         * 
+         * @return the value of the segment
+         */
+        private static String getSegmentValue(CmsFlexRequestKey key, int segment) {
+
+            switch (segment) {
+                case SEGMENT_CONTAINER_ELEMENT:
+                    return key.getContainerElement();
+                case SEGMENT_DEVICE:
+                    return key.getDevice();
+                case SEGMENT_ELEMENT:
+                    return key.getElement();
+                case SEGMENT_ENCODING:
+                    return key.getEncoding();
+                case SEGMENT_IP:
+                    return key.getIp();
+                case SEGMENT_LOCALE:
+                    return key.getLocale();
+                case SEGMENT_SITE:
+                    return key.getSite();
+                case SEGMENT_URI:
+                    return key.getUri();
+                default:
+                    return key.getUser();
+            }
+        }
+
+        /**
+         * Converts the given directive set to an array, keeping the iteration order of the set.<p>
+         * 
+         * @param values the directive set, may be <code>null</code>
+         * 
+         * @return the array, or <code>null</code> if the set was <code>null</code>
+         */
+        private static String[] toArray(Set<String> values) {
+
+            if (values == null) {
+                return null;
+            }
+            return values.toArray(new String[values.size()]);
+        }
+
+        /**
+         * Matches the given request key and builds the variation String.<p>
+         * 
+         * @param key the request key to match
+         * 
+         * @return null if not cachable, or the variation String if cachable
+         */
+        String match(CmsFlexRequestKey key) {
+
+            Map<String, String[]> keyParams = null;
+            if ((m_noParams != null) || (m_params != null)) {
+                keyParams = key.getParams();
+            }
+            Map<String, Object> keyAttrs = null;
+            if ((m_noAttrs != null) || (m_attrs != null)) {
+                keyAttrs = key.getAttributes();
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
+            }
+            if ((m_noParams != null) && (keyParams != null)) {
+                // the request key returns null instead of an empty parameter map
+                if (m_noParams.length == 0) {
+                    return null;
+                }
+                for (int i = 0; i < m_noParams.length; i++) {
+                    if (keyParams.containsKey(m_noParams[i])) {
+                        return null;
+                    }
+                }
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_ATTRS_0));
+            }
+            if ((m_noAttrs != null) && (keyAttrs != null)) {
+                // the request key returns null instead of an empty attribute map
+                if (m_noAttrs.length == 0) {
+                    return null;
+                }
+                for (int i = 0; i < m_noAttrs.length; i++) {
+                    if (keyAttrs.containsKey(m_noAttrs[i])) {
+                        return null;
+                    }
+                }
+            }
+
+            if (m_always) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
+                }
+                return CACHE_00_ALWAYS;
+            }
+
+            StringBuilder str = new StringBuilder(m_capacity);
+            for (int i = 0; i < m_valueSegments.length; i++) {
+                str.append(m_valuePrefixes[i]);
+                str.append(getSegmentValue(key, m_valueSegments[i]));
+                str.append(");");
+            }
+
+            if (m_params != null) {
+                str.append(CACHE_04_PARAMS);
+                str.append("=(");
+                if (keyParams != null) {
+                    if (m_params.length > 0) {
+                        // match only params listed in cache directives
+                        int last = m_params.length - 1;
+                        for (int i = 0; i <= last; i++) {
+                            // TODO: handle multiple occurrences of the same parameter value
+                            String[] values = keyParams.get(m_params[i]);
+                            if (values != null) {
+                                str.append(m_params[i]);
+                                str.append('=');
+                                str.append(values[0]);
+                                if (i < last) {
+                                    str.append(',');
+                                }
+                            }
+                        }
+                    } else {
+                        // match all request params
+                        Iterator<Map.Entry<String, String[]>> i = keyParams.entrySet().iterator();
+                        while (i.hasNext()) {
+                            Map.Entry<String, String[]> entry = i.next();
+                            str.append(entry.getKey());
+                            str.append('=');
+                            // TODO: handle multiple occurrences of the same parameter value
+                            str.append(entry.getValue()[0]);
+                            if (i.hasNext()) {
+                                str.append(',');
+                            }
+                        }
+                    }
+                }
+                str.append(");");
+            }
+
+            if (m_attrs != null) {
+                str.append(CACHE_18_ATTRS);
+                str.append("=(");
+                if (keyAttrs != null) {
+                    if (m_attrs.length > 0) {
+                        // match only attributes listed in cache directives
+                        int last = m_attrs.length - 1;
+                        for (int i = 0; i <= last; i++) {
+                            if (keyAttrs.containsKey(m_attrs[i])) {
+                                str.append(m_attrs[i]);
+                                str.append('=');
+                                str.append(keyAttrs.get(m_attrs[i]));
+                                if (i < last) {
+                                    str.append(',');
+                                }
+                            }
+                        }
+                    } else {
+                        // match all request attributes
+                        Iterator<Map.Entry<String, Object>> i = keyAttrs.entrySet().iterator();
+                        while (i.hasNext()) {
+                            Map.Entry<String, Object> entry = i.next();
+                            str.append(entry.getKey());
+                            str.append('=');
+                            str.append(entry.getValue());
+                            if (i.hasNext()) {
+                                str.append(',');
+                            }
+                        }
+                    }
+                }
+                str.append(");");
+            }
+
+            if (m_session != null) {
+                HttpSession keySession = key.getSession();
+                if (keySession != null) {
+                    // match only session attributes listed in cache directives
+                    int start = str.length();
+                    boolean found = false;
+                    str.append(CACHE_07_SESSION);
+                    str.append("=(");
+                    int last = m_session.length - 1;
+                    for (int i = 0; i <= last; i++) {
+                        Object val = keySession.getAttribute(m_session[i]);
+                        if (val != null) {
+                            found = true;
+                            str.append(m_session[i]);
+                            str.append('=');
+                            str.append(val);
+                            if (i < last) {
+                                str.append(',');
+                            }
+                        }
+                    }
+                    if (found) {
+                        str.append(");");
+                    } else {
+                        // no session attribute found, so the session segment is omitted
+                        str.setLength(start);
+                    }
+                }
+            }
+
+            if (m_schemes != null) {
+                String s = key.getScheme();
+                if ((m_schemes.size() > 0) && (!m_schemes.contains(s))) {
+                    return null;
+                }
+                str.append(CACHE_08_SCHEMES);
+                str.append("=(");
+                str.append(s);
+                str.append(");");
+            }
+
+            if (m_ports != null) {
+                Integer i = key.getPort();
+                if ((m_ports.size() > 0) && (!m_ports.contains(i))) {
+                    return null;
+                }
+                str.append(CACHE_09_PORTS);
+                str.append("=(");
+                str.append(i);
+                str.append(");");
+            }
+
+            if (m_timeout != null) {
+                str.append(m_timeout);
+            }
+
+            if (str.length() > 0) {
+                return str.toString();
+            } else {
+                return null;
+            }
+        }
+    }
+
     /** Flex cache keyword: always. */
     private static final String CACHE_00_ALWAYS = "always";
 
@@ -174,6 +591,9 @@ public class CmsFlexCacheKey {
     /** Cache key variable: The requested locale. */
     private String m_locale;
 
+    /** The matcher compiled from the cache directives, <code>null</code> if the resource is never cached. */
+    private CmsKeyMatcher m_matcher;
+
     /** Cache key variable: List of "blocking" attributes. */
     private Set<String> m_noattrs;
 
@@ -238,6 +658,9 @@ public class CmsFlexCacheKey {
         if (cacheDirectives != null) {
             parseFlexKey(cacheDirectives);
         }
+        if (m_always >= 0) {
+            m_matcher = new CmsKeyMatcher(this);
+        }
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_GENERATED_1, toString()));
         }
@@ -302,231 +725,21 @@ public class CmsFlexCacheKey {
      * If the cache key is "cache=user" and the request is done from a guest user
      * the constructed variation will be "user=(guest)".<p>
      * 
+     * The cache directives are compiled to a matcher once when this key is created, 
+     * so only the values of the request key are evaluated here.<p>
+     * 
      * @param key the key to match this key with
      * @return null if not cachable, or the Variation String if cachable
      */
     public String matchRequestKey(CmsFlexRequestKey key) {
 
-        StringBuffer str = new StringBuffer(100);
         if (m_always < 0) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_NEVER_0));
             }
             return null;
         }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
-        }
-        if ((m_noparams != null) && (key.getParams() != null)) {
-            if ((m_noparams.size() == 0) && (key.getParams().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getParams().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noparams.contains(i.next())) {
-                    return null;
-                }
-            }
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_ATTRS_0));
-        }
-        if ((m_noattrs != null) && (key.getAttributes() != null)) {
-            if ((m_noattrs.size() == 0) && (key.getAttributes().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getAttributes().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noattrs.contains(i.next())) {
-                    return null;
-                }
-            }
-        }
-
-        if (m_always > 0) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
-            }
-            str.append(CACHE_00_ALWAYS);
-            return str.toString();
-        }
-
-        if (m_uri != null) {
-            appendKeyValue(str, CACHE_02_URI, key.getUri());
-        }
-
-        if (m_site != null) {
-            appendKeyValue(str, CACHE_17_SITE, key.getSite());
-        }
-
-        if (m_element != null) {
-            appendKeyValue(str, CACHE_14_ELEMENT, key.getElement());
-        }
-
-        if (m_device != null) {
-            appendKeyValue(str, CACHE_20_DEVICE, key.getDevice());
-        }
-
-        if (m_containerElement != null) {
-            appendKeyValue(str, CACHE_22_CONTAINER_ELEMENT, key.getContainerElement());
-        }
-
-        if (m_locale != null) {
-            appendKeyValue(str, CACHE_15_LOCALE, key.getLocale());
-        }
-
-        if (m_encoding != null) {
-            appendKeyValue(str, CACHE_16_ENCODING, key.getEncoding());
-        }
-
-        if (m_ip != null) {
-            appendKeyValue(str, CACHE_13_IP, key.getIp());
-        }
-
-        if (m_user != null) {
-            appendKeyValue(str, CACHE_03_USER, key.getUser());
-        }
-
-        if (m_params != null) {
-            str.append(CACHE_04_PARAMS);
-            str.append("=(");
-            Map<String, String[]> keyParams = key.getParams();
-            if (keyParams != null) {
-                if (m_params.size() > 0) {
-                    // match only params listed in cache directives
-                    Iterator<String> i = m_params.iterator();
-                    while (i.hasNext()) {
-                        Object o = i.next();
-                        if (keyParams.containsKey(o)) {
-                            str.append(o);
-                            str.append("=");
-                            // TODO: handle multiple occurrences of the same parameter value
-                            String[] values = keyParams.get(o);
-                            str.append(values[0]);
-                            if (i.hasNext()) {
-                                str.append(",");
-                            }
-                        }
-                    }
-                } else {
-                    // match all request params
-                    Iterator<Map.Entry<String, String[]>> i = keyParams.entrySet().iterator();
-                    while (i.hasNext()) {
-                        Map.Entry<String, String[]> entry = i.next();
-                        str.append(entry.getKey());
-                        str.append("=");
-                        // TODO: handle multiple occurrences of the same parameter value
-                        String[] values = entry.getValue();
-                        str.append(values[0]);
-                        if (i.hasNext()) {
-                            str.append(",");
-                        }
-                    }
-                }
-            }
-            str.append(");");
-        }
-
-        if (m_attrs != null) {
-            str.append(CACHE_18_ATTRS);
-            str.append("=(");
-            Map<String, Object> keyAttrs = key.getAttributes();
-            if (keyAttrs != null) {
-                if (m_attrs.size() > 0) {
-                    // match only attributes listed in cache directives
-                    Iterator<String> i = m_attrs.iterator();
-                    while (i.hasNext()) {
-                        String s = i.next();
-                        if (keyAttrs.containsKey(s)) {
-                            str.append(s);
-                            str.append("=");
-                            Object value = keyAttrs.get(s);
-                            str.append(value);
-                            if (i.hasNext()) {
-                                str.append(",");
-                            }
-                        }
-                    }
-                } else {
-                    // match all request attributes
-                    Iterator<Map.Entry<String, Object>> i = keyAttrs.entrySet().iterator();
-                    while (i.hasNext()) {
-                        Map.Entry<String, Object> entry = i.next();
-                        str.append(entry.getKey());
-                        str.append("=");
-                        Object value = entry.getValue();
-                        str.append(value);
-                        if (i.hasNext()) {
-                            str.append(",");
-                        }
-                    }
-                }
-            }
-            str.append(");");
-        }
-
-        if (m_session != null) {
-            StringBuffer buf = new StringBuffer(32);
-            boolean found = false;
-            buf.append(CACHE_07_SESSION);
-            buf.append("=(");
-            HttpSession keySession = key.getSession();
-            if (keySession != null) {
-                // match only session attributes listed in cache directives
-                Iterator<String> i = m_session.iterator();
-                while (i.hasNext()) {
-                    String name = i.next();
-                    Object val = keySession.getAttribute(name);
-                    if (val != null) {
-                        found = true;
-                        buf.append(name);
-                        buf.append("=");
-                        buf.append(val);
-                        if (i.hasNext()) {
-                            buf.append(",");
-                        }
-                    }
-                }
-            }
-            if (found) {
-                buf.append(");");
-                str.append(buf);
-            }
-        }
-
-        if (m_schemes != null) {
-            String s = key.getScheme();
-            if ((m_schemes.size() > 0) && (!m_schemes.contains(s))) {
-                return null;
-            }
-            appendKeyValue(str, CACHE_08_SCHEMES, s);
-        }
-
-        if (m_ports != null) {
-            Integer i = key.getPort();
-            if ((m_ports.size() > 0) && (!m_ports.contains(i))) {
-                return null;
-            }
-            str.append(CACHE_09_PORTS);
-            str.append("=(");
-            str.append(i);
-            str.append(");");
-        }
-
-        if (m_timeout > 0) {
-            str.append(CACHE_06_TIMEOUT);
-            str.append("=(");
-            str.append(m_timeout);
-            str.append(");");
-        }
-
-        if (str.length() > 0) {
-            return str.toString();
-        } else {
-            return null;
-        }
+        return m_matcher.match(key);
     }
 
     /** 
@@ -0,0 +1,642 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.util.CmsCollectionsGenericWrapper;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Second tier of the FlexCache, which keeps the output of evicted cache entries outside of the Java heap.<p>
+ * 
+ * If the FlexCache evicts an entry because its max. cache bytes have been reached, the entry is demoted 
+ * to this store. The byte arrays of the entry are copied to an off-heap arena, only the include calls, 
+ * headers and dates remain on the heap. If the entry is requested again, it is removed from this store 
+ * and promoted back to the FlexCache as a new entry.<p>
+ * 
+ * The arena is split into blocks of equal size, which are carved out of a few large direct byte buffers. 
+ * These buffers are allocated when their first block is used and are never released, so demoting an entry 
+ * does not allocate off-heap memory, and the off-heap memory use never exceeds the size budget. 
+ * If the budget is exceeded, the entries that have not been used for the longest time are dropped 
+ * and their blocks are reused.<p>
+ * 
+ * The entries are stored under the resource name of their cache key, which includes the online or offline
+ * suffix, and their variation, so the online and offline entries are kept apart just like in the FlexCache.
+ * The variations are indexed by resource name and suffix, so removing the entries of a resource or 
+ * of the online or offline half does not have to look at any other entry.<p>
+ * 
+ * Entries are evicted from the FlexCache outside of its lock, so an entry may be demoted after the 
+ * FlexCache and this store have been cleared. Every clear therefore starts a new clear generation, 
+ * and entries added to the FlexCache before are not stored.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see org.opencms.flex.CmsFlexCache
+ */
+public class CmsFlexCacheOffHeapStore {
+
+    /**
+     * A cache entry demoted to the off-heap store.<p>
+     */
+    private static class CmsOffHeapEntry {
+
+        /** The arena blocks holding the bytes of the cached output, in the order of the elements. */
+        protected int[] m_blocks;
+
+        /** The expiration date of the entry. */
+        protected long m_dateExpires;
+
+        /** The "last modified" date of the entry. */
+        protected long m_dateLastModified;
+
+        /** The elements of the entry, with the byte arrays replaced by their length. */
+        protected Object[] m_elements;
+
+        /** The cached headers of the entry. */
+        protected Map<String, List<String>> m_headers;
+
+        /** The redirect target of the entry. */
+        protected String m_redirectTarget;
+
+        /** The resource name of the cache key of the entry. */
+        protected String m_resourceName;
+
+        /** The number of bytes of the entry. */
+        protected int m_size;
+
+        /** The variation of the entry. */
+        protected String m_variation;
+
+        /**
+         * Creates a new off-heap entry.<p>
+         * 
+         * @param resourceName the resource name of the cache key of the entry
+         * @param variation the variation of the entry
+         * @param size the number of bytes of the entry
+         */
+        protected CmsOffHeapEntry(String resourceName, String variation, int size) {
+
+            m_resourceName = resourceName;
+            m_variation = variation;
+            m_size = size;
+        }
+    }
+
+    /** The maximum size of an arena block. */
+    private static final int BLOCK_SIZE = 4096;
+
+    /** The minimum number of arena blocks, smaller budgets use smaller blocks. */
+    private static final int MIN_BLOCK_COUNT = 1024;
+
+    /** The maximum size of a single direct byte buffer of the arena. */
+    private static final int SLAB_SIZE = 16 * 1024 * 1024;
+
+    /** The number of arena blocks. */
+    private int m_blockCount;
+
+    /** The number of arena blocks in a single direct byte buffer. */
+    private int m_blocksPerSlab;
+
+    /** The size of an arena block. */
+    private int m_blockSize;
+
+    /** The clear generation of all entries, incremented if the store is cleared. */
+    private long m_clearGeneration;
+
+    /** The clear generations by suffix, incremented if the entries with the suffix are removed. */
+    private Map<String, Long> m_clearGenerations;
+
+    /** The off-heap entries by key, in access order. */
+    private LinkedHashMap<String, CmsOffHeapEntry> m_entries;
+
+    /** The number of released arena blocks. */
+    private int m_freeBlockCount;
+
+    /** The released arena blocks, which are reused first. */
+    private int[] m_freeBlocks;
+
+    /** The variations of the stored entries by resource name, grouped by the online or offline suffix. */
+    private Map<String, Map<String, Set<String>>> m_index;
+
+    /** The maximum number of bytes of all stored entries. */
+    private long m_maxBytes;
+
+    /** The first arena block that has never been used. */
+    private int m_nextBlock;
+
+    /** The direct byte buffers of the arena, allocated when their first block is used. */
+    private ByteBuffer[] m_slabs;
+
+    /** The number of bytes of all stored entries. */
+    private long m_size;
+
+    /**
+     * Creates a new off-heap store.<p>
+     * 
+     * @param maxBytes the maximum number of bytes of all stored entries
+     */
+    public CmsFlexCacheOffHeapStore(long maxBytes) {
+
+        m_maxBytes = maxBytes;
+        m_entries = new LinkedHashMap<String, CmsOffHeapEntry>(CmsFlexCache.INITIAL_CAPACITY_CACHE, 0.75f, true);
+        m_index = new HashMap<String, Map<String, Set<String>>>();
+        m_clearGenerations = new HashMap<String, Long>();
+
+        m_blockSize = (int)Math.max(1, Math.min(BLOCK_SIZE, maxBytes / MIN_BLOCK_COUNT));
+        m_blockCount = (int)Math.min(Integer.MAX_VALUE, maxBytes / m_blockSize);
+        m_blocksPerSlab = Math.max(1, SLAB_SIZE / m_blockSize);
+        m_slabs = new ByteBuffer[(int)(((long)m_blockCount + m_blocksPerSlab - 1) / m_blocksPerSlab)];
+        m_freeBlocks = new int[Math.min(m_blockCount, MIN_BLOCK_COUNT)];
+    }
+
+    /**
+     * Removes all entries from the store.<p>
+     */
+    public synchronized void clear() {
+
+        m_clearGeneration++;
+        m_entries.clear();
+        m_index.clear();
+        m_size = 0;
+        // all blocks are unused again, the direct byte buffers are kept for reuse
+        m_freeBlockCount = 0;
+        m_nextBlock = 0;
+    }
+
+    /**
+     * Demotes the given cache entry to the store.<p>
+     * 
+     * Incomplete or expired entries are not stored, and neither are entries added to the FlexCache 
+     * before the store has been cleared for their resource name. If an entry for the same resource 
+     * and variation is already stored, it is replaced.<p>
+     * 
+     * @param resourceName the resource name of the cache key, including the online or offline suffix
+     * @param variation the variation of the entry
+     * @param entry the cache entry to demote
+     * 
+     * @return <code>true</code> if the entry has been stored
+     */
+    public boolean demote(String resourceName, String variation, CmsFlexCacheEntry entry) {
+
+        if ((resourceName == null)
+            || (variation == null)
+            || (entry.getDateExpires() < System.currentTimeMillis())
+            || ((entry.getRedirectTarget() == null) && (entry.elements() == null))) {
+            return false;
+        }
+        List<Object> elements = null;
+        int size = 0;
+        if (entry.getRedirectTarget() == null) {
+            elements = entry.elements();
+            for (Object element : elements) {
+                if (element instanceof byte[]) {
+                    size += ((byte[])element).length;
+                }
+            }
+        }
+        int blockCount = (size + m_blockSize - 1) / m_blockSize;
+        if (blockCount > m_blockCount) {
+            return false;
+        }
+        CmsOffHeapEntry offHeapEntry = new CmsOffHeapEntry(resourceName, variation, size);
+        offHeapEntry.m_dateExpires = entry.getDateExpires();
+        offHeapEntry.m_dateLastModified = entry.getDateLastModified();
+        if (elements == null) {
+            offHeapEntry.m_redirectTarget = entry.getRedirectTarget();
+        } else {
+            offHeapEntry.m_elements = new Object[elements.size()];
+            for (int i = 0; i < elements.size(); i++) {
+                Object element = elements.get(i);
+                if (element instanceof byte[]) {
+                    element = Integer.valueOf(((byte[])element).length);
+                }
+                offHeapEntry.m_elements[i] = element;
+            }
+            offHeapEntry.m_headers = entry.getHeaders();
+        }
+
+        synchronized (this) {
+            if (entry.getClearGeneration() != getClearGeneration(resourceName)) {
+                // the entry has been cleared from the FlexCache while it was evicted
+                return false;
+            }
+            String key = getKey(resourceName, variation);
+            CmsOffHeapEntry old = m_entries.remove(key);
+            if (old != null) {
+                release(old);
+            }
+            // drop the entries not used for the longest time until there are enough free blocks again
+            Iterator<CmsOffHeapEntry> itEntries = m_entries.values().iterator();
+            while ((getFreeBlockCount() < blockCount) && itEntries.hasNext()) {
+                CmsOffHeapEntry lru = itEntries.next();
+                itEntries.remove();
+                release(lru);
+            }
+            // copy the byte arrays of the entry to the arena
+            offHeapEntry.m_blocks = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                offHeapEntry.m_blocks[i] = allocateBlock();
+            }
+            if (elements != null) {
+                int offset = 0;
+                for (Object element : elements) {
+                    if (element instanceof byte[]) {
+                        byte[] bytes = (byte[])element;
+                        transfer(offHeapEntry.m_blocks, offset, bytes, true);
+                        offset += bytes.length;
+                    }
+                }
+            }
+            m_entries.put(key, offHeapEntry);
+            m_size += size;
+            getVariations(resourceName, true).add(variation);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the clear generation for the given resource name.<p>
+     * 
+     * The clear generation changes whenever the entries of the resource name may have become stale,
+     * i.e. if the store is cleared or the entries with the suffix of the resource name are removed.
+     * Entries can only be demoted if this has not happened since they were added to the FlexCache.<p>
+     * 
+     * @param resourceName the resource name of the cache key, including the online or offline suffix
+     * 
+     * @return the clear generation for the resource name
+     */
+    public synchronized long getClearGeneration(String resourceName) {
+
+        Long suffixGeneration = m_clearGenerations.get(getSuffix(resourceName));
+        return m_clearGeneration + ((suffixGeneration == null) ? 0 : suffixGeneration.longValue());
+    }
+
+    /**
+     * Returns the maximum number of bytes of all stored entries.<p>
+     * 
+     * @return the maximum number of bytes of all stored entries
+     */
+    public long getMaxBytes() {
+
+        return m_maxBytes;
+    }
+
+    /**
+     * Returns the number of bytes of all stored entries.<p>
+     * 
+     * @return the number of bytes of all stored entries
+     */
+    public synchronized long getSize() {
+
+        return m_size;
+    }
+
+    /**
+     * Removes the entry for the given resource and variation from the store 
+     * and returns it as a new, completed cache entry.<p>
+     * 
+     * @param resourceName the resource name of the cache key, including the online or offline suffix
+     * @param variation the variation of the entry
+     * 
+     * @return the promoted cache entry, or <code>null</code> if no entry is stored or the entry has expired
+     */
+    public CmsFlexCacheEntry promote(String resourceName, String variation) {
+
+        CmsOffHeapEntry offHeapEntry;
+        byte[][] data = null;
+        synchronized (this) {
+            offHeapEntry = m_entries.remove(getKey(resourceName, variation));
+            if (offHeapEntry == null) {
+                return null;
+            }
+            if ((offHeapEntry.m_elements != null) && (offHeapEntry.m_dateExpires >= System.currentTimeMillis())) {
+                // copy the bytes back to the heap before the blocks can be reused
+                Object[] elements = offHeapEntry.m_elements;
+                data = new byte[elements.length][];
+                int offset = 0;
+                for (int i = 0; i < elements.length; i++) {
+                    if (elements[i] instanceof Integer) {
+                        data[i] = new byte[((Integer)elements[i]).intValue()];
+                        transfer(offHeapEntry.m_blocks, offset, data[i], false);
+                        offset += data[i].length;
+                    }
+                }
+            }
+            release(offHeapEntry);
+        }
+        if (offHeapEntry.m_dateExpires < System.currentTimeMillis()) {
+            return null;
+        }
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        if (offHeapEntry.m_redirectTarget != null) {
+            entry.setRedirect(offHeapEntry.m_redirectTarget);
+        } else {
+            Object[] elements = offHeapEntry.m_elements;
+            for (int i = 0; i < elements.length; i++) {
+                if (elements[i] instanceof Integer) {
+                    entry.add(data[i]);
+                } else {
+                    // an include call is followed by its parameter and attribute maps
+                    Map<String, String[]> parameters = CmsCollectionsGenericWrapper.map(elements[i + 1]);
+                    Map<String, Object> attributes = CmsCollectionsGenericWrapper.map(elements[i + 2]);
+                    entry.add((String)elements[i], parameters, attributes);
+                    i += 2;
+                }
+            }
+            if (offHeapEntry.m_headers != null) {
+                entry.addHeaders(offHeapEntry.m_headers);
+            }
+        }
+        entry.setDateExpires(offHeapEntry.m_dateExpires);
+        entry.setDateLastModified(offHeapEntry.m_dateLastModified);
+        entry.complete();
+        return entry;
+    }
+
+    /**
+     * Removes the entry for the given resource and variation from the store.<p>
+     * 
+     * @param resourceName the resource name of the cache key, including the online or offline suffix
+     * @param variation the variation of the entry
+     */
+    public synchronized void remove(String resourceName, String variation) {
+
+        CmsOffHeapEntry offHeapEntry = m_entries.remove(getKey(resourceName, variation));
+        if (offHeapEntry != null) {
+            release(offHeapEntry);
+        }
+    }
+
+    /**
+     * Removes all entries for resource names ending with the given suffix from the store.<p>
+     * 
+     * @param suffix the suffix, e.g. {@link CmsFlexCache#CACHE_ONLINESUFFIX}
+     */
+    public synchronized void removeBySuffix(String suffix) {
+
+        Long suffixGeneration = m_clearGenerations.get(suffix);
+        long generation = (suffixGeneration == null) ? 0 : suffixGeneration.longValue();
+        m_clearGenerations.put(suffix, Long.valueOf(generation + 1));
+
+        Iterator<Map.Entry<String, Map<String, Set<String>>>> itGroups = m_index.entrySet().iterator();
+        while (itGroups.hasNext()) {
+            Map.Entry<String, Map<String, Set<String>>> group = itGroups.next();
+            boolean removeGroup = (group.getKey().length() > 0) && group.getKey().endsWith(suffix);
+            Iterator<Map.Entry<String, Set<String>>> itResources = group.getValue().entrySet().iterator();
+            while (itResources.hasNext()) {
+                Map.Entry<String, Set<String>> resource = itResources.next();
+                if (removeGroup || resource.getKey().endsWith(suffix)) {
+                    itResources.remove();
+                    removeVariations(resource.getKey(), resource.getValue());
+                }
+            }
+            if (group.getValue().isEmpty()) {
+                itGroups.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all entries for the given resource name from the store.<p>
+     * 
+     * @param resourceName the resource name of the cache key, including the online or offline suffix
+     */
+    public synchronized void removeResource(String resourceName) {
+
+        Map<String, Set<String>> resources = m_index.get(getSuffix(resourceName));
+        if (resources == null) {
+            return;
+        }
+        Set<String> variations = resources.remove(resourceName);
+        if (variations != null) {
+            removeVariations(resourceName, variations);
+        }
+        if (resources.isEmpty()) {
+            m_index.remove(getSuffix(resourceName));
+        }
+    }
+
+    /**
+     * Returns the number of stored entries.<p>
+     * 
+     * @return the number of stored entries
+     */
+    public synchronized int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+
+        return "max. bytes: " + m_maxBytes + ", bytes: " + m_size + ", count: " + m_entries.size();
+    }
+
+    /**
+     * Returns an unused arena block.<p>
+     * 
+     * The caller must make sure that there is a free block.<p>
+     * 
+     * @return the index of the block
+     */
+    private int allocateBlock() {
+
+        if (m_freeBlockCount > 0) {
+            m_freeBlockCount--;
+            return m_freeBlocks[m_freeBlockCount];
+        }
+        int block = m_nextBlock;
+        m_nextBlock++;
+        return block;
+    }
+
+    /**
+     * Returns the number of arena blocks that are not used by any entry.<p>
+     * 
+     * @return the number of free arena blocks
+     */
+    private int getFreeBlockCount() {
+
+        return m_freeBlockCount + (m_blockCount - m_nextBlock);
+    }
+
+    /**
+     * Returns the key of the entry for the given resource and variation.<p>
+     * 
+     * @param resourceName the resource name of the cache key
+     * @param variation the variation of the entry
+     * 
+     * @return the key of the entry
+     */
+    private String getKey(String resourceName, String variation) {
+
+        return resourceName + '\n' + variation;
+    }
+
+    /**
+     * Returns the direct byte buffer of the arena containing the given block, allocating it if required.<p>
+     * 
+     * @param block the index of the block
+     * 
+     * @return the direct byte buffer containing the block
+     */
+    private ByteBuffer getSlab(int block) {
+
+        int slab = block / m_blocksPerSlab;
+        if (m_slabs[slab] == null) {
+            int blocks = Math.min(m_blocksPerSlab, m_blockCount - (slab * m_blocksPerSlab));
+            m_slabs[slab] = ByteBuffer.allocateDirect(blocks * m_blockSize);
+        }
+        return m_slabs[slab];
+    }
+
+    /**
+     * Returns the online or offline suffix of the given resource name, used to group the index.<p>
+     * 
+     * @param resourceName the resource name of the cache key
+     * 
+     * @return the suffix of the resource name, or an empty String if it has neither suffix
+     */
+    private String getSuffix(String resourceName) {
+
+        if (resourceName.endsWith(CmsFlexCache.CACHE_ONLINESUFFIX)) {
+            return CmsFlexCache.CACHE_ONLINESUFFIX;
+        }
+        if (resourceName.endsWith(CmsFlexCache.CACHE_OFFLINESUFFIX)) {
+            return CmsFlexCache.CACHE_OFFLINESUFFIX;
+        }
+        return "";
+    }
+
+    /**
+     * Returns the indexed variations of the given resource name.<p>
+     * 
+     * @param resourceName the resource name of the cache key
+     * @param create if <code>true</code>, the variations are added to the index if not yet indexed
+     * 
+     * @return the variations of the resource name, or <code>null</code> if not indexed and not created
+     */
+    private Set<String> getVariations(String resourceName, boolean create) {
+
+        String suffix = getSuffix(resourceName);
+        Map<String, Set<String>> resources = m_index.get(suffix);
+        if (resources == null) {
+            if (!create) {
+                return null;
+            }
+            resources = new HashMap<String, Set<String>>();
+            m_index.put(suffix, resources);
+        }
+        Set<String> variations = resources.get(resourceName);
+        if ((variations == null) && create) {
+            variations = new HashSet<String>();
+            resources.put(resourceName, variations);
+        }
+        return variations;
+    }
+
+    /**
+     * Releases the arena blocks and the index entry of an entry that has been removed from the entry map.<p>
+     * 
+     * @param offHeapEntry the removed entry
+     */
+    private void release(CmsOffHeapEntry offHeapEntry) {
+
+        m_size -= offHeapEntry.m_size;
+        for (int block : offHeapEntry.m_blocks) {
+            if (m_freeBlockCount == m_freeBlocks.length) {
+                int[] freeBlocks = new int[Math.min(m_blockCount, 2 * m_freeBlocks.length)];
+                System.arraycopy(m_freeBlocks, 0, freeBlocks, 0, m_freeBlockCount);
+                m_freeBlocks = freeBlocks;
+            }
+            m_freeBlocks[m_freeBlockCount] = block;
+            m_freeBlockCount++;
+        }
+        offHeapEntry.m_blocks = null;
+        Set<String> variations = getVariations(offHeapEntry.m_resourceName, false);
+        if (variations != null) {
+            variations.remove(offHeapEntry.m_variation);
+            if (variations.isEmpty()) {
+                removeResource(offHeapEntry.m_resourceName);
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of the given resource name and variations, which have already been removed from the index.<p>
+     * 
+     * @param resourceName the resource name of the cache key
+     * @param variations the variations to remove
+     */
+    private void removeVariations(String resourceName, Set<String> variations) {
+
+        for (String variation : variations) {
+            CmsOffHeapEntry offHeapEntry = m_entries.remove(getKey(resourceName, variation));
+            if (offHeapEntry != null) {
+                release(offHeapEntry);
+            }
+        }
+    }
+
+    /**
+     * Copies bytes between the given byte array and the arena blocks of an entry.<p>
+     * 
+     * @param blocks the arena blocks of the entry
+     * @param offset the offset of the bytes in the data of the entry
+     * @param bytes the byte array
+     * @param write if <code>true</code> the bytes are written to the arena, otherwise they are read from it
+     */
+    private void transfer(int[] blocks, int offset, byte[] bytes, boolean write) {
+
+        int done = 0;
+        while (done < bytes.length) {
+            int block = blocks[(offset + done) / m_blockSize];
+            int blockOffset = (offset + done) % m_blockSize;
+            int length = Math.min(bytes.length - done, m_blockSize - blockOffset);
+            ByteBuffer slab = getSlab(block);
+            slab.position(((block % m_blocksPerSlab) * m_blockSize) + blockOffset);
+            if (write) {
+                slab.put(bytes, done, length);
+            } else {
+                slab.get(bytes, done, length);
+            }
+            done += length;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Segmented output buffer of a Flex response, made of a chain of chunks from the {@link CmsFlexBufferPool}.<p>
+ * 
+ * Unlike a <code>{@link java.io.ByteArrayOutputStream}</code>, the buffer never copies the written bytes 
+ * when it grows, it just appends another chunk. The content is copied directly from the chunks to byte arrays 
+ * of the exact size, e.g. for the elements of a cache entry.<p>
+ * 
+ * This class is not thread safe, a buffer is used by the thread processing the response only.<p>
+ * 
+ * @since 9.5.0
+ */
+final class CmsFlexOutputBuffer {
+
+    /** The chunks of the buffer, all but the last one are filled completely. */
+    private List<byte[]> m_chunks;
+
+    /** The number of bytes written to the buffer. */
+    private int m_size;
+
+    /**
+     * Creates a new, empty buffer.<p>
+     */
+    CmsFlexOutputBuffer() {
+
+        m_chunks = new ArrayList<byte[]>(4);
+    }
+
+    /**
+     * Returns all chunks to the pool and empties the buffer.<p>
+     * 
+     * The buffer can still be used afterwards, it takes new chunks from the pool when written to.<p>
+     */
+    void clear() {
+
+        for (int i = 0; i < m_chunks.size(); i++) {
+            CmsFlexBufferPool.release(m_chunks.get(i));
+        }
+        m_chunks.clear();
+        m_size = 0;
+    }
+
+    /**
+     * Returns the position of the first occurrence of the given byte, starting at the given position.<p>
+     * 
+     * @param b the byte to look for
+     * @param from the position to start at
+     * 
+     * @return the position of the byte, or -1 if the byte is not found
+     */
+    int indexOf(byte b, int from) {
+
+        int pos = from;
+        while (pos < m_size) {
+            byte[] chunk = m_chunks.get(pos / CmsFlexBufferPool.CHUNK_SIZE);
+            int offset = pos % CmsFlexBufferPool.CHUNK_SIZE;
+            int end = Math.min(CmsFlexBufferPool.CHUNK_SIZE, offset + (m_size - pos));
+            for (int i = offset; i < end; i++) {
+                if (chunk[i] == b) {
+                    return pos + (i - offset);
+                }
+            }
+            pos += end - offset;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of bytes written to the buffer.<p>
+     * 
+     * @return the number of bytes written to the buffer
+     */
+    int size() {
+
+        return m_size;
+    }
+
+    /**
+     * Returns a copy of the content of the buffer.<p>
+     * 
+     * @return a copy of the content of the buffer
+     */
+    byte[] toByteArray() {
+
+        return toByteArray(0, m_size);
+    }
+
+    /**
+     * Returns a copy of the given range of the buffer.<p>
+     * 
+     * @param start the start position, inclusive
+     * @param end the end position, exclusive
+     * 
+     * @return a copy of the given range of the buffer
+     */
+    byte[] toByteArray(int start, int end) {
+
+        byte[] result = new byte[end - start];
+        int pos = start;
+        while (pos < end) {
+            int offset = pos % CmsFlexBufferPool.CHUNK_SIZE;
+            int len = Math.min(CmsFlexBufferPool.CHUNK_SIZE - offset, end - pos);
+            System.arraycopy(m_chunks.get(pos / CmsFlexBufferPool.CHUNK_SIZE), offset, result, pos - start, len);
+            pos += len;
+        }
+        return result;
+    }
+
+    /**
+     * Appends the given bytes to the buffer.<p>
+     * 
+     * @param b the bytes
+     * @param off the start offset in the bytes
+     * @param len the number of bytes to append
+     */
+    void write(byte[] b, int off, int len) {
+
+        while (len > 0) {
+            int offset = m_size % CmsFlexBufferPool.CHUNK_SIZE;
+            if (offset == 0) {
+                // the last chunk is full
+                m_chunks.add(CmsFlexBufferPool.acquire());
+            }
+            int count = Math.min(CmsFlexBufferPool.CHUNK_SIZE - offset, len);
+            System.arraycopy(b, off, m_chunks.get(m_chunks.size() - 1), offset, count);
+            m_size += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Appends the given byte to the buffer.<p>
+     * 
+     * @param b the byte
+     */
+    void write(int b) {
+
+        int offset = m_size % CmsFlexBufferPool.CHUNK_SIZE;
+        if (offset == 0) {
+            // the last chunk is full
+            m_chunks.add(CmsFlexBufferPool.acquire());
+        }
+        m_chunks.get(m_chunks.size() - 1)[offset] = (byte)b;
+        m_size++;
+    }
+}
@@ -461,6 +461,9 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
 
             // pop req/res from controller stack
             controller.pop();
+
+            // the output of the include has been copied, so the buffer chunks can be reused
+            w_res.releaseBuffer();
         }
     }
 }
\ No newline at end of file
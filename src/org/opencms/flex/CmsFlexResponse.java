@@ -35,7 +35,6 @@ import org.opencms.util.CmsDateUtil;
 import org.opencms.util.CmsRequestUtil;
 
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
@@ -68,7 +67,8 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
      * Wrapped implementation of the ServletOutputStream.<p>
      * 
      * This implementation writes to an internal buffer and optionally to another 
-     * output stream at the same time.<p>
+     * output stream at the same time. The internal buffer is made of chunks from the
+     * {@link CmsFlexBufferPool}, which are returned to the pool when the buffer is released.<p>
      * 
      * It should be fully transparent to the standard ServletOutputStream.<p>
      */
@@ -78,7 +78,7 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         private ServletOutputStream m_servletStream;
 
         /** The internal stream buffer. */
-        private ByteArrayOutputStream m_stream;
+        private CmsFlexOutputBuffer m_buffer;
 
         /**
          * Constructor that must be used if the stream should write 
@@ -103,11 +103,15 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         }
 
         /**
-         * Clears the buffer by initializing the buffer with a new stream.<p>
+         * Clears the buffer, the chunks of the buffer are returned to the pool.<p>
          */
         public void clear() {
 
-            m_stream = new java.io.ByteArrayOutputStream(1024);
+            if (m_buffer == null) {
+                m_buffer = new CmsFlexOutputBuffer();
+            } else {
+                m_buffer.clear();
+            }
         }
 
         /**
@@ -116,9 +120,6 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         @Override
         public void close() throws IOException {
 
-            if (m_stream != null) {
-                m_stream.close();
-            }
             if (m_servletStream != null) {
                 m_servletStream.close();
             }
@@ -146,7 +147,17 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
          */
         public byte[] getBytes() {
 
-            return m_stream.toByteArray();
+            return m_buffer.toByteArray();
+        }
+
+        /**
+         * Provides access to the buffer itself.<p>
+         * 
+         * @return the buffer
+         */
+        CmsFlexOutputBuffer getBuffer() {
+
+            return m_buffer;
         }
 
         /**
@@ -155,7 +166,7 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         @Override
         public void write(byte[] b, int off, int len) throws IOException {
 
-            m_stream.write(b, off, len);
+            m_buffer.write(b, off, len);
             if (m_servletStream != null) {
                 m_servletStream.write(b, off, len);
             }
@@ -167,7 +178,7 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         @Override
         public void write(int b) throws IOException {
 
-            m_stream.write(b);
+            m_buffer.write(b);
             if (m_servletStream != null) {
                 m_servletStream.write(b);
             }
@@ -231,6 +242,9 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
     /** A special wrapper class for a ServletOutputStream. */
     private CmsFlexResponse.CmsServletOutputStream m_out;
 
+    /** Indicates that m_out has been created for this response and is not the stream of the parent response. */
+    private boolean m_outOwned;
+
     /** Indicates that parent stream is writing only in the buffer. */
     private boolean m_parentWritesOnlyToBuffer;
 
@@ -896,6 +910,20 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         return m_cachedEntry;
     }
 
+    /**
+     * Returns the chunks of the output buffer of this response to the {@link CmsFlexBufferPool}.<p>
+     * 
+     * Must be called only after the response has been processed completely and its output 
+     * has been copied to the cache entry or the parent response.
+     * The output stream of the parent response, if used by this response, is not affected.<p>
+     */
+    void releaseBuffer() {
+
+        if (m_outOwned && (m_out != null)) {
+            m_out.clear();
+        }
+    }
+
     /**
      * Sets the cache key for this response from 
      * a pre-calculated cache key.<p>
@@ -1027,6 +1055,24 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         values.add(value);
     }
 
+    /**
+     * Returns the buffer of the current writers output stream, without copying the bytes in it.<p>
+     * 
+     * @return the buffer of the current writers output stream, or <code>null</code> if the bytes
+     *      are not available from the buffer, in this case use {@link #getWriterBytes()}
+     */
+    private CmsFlexOutputBuffer getWriterBuffer() {
+
+        if (isSuspended() || (m_cacheBytes != null) || (m_out == null)) {
+            return null;
+        }
+        if (m_writer != null) {
+            // Flush the writer in case something was written on it
+            m_writer.flush();
+        }
+        return m_out.getBuffer();
+    }
+
     /**
      * Initializes the current responses output stream 
      * and the corresponding print writer.<p>
@@ -1041,6 +1087,7 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
                 if (m_cachingRequired || (m_controller.getResponseStackSize() > 1)) {
                     // we are allowed to cache our results (probably to construct a new cache entry)
                     m_out = new CmsFlexResponse.CmsServletOutputStream(m_res.getOutputStream());
+                    m_outOwned = true;
                 } else {
                     // we are not allowed to cache so we just use the parents output stream
                     m_out = (CmsFlexResponse.CmsServletOutputStream)m_res.getOutputStream();
@@ -1048,6 +1095,7 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
             } else {
                 // construct a "buffer only" output stream
                 m_out = new CmsFlexResponse.CmsServletOutputStream();
+                m_outOwned = true;
             }
         }
         if (m_writer == null) {
@@ -1078,37 +1126,39 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
      */
     private void processIncludeList() {
 
-        byte[] result = getWriterBytes();
         if (!hasIncludeList()) {
             // no include list, so no includes and we just use the bytes as they are in one block
-            m_cachedEntry.add(result);
+            m_cachedEntry.add(getWriterBytes());
         } else {
+            // split the output directly from the chunks of the buffer, so each piece is copied only once
+            CmsFlexOutputBuffer result = getWriterBuffer();
+            boolean isTemporary = (result == null);
+            if (isTemporary) {
+                byte[] bytes = getWriterBytes();
+                result = new CmsFlexOutputBuffer();
+                result.write(bytes, 0, bytes.length);
+            }
             // process the include list
-            int max = result.length;
+            int max = result.size();
             int pos = 0;
             int last = 0;
-            int size = 0;
             int count = 0;
 
             // work through result and split this with include list calls            
             int i = 0;
             while ((i < m_includeList.size()) && (pos < max)) {
-                // look for the first FLEX_CACHE_DELIMITER char
-                while ((pos < max) && (result[pos] != FLEX_CACHE_DELIMITER)) {
-                    pos++;
-                }
-                if ((pos < max) && (result[pos] == FLEX_CACHE_DELIMITER)) {
+                // look for the next FLEX_CACHE_DELIMITER char
+                pos = result.indexOf((byte)FLEX_CACHE_DELIMITER, pos);
+                if (pos < 0) {
+                    pos = max;
+                } else {
                     count++;
                     // a byte value of C_FLEX_CACHE_DELIMITER in our (String) output list indicates 
                     // that the next include call must be placed here
-                    size = pos - last;
-                    if (size > 0) {
+                    if (pos > last) {
                         // if not (it might be 0) there would be 2 include calls back 2 back
-                        byte[] piece = new byte[size];
-                        System.arraycopy(result, last, piece, 0, size);
                         // add the byte array to the cache entry
-                        m_cachedEntry.add(piece);
-                        piece = null;
+                        m_cachedEntry.add(result.toByteArray(last, pos));
                     }
                     last = ++pos;
                     // add an include call to the cache entry
@@ -1121,11 +1171,10 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
             }
             if (pos < max) {
                 // there is content behind the last include call
-                size = max - pos;
-                byte[] piece = new byte[size];
-                System.arraycopy(result, pos, piece, 0, size);
-                m_cachedEntry.add(piece);
-                piece = null;
+                m_cachedEntry.add(result.toByteArray(pos, max));
+            }
+            if (isTemporary) {
+                result.clear();
             }
             if (i >= m_includeList.size()) {
                 // clear the include list if all include calls are handled
@@ -55,6 +55,7 @@ import org.opencms.relations.CmsRelationType;
 import org.opencms.staticexport.CmsLinkManager;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsReadWriteLockTable;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.I_CmsRegexSubstitution;
@@ -79,13 +80,13 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 import com.google.common.base.Splitter;
@@ -162,6 +163,15 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** Jsp repository parameter name. */
     public static final String PARAM_JSP_REPOSITORY = "jsp.repository";
 
+    /** Parameter name for enabling the JSP warm-up on startup. */
+    public static final String PARAM_JSP_WARMUP = "jsp.warmup";
+
+    /** Parameter name for enabling the compilation of the JSPs during the warm-up. */
+    public static final String PARAM_JSP_WARMUP_COMPILE = "jsp.warmup.compile";
+
+    /** Parameter name for the number of threads used by the JSP warm-up. */
+    public static final String PARAM_JSP_WARMUP_THREADS = "jsp.warmup.threads";
+
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 6;
 
@@ -171,9 +181,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** The maximum age for delivered contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
-    /** Read write locks for jsp files. */
-    @SuppressWarnings("unchecked")
-    private static Map<String, ReentrantReadWriteLock> m_fileLocks = new LRUMap(10000);
+    /** Read write locks for jsp files, a lock is only kept while it is in use. */
+    private static CmsReadWriteLockTable m_fileLocks = new CmsReadWriteLockTable(true);
 
     /** The directory to store the generated JSP pages in (absolute path). */
     private static String m_jspRepository;
@@ -200,6 +209,15 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** A map from taglib names to their URIs. */
     private Map<String, String> m_taglibs = Maps.newHashMap();
 
+    /** Flag to indicate if the JSPs are compiled during the warm-up. */
+    private boolean m_warmupCompile;
+
+    /** Flag to indicate if the JSP warm-up is started on startup. */
+    private boolean m_warmupEnabled;
+
+    /** The number of threads used by the JSP warm-up. */
+    private int m_warmupThreads;
+
     /**
      * The constructor of the class is empty, the initial instance will be 
      * created by the resource manager upon startup of OpenCms.<p>
@@ -428,6 +446,10 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             initCaches(cacheSize);
         }
 
+        m_warmupEnabled = m_configuration.getBoolean(PARAM_JSP_WARMUP, false);
+        m_warmupCompile = m_configuration.getBoolean(PARAM_JSP_WARMUP_COMPILE, false);
+        m_warmupThreads = m_configuration.getInteger(PARAM_JSP_WARMUP_THREADS, 4);
+
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JSP_REPOSITORY_ABS_PATH_1, m_jspRepository));
@@ -443,6 +465,12 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                     Messages.INIT_JSP_CACHE_SIZE_1,
                     String.valueOf(cacheSize)));
             }
+            if (m_warmupEnabled) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_JSP_WARMUP_2,
+                    String.valueOf(m_warmupThreads),
+                    Boolean.valueOf(m_warmupCompile)));
+            }
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_LOADER_INITIALIZED_1,
                 this.getClass().getName()));
@@ -617,7 +645,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         String jspName = getJspRfsPath(resource, false);
         Set<String> pathSet = new HashSet<String>();
         pathSet.add(resource.getRootPath());
-        ReentrantReadWriteLock lock = getFileLock(jspName);
+        // use the same lock as updateJsp(), so the file is not deleted while it is written
+        ReentrantReadWriteLock lock = m_fileLocks.acquire(resource.getRootPath());
         lock.writeLock().lock();
         try {
             removeFromCache(pathSet, false);
@@ -625,6 +654,7 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             jspFile.delete();
         } finally {
             lock.writeLock().unlock();
+            m_fileLocks.release(resource.getRootPath());
         }
     }
 
@@ -659,6 +689,37 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         }
     }
 
+    /**
+     * Starts the JSP warm-up in a background thread, if it is enabled with the 
+     * <code>{@link #PARAM_JSP_WARMUP}</code> parameter.<p>
+     * 
+     * @param cms the CmsObject used to read the JSPs, must be able to read all JSPs in the online project
+     * @param context the servlet context used to compile the JSPs, can be <code>null</code>
+     * 
+     * @see CmsJspWarmup
+     */
+    public void startWarmup(CmsObject cms, ServletContext context) {
+
+        if (!m_warmupEnabled) {
+            return;
+        }
+        final CmsJspWarmup warmup = new CmsJspWarmup(this, cms, m_warmupThreads, m_warmupCompile ? context : null);
+        Thread thread = new Thread("OpenCms: JSP warm-up") {
+
+            @Override
+            public void run() {
+
+                try {
+                    warmup.run();
+                } catch (Throwable t) {
+                    LOG.error(Messages.get().getBundle().key(Messages.LOG_JSP_WARMUP_ERROR_0), t);
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     /**
      * Updates a JSP page in the "real" file system in case the VFS resource has changed.<p>
      * 
@@ -725,7 +786,7 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             // create directory structure
             d.mkdirs();
         }
-        ReentrantReadWriteLock readWriteLock = getFileLock(jspVfsName);
+        ReentrantReadWriteLock readWriteLock = m_fileLocks.acquire(jspVfsName);
         try {
             // get a read lock for this jsp
             readWriteLock.readLock().lock();
@@ -815,19 +876,17 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                                         Boolean.valueOf(jspFile.canWrite())}));
                             }
                             // write the parsed JSP content to the real FS
-                            synchronized (CmsJspLoader.class) {
-                                // this must be done only one file at a time
-                                FileOutputStream fs = new FileOutputStream(jspFile);
-                                fs.write(contents);
-                                fs.close();
-
-                                // we set the modification date to (approximately) that of the VFS resource. This is needed because in the Online project, the old version of a JSP
-                                // may be generated in the RFS JSP repository *after* the JSP has been changed, but *before* it has been published, which would lead
-                                // to it not being updated after the changed JSP is published. 
-
-                                // Note: the RFS may only support second precision for the last modification date 
-                                jspFile.setLastModified((1 + (resource.getDateLastModified() / 1000)) * 1000);
-                            }
+                            // the write lock for this JSP ensures the file is written by one thread at a time
+                            FileOutputStream fs = new FileOutputStream(jspFile);
+                            fs.write(contents);
+                            fs.close();
+
+                            // we set the modification date to (approximately) that of the VFS resource. This is needed because in the Online project, the old version of a JSP
+                            // may be generated in the RFS JSP repository *after* the JSP has been changed, but *before* it has been published, which would lead
+                            // to it not being updated after the changed JSP is published. 
+
+                            // Note: the RFS may only support second precision for the last modification date 
+                            jspFile.setLastModified((1 + (resource.getDateLastModified() / 1000)) * 1000);
                             if (controller.getCurrentRequest().isOnline()) {
                                 m_onlineJsps.put(jspVfsName, Boolean.TRUE);
                             } else {
@@ -856,6 +915,7 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         } finally {
             //m_processingFiles.remove(jspVfsName);
             readWriteLock.readLock().unlock();
+            m_fileLocks.release(jspVfsName);
         }
 
         return jspTargetName;
@@ -1524,6 +1584,22 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return cms.readResource(jspName);
     }
 
+    /**
+     * Marks the given JSP as up to date in the repository, 
+     * so it is not checked again until it is changed or the caches are cleared.<p>
+     * 
+     * @param rootPath the root path of the JSP
+     * @param online if the JSP is marked for the online or the offline project
+     */
+    protected void setJspUpToDate(String rootPath, boolean online) {
+
+        if (online) {
+            m_onlineJsps.put(rootPath, Boolean.TRUE);
+        } else {
+            m_offlineJsps.put(rootPath, Boolean.TRUE);
+        }
+    }
+
     /**
      * Delivers the plain uninterpreted resource with escaped XML.<p>
      * 
@@ -1650,23 +1726,6 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return numberOfUpdates < updatedFiles.size();
     }
 
-    /**
-     * Returns the read-write-lock for the given jsp vfs name.<p>
-     * 
-     * @param jspVfsName the jsp vfs name
-     * 
-     * @return the read-write-lock
-     */
-    private ReentrantReadWriteLock getFileLock(String jspVfsName) {
-
-        synchronized (m_fileLocks) {
-            if (!m_fileLocks.containsKey(jspVfsName)) {
-                m_fileLocks.put(jspVfsName, new ReentrantReadWriteLock(true));
-            }
-            return m_fileLocks.get(jspVfsName);
-        }
-    }
-
     /**
      * Returns the RFS path for a JSP resource.<p>
      * 
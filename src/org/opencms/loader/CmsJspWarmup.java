@@ -0,0 +1,639 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.ade.configuration.CmsADEManager;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.flex.CmsFlexController;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
+import org.opencms.relations.CmsRelationType;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.xml.containerpage.I_CmsFormatterBean;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Writes the JSPs used by the online project to the JSP repository in advance, 
+ * so the first requests after a restart do not have to do this.<p>
+ * 
+ * The JSPs to write are the templates configured with the <code>template</code> and 
+ * <code>template-elements</code> properties, the JSPs of the formatters known to the ADE manager, 
+ * and all JSPs they include with a <code>jsp</code> relation.<p>
+ * 
+ * The content dates of the written JSPs are stored in a manifest file in the JSP repository. 
+ * A JSP is only written again if its content date differs from the manifest, if its file in the 
+ * repository is missing or older, or if one of the JSPs it includes with a strong link has changed. 
+ * Unchanged JSPs are marked as up to date in the JSP loader, so they are not checked again on 
+ * the first request.<p>
+ * 
+ * If a servlet context is provided, the servlet container is additionally asked to compile every JSP, 
+ * with an include of the JSP using the standard <code>jsp_precompile</code> parameter.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see CmsJspLoader#startWarmup(CmsObject, ServletContext)
+ */
+public class CmsJspWarmup {
+
+    /**
+     * Invocation handler for the request and response passed to the JSP loader and the servlet container.<p>
+     * 
+     * The request only supports attributes and the query string, all other methods return 
+     * empty or default values.<p>
+     */
+    private static class CmsWarmupInvocationHandler implements InvocationHandler {
+
+        /** The request attributes. */
+        private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+        /** The query string of the request. */
+        private String m_queryString;
+
+        /**
+         * Creates a new invocation handler.<p>
+         * 
+         * @param queryString the query string of the request
+         */
+        protected CmsWarmupInvocationHandler(String queryString) {
+
+            m_queryString = queryString;
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) {
+
+            String name = method.getName();
+            if (name.equals("getAttribute")) {
+                return m_attributes.get(args[0]);
+            } else if (name.equals("setAttribute")) {
+                if (args[1] == null) {
+                    m_attributes.remove(args[0]);
+                } else {
+                    m_attributes.put((String)args[0], args[1]);
+                }
+                return null;
+            } else if (name.equals("removeAttribute")) {
+                m_attributes.remove(args[0]);
+                return null;
+            } else if (name.equals("getAttributeNames")) {
+                return Collections.enumeration(new ArrayList<String>(m_attributes.keySet()));
+            } else if (name.equals("getQueryString")) {
+                return m_queryString;
+            } else if (name.equals("getParameterMap")) {
+                return Collections.emptyMap();
+            } else if (name.equals("getParameterNames")
+                || name.equals("getHeaderNames")
+                || name.equals("getHeaders")
+                || name.equals("getLocales")) {
+                return Collections.enumeration(Collections.emptyList());
+            } else if (name.equals("hashCode")) {
+                return Integer.valueOf(System.identityHashCode(proxy));
+            } else if (name.equals("equals")) {
+                return Boolean.valueOf(proxy == args[0]);
+            } else if (name.equals("toString")) {
+                return getClass().getName() + "[" + m_queryString + "]";
+            }
+            Class<?> type = method.getReturnType();
+            if (type == Boolean.TYPE) {
+                return Boolean.FALSE;
+            } else if (type == Integer.TYPE) {
+                return Integer.valueOf(0);
+            } else if (type == Long.TYPE) {
+                return Long.valueOf(0);
+            }
+            return null;
+        }
+    }
+
+    /** The name of the manifest file in the JSP repository. */
+    public static final String MANIFEST_FILE_NAME = "jsp-warmup.properties";
+
+    /** The query string that makes the servlet container compile a JSP without executing it. */
+    public static final String QUERY_PRECOMPILE = "jsp_precompile=true";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspWarmup.class);
+
+    /** Counter for the names of the worker threads. */
+    private static final AtomicInteger POOL_THREAD_COUNT = new AtomicInteger();
+
+    /** The CmsObject used to read the JSPs. */
+    private CmsObject m_cms;
+
+    /** The number of JSPs compiled by the servlet container. */
+    private AtomicInteger m_compiled = new AtomicInteger();
+
+    /** The servlet context used to compile the JSPs, or <code>null</code> to only write the JSPs. */
+    private ServletContext m_context;
+
+    /** The number of JSPs that could not be written or compiled. */
+    private AtomicInteger m_failed = new AtomicInteger();
+
+    /** The JSP loader. */
+    private CmsJspLoader m_loader;
+
+    /** The number of JSPs that were already up to date. */
+    private int m_skipped;
+
+    /** The number of worker threads. */
+    private int m_threads;
+
+    /** The number of JSPs that have been written to the repository. */
+    private AtomicInteger m_updated = new AtomicInteger();
+
+    /**
+     * Creates a new JSP warm-up.<p>
+     * 
+     * @param loader the JSP loader
+     * @param cms the CmsObject used to read the JSPs, must be able to read all JSPs in the online project
+     * @param threads the number of worker threads
+     * @param context the servlet context used to compile the JSPs, or <code>null</code> to only write the JSPs
+     */
+    public CmsJspWarmup(CmsJspLoader loader, CmsObject cms, int threads, ServletContext context) {
+
+        m_loader = loader;
+        m_cms = cms;
+        m_threads = Math.max(1, threads);
+        m_context = context;
+    }
+
+    /**
+     * Returns the number of JSPs compiled by the servlet container.<p>
+     * 
+     * @return the number of JSPs compiled by the servlet container
+     */
+    public int getCompiledCount() {
+
+        return m_compiled.get();
+    }
+
+    /**
+     * Returns the number of JSPs that could not be written or compiled.<p>
+     * 
+     * @return the number of JSPs that could not be written or compiled
+     */
+    public int getFailedCount() {
+
+        return m_failed.get();
+    }
+
+    /**
+     * Returns the number of JSPs that were already up to date in the repository.<p>
+     * 
+     * @return the number of JSPs that were already up to date
+     */
+    public int getSkippedCount() {
+
+        return m_skipped;
+    }
+
+    /**
+     * Returns the number of JSPs that have been written to the repository.<p>
+     * 
+     * @return the number of JSPs that have been written to the repository
+     */
+    public int getUpdatedCount() {
+
+        return m_updated.get();
+    }
+
+    /**
+     * Runs the warm-up and waits until all JSPs have been processed.<p>
+     * 
+     * @throws CmsException if reading the online project fails
+     */
+    public void run() throws CmsException {
+
+        long startTime = System.currentTimeMillis();
+        final CmsObject cms = OpenCms.initCmsObject(m_cms);
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        cms.getRequestContext().setSiteRoot("");
+
+        Map<String, Set<String>> strongTargets = new HashMap<String, Set<String>>();
+        Map<String, CmsResource> jsps = collectJsps(cms, strongTargets);
+        Properties manifest = readManifest();
+        final Properties newManifest = new Properties();
+
+        // find the JSPs that have changed since the last warm-up
+        Set<String> changed = new HashSet<String>();
+        for (CmsResource jsp : jsps.values()) {
+            String date = String.valueOf(jsp.getDateLastModified());
+            File file = getRepositoryFile(jsp);
+            if (!date.equals(manifest.getProperty(jsp.getRootPath()))
+                || !file.exists()
+                || (file.lastModified() < jsp.getDateLastModified())) {
+                changed.add(jsp.getRootPath());
+            }
+        }
+        // a JSP must also be written again if a JSP included with a strong link has changed
+        boolean propagate = true;
+        while (propagate) {
+            propagate = false;
+            for (Map.Entry<String, Set<String>> entry : strongTargets.entrySet()) {
+                if (!changed.contains(entry.getKey()) && !Collections.disjoint(entry.getValue(), changed)) {
+                    changed.add(entry.getKey());
+                    propagate = true;
+                    // outdate the file in the repository, otherwise the loader would keep it
+                    File file = getRepositoryFile(jsps.get(entry.getKey()));
+                    if (file.exists()) {
+                        file.setLastModified(0);
+                    }
+                }
+            }
+        }
+
+        List<CmsResource> pending = new ArrayList<CmsResource>();
+        for (CmsResource jsp : jsps.values()) {
+            if (changed.contains(jsp.getRootPath())) {
+                pending.add(jsp);
+            } else {
+                m_loader.setJspUpToDate(jsp.getRootPath(), true);
+                newManifest.setProperty(jsp.getRootPath(), String.valueOf(jsp.getDateLastModified()));
+                m_skipped++;
+                if (m_context != null) {
+                    // unchanged JSPs are still compiled, the servlet container may have lost its work files
+                    pending.add(jsp);
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(m_threads, new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: JSP warm-up " + POOL_THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            for (final CmsResource jsp : pending) {
+                final boolean update = changed.contains(jsp.getRootPath());
+                executor.execute(new Runnable() {
+
+                    public void run() {
+
+                        warmup(cms, jsp, update, newManifest);
+                    }
+                });
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, every JSP is processed in a bounded time
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        writeManifest(newManifest);
+
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_JSP_WARMUP_FINISHED_5,
+                new Object[] {
+                    Long.valueOf(System.currentTimeMillis() - startTime),
+                    Integer.valueOf(getUpdatedCount()),
+                    Integer.valueOf(getSkippedCount()),
+                    Integer.valueOf(getCompiledCount()),
+                    Integer.valueOf(getFailedCount())}));
+        }
+    }
+
+    /**
+     * Collects the JSPs to warm up.<p>
+     * 
+     * @param cms the CmsObject for the online project
+     * @param strongTargets the map to store the root paths of the JSPs included with a strong link, by JSP root path
+     * 
+     * @return the JSPs to warm up, by root path
+     */
+    protected Map<String, CmsResource> collectJsps(CmsObject cms, Map<String, Set<String>> strongTargets) {
+
+        Map<String, CmsResource> jsps = new LinkedHashMap<String, CmsResource>();
+        LinkedList<CmsResource> queue = new LinkedList<CmsResource>();
+
+        // the templates
+        Set<String> templates = new HashSet<String>();
+        String[] properties = {
+            CmsPropertyDefinition.PROPERTY_TEMPLATE,
+            CmsPropertyDefinition.PROPERTY_TEMPLATE_ELEMENTS};
+        for (String property : properties) {
+            try {
+                for (CmsResource resource : cms.readResourcesWithProperty("/", property)) {
+                    String value = cms.readPropertyObject(resource, property, false).getValue();
+                    if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(value)) {
+                        templates.add(value.trim());
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+        for (String template : templates) {
+            if (cms.existsResource(template)) {
+                try {
+                    queue.add(cms.readResource(template));
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+
+        // the formatters
+        CmsADEManager adeManager = OpenCms.getADEManager();
+        if (adeManager != null) {
+            for (I_CmsFormatterBean formatter : adeManager.getCachedFormatters(true).getFormatters().values()) {
+                if (formatter.getJspStructureId() == null) {
+                    continue;
+                }
+                try {
+                    queue.add(cms.readResource(formatter.getJspStructureId()));
+                } catch (CmsException e) {
+                    // the formatter JSP may not be published yet
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+
+        // the included JSPs
+        while (!queue.isEmpty()) {
+            CmsResource resource = queue.removeFirst();
+            if (jsps.containsKey(resource.getRootPath()) || !isJsp(resource)) {
+                continue;
+            }
+            jsps.put(resource.getRootPath(), resource);
+            try {
+                for (CmsRelation relation : cms.getRelationsForResource(resource, CmsRelationFilter.TARGETS)) {
+                    boolean strong = relation.getType().equals(CmsRelationType.JSP_STRONG);
+                    if (!strong && !relation.getType().equals(CmsRelationType.JSP_WEAK)) {
+                        continue;
+                    }
+                    CmsResource target = relation.getTarget(cms, CmsResourceFilter.DEFAULT);
+                    if (resource.equals(target)) {
+                        continue;
+                    }
+                    queue.add(target);
+                    if (strong) {
+                        Set<String> targets = strongTargets.get(resource.getRootPath());
+                        if (targets == null) {
+                            targets = new HashSet<String>();
+                            strongTargets.put(resource.getRootPath(), targets);
+                        }
+                        targets.add(target.getRootPath());
+                    }
+                }
+            } catch (CmsException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        return jsps;
+    }
+
+    /**
+     * Reads the manifest of the last warm-up from the JSP repository.<p>
+     * 
+     * @return the content dates of the JSPs written by the last warm-up, by root path
+     */
+    protected Properties readManifest() {
+
+        Properties manifest = new Properties();
+        File file = getManifestFile();
+        if (file.exists()) {
+            FileInputStream in = null;
+            try {
+                in = new FileInputStream(file);
+                manifest.load(in);
+            } catch (IOException e) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_JSP_WARMUP_MANIFEST_READ_FAILED_1,
+                    file.getAbsolutePath()), e);
+                manifest.clear();
+            } finally {
+                closeQuietly(in);
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes the manifest to the JSP repository.<p>
+     * 
+     * @param manifest the content dates of the written JSPs, by root path
+     */
+    protected void writeManifest(Properties manifest) {
+
+        File file = getManifestFile();
+        FileOutputStream out = null;
+        try {
+            file.getParentFile().mkdirs();
+            out = new FileOutputStream(file);
+            manifest.store(out, null);
+        } catch (IOException e) {
+            LOG.warn(
+                Messages.get().getBundle().key(Messages.LOG_JSP_WARMUP_MANIFEST_WRITE_FAILED_1, file.getAbsolutePath()),
+                e);
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Closes the given stream, ignoring errors.<p>
+     * 
+     * @param stream the stream to close, may be <code>null</code>
+     */
+    private void closeQuietly(Closeable stream) {
+
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Creates a request that only supports attributes and the query string.<p>
+     * 
+     * @param queryString the query string of the request
+     * 
+     * @return the request
+     */
+    private HttpServletRequest createRequest(String queryString) {
+
+        return (HttpServletRequest)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {HttpServletRequest.class},
+            new CmsWarmupInvocationHandler(queryString));
+    }
+
+    /**
+     * Creates a response that discards everything.<p>
+     * 
+     * @return the response
+     */
+    private HttpServletResponse createResponse() {
+
+        return (HttpServletResponse)Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] {HttpServletResponse.class},
+            new CmsWarmupInvocationHandler(null));
+    }
+
+    /**
+     * Returns the manifest file.<p>
+     * 
+     * @return the manifest file
+     */
+    private File getManifestFile() {
+
+        return new File(m_loader.getJspRepository(), MANIFEST_FILE_NAME);
+    }
+
+    /**
+     * Returns the file of the given JSP in the online JSP repository.<p>
+     * 
+     * This does not check whether the file actually exists.<p>
+     * 
+     * @param jsp the JSP
+     * 
+     * @return the file of the JSP in the online repository
+     */
+    private File getRepositoryFile(CmsResource jsp) {
+
+        String jspVfsName = jsp.getRootPath();
+        if (!jspVfsName.endsWith(CmsJspLoader.JSP_EXTENSION)) {
+            jspVfsName += CmsJspLoader.JSP_EXTENSION;
+        }
+        return new File(CmsFileUtil.getRepositoryName(m_loader.getJspRepository(), jspVfsName, true));
+    }
+
+    /**
+     * Checks if the given resource is loaded by the JSP loader.<p>
+     * 
+     * @param resource the resource to check
+     * 
+     * @return <code>true</code> if the given resource is a JSP
+     */
+    private boolean isJsp(CmsResource resource) {
+
+        try {
+            int loaderId = OpenCms.getResourceManager().getResourceType(resource.getTypeId()).getLoaderId();
+            return loaderId == CmsJspLoader.RESOURCE_LOADER_ID;
+        } catch (CmsLoaderException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a single JSP to the repository and compiles it if a servlet context is available.<p>
+     * 
+     * @param cms the CmsObject for the online project
+     * @param jsp the JSP
+     * @param update if the JSP has changed and must be written
+     * @param manifest the manifest to add the written JSP to
+     */
+    private void warmup(CmsObject cms, CmsResource jsp, boolean update, Properties manifest) {
+
+        String target;
+        try {
+            CmsFlexController controller = m_loader.getController(
+                OpenCms.initCmsObject(cms),
+                jsp,
+                createRequest(null),
+                createResponse(),
+                false,
+                true);
+            target = m_loader.updateJsp(jsp, controller, new HashSet<String>());
+            if (update) {
+                m_loader.setJspUpToDate(jsp.getRootPath(), true);
+                manifest.setProperty(jsp.getRootPath(), String.valueOf(jsp.getDateLastModified()));
+                m_updated.incrementAndGet();
+            }
+        } catch (Exception e) {
+            m_failed.incrementAndGet();
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_JSP_WARMUP_FAILED_1, jsp.getRootPath()), e);
+            return;
+        }
+        if (m_context == null) {
+            return;
+        }
+        try {
+            RequestDispatcher dispatcher = m_context.getRequestDispatcher(target);
+            if (dispatcher != null) {
+                dispatcher.include(createRequest(QUERY_PRECOMPILE), createResponse());
+                m_compiled.incrementAndGet();
+            }
+        } catch (Exception e) {
+            m_failed.incrementAndGet();
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_JSP_WARMUP_COMPILE_FAILED_1, target), e);
+        }
+    }
+}
@@ -172,6 +172,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JSP_REPOSITORY_ERR_PAGE_COMMOTED_1 = "INIT_JSP_REPOSITORY_ERR_PAGE_COMMOTED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_JSP_WARMUP_2 = "INIT_JSP_WARMUP_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_LOADER_CONFIG_FINISHED_0 = "INIT_LOADER_CONFIG_FINISHED_0";
 
@@ -226,6 +229,24 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_JSP_PERMCHECK_4 = "LOG_JSP_PERMCHECK_4";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_COMPILE_FAILED_1 = "LOG_JSP_WARMUP_COMPILE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_ERROR_0 = "LOG_JSP_WARMUP_ERROR_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_FAILED_1 = "LOG_JSP_WARMUP_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_FINISHED_5 = "LOG_JSP_WARMUP_FINISHED_5";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_MANIFEST_READ_FAILED_1 = "LOG_JSP_WARMUP_MANIFEST_READ_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_JSP_WARMUP_MANIFEST_WRITE_FAILED_1 = "LOG_JSP_WARMUP_MANIFEST_WRITE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NAME_REAL_FS_1 = "LOG_NAME_REAL_FS_1";
 
@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Event manager that delivers events asynchronously to listeners that allow this.<p>
+ * 
+ * Listeners implementing {@link I_CmsAsyncEventListener} decide for each event if it is delivered 
+ * synchronously, or put in a bounded queue of the listener and delivered by a separate thread.
+ * All other listeners receive their events synchronously, exactly like with the default event manager.<p>
+ * 
+ * To use this event manager, configure it in <code>opencms-system.xml</code>:
+ * <pre>
+ * &lt;events&gt;
+ *     &lt;eventmanager class="org.opencms.main.CmsAsyncEventManager" /&gt;
+ * &lt;/events&gt;
+ * </pre>
+ * 
+ * The queue sizes and the time spent in the listeners are available with {@link #getListenerQueues()}.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see org.opencms.main.I_CmsAsyncEventListener
+ * @see org.opencms.main.CmsEventListenerQueue
+ */
+public class CmsAsyncEventManager extends CmsEventManager {
+
+    /** The default maximum number of events waiting in the queue of a listener. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /** The maximum number of events waiting in the queue of a listener. */
+    private int m_queueCapacity;
+
+    /** The event queues of the listeners. */
+    private ConcurrentHashMap<I_CmsEventListener, CmsEventListenerQueue> m_queues;
+
+    /**
+     * Create a new instance of an asynchronous OpenCms event manager.<p>
+     */
+    public CmsAsyncEventManager() {
+
+        this(DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create a new instance of an asynchronous OpenCms event manager.<p>
+     * 
+     * @param queueCapacity the maximum number of events waiting in the queue of a listener
+     */
+    public CmsAsyncEventManager(int queueCapacity) {
+
+        super();
+        m_queueCapacity = queueCapacity;
+        m_queues = new ConcurrentHashMap<I_CmsEventListener, CmsEventListenerQueue>();
+    }
+
+    /**
+     * Returns the event queues of all listeners that have received events so far.<p>
+     * 
+     * @return the event queues of the listeners
+     */
+    public List<CmsEventListenerQueue> getListenerQueues() {
+
+        return new ArrayList<CmsEventListenerQueue>(m_queues.values());
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#removeCmsEventListener(org.opencms.main.I_CmsEventListener)
+     */
+    @Override
+    public void removeCmsEventListener(I_CmsEventListener listener) {
+
+        super.removeCmsEventListener(listener);
+        CmsEventListenerQueue queue = m_queues.remove(listener);
+        if (queue != null) {
+            queue.shutDown();
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#shutDown()
+     */
+    @Override
+    public void shutDown() {
+
+        for (CmsEventListenerQueue queue : m_queues.values()) {
+            queue.shutDown();
+        }
+    }
+
+    /**
+     * @see org.opencms.main.CmsEventManager#fireEventHandler(java.util.List, org.opencms.main.CmsEvent)
+     */
+    @Override
+    protected void fireEventHandler(List<I_CmsEventListener> listeners, CmsEvent event) {
+
+        if ((listeners == null) || (listeners.size() == 0)) {
+            return;
+        }
+        I_CmsEventListener[] list = listeners.toArray(EVENT_LIST);
+        for (int i = 0; i < list.length; i++) {
+            CmsEventListenerQueue queue = getListenerQueue(list[i]);
+            if (list[i] instanceof I_CmsAsyncEventListener) {
+                switch (((I_CmsAsyncEventListener)list[i]).getEventDelivery(event)) {
+                    case ASYNCHRONOUS:
+                        queue.enqueue(event, false);
+                        break;
+                    case COALESCED:
+                        queue.enqueue(event, true);
+                        break;
+                    default:
+                        queue.deliver(event);
+                }
+            } else {
+                queue.deliverDirectly(event);
+            }
+        }
+    }
+
+    /**
+     * Returns the event queue for the given listener, creating it if required.<p>
+     * 
+     * @param listener the listener to get the queue for
+     * 
+     * @return the event queue for the given listener
+     */
+    protected CmsEventListenerQueue getListenerQueue(I_CmsEventListener listener) {
+
+        CmsEventListenerQueue queue = m_queues.get(listener);
+        if (queue == null) {
+            queue = new CmsEventListenerQueue(listener, m_queueCapacity);
+            CmsEventListenerQueue existing = m_queues.putIfAbsent(listener, queue);
+            if (existing != null) {
+                queue = existing;
+            }
+        }
+        return queue;
+    }
+}
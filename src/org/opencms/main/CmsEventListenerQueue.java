@@ -0,0 +1,419 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Delivers the events of the {@link CmsAsyncEventManager} to a single event listener.<p>
+ * 
+ * Asynchronous events are kept in a bounded queue and delivered by a daemon thread that is started
+ * with the first queued event. Synchronous events are delivered by the calling thread, after the 
+ * events still waiting in the queue. If the queue is full, events are delivered synchronously.<p>
+ * 
+ * The queue also collects statistics about the delivered events and the time spent in the listener.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsEventListenerQueue {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsEventListenerQueue.class);
+
+    /** The maximum number of events waiting in the queue. */
+    private final int m_capacity;
+
+    /** The number of events that have been dropped because an equal event was queued. */
+    private final AtomicLong m_coalescedCount;
+
+    /** The number of events delivered to the listener. */
+    private final AtomicLong m_deliveredCount;
+
+    /** The lock held while an event is delivered to the listener. */
+    private final ReentrantLock m_deliveryLock;
+
+    /** The listener the events are delivered to. */
+    private final I_CmsEventListener m_listener;
+
+    /** The total time in nanoseconds spent in the listener. */
+    private final AtomicLong m_listenerTime;
+
+    /** The maximum time in nanoseconds spent in the listener for a single event. */
+    private final AtomicLong m_maxListenerTime;
+
+    /** The maximum number of events that have been waiting in the queue at the same time. */
+    private int m_maxQueueSize;
+
+    /** The queued events. */
+    private final LinkedList<CmsEvent> m_queue;
+
+    /** The number of events that were delivered synchronously because the queue was full. */
+    private final AtomicLong m_rejectedCount;
+
+    /** Indicates if the queue has been shut down. */
+    private boolean m_shutDown;
+
+    /** The thread delivering the queued events, <code>null</code> before the first event is queued. */
+    private Thread m_worker;
+
+    /**
+     * Creates a new event listener queue.<p>
+     * 
+     * @param listener the listener the events are delivered to
+     * @param capacity the maximum number of events waiting in the queue
+     */
+    public CmsEventListenerQueue(I_CmsEventListener listener, int capacity) {
+
+        m_listener = listener;
+        m_capacity = capacity;
+        m_queue = new LinkedList<CmsEvent>();
+        m_deliveryLock = new ReentrantLock();
+        m_coalescedCount = new AtomicLong();
+        m_deliveredCount = new AtomicLong();
+        m_listenerTime = new AtomicLong();
+        m_maxListenerTime = new AtomicLong();
+        m_rejectedCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the number of events that have been dropped because an equal event was still queued.<p>
+     * 
+     * @return the number of coalesced events
+     */
+    public long getCoalescedCount() {
+
+        return m_coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of events delivered to the listener.<p>
+     * 
+     * @return the number of events delivered to the listener
+     */
+    public long getDeliveredCount() {
+
+        return m_deliveredCount.get();
+    }
+
+    /**
+     * Returns the listener the events are delivered to.<p>
+     * 
+     * @return the listener the events are delivered to
+     */
+    public I_CmsEventListener getListener() {
+
+        return m_listener;
+    }
+
+    /**
+     * Returns the total time in milliseconds spent in the listener.<p>
+     * 
+     * @return the total time in milliseconds spent in the listener
+     */
+    public long getListenerTime() {
+
+        return m_listenerTime.get() / 1000000L;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds spent in the listener for a single event.<p>
+     * 
+     * @return the maximum time in milliseconds spent in the listener for a single event
+     */
+    public long getMaxListenerTime() {
+
+        return m_maxListenerTime.get() / 1000000L;
+    }
+
+    /**
+     * Returns the maximum number of events that have been waiting in the queue at the same time.<p>
+     * 
+     * @return the maximum queue size
+     */
+    public int getMaxQueueSize() {
+
+        synchronized (m_queue) {
+            return m_maxQueueSize;
+        }
+    }
+
+    /**
+     * Returns the number of events currently waiting in the queue.<p>
+     * 
+     * @return the number of events currently waiting in the queue
+     */
+    public int getQueueSize() {
+
+        synchronized (m_queue) {
+            return m_queue.size();
+        }
+    }
+
+    /**
+     * Returns the number of events that were delivered synchronously because the queue was full.<p>
+     * 
+     * @return the number of events that were delivered synchronously because the queue was full
+     */
+    public long getRejectedCount() {
+
+        return m_rejectedCount.get();
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer();
+        buf.append("listener: ").append(m_listener.getClass().getName()).append(", ");
+        buf.append("queue size: ").append(getQueueSize()).append(", ");
+        buf.append("max. queue size: ").append(getMaxQueueSize()).append(", ");
+        buf.append("delivered: ").append(getDeliveredCount()).append(", ");
+        buf.append("coalesced: ").append(getCoalescedCount()).append(", ");
+        buf.append("rejected: ").append(getRejectedCount()).append(", ");
+        buf.append("listener time: ").append(getListenerTime()).append(" ms, ");
+        buf.append("max. listener time: ").append(getMaxListenerTime()).append(" ms");
+        return buf.toString();
+    }
+
+    /**
+     * Delivers the given event synchronously, after all events still waiting in the queue.<p>
+     * 
+     * @param event the event to deliver
+     */
+    protected void deliver(CmsEvent event) {
+
+        m_deliveryLock.lock();
+        try {
+            deliverQueued();
+            invokeListener(event);
+        } finally {
+            m_deliveryLock.unlock();
+        }
+    }
+
+    /**
+     * Delivers the given event directly, without ordering it with the queued events 
+     * and without locking.<p>
+     * 
+     * This is used for listeners that are not able to receive asynchronous events.<p>
+     * 
+     * @param event the event to deliver
+     */
+    protected void deliverDirectly(CmsEvent event) {
+
+        invokeListener(event);
+    }
+
+    /**
+     * Queues the given event for asynchronous delivery.<p>
+     * 
+     * If the queue is full or has been shut down, the event is delivered synchronously.<p>
+     * 
+     * @param event the event to queue
+     * @param coalesce if <code>true</code>, the event is dropped if an equal event is already queued
+     */
+    protected void enqueue(CmsEvent event, boolean coalesce) {
+
+        boolean full;
+        synchronized (m_queue) {
+            if (m_shutDown) {
+                full = false;
+            } else if (coalesce && containsEqualEvent(event)) {
+                m_coalescedCount.incrementAndGet();
+                return;
+            } else if (m_queue.size() < m_capacity) {
+                m_queue.add(event);
+                m_maxQueueSize = Math.max(m_maxQueueSize, m_queue.size());
+                if (m_worker == null) {
+                    startWorker();
+                }
+                m_queue.notifyAll();
+                return;
+            } else {
+                full = true;
+            }
+        }
+        if (full) {
+            m_rejectedCount.incrementAndGet();
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_EVENT_QUEUE_FULL_2,
+                    event.toString(),
+                    m_listener.getClass().getName()));
+            }
+        }
+        deliver(event);
+    }
+
+    /**
+     * Shuts down the queue.<p>
+     * 
+     * Events still waiting in the queue are delivered by the thread of the queue before it terminates.
+     * Events fired after the shutdown are delivered synchronously.<p>
+     */
+    protected void shutDown() {
+
+        synchronized (m_queue) {
+            m_shutDown = true;
+            m_queue.notifyAll();
+        }
+    }
+
+    /**
+     * Checks if an event equal to the given event is waiting in the queue.<p>
+     * 
+     * Must be called while holding the lock of the queue.<p>
+     * 
+     * @param event the event to check
+     * 
+     * @return <code>true</code> if an equal event is waiting in the queue
+     */
+    private boolean containsEqualEvent(CmsEvent event) {
+
+        Iterator<CmsEvent> it = m_queue.iterator();
+        while (it.hasNext()) {
+            CmsEvent queued = it.next();
+            if ((queued.getType() == event.getType())
+                && ((queued.getData() == null) ? event.getData() == null : queued.getData().equals(event.getData()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delivers all events waiting in the queue.<p>
+     * 
+     * Must be called while holding the delivery lock.<p>
+     */
+    private void deliverQueued() {
+
+        CmsEvent event = poll();
+        while (event != null) {
+            invokeListener(event);
+            event = poll();
+        }
+    }
+
+    /**
+     * Invokes the listener for the given event and records the statistics.<p>
+     * 
+     * @param event the event to deliver
+     */
+    private void invokeListener(CmsEvent event) {
+
+        long start = System.nanoTime();
+        try {
+            m_listener.cmsEvent(event);
+        } finally {
+            long time = System.nanoTime() - start;
+            m_deliveredCount.incrementAndGet();
+            m_listenerTime.addAndGet(time);
+            long max = m_maxListenerTime.get();
+            while ((time > max) && !m_maxListenerTime.compareAndSet(max, time)) {
+                max = m_maxListenerTime.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the next event from the queue.<p>
+     * 
+     * @return the next event, or <code>null</code> if the queue is empty
+     */
+    private CmsEvent poll() {
+
+        synchronized (m_queue) {
+            return m_queue.poll();
+        }
+    }
+
+    /**
+     * Starts the thread that delivers the queued events.<p>
+     * 
+     * Must be called while holding the lock of the queue.<p>
+     */
+    private void startWorker() {
+
+        m_worker = new Thread("OpenCms: Event listener queue for " + m_listener.getClass().getName()) {
+
+            /**
+             * @see java.lang.Thread#run()
+             */
+            @Override
+            public void run() {
+
+                while (waitForEvents()) {
+                    m_deliveryLock.lock();
+                    try {
+                        deliverQueued();
+                    } catch (Throwable t) {
+                        LOG.error(
+                            Messages.get().getBundle().key(
+                                Messages.LOG_EVENT_LISTENER_FAILED_1,
+                                m_listener.getClass().getName()),
+                            t);
+                    } finally {
+                        m_deliveryLock.unlock();
+                    }
+                }
+            }
+        };
+        m_worker.setDaemon(true);
+        m_worker.start();
+    }
+
+    /**
+     * Waits until events are queued or the queue is shut down.<p>
+     * 
+     * @return <code>true</code> if there are events to deliver, <code>false</code> if the queue has been shut down 
+     */
+    private boolean waitForEvents() {
+
+        synchronized (m_queue) {
+            while (m_queue.isEmpty()) {
+                if (m_shutDown) {
+                    return false;
+                }
+                try {
+                    m_queue.wait();
+                } catch (InterruptedException e) {
+                    // continue waiting until the queue is shut down
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -155,6 +155,16 @@ public class CmsEventManager {
         }
     }
 
+    /**
+     * Shuts down this event manager.<p>
+     * 
+     * The default event manager delivers all events synchronously, so there is nothing to do here.<p>
+     */
+    public void shutDown() {
+
+        // nothing to do here
+    }
+
     /**
      * Returns the map of all configured event listeners.<p>
      * 
@@ -0,0 +1,74 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+/**
+ * Event listener that allows events to be delivered asynchronously.<p>
+ * 
+ * In case the {@link CmsAsyncEventManager} is configured, events that a listener implementing this interface 
+ * declares as asynchronous are put in a bounded queue of the listener and delivered by a separate thread,
+ * so that the thread firing the event does not have to wait for the listener. The events of a listener
+ * are always delivered in the order they have been fired, and a listener is never called by more than
+ * one thread at the same time.<p>
+ * 
+ * With the default {@link CmsEventManager}, all events are delivered synchronously.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see CmsAsyncEventManager
+ */
+public interface I_CmsAsyncEventListener extends I_CmsEventListener {
+
+    /**
+     * The possible ways to deliver an event to a listener.<p>
+     */
+    enum Delivery {
+
+        /** The event is queued and delivered by the thread of the listener. */
+        ASYNCHRONOUS,
+
+        /** Like {@link #ASYNCHRONOUS}, but the event is dropped if an equal event is still waiting in the queue. */
+        COALESCED,
+
+        /** The event is delivered by the thread that fires it, after all queued events have been delivered. */
+        SYNCHRONOUS
+    }
+
+    /**
+     * Returns how the given event is delivered to this listener.<p>
+     * 
+     * Events are only coalesced with events of the same type and equal event data.
+     * This is intended for "flush" events, where delivering the event once has the same effect as
+     * delivering it several times.<p>
+     * 
+     * @param event the event to deliver
+     * 
+     * @return how the event is delivered to this listener
+     */
+    Delivery getEventDelivery(CmsEvent event);
+}
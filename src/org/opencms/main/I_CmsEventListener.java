@@ -255,6 +255,22 @@ public interface I_CmsEventListener {
      */
     int EVENT_REBUILD_SEARCHINDEXES = 32;
 
+    /**
+     * Event "a project was published by another server of the cluster".<p>
+     *
+     * This event is fired by the {@link org.opencms.publish.CmsClusterCacheInvalidator}
+     * so that the online caches of this server can remove the published resources.<p>
+     *
+     * Event data:
+     * <ul>
+     * <li><code>{@link #KEY_PUBLISHID}</code>: the ID of the publish task in the publish history</li>
+     * <li><code>{@link #KEY_RESOURCES}</code>: the list of <code>{@link org.opencms.db.CmsPublishedResource}</code> objects</li>
+     * </ul>
+     *
+     * @see #EVENT_PUBLISH_PROJECT
+     */
+    int EVENT_REMOTE_PUBLISH_PROJECT = 34;
+
     /** 
      * Event "all properties (and so the resource itself, too) have been modified".<p>
      * 
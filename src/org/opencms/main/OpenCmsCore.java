@@ -66,6 +66,7 @@ import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.i18n.CmsVfsBundleManager;
 import org.opencms.importexport.CmsImportExportManager;
 import org.opencms.jsp.util.CmsErrorBean;
+import org.opencms.loader.CmsJspLoader;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.loader.CmsTemplateContextManager;
 import org.opencms.loader.I_CmsFlexCacheEnabledLoader;
@@ -1762,6 +1763,9 @@ public final class OpenCmsCore {
                 try {
                     // the first thing we have to do is to wait until the current publish process finishes
                     m_publishEngine.shutDown();
+                    if (m_publishManager != null) {
+                        m_publishManager.shutDown();
+                    }
                 } catch (Throwable e) {
                     CmsLog.INIT.error(
                         Messages.get().getBundle().key(Messages.LOG_ERROR_PUBLISH_SHUTDOWN_1, e.getMessage()),
@@ -1871,6 +1875,15 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_SESSION_MANAGER_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     if (m_memoryMonitor != null) {
                         m_memoryMonitor.shutdown();
@@ -2016,6 +2029,8 @@ public final class OpenCmsCore {
             setRunLevel(OpenCms.RUNLEVEL_4_SERVLET_ACCESS);
 
             afterUpgradeRunlevel();
+            // write the JSPs to the repository in the background, if configured
+            startJspWarmup(context);
 
             return m_instance;
         }
@@ -2736,4 +2751,22 @@ public final class OpenCmsCore {
         }
     }
 
+    /**
+     * Starts the warm-up of the JSP loader, if it is enabled.<p>
+     *
+     * @param context the current servlet context
+     */
+    private void startJspWarmup(ServletContext context) {
+
+        I_CmsResourceLoader loader = m_resourceManager.getLoader(CmsJspLoader.RESOURCE_LOADER_ID);
+        if (loader instanceof CmsJspLoader) {
+            try {
+                CmsObject adminCms = initCmsObject(new CmsContextInfo(getDefaultUsers().getUserAdmin()));
+                ((CmsJspLoader)loader).startWarmup(adminCms, context);
+            } catch (CmsException e) {
+                CmsLog.INIT.error(e.getLocalizedMessage(), e);
+            }
+        }
+    }
+
 }
@@ -0,0 +1,172 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Secondary index of a cache, mapping dependencies to the keys of the cache entries depending on them.<p>
+ * 
+ * A dependency is an arbitrary String, e.g. a prefixed root path or structure id. The dependencies are 
+ * kept sorted, so all dependencies starting with a given prefix can be removed at once, e.g. the root 
+ * paths of all resources below a folder.<p>
+ * 
+ * The keys of entries dropped by the cache because of its size limit stay registered until one of their 
+ * dependencies is removed, so the number of registrations is limited. Once the limit has been exceeded,
+ * the index can not keep track of the cache any longer and has to be cleared together with the cache.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsCacheDependencyIndex {
+
+    /** The cache keys by dependency. */
+    private ConcurrentSkipListMap<String, Set<String>> m_dependents;
+
+    /** The maximum number of registrations. */
+    private int m_maxSize;
+
+    /** The current number of registrations. */
+    private AtomicInteger m_size;
+
+    /**
+     * Creates a new, empty dependency index.<p>
+     * 
+     * @param maxSize the maximum number of registrations
+     */
+    public CmsCacheDependencyIndex(int maxSize) {
+
+        m_dependents = new ConcurrentSkipListMap<String, Set<String>>();
+        m_maxSize = maxSize;
+        m_size = new AtomicInteger();
+    }
+
+    /**
+     * Registers the given cache key for the given dependencies.<p>
+     * 
+     * @param key the cache key
+     * @param dependencies the dependencies of the cache entry
+     * 
+     * @return <code>false</code> if the maximum number of registrations has been exceeded
+     */
+    public boolean add(String key, Collection<String> dependencies) {
+
+        for (String dependency : dependencies) {
+            boolean registered = false;
+            while (!registered) {
+                Set<String> keys = m_dependents.get(dependency);
+                if (keys == null) {
+                    Set<String> newKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                    keys = m_dependents.putIfAbsent(dependency, newKeys);
+                    if (keys == null) {
+                        keys = newKeys;
+                    }
+                }
+                if (keys.add(key)) {
+                    m_size.incrementAndGet();
+                }
+                // the key set may have been removed concurrently, in this case register again
+                registered = m_dependents.get(dependency) == keys;
+            }
+        }
+        return m_size.get() <= m_maxSize;
+    }
+
+    /**
+     * Removes all registrations.<p>
+     */
+    public void clear() {
+
+        m_dependents.clear();
+        m_size.set(0);
+    }
+
+    /**
+     * Returns the maximum number of registrations.<p>
+     * 
+     * @return the maximum number of registrations
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Removes the given dependency and returns the keys registered for it.<p>
+     * 
+     * @param dependency the dependency
+     * 
+     * @return the keys registered for the dependency, empty if none
+     */
+    public Set<String> remove(String dependency) {
+
+        Set<String> keys = m_dependents.remove(dependency);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<String>(keys);
+        m_size.addAndGet(-result.size());
+        return result;
+    }
+
+    /**
+     * Removes all dependencies starting with the given prefix and returns the keys registered for them.<p>
+     * 
+     * @param prefix the prefix of the dependencies
+     * 
+     * @return the keys registered for the dependencies, empty if none
+     */
+    public Set<String> removePrefix(String prefix) {
+
+        List<String> dependencies = new ArrayList<String>(m_dependents.subMap(
+            prefix,
+            prefix + Character.MAX_VALUE).keySet());
+        Set<String> result = new HashSet<String>();
+        for (String dependency : dependencies) {
+            result.addAll(remove(dependency));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the current number of registrations.<p>
+     * 
+     * @return the current number of registrations
+     */
+    public int size() {
+
+        return m_size.get();
+    }
+}
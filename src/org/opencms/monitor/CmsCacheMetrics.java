@@ -0,0 +1,163 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the usage metrics of a single cache of the memory monitor.<p>
+ * 
+ * Evictions are the entries removed from a cache because they have been invalidated, 
+ * either selectively or by flushing the complete cache. Entries dropped because the cache 
+ * reached its size limit are not counted.<p>
+ * 
+ * All counters are updated without locking, so the values read while the cache is in use
+ * are not necessarily consistent with each other.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsCacheMetrics {
+
+    /** The number of evicted entries. */
+    private AtomicLong m_evictions;
+
+    /** The number of cache hits. */
+    private AtomicLong m_hits;
+
+    /** The number of cache misses. */
+    private AtomicLong m_misses;
+
+    /**
+     * Creates new, empty cache metrics.<p>
+     */
+    public CmsCacheMetrics() {
+
+        m_evictions = new AtomicLong();
+        m_hits = new AtomicLong();
+        m_misses = new AtomicLong();
+    }
+
+    /**
+     * Records the given number of evicted entries.<p>
+     * 
+     * @param count the number of evicted entries
+     */
+    public void addEvictions(long count) {
+
+        if (count > 0) {
+            m_evictions.addAndGet(count);
+        }
+    }
+
+    /**
+     * Records a cache hit.<p>
+     */
+    public void addHit() {
+
+        m_hits.incrementAndGet();
+    }
+
+    /**
+     * Records a cache miss.<p>
+     */
+    public void addMiss() {
+
+        m_misses.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of evicted entries.<p>
+     * 
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() {
+
+        return m_evictions.get();
+    }
+
+    /**
+     * Returns the number of cache hits.<p>
+     * 
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the ratio of cache hits to all cache lookups.<p>
+     * 
+     * @return the hit ratio, or 0 if the cache has not been used yet
+     */
+    public double getHitRatio() {
+
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        if (lookups == 0) {
+            return 0;
+        }
+        return (double)hits / lookups;
+    }
+
+    /**
+     * Returns the number of cache misses.<p>
+     * 
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Checks if the cache has been used at all.<p>
+     * 
+     * @return <code>true</code> if there has been a lookup or an eviction
+     */
+    public boolean isUsed() {
+
+        return (getHitCount() + getMissCount() + getEvictionCount()) > 0;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "hits: "
+            + getHitCount()
+            + " misses: "
+            + getMissCount()
+            + " hit ratio: "
+            + Math.round(getHitRatio() * 100)
+            + "% evictions: "
+            + getEvictionCount();
+    }
+}
@@ -29,9 +29,13 @@ package org.opencms.monitor;
 
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.CmsMemoryObjectCache;
+import org.opencms.cache.CmsTinyLfuMap;
 import org.opencms.cache.CmsVfsMemoryObjectCache;
+import org.opencms.cache.CmsWeightedLruMap;
+import org.opencms.cache.I_CmsCacheWeigher;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
+import org.opencms.db.CmsConnectionPoolMetrics;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsSecurityManager;
@@ -75,11 +79,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import javax.mail.internet.InternetAddress;
 
@@ -151,6 +158,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         XML_ENTITY_TEMP;
     }
 
+    /** The average number of dependencies per cache entry a dependency index can keep track of. */
+    private static final int DEPENDENCIES_PER_ENTRY = 50;
+
+    /** Dependency of cache entries that depend on any resource. */
+    private static final String DEPENDENCY_ALL = "*";
+
+    /** Prefix for the dependency of cache entries on the children of a folder. */
+    private static final String DEPENDENCY_CHILDREN = "C:";
+
+    /** Prefix for the dependency of cache entries on a structure or resource id. */
+    private static final String DEPENDENCY_ID = "I:";
+
+    /** Prefix for the dependency of cache entries on a root path. */
+    private static final String DEPENDENCY_PATH = "P:";
+
+    /** Prefix for the dependency of cache entries on all resources below a folder. */
+    private static final String DEPENDENCY_TREE = "T:";
+
     /** Set interval for clearing the caches to 10 minutes. */
     private static final int INTERVAL_CLEAR = 1000 * 60 * 10;
 
@@ -184,6 +209,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The memory object cache map. */
     private Map<String, Object> m_cacheMemObject;
 
+    /** The usage metrics of the caches. */
+    private Map<CacheType, CmsCacheMetrics> m_cacheMetrics;
+
     /** Cache for organizational units. */
     private Map<String, CmsOrganizationalUnit> m_cacheOrgUnit;
 
@@ -235,6 +263,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The memory monitor configuration. */
     private CmsMemoryMonitorConfiguration m_configuration;
 
+    /** The dependency indexes of the caches invalidated selectively on resource changes. */
+    private Map<CacheType, CmsCacheDependencyIndex> m_dependencyIndexes;
+
     /** Map to keep track of disabled caches. */
     private Map<CacheType, Boolean> m_disabled = new HashMap<CacheType, Boolean>();
 
@@ -289,23 +320,32 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Flag for memory warning mail send. */
     private boolean m_warningSendSinceLastStatus;
 
+    /** The weigher estimating the memory size of cache entries and monitored objects. */
+    private CmsSampledCacheWeigher m_weigher;
+
     /**
      * Empty constructor, required by OpenCms scheduler.<p>
      */
     public CmsMemoryMonitor() {
 
         m_monitoredObjects = new HashMap<String, Object>();
+        m_cacheMetrics = new EnumMap<CacheType, CmsCacheMetrics>(CacheType.class);
+        for (CacheType type : CacheType.values()) {
+            m_cacheMetrics.put(type, new CmsCacheMetrics());
+        }
+        m_dependencyIndexes = new EnumMap<CacheType, CmsCacheDependencyIndex>(CacheType.class);
+        m_weigher = new CmsSampledCacheWeigher();
     }
 
     /**
-     * Returns the size of objects that are instances of
-     * <code>byte[]</code>, <code>String</code>, <code>CmsFile</code>,<code>I_CmsLruCacheObject</code>.<p>
-     * For other objects, a size of 0 is returned.
+     * Returns the estimated size of objects of the types known to the memory monitor, 
+     * e.g. <code>byte[]</code>, <code>String</code>, <code>CmsFile</code> or <code>I_CmsMemoryMonitorable</code>.<p>
      * 
      * @param obj the object
-     * @return the size of the object 
+     * 
+     * @return the estimated size of the object, or -1 if the type of the object is not known
      */
-    public static int getMemorySize(Object obj) {
+    public static int getKnownMemorySize(Object obj) {
 
         if (obj instanceof I_CmsMemoryMonitorable) {
             return ((I_CmsMemoryMonitorable)obj).getMemorySize();
@@ -393,7 +433,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return size;
         }
 
-        return 8;
+        return -1;
+    }
+
+    /**
+     * Returns the size of objects that are instances of
+     * <code>byte[]</code>, <code>String</code>, <code>CmsFile</code>,<code>I_CmsLruCacheObject</code>.<p>
+     * For other objects, a size of 8 is returned.
+     * 
+     * @param obj the object
+     * @return the size of the object 
+     */
+    public static int getMemorySize(Object obj) {
+
+        int size = getKnownMemorySize(obj);
+        return (size < 0) ? 8 : size;
     }
 
     /**
@@ -525,15 +579,36 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Caches the given acl under the given cache key.<p>
      * 
+     * Since it is not known which resource the acl has been read for,
+     * the cached acl is invalidated on every change of access control entries.<p>
+     * 
      * @param key the cache key
      * @param acl the acl to cache
+     * 
+     * @see #cacheACL(String, CmsAccessControlList, CmsResource)
      */
     public void cacheACL(String key, CmsAccessControlList acl) {
 
+        cacheACL(key, acl, null);
+    }
+
+    /**
+     * Caches the given acl of the given resource under the given cache key.<p>
+     * 
+     * The cached acl is invalidated if the access control entries of the resource or of one of its 
+     * parent folders are changed, see {@link #clearAccessControlListCache(CmsResource)}.<p>
+     * 
+     * @param key the cache key
+     * @param acl the acl to cache
+     * @param resource the resource the acl has been read for, or <code>null</code> if unknown
+     */
+    public void cacheACL(String key, CmsAccessControlList acl, CmsResource resource) {
+
         if (m_disabled.get(CacheType.ACL) != null) {
             return;
         }
         m_cacheAccessControlList.put(key, acl);
+        registerDependencies(CacheType.ACL, key, getAccessControlDependencies(resource));
     }
 
     /**
@@ -627,15 +702,39 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Caches the given permission check result under the given cache key.<p>
      * 
+     * Since it is not known which resource has been checked,
+     * the cached result is invalidated on every change of access control entries.<p>
+     * 
      * @param key the cache key
      * @param permission the permission check result to cache
+     * 
+     * @see #cachePermission(String, I_CmsPermissionHandler.CmsPermissionCheckResult, CmsResource)
      */
     public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
 
+        cachePermission(key, permission, null);
+    }
+
+    /**
+     * Caches the given permission check result for the given resource under the given cache key.<p>
+     * 
+     * The cached result is invalidated if the access control entries of the resource or of one of its 
+     * parent folders are changed, see {@link #clearAccessControlListCache(CmsResource)}.<p>
+     * 
+     * @param key the cache key
+     * @param permission the permission check result to cache
+     * @param resource the checked resource, or <code>null</code> if unknown
+     */
+    public void cachePermission(
+        String key,
+        I_CmsPermissionHandler.CmsPermissionCheckResult permission,
+        CmsResource resource) {
+
         if (m_disabled.get(CacheType.PERMISSION) != null) {
             return;
         }
         m_cachePermission.put(key, permission);
+        registerDependencies(CacheType.PERMISSION, key, getAccessControlDependencies(resource));
     }
 
     /**
@@ -683,15 +782,44 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Caches the given property list under the given cache key.<p>
      * 
+     * Since it is not known which resource the properties have been read for,
+     * the cached list is invalidated on every property change.<p>
+     * 
      * @param key the cache key
      * @param propertyList the property list to cache
+     * 
+     * @see #cachePropertyList(String, List, CmsResource)
      */
     public void cachePropertyList(String key, List<CmsProperty> propertyList) {
 
+        cachePropertyList(key, propertyList, null);
+    }
+
+    /**
+     * Caches the given property list of the given resource under the given cache key.<p>
+     * 
+     * The cached list is invalidated if the properties of the resource or one of its siblings are changed, 
+     * or if the properties of one of its parent folders are changed, since the list may contain inherited 
+     * properties, see {@link #clearPropertyCache(CmsResource)}.<p>
+     * 
+     * @param key the cache key
+     * @param propertyList the property list to cache
+     * @param resource the resource the properties have been read for, or <code>null</code> if unknown
+     */
+    public void cachePropertyList(String key, List<CmsProperty> propertyList, CmsResource resource) {
+
         if (m_disabled.get(CacheType.PROPERTY_LIST) != null) {
             return;
         }
         m_cachePropertyList.put(key, propertyList);
+        Set<String> dependencies = new HashSet<String>();
+        if (resource == null) {
+            dependencies.add(DEPENDENCY_ALL);
+        } else {
+            dependencies.add(DEPENDENCY_PATH + resource.getRootPath());
+            dependencies.add(DEPENDENCY_ID + resource.getResourceId());
+        }
+        registerDependencies(CacheType.PROPERTY_LIST, key, dependencies);
     }
 
     /**
@@ -739,6 +867,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Caches the given resource under the given cache key.<p>
      * 
+     * The cached resource is invalidated if the resource is changed, 
+     * see {@link #clearResourceCache(CmsResource, boolean)}.<p>
+     * 
      * @param key the cache key
      * @param resource the resource to cache
      */
@@ -748,20 +879,63 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             return;
         }
         m_cacheResource.put(key, resource);
+        Set<String> dependencies = new HashSet<String>();
+        if (resource != null) {
+            addDependencies(dependencies, resource);
+        } else {
+            dependencies.add(DEPENDENCY_ALL);
+        }
+        registerDependencies(CacheType.RESOURCE, key, dependencies);
     }
 
     /**
      * Caches the given resource list under the given cache key.<p>
      * 
+     * Since it is not known where the resources have been read from,
+     * the cached list is invalidated on every resource change.<p>
+     * 
      * @param key the cache key
      * @param resourceList the resource list to cache
+     * 
+     * @see #cacheResourceList(String, List, String, boolean)
      */
     public void cacheResourceList(String key, List<CmsResource> resourceList) {
 
+        cacheResourceList(key, resourceList, null, false);
+    }
+
+    /**
+     * Caches the given resource list read from the given folder under the given cache key.<p>
+     * 
+     * The cached list is invalidated if one of the listed resources is changed, or if a resource is changed 
+     * that is a direct child of the folder, or that is located anywhere below the folder if the list 
+     * has been read from the whole subtree.<p>
+     * 
+     * @param key the cache key
+     * @param resourceList the resource list to cache
+     * @param parentFolder the root path of the folder the resources have been read from, 
+     *      or <code>null</code> if unknown
+     * @param readTree <code>true</code> if the resources have been read from the whole subtree of the folder
+     */
+    public void cacheResourceList(String key, List<CmsResource> resourceList, String parentFolder, boolean readTree) {
+
         if (m_disabled.get(CacheType.RESOURCE_LIST) != null) {
             return;
         }
         m_cacheResourceList.put(key, resourceList);
+        Set<String> dependencies = new HashSet<String>();
+        if (parentFolder == null) {
+            dependencies.add(DEPENDENCY_ALL);
+        } else {
+            dependencies.add((readTree ? DEPENDENCY_TREE : DEPENDENCY_CHILDREN) + parentFolder);
+        }
+        if (resourceList != null) {
+            for (CmsResource resource : resourceList) {
+                dependencies.add(DEPENDENCY_ID + resource.getStructureId());
+                dependencies.add(DEPENDENCY_ID + resource.getResourceId());
+            }
+        }
+        registerDependencies(CacheType.RESOURCE_LIST, key, dependencies);
     }
 
     /**
@@ -778,6 +952,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheHasRoles.put(key, Boolean.valueOf(hasRole));
     }
 
+    /**
+     * Caches the given value for a resource under the given cache key.<p>
+     * 
+     * The cached value is invalidated if the resource, or one of its parent folders, is moved or deleted.<p>
+     * 
+     * @param key the cache key
+     * @param hasRole if the user has the given role
+     * @param rootPath the root path of the resource the role has been checked for
+     */
+    public void cacheRole(String key, boolean hasRole, String rootPath) {
+
+        if (m_disabled.get(CacheType.HAS_ROLE) != null) {
+            return;
+        }
+        m_cacheHasRoles.put(key, Boolean.valueOf(hasRole));
+        registerDependencies(CacheType.HAS_ROLE, key, Collections.singleton(DEPENDENCY_PATH + rootPath));
+    }
+
     /**
      * Caches the given value under the given cache key.<p>
      * 
@@ -792,6 +984,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_cacheRoleLists.put(key, roles);
     }
 
+    /**
+     * Caches the given roles for a resource under the given cache key.<p>
+     * 
+     * The cached roles are invalidated if the resource, or one of its parent folders, is moved or deleted.<p>
+     * 
+     * @param key the cache key
+     * @param roles the roles of the user
+     * @param rootPath the root path of the resource the roles have been read for
+     */
+    public void cacheRoleList(String key, List<CmsRole> roles, String rootPath) {
+
+        if (m_disabled.get(CacheType.ROLE_LIST) != null) {
+            return;
+        }
+        m_cacheRoleLists.put(key, roles);
+        registerDependencies(CacheType.ROLE_LIST, key, Collections.singleton(DEPENDENCY_PATH + rootPath));
+    }
+
     /**
      * Caches the given user under its id AND the fully qualified name.<p>
      * 
@@ -886,6 +1096,43 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         clearResourceCache();
     }
 
+    /**
+     * Clears the cache entries depending on the access control entries of the given resource.<p>
+     * 
+     * This removes the cached acls and permission check results of the resource, and if the resource 
+     * is a folder, of all resources below the folder, since they inherit the access control entries. 
+     * The resources and resource lists depending on the resource are also removed, since they may 
+     * have been filtered by permissions. Entries for other parts of the tree are not affected.<p>
+     * 
+     * If the resource has siblings, which share the access control entries, 
+     * all acl related caches are cleared, see {@link #clearAccessControlListCache()}.<p>
+     * 
+     * @param resource the resource whose access control entries have been changed
+     */
+    public void clearAccessControlListCache(CmsResource resource) {
+
+        if (resource.getSiblingCount() > 1) {
+            clearAccessControlListCache();
+            return;
+        }
+        Set<String> dependencies = new HashSet<String>();
+        addDependencies(dependencies, resource);
+        String folder = null;
+        if (resource.isFolder()) {
+            folder = resource.getRootPath();
+        }
+        int count = uncacheDependents(CacheType.ACL, m_cacheAccessControlList, dependencies, folder);
+        count += uncacheDependents(CacheType.PERMISSION, m_cachePermission, dependencies, folder);
+        count += uncacheDependents(CacheType.RESOURCE, m_cacheResource, dependencies, folder);
+        count += uncacheDependents(CacheType.RESOURCE_LIST, m_cacheResourceList, dependencies, folder);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_MM_UNCACHED_ACL_DEPENDENCIES_2,
+                resource.getRootPath(),
+                Integer.valueOf(count)));
+        }
+    }
+
     /**
      * Clears almost all internal caches.<p>
      */
@@ -929,6 +1176,76 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushCache(CacheType.ROLE_LIST);
     }
 
+    /**
+     * Clears the cached property lists depending on the properties of the given resource.<p>
+     * 
+     * This removes the property lists of the resource and its siblings, which share the resource values, 
+     * and if the resource is a folder, the property lists of all resources below the folder, since they 
+     * may contain inherited properties. Property lists for other parts of the tree are not affected.<p>
+     * 
+     * The cache of single properties is flushed completely.<p>
+     * 
+     * @param resource the resource whose properties have been changed
+     */
+    public void clearPropertyCache(CmsResource resource) {
+
+        Set<String> dependencies = new HashSet<String>();
+        addDependencies(dependencies, resource);
+        String folder = null;
+        if (resource.isFolder()) {
+            folder = resource.getRootPath();
+        }
+        flushCache(CacheType.PROPERTY);
+        int count = uncacheDependents(CacheType.PROPERTY_LIST, m_cachePropertyList, dependencies, folder);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_MM_UNCACHED_PROPERTY_DEPENDENCIES_2,
+                resource.getRootPath(),
+                Integer.valueOf(count)));
+        }
+    }
+
+    /**
+     * Clears the cache entries depending on the given changed resource.<p>
+     * 
+     * This removes the cached resources and resource lists that contain the resource or a sibling, and 
+     * the resource lists read from the parent folders of the resource. The cached roles are not affected 
+     * by changes of the resource itself, but only if its path changes, i.e. if it is moved or deleted, 
+     * which also changes the paths of all sub resources of a folder.<p>
+     * 
+     * If the resource has siblings, all resource lists are cleared, since the siblings may also 
+     * be part of lists read from other folders now.<p>
+     * 
+     * @param resource the changed resource
+     * @param includeSubResources <code>true</code> if the path of the resource has changed, 
+     *      so that the entries depending on sub resources of a folder have to be removed, too
+     */
+    public void clearResourceCache(CmsResource resource, boolean includeSubResources) {
+
+        if (resource.getSiblingCount() > 1) {
+            clearResourceCache();
+            return;
+        }
+        Set<String> dependencies = new HashSet<String>();
+        addDependencies(dependencies, resource);
+        String folder = null;
+        if (includeSubResources && resource.isFolder()) {
+            folder = resource.getRootPath();
+        }
+        int count = uncacheDependents(CacheType.RESOURCE, m_cacheResource, dependencies, folder);
+        count += uncacheDependents(CacheType.RESOURCE_LIST, m_cacheResourceList, dependencies, folder);
+        if (includeSubResources) {
+            count += uncacheDependents(CacheType.HAS_ROLE, m_cacheHasRoles, dependencies, folder);
+            count += uncacheDependents(CacheType.ROLE_LIST, m_cacheRoleLists, dependencies, folder);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_MM_UNCACHED_RESOURCE_DEPENDENCIES_2,
+                resource.getRootPath(),
+                Integer.valueOf(count)));
+        }
+    }
+
     /**
      * Clears the user cache for the given user.<p>
      * 
@@ -996,46 +1313,46 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         for (CacheType type : types) {
             switch (type) {
                 case ACL:
-                    m_cacheAccessControlList.clear();
+                    flushMap(CacheType.ACL, m_cacheAccessControlList);
                     break;
                 case CONTENT_DEFINITION:
-                    m_cacheContentDefinitions.clear();
+                    flushMap(CacheType.CONTENT_DEFINITION, m_cacheContentDefinitions);
                     break;
                 case GROUP:
-                    m_cacheGroup.clear();
+                    flushMap(CacheType.GROUP, m_cacheGroup);
                     break;
                 case HAS_ROLE:
-                    m_cacheHasRoles.clear();
+                    flushMap(CacheType.HAS_ROLE, m_cacheHasRoles);
                     break;
                 case LOCALE:
-                    m_cacheLocale.clear();
+                    flushMap(CacheType.LOCALE, m_cacheLocale);
                     break;
                 case LOCK:
-                    m_cacheLock.clear();
+                    flushMap(CacheType.LOCK, m_cacheLock);
                     break;
                 case MEMORY_OBJECT:
-                    m_cacheMemObject.clear();
+                    flushMap(CacheType.MEMORY_OBJECT, m_cacheMemObject);
                     break;
                 case ORG_UNIT:
-                    m_cacheOrgUnit.clear();
+                    flushMap(CacheType.ORG_UNIT, m_cacheOrgUnit);
                     break;
                 case PERMISSION:
-                    m_cachePermission.clear();
+                    flushMap(CacheType.PERMISSION, m_cachePermission);
                     break;
                 case PROJECT:
-                    m_cacheProject.clear();
+                    flushMap(CacheType.PROJECT, m_cacheProject);
                     break;
                 case PROJECT_RESOURCES:
-                    m_cacheProjectResources.clear();
+                    flushMap(CacheType.PROJECT_RESOURCES, m_cacheProjectResources);
                     break;
                 case PROPERTY:
-                    m_cacheProperty.clear();
+                    flushMap(CacheType.PROPERTY, m_cacheProperty);
                     break;
                 case PROPERTY_LIST:
-                    m_cachePropertyList.clear();
+                    flushMap(CacheType.PROPERTY_LIST, m_cachePropertyList);
                     break;
                 case PUBLISHED_RESOURCES:
-                    m_cachePublishedResources.clear();
+                    flushMap(CacheType.PUBLISHED_RESOURCES, m_cachePublishedResources);
                     break;
                 case PUBLISH_HISTORY:
                     m_publishHistory.clear();
@@ -1044,31 +1361,31 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                     m_publishQueue.clear();
                     break;
                 case RESOURCE:
-                    m_cacheResource.clear();
+                    flushMap(CacheType.RESOURCE, m_cacheResource);
                     break;
                 case RESOURCE_LIST:
-                    m_cacheResourceList.clear();
+                    flushMap(CacheType.RESOURCE_LIST, m_cacheResourceList);
                     break;
                 case ROLE_LIST:
-                    m_cacheRoleLists.clear();
+                    flushMap(CacheType.ROLE_LIST, m_cacheRoleLists);
                     break;
                 case USER:
-                    m_cacheUser.clear();
+                    flushMap(CacheType.USER, m_cacheUser);
                     break;
                 case USERGROUPS:
-                    m_cacheUserGroups.clear();
+                    flushMap(CacheType.USERGROUPS, m_cacheUserGroups);
                     break;
                 case USER_LIST:
-                    m_cacheUserList.clear();
+                    flushMap(CacheType.USER_LIST, m_cacheUserList);
                     break;
                 case VFS_OBJECT:
-                    m_cacheVfsObject.clear();
+                    flushMap(CacheType.VFS_OBJECT, m_cacheVfsObject);
                     break;
                 case XML_ENTITY_PERM:
-                    m_cacheXmlPermanentEntity.clear();
+                    flushMap(CacheType.XML_ENTITY_PERM, m_cacheXmlPermanentEntity);
                     break;
                 case XML_ENTITY_TEMP:
-                    m_cacheXmlTemporaryEntity.clear();
+                    flushMap(CacheType.XML_ENTITY_TEMP, m_cacheXmlTemporaryEntity);
                     break;
                 default:
                     // can't happen
@@ -1384,6 +1701,18 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return new ArrayList<CmsPublishJobInfoBean>(m_publishHistory);
     }
 
+    /**
+     * Returns the usage metrics of the given cache.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the usage metrics of the cache
+     */
+    public CmsCacheMetrics getCacheMetrics(CacheType type) {
+
+        return m_cacheMetrics.get(type);
+    }
+
     /**
      * Returns the ACL cached with the given cache key or <code>null</code> if not found.<p>
      * 
@@ -1393,7 +1722,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsAccessControlList getCachedACL(String key) {
 
-        return m_cacheAccessControlList.get(key);
+        return recordAccess(CacheType.ACL, m_cacheAccessControlList.get(key));
     }
 
     /**
@@ -1405,7 +1734,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsXmlContentDefinition getCachedContentDefinition(String key) {
 
-        return m_cacheContentDefinitions.get(key);
+        return recordAccess(CacheType.CONTENT_DEFINITION, m_cacheContentDefinitions.get(key));
     }
 
     /**
@@ -1417,7 +1746,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsGroup getCachedGroup(String key) {
 
-        return m_cacheGroup.get(key);
+        return recordAccess(CacheType.GROUP, m_cacheGroup.get(key));
     }
 
     /**
@@ -1433,7 +1762,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             // this may be accessed before initialization
             return null;
         }
-        return m_cacheLocale.get(key);
+        return recordAccess(CacheType.LOCALE, m_cacheLocale.get(key));
     }
 
     /**
@@ -1457,7 +1786,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Object getCachedMemObject(String key) {
 
-        return m_cacheMemObject.get(key);
+        return recordAccess(CacheType.MEMORY_OBJECT, m_cacheMemObject.get(key));
     }
 
     /**
@@ -1469,7 +1798,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsOrganizationalUnit getCachedOrgUnit(String key) {
 
-        return m_cacheOrgUnit.get(key);
+        return recordAccess(CacheType.ORG_UNIT, m_cacheOrgUnit.get(key));
     }
 
     /**
@@ -1481,7 +1810,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
 
-        return m_cachePermission.get(key);
+        return recordAccess(CacheType.PERMISSION, m_cachePermission.get(key));
     }
 
     /**
@@ -1493,7 +1822,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsProject getCachedProject(String key) {
 
-        return m_cacheProject.get(key);
+        return recordAccess(CacheType.PROJECT, m_cacheProject.get(key));
     }
 
     /**
@@ -1505,7 +1834,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsResource> getCachedProjectResources(String key) {
 
-        return m_cacheProjectResources.get(key);
+        return recordAccess(CacheType.PROJECT_RESOURCES, m_cacheProjectResources.get(key));
     }
 
     /**
@@ -1517,7 +1846,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsProperty getCachedProperty(String key) {
 
-        return m_cacheProperty.get(key);
+        return recordAccess(CacheType.PROPERTY, m_cacheProperty.get(key));
     }
 
     /**
@@ -1529,7 +1858,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsProperty> getCachedPropertyList(String key) {
 
-        return m_cachePropertyList.get(key);
+        return recordAccess(CacheType.PROPERTY_LIST, m_cachePropertyList.get(key));
     }
 
     /**
@@ -1541,7 +1870,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsPublishedResource> getCachedPublishedResources(String cacheKey) {
 
-        return m_cachePublishedResources.get(cacheKey);
+        return recordAccess(CacheType.PUBLISHED_RESOURCES, m_cachePublishedResources.get(cacheKey));
     }
 
     /**
@@ -1594,7 +1923,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsResource getCachedResource(String key) {
 
-        return m_cacheResource.get(key);
+        return recordAccess(CacheType.RESOURCE, m_cacheResource.get(key));
     }
 
     /**
@@ -1606,7 +1935,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsResource> getCachedResourceList(String key) {
 
-        return m_cacheResourceList.get(key);
+        return recordAccess(CacheType.RESOURCE_LIST, m_cacheResourceList.get(key));
     }
 
     /**
@@ -1618,7 +1947,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Boolean getCachedRole(String key) {
 
-        return m_cacheHasRoles.get(key);
+        return recordAccess(CacheType.HAS_ROLE, m_cacheHasRoles.get(key));
     }
 
     /**
@@ -1630,7 +1959,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsRole> getCachedRoleList(String key) {
 
-        return m_cacheRoleLists.get(key);
+        return recordAccess(CacheType.ROLE_LIST, m_cacheRoleLists.get(key));
     }
 
     /**
@@ -1642,7 +1971,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsUser getCachedUser(String key) {
 
-        return m_cacheUser.get(key);
+        return recordAccess(CacheType.USER, m_cacheUser.get(key));
     }
 
     /**
@@ -1654,7 +1983,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsGroup> getCachedUserGroups(String key) {
 
-        return m_cacheUserGroups.get(key);
+        return recordAccess(CacheType.USERGROUPS, m_cacheUserGroups.get(key));
     }
 
     /**
@@ -1666,7 +1995,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public List<CmsUser> getCachedUserList(String key) {
 
-        return m_cacheUserList.get(key);
+        return recordAccess(CacheType.USER_LIST, m_cacheUserList.get(key));
     }
 
     /**
@@ -1678,7 +2007,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public Object getCachedVfsObject(String key) {
 
-        return m_cacheVfsObject.get(key);
+        return recordAccess(CacheType.VFS_OBJECT, m_cacheVfsObject.get(key));
     }
 
     /**
@@ -1690,7 +2019,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public byte[] getCachedXmlPermanentEntity(String systemId) {
 
-        return m_cacheXmlPermanentEntity.get(systemId);
+        return recordAccess(CacheType.XML_ENTITY_PERM, m_cacheXmlPermanentEntity.get(systemId));
     }
 
     /**
@@ -1702,7 +2031,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public byte[] getCachedXmlTemporaryEntity(String key) {
 
-        return m_cacheXmlTemporaryEntity.get(key);
+        return recordAccess(CacheType.XML_ENTITY_TEMP, m_cacheXmlTemporaryEntity.get(key));
     }
 
     /**
@@ -1823,9 +2152,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // create and register all system caches
 
         // temporary xml entities cache
-        Map<String, byte[]> xmlTemporaryCache = CmsCollectionsGenericWrapper.createLRUMap(128);
-        m_cacheXmlTemporaryEntity = Collections.synchronizedMap(xmlTemporaryCache);
-        register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
+        m_cacheXmlTemporaryEntity = createCache(
+            CacheType.XML_ENTITY_TEMP,
+            128,
+            CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache");
 
         // permanent xml entities cache
         Map<String, byte[]> xmlPermanentCache = new HashMap<String, byte[]>(32);
@@ -1833,9 +2163,10 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
         // xml content definitions cache
-        Map<String, CmsXmlContentDefinition> contentDefinitionsCache = CmsCollectionsGenericWrapper.createLRUMap(64);
-        m_cacheContentDefinitions = Collections.synchronizedMap(contentDefinitionsCache);
-        register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
+        m_cacheContentDefinitions = createCache(
+            CacheType.CONTENT_DEFINITION,
+            64,
+            CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache");
 
         // lock cache
         Map<String, CmsLock> lockCache = new HashMap<String, CmsLock>();
@@ -1848,44 +2179,52 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsLocaleManager.class.getName(), map);
 
         // permissions cache
-        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPermissionCacheSize());
-        m_cachePermission = Collections.synchronizedMap(lruPermissions);
-        register(CmsSecurityManager.class.getName(), lruPermissions);
+        m_cachePermission = createCache(
+            CacheType.PERMISSION,
+            cacheSettings.getPermissionCacheSize(),
+            CmsSecurityManager.class.getName());
 
         // user cache
-        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUser = Collections.synchronizedMap(lruUsers);
-        register(CmsDriverManager.class.getName() + ".userCache", lruUsers);
+        m_cacheUser = createCache(
+            CacheType.USER,
+            cacheSettings.getUserCacheSize(),
+            CmsDriverManager.class.getName() + ".userCache");
 
         // user list cache
-        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
-        m_cacheUserList = Collections.synchronizedMap(lruUserList);
-        register(CmsDriverManager.class.getName() + ".userListCache", lruUserList);
+        m_cacheUserList = createCache(
+            CacheType.USER_LIST,
+            cacheSettings.getUserCacheSize(),
+            CmsDriverManager.class.getName() + ".userListCache");
 
         // group cache
-        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupCacheSize());
-        m_cacheGroup = Collections.synchronizedMap(lruGroup);
-        register(CmsDriverManager.class.getName() + ".groupCache", lruGroup);
+        m_cacheGroup = createCache(
+            CacheType.GROUP,
+            cacheSettings.getGroupCacheSize(),
+            CmsDriverManager.class.getName() + ".groupCache");
 
         // organizational unit cache
-        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getOrgUnitCacheSize());
-        m_cacheOrgUnit = Collections.synchronizedMap(lruOrgUnit);
-        register(CmsDriverManager.class.getName() + ".orgUnitCache", lruOrgUnit);
+        m_cacheOrgUnit = createCache(
+            CacheType.ORG_UNIT,
+            cacheSettings.getOrgUnitCacheSize(),
+            CmsDriverManager.class.getName() + ".orgUnitCache");
 
         // user groups list cache
-        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserGroupsCacheSize());
-        m_cacheUserGroups = Collections.synchronizedMap(lruUserGroups);
-        register(CmsDriverManager.class.getName() + ".userGroupsCache", lruUserGroups);
+        m_cacheUserGroups = createCache(
+            CacheType.USERGROUPS,
+            cacheSettings.getUserGroupsCacheSize(),
+            CmsDriverManager.class.getName() + ".userGroupsCache");
 
         // project cache
-        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectCacheSize());
-        m_cacheProject = Collections.synchronizedMap(lruProjects);
-        register(CmsDriverManager.class.getName() + ".projectCache", lruProjects);
+        m_cacheProject = createCache(
+            CacheType.PROJECT,
+            cacheSettings.getProjectCacheSize(),
+            CmsDriverManager.class.getName() + ".projectCache");
 
         // project resources cache cache
-        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectResourcesCacheSize());
-        m_cacheProjectResources = Collections.synchronizedMap(lruProjectResources);
-        register(CmsDriverManager.class.getName() + ".projectResourcesCache", lruProjectResources);
+        m_cacheProjectResources = createCache(
+            CacheType.PROJECT_RESOURCES,
+            cacheSettings.getProjectResourcesCacheSize(),
+            CmsDriverManager.class.getName() + ".projectResourcesCache");
 
         // publish history
         int size = configuration.getPublishManager().getPublishHistorySize();
@@ -1899,44 +2238,68 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourceCacheSize());
-        m_cacheResource = Collections.synchronizedMap(lruResources);
-        register(CmsDriverManager.class.getName() + ".resourceCache", lruResources);
+        m_cacheResource = createCache(
+            CacheType.RESOURCE,
+            cacheSettings.getResourceCacheSize(),
+            CmsDriverManager.class.getName() + ".resourceCache");
 
         // roles cache
-        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheHasRoles = Collections.synchronizedMap(lruHasRoles);
-        register(CmsDriverManager.class.getName() + ".rolesCache", lruHasRoles);
+        m_cacheHasRoles = createCache(
+            CacheType.HAS_ROLE,
+            cacheSettings.getRolesCacheSize(),
+            CmsDriverManager.class.getName() + ".rolesCache");
 
         // role lists cache
-        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
-        m_cacheRoleLists = Collections.synchronizedMap(lruRoleLists);
-        register(CmsDriverManager.class.getName() + ".roleListsCache", lruRoleLists);
+        m_cacheRoleLists = createCache(
+            CacheType.ROLE_LIST,
+            cacheSettings.getRolesCacheSize(),
+            CmsDriverManager.class.getName() + ".roleListsCache");
 
         // resource list cache
-        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourcelistCacheSize());
-        m_cacheResourceList = Collections.synchronizedMap(lruResourceList);
-        register(CmsDriverManager.class.getName() + ".resourceListCache", lruResourceList);
+        m_cacheResourceList = createCache(
+            CacheType.RESOURCE_LIST,
+            cacheSettings.getResourcelistCacheSize(),
+            CmsDriverManager.class.getName() + ".resourceListCache");
+
+        // dependency indexes of the caches invalidated on resource changes
+        m_dependencyIndexes.put(CacheType.RESOURCE, new CmsCacheDependencyIndex(
+            cacheSettings.getResourceCacheSize() * DEPENDENCIES_PER_ENTRY));
+        m_dependencyIndexes.put(CacheType.RESOURCE_LIST, new CmsCacheDependencyIndex(
+            cacheSettings.getResourcelistCacheSize() * DEPENDENCIES_PER_ENTRY));
+        m_dependencyIndexes.put(CacheType.HAS_ROLE, new CmsCacheDependencyIndex(
+            cacheSettings.getRolesCacheSize() * DEPENDENCIES_PER_ENTRY));
+        m_dependencyIndexes.put(CacheType.ROLE_LIST, new CmsCacheDependencyIndex(
+            cacheSettings.getRolesCacheSize() * DEPENDENCIES_PER_ENTRY));
+        m_dependencyIndexes.put(CacheType.ACL, new CmsCacheDependencyIndex(
+            cacheSettings.getAclCacheSize() * DEPENDENCIES_PER_ENTRY));
+        m_dependencyIndexes.put(CacheType.PERMISSION, new CmsCacheDependencyIndex(
+            cacheSettings.getPermissionCacheSize() * DEPENDENCIES_PER_ENTRY));
+        m_dependencyIndexes.put(CacheType.PROPERTY_LIST, new CmsCacheDependencyIndex(
+            cacheSettings.getPropertyListsCacheSize() * DEPENDENCIES_PER_ENTRY));
 
         // property cache
-        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyCacheSize());
-        m_cacheProperty = Collections.synchronizedMap(lruProperty);
-        register(CmsDriverManager.class.getName() + ".propertyCache", lruProperty);
+        m_cacheProperty = createCache(
+            CacheType.PROPERTY,
+            cacheSettings.getPropertyCacheSize(),
+            CmsDriverManager.class.getName() + ".propertyCache");
 
         // property list cache
-        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyListsCacheSize());
-        m_cachePropertyList = Collections.synchronizedMap(lruPropertyList);
-        register(CmsDriverManager.class.getName() + ".propertyListCache", lruPropertyList);
+        m_cachePropertyList = createCache(
+            CacheType.PROPERTY_LIST,
+            cacheSettings.getPropertyListsCacheSize(),
+            CmsDriverManager.class.getName() + ".propertyListCache");
 
         // published resources list cache
-        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createLRUMap(5);
-        m_cachePublishedResources = Collections.synchronizedMap(lruPublishedResources);
-        register(CmsDriverManager.class.getName() + ".publishedResourcesCache", lruPublishedResources);
+        m_cachePublishedResources = createCache(
+            CacheType.PUBLISHED_RESOURCES,
+            5,
+            CmsDriverManager.class.getName() + ".publishedResourcesCache");
 
         // acl cache
-        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getAclCacheSize());
-        m_cacheAccessControlList = Collections.synchronizedMap(lruAcl);
-        register(CmsDriverManager.class.getName() + ".accessControlListCache", lruAcl);
+        m_cacheAccessControlList = createCache(
+            CacheType.ACL,
+            cacheSettings.getAclCacheSize(),
+            CmsDriverManager.class.getName() + ".accessControlListCache");
 
         // vfs object cache
         Map<String, Object> vfsObjectCache = new HashMap<String, Object>();
@@ -2270,6 +2633,69 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_publishHistory.remove(publishJob);
     }
 
+    /**
+     * Removes all cache entries that may have been changed by publishing the given resources.<p>
+     *
+     * This is a targeted alternative to {@link #clearCache()}, used if the resources have been published
+     * by another server of the cluster. The following entries are removed:<p>
+     * <ul>
+     * <li>resources with the structure or resource id of a published resource</li>
+     * <li>resource lists containing such a resource, or read from a parent folder of a published resource</li>
+     * <li>property lists of the published resources, and of all resources below a published folder</li>
+     * <li>access control lists and permissions of the published resources,
+     *     and of all resources below a published folder</li>
+     * </ul>
+     *
+     * The project caches are flushed completely.<p>
+     *
+     * @param publishedResources the published resources
+     */
+    public void uncachePublishedResources(List<CmsPublishedResource> publishedResources) {
+
+        Set<String> paths = new HashSet<String>();
+        Set<String> folders = new HashSet<String>();
+        Set<String> dependencies = new HashSet<String>();
+        for (CmsPublishedResource publishedResource : publishedResources) {
+            String path = publishedResource.getRootPath();
+            paths.add(path);
+            if (publishedResource.isFolder()) {
+                folders.add(path);
+            }
+            addDependencies(
+                dependencies,
+                path,
+                publishedResource.getStructureId(),
+                publishedResource.getResourceId());
+        }
+
+        // resources and resource lists are matched by the ids, siblings share the resource id,
+        // resource lists are also matched by the folders they have been read from
+        int count = uncacheDependents(CacheType.RESOURCE, m_cacheResource, dependencies, null);
+        count += uncacheDependents(CacheType.RESOURCE_LIST, m_cacheResourceList, dependencies, null);
+        // properties are matched by the path and the resource id, the property lists below the published 
+        // folders are also removed since they may contain inherited properties
+        count += uncacheByPath(CacheType.PROPERTY, m_cacheProperty, paths, folders);
+        count += uncacheDependents(CacheType.PROPERTY_LIST, m_cachePropertyList, dependencies, null);
+        // acls and permissions are matched by the resource id and the path, 
+        // the access control entries of folders are inherited by all resources below the folders
+        count += uncacheDependents(CacheType.ACL, m_cacheAccessControlList, dependencies, null);
+        count += uncacheDependents(CacheType.PERMISSION, m_cachePermission, dependencies, null);
+        Set<String> noDependencies = Collections.emptySet();
+        for (String folder : folders) {
+            count += uncacheDependents(CacheType.PROPERTY_LIST, m_cachePropertyList, noDependencies, folder);
+            count += uncacheDependents(CacheType.ACL, m_cacheAccessControlList, noDependencies, folder);
+            count += uncacheDependents(CacheType.PERMISSION, m_cachePermission, noDependencies, folder);
+        }
+        flushCache(CacheType.PROJECT, CacheType.PROJECT_RESOURCES);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_MM_UNCACHED_PUBLISHED_RESOURCES_2,
+                Integer.valueOf(publishedResources.size()),
+                Integer.valueOf(count)));
+        }
+    }
+
     /**
      * Removes the given user from the cache.<p>
      * 
@@ -2324,6 +2750,57 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         System.gc();
     }
 
+    /**
+     * Creates and registers a bounded cache using the cache engine configured for the given cache type.<p>
+     * 
+     * The cache keeps track of the estimated bytes of its entries with the weigher for the cache type, 
+     * and is additionally bounded by the maximum bytes configured for the cache type, if any.<p>
+     * 
+     * @param <V> the type of the cached values
+     * @param type the cache type
+     * @param size the maximum number of cached entries
+     * @param name the name to register the cache for monitoring
+     * 
+     * @return the thread safe cache map
+     */
+    protected <V> Map<String, V> createCache(CacheType type, int size, String name) {
+
+        Map<String, V> cache;
+        I_CmsCacheWeigher<Object, Object> weigher = getCacheWeigher(type);
+        long maxBytes = m_configuration.getCacheMaxBytes(type);
+        if (m_configuration.getCacheEngine(type) == CmsMemoryMonitorConfiguration.CacheEngine.TINYLFU) {
+            cache = new CmsTinyLfuMap<String, V>(size, maxBytes, weigher);
+            register(name, cache);
+        } else {
+            CmsWeightedLruMap lruMap = new CmsWeightedLruMap(size, maxBytes, weigher);
+            Map<String, V> map = CmsCollectionsGenericWrapper.map(lruMap);
+            cache = Collections.synchronizedMap(map);
+            register(name, lruMap);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(
+                Messages.LOG_MM_CACHE_ENGINE_3,
+                type,
+                m_configuration.getCacheEngine(type),
+                Integer.valueOf(size)));
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the weigher used to estimate the memory size of the entries of the cache of the given type.<p>
+     * 
+     * By default, all caches share a {@link CmsSampledCacheWeigher}.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the weigher for the cache type
+     */
+    protected I_CmsCacheWeigher<Object, Object> getCacheWeigher(CacheType type) {
+
+        return m_weigher;
+    }
+
     /**
      * Returns the cache costs of a monitored object.<p>
      * 
@@ -2435,7 +2912,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the max costs for all items within a monitored object.<p>
      * 
-     * <code>obj</code> must be of type {@link CmsLruCache} or {@link LRUMap}.<p>
+     * <code>obj</code> must be of type {@link CmsLruCache}, {@link LRUMap} or {@link CmsTinyLfuMap}.<p>
      * 
      * @param obj the object
      * 
@@ -2449,10 +2926,46 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsTinyLfuMap) {
+            return Integer.toString(((CmsTinyLfuMap<?, ?>)obj).maxSize());
+        }
 
         return "-";
     }
 
+    /**
+     * Returns the estimated memory size of a monitored object.<p>
+     * 
+     * For the caches created by the memory monitor, this is the total weight of the cache entries, 
+     * which the caches keep up to date on every change. For a {@link CmsLruCache}, this are its costs.
+     * The size of other objects is estimated by sampling their entries.<p>
+     * 
+     * @param obj the object
+     * 
+     * @return the estimated memory size of the object
+     */
+    protected long getWeight(Object obj) {
+
+        if (obj instanceof CmsWeightedLruMap) {
+            return ((CmsWeightedLruMap)obj).getWeight();
+        }
+        if (obj instanceof CmsTinyLfuMap) {
+            return ((CmsTinyLfuMap<?, ?>)obj).getWeight();
+        }
+        if (obj instanceof CmsLruCache) {
+            return getCosts(obj);
+        }
+        try {
+            return m_weigher.getSize(obj);
+        } catch (Throwable t) {
+            // catch all exceptions otherwise the whole monitor will stop working
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_CAUGHT_THROWABLE_1, t.getMessage()));
+            }
+            return 0;
+        }
+    }
+
     /**
      * Sends a warning or status email with OpenCms Memory information.<p>
      * 
@@ -2534,6 +3047,28 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
 
         sm = null;
 
+        List<String> poolUrls = OpenCms.getSqlManager().getDbPoolUrls();
+        if (!poolUrls.isEmpty()) {
+            content += "Current status of the connection pools:\n\n";
+            for (String poolUrl : poolUrls) {
+                try {
+                    content += poolUrl
+                        + ": "
+                        + OpenCms.getSqlManager().getActiveConnections(poolUrl)
+                        + " active / "
+                        + OpenCms.getSqlManager().getIdleConnections(poolUrl)
+                        + " idle\n";
+                    CmsConnectionPoolMetrics metrics = OpenCms.getSqlManager().getConnectionPoolMetrics(poolUrl);
+                    if (metrics != null) {
+                        content += "    " + metrics.toString() + "\n";
+                    }
+                } catch (Exception exc) {
+                    content += poolUrl + ": not available\n";
+                }
+            }
+            content += "\n\n";
+        }
+
         content += "Current status of the caches:\n\n";
         List<String> keyList = new ArrayList<String>(m_monitoredObjects.keySet());
         Collections.sort(keyList);
@@ -2562,6 +3097,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
         content += "\nTotal size of cache memory monitored: " + totalSize + " (" + (totalSize / 1048576) + ")\n\n";
 
+        content += "Current usage of the caches:\n\n";
+        for (CacheType type : CacheType.values()) {
+            CmsCacheMetrics metrics = m_cacheMetrics.get(type);
+            if (metrics.isUsed()) {
+                content += new PrintfFormat("%-42.42s").sprintf(type.name()) + "  " + metrics.toString() + "\n";
+            }
+        }
+        content += "\n";
+
         String from = m_configuration.getEmailSender();
         List<InternetAddress> receivers = new ArrayList<InternetAddress>();
         List<String> receiverEmails = m_configuration.getEmailReceiver();
@@ -2649,7 +3193,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 String key = keys.next();
                 Object obj = m_monitoredObjects.get(key);
 
-                long size = getKeySize(obj) + getValueSize(obj) + getCosts(obj);
+                long size = getWeight(obj);
                 totalSize += size;
 
                 PrintfFormat name1 = new PrintfFormat("%-80s");
@@ -2714,6 +3258,30 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                         Integer.toString(-1),
                         Integer.toString(-1)));
                 }
+                try {
+                    CmsConnectionPoolMetrics metrics = OpenCms.getSqlManager().getConnectionPoolMetrics(poolname);
+                    if (metrics != null) {
+                        LOG.info(Messages.get().getBundle().key(
+                            Messages.LOG_MM_CONNECTION_METRICS_7,
+                            new Object[] {
+                                poolname,
+                                Long.valueOf(metrics.getBorrowCount()),
+                                Long.valueOf(metrics.getBorrowFailureCount()),
+                                Long.valueOf(metrics.getMaxBorrowWait()),
+                                metrics.getBorrowWaitHistogramString(),
+                                Long.valueOf(metrics.getStatementRequestCount()),
+                                Long.valueOf(metrics.getStatementPrepareCount())}));
+                    }
+                } catch (Exception exc) {
+                    // metrics are not available for this pool
+                }
+            }
+
+            for (CacheType type : CacheType.values()) {
+                CmsCacheMetrics metrics = m_cacheMetrics.get(type);
+                if (metrics.isUsed()) {
+                    LOG.info(Messages.get().getBundle().key(Messages.LOG_MM_CACHE_METRICS_2, type, metrics));
+                }
             }
 
             LOG.info(Messages.get().getBundle().key(
@@ -2731,4 +3299,200 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memoryCurrent.update();
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Adds the dependencies of cache entries on the given resource to the given set.<p>
+     * 
+     * @param dependencies the set to add the dependencies to
+     * @param resource the resource
+     */
+    private void addDependencies(Set<String> dependencies, CmsResource resource) {
+
+        addDependencies(dependencies, resource.getRootPath(), resource.getStructureId(), resource.getResourceId());
+    }
+
+    /**
+     * Adds the dependencies of cache entries on the given resource to the given set.<p>
+     * 
+     * These are the path and ids of the resource, the children of its parent folder, and 
+     * the subtrees of all its parent folders and of the resource itself.
+     * Cache entries depending on any resource are included as well.<p>
+     * 
+     * @param dependencies the set to add the dependencies to
+     * @param rootPath the root path of the resource
+     * @param structureId the structure id of the resource
+     * @param resourceId the resource id of the resource
+     */
+    private void addDependencies(Set<String> dependencies, String rootPath, CmsUUID structureId, CmsUUID resourceId) {
+
+        dependencies.add(DEPENDENCY_ALL);
+        dependencies.add(DEPENDENCY_PATH + rootPath);
+        dependencies.add(DEPENDENCY_ID + structureId);
+        dependencies.add(DEPENDENCY_ID + resourceId);
+        dependencies.add(DEPENDENCY_CHILDREN + rootPath);
+        dependencies.add(DEPENDENCY_TREE + rootPath);
+        String parent = CmsResource.getParentFolder(rootPath);
+        if (parent != null) {
+            dependencies.add(DEPENDENCY_CHILDREN + parent);
+        }
+        while (parent != null) {
+            dependencies.add(DEPENDENCY_TREE + parent);
+            parent = CmsResource.getParentFolder(parent);
+        }
+    }
+
+    /**
+     * Removes all entries from the given cache, and from its dependency index if available.<p>
+     * 
+     * @param type the cache type
+     * @param cache the cache
+     */
+    private void flushMap(CacheType type, Map<String, ?> cache) {
+
+        int size = cache.size();
+        cache.clear();
+        CmsCacheDependencyIndex index = m_dependencyIndexes.get(type);
+        if (index != null) {
+            index.clear();
+        }
+        m_cacheMetrics.get(type).addEvictions(size);
+    }
+
+    /**
+     * Returns the dependencies of an acl or permission cache entry for the given resource.<p>
+     * 
+     * The entry depends on the access control entries of the resource, which are shared by its siblings, 
+     * and on the inherited access control entries of its parent folders, which are matched by path.<p>
+     * 
+     * @param resource the resource, or <code>null</code> if unknown
+     * 
+     * @return the dependencies of the cache entry
+     */
+    private Set<String> getAccessControlDependencies(CmsResource resource) {
+
+        Set<String> dependencies = new HashSet<String>();
+        if (resource == null) {
+            dependencies.add(DEPENDENCY_ALL);
+        } else {
+            dependencies.add(DEPENDENCY_PATH + resource.getRootPath());
+            dependencies.add(DEPENDENCY_ID + resource.getResourceId());
+        }
+        return dependencies;
+    }
+
+    /**
+     * Records a lookup in the given cache and returns the value found.<p>
+     * 
+     * @param <V> the type of the cached value
+     * @param type the cache type
+     * @param value the value found in the cache, or <code>null</code>
+     * 
+     * @return the value found in the cache
+     */
+    private <V> V recordAccess(CacheType type, V value) {
+
+        if (value != null) {
+            m_cacheMetrics.get(type).addHit();
+        } else {
+            m_cacheMetrics.get(type).addMiss();
+        }
+        return value;
+    }
+
+    /**
+     * Registers the dependencies of a cache entry in the dependency index of the cache.<p>
+     * 
+     * If the dependency index overflows, the cache is flushed.<p>
+     * 
+     * @param type the cache type
+     * @param key the key of the cache entry
+     * @param dependencies the dependencies of the cache entry
+     */
+    private void registerDependencies(CacheType type, String key, Set<String> dependencies) {
+
+        CmsCacheDependencyIndex index = m_dependencyIndexes.get(type);
+        if ((index != null) && !index.add(key, dependencies)) {
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(
+                    Messages.LOG_MM_DEPENDENCY_INDEX_OVERFLOW_2,
+                    type,
+                    Integer.valueOf(index.getMaxSize())));
+            }
+            flushCache(type);
+        }
+    }
+
+    /**
+     * Removes all entries from the given cache with keys ending with one of the given paths,
+     * or a path below one of the given folders.<p>
+     *
+     * @param type the cache type
+     * @param cache the cache
+     * @param paths the root paths of the resources
+     * @param folders the root paths of the folders
+     *
+     * @return the number of removed entries
+     */
+    private int uncacheByPath(CacheType type, Map<String, ?> cache, Set<String> paths, Set<String> folders) {
+
+        int count = 0;
+        synchronized (cache) {
+            Iterator<String> itKeys = cache.keySet().iterator();
+            while (itKeys.hasNext()) {
+                String key = itKeys.next();
+                int pos = key.indexOf('/');
+                if (pos < 0) {
+                    continue;
+                }
+                String path = key.substring(pos);
+                boolean remove = paths.contains(path);
+                Iterator<String> itFolders = folders.iterator();
+                while (!remove && itFolders.hasNext()) {
+                    remove = path.startsWith(itFolders.next());
+                }
+                if (remove) {
+                    itKeys.remove();
+                    count++;
+                }
+            }
+        }
+        m_cacheMetrics.get(type).addEvictions(count);
+        return count;
+    }
+
+    /**
+     * Removes all entries from the given cache depending on one of the given dependencies, 
+     * or on a resource below the given folder.<p>
+     * 
+     * @param type the cache type
+     * @param cache the cache
+     * @param dependencies the dependencies
+     * @param folder the root path of the folder, or <code>null</code>
+     * 
+     * @return the number of removed entries
+     */
+    private int uncacheDependents(CacheType type, Map<String, ?> cache, Set<String> dependencies, String folder) {
+
+        CmsCacheDependencyIndex index = m_dependencyIndexes.get(type);
+        if (index == null) {
+            return 0;
+        }
+        Set<String> keys = new HashSet<String>();
+        for (String dependency : dependencies) {
+            keys.addAll(index.remove(dependency));
+        }
+        if (folder != null) {
+            keys.addAll(index.removePrefix(DEPENDENCY_PATH + folder));
+            keys.addAll(index.removePrefix(DEPENDENCY_CHILDREN + folder));
+            keys.addAll(index.removePrefix(DEPENDENCY_TREE + folder));
+        }
+        int count = 0;
+        for (String key : keys) {
+            if (cache.remove(key) != null) {
+                count++;
+            }
+        }
+        m_cacheMetrics.get(type).addEvictions(count);
+        return count;
+    }
 }
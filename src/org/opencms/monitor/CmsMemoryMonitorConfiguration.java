@@ -27,11 +27,14 @@
 
 package org.opencms.monitor;
 
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
 import org.opencms.util.CmsStringUtil;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Memory Monitor configuration class.<p>
@@ -40,9 +43,26 @@ import java.util.List;
  */
 public class CmsMemoryMonitorConfiguration {
 
+    /** The available implementations for the bounded caches of the memory monitor. */
+    public enum CacheEngine {
+        /** A commons-collections <code>LRUMap</code> wrapped in a synchronized map. */
+        LRU,
+        /** A concurrent, striped W-TinyLFU map, see {@link org.opencms.cache.CmsTinyLfuMap}. */
+        TINYLFU;
+    }
+
+    /** The configured cache engines by cache type. */
+    private Map<CacheType, CacheEngine> m_cacheEngines;
+
+    /** The configured maximum bytes by cache type. */
+    private Map<CacheType, Long> m_cacheMaxBytes;
+
     /** The memory monitor class name. */
     private String m_className;
 
+    /** The default cache engine, <code>null</code> if not configured. */
+    private CacheEngine m_defaultCacheEngine;
+
     /** The interval to use for sending emails. */
     private int m_emailInterval;
 
@@ -67,6 +87,36 @@ public class CmsMemoryMonitorConfiguration {
     public CmsMemoryMonitorConfiguration() {
 
         m_emailReceiver = new ArrayList<String>();
+        m_cacheEngines = new EnumMap<CacheType, CacheEngine>(CacheType.class);
+        m_cacheMaxBytes = new EnumMap<CacheType, Long>(CacheType.class);
+    }
+
+    /**
+     * Sets the cache engine to use for the given cache type.<p>
+     * 
+     * @param type the name of the cache type, see {@link CacheType}
+     * @param engine the name of the cache engine, see {@link CacheEngine}
+     */
+    public void addCacheEngine(String type, String engine) {
+
+        addCacheEngine(type, engine, null);
+    }
+
+    /**
+     * Sets the cache engine and the maximum bytes to use for the given cache type.<p>
+     * 
+     * @param type the name of the cache type, see {@link CacheType}
+     * @param engine the name of the cache engine, see {@link CacheEngine}
+     * @param maxBytes the maximum estimated bytes of all entries of the cache, 
+     *      or <code>null</code> to bound the cache only by its number of entries
+     */
+    public void addCacheEngine(String type, String engine, String maxBytes) {
+
+        CacheType cacheType = CacheType.valueOf(type.trim().toUpperCase());
+        m_cacheEngines.put(cacheType, parseCacheEngine(engine));
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(maxBytes)) {
+            m_cacheMaxBytes.put(cacheType, Long.valueOf(maxBytes.trim()));
+        }
     }
 
     /**
@@ -79,6 +129,55 @@ public class CmsMemoryMonitorConfiguration {
         m_emailReceiver.add(emailReceiver);
     }
 
+    /**
+     * Returns the cache engine to use for the given cache type.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the cache engine to use for the given cache type
+     */
+    public CacheEngine getCacheEngine(CacheType type) {
+
+        CacheEngine engine = m_cacheEngines.get(type);
+        if (engine == null) {
+            engine = getDefaultCacheEngine();
+        }
+        return engine;
+    }
+
+    /**
+     * Returns the explicitly configured cache engines by cache type.<p>
+     * 
+     * @return the explicitly configured cache engines
+     */
+    public Map<CacheType, CacheEngine> getCacheEngines() {
+
+        return Collections.unmodifiableMap(m_cacheEngines);
+    }
+
+    /**
+     * Returns the maximum estimated bytes of all entries of the cache of the given type.<p>
+     * 
+     * @param type the cache type
+     * 
+     * @return the maximum bytes, or 0 if the cache is only bounded by its number of entries
+     */
+    public long getCacheMaxBytes(CacheType type) {
+
+        Long maxBytes = m_cacheMaxBytes.get(type);
+        return (maxBytes != null) ? maxBytes.longValue() : 0;
+    }
+
+    /**
+     * Returns the explicitly configured maximum bytes by cache type.<p>
+     * 
+     * @return the explicitly configured maximum bytes
+     */
+    public Map<CacheType, Long> getCacheMaxBytes() {
+
+        return Collections.unmodifiableMap(m_cacheMaxBytes);
+    }
+
     /**
      * Returns the name of the memory monitor class.<p>
      *
@@ -89,6 +188,18 @@ public class CmsMemoryMonitorConfiguration {
         return m_className;
     }
 
+    /**
+     * Returns the cache engine to use for all cache types without an explicit configuration.<p>
+     * 
+     * If nothing is configured, this is {@link CacheEngine#LRU}.<p>
+     * 
+     * @return the default cache engine
+     */
+    public CacheEngine getDefaultCacheEngine() {
+
+        return m_defaultCacheEngine != null ? m_defaultCacheEngine : CacheEngine.LRU;
+    }
+
     /**
      * Returns the intervalEmail.<p>
      *
@@ -180,6 +291,28 @@ public class CmsMemoryMonitorConfiguration {
         m_warningInterval = Integer.parseInt(warningInterval);
     }
 
+    /**
+     * Checks if a default cache engine has been explicitly configured.<p>
+     * 
+     * @return <code>true</code> if a default cache engine has been explicitly configured
+     */
+    public boolean isDefaultCacheEngineConfigured() {
+
+        return m_defaultCacheEngine != null;
+    }
+
+    /**
+     * Sets the default cache engine.<p>
+     * 
+     * @param engine the name of the default cache engine, see {@link CacheEngine}
+     */
+    public void setDefaultCacheEngine(String engine) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(engine)) {
+            m_defaultCacheEngine = parseCacheEngine(engine);
+        }
+    }
+
     /**
      * Sets the emailSender.<p>
      *
@@ -189,4 +322,16 @@ public class CmsMemoryMonitorConfiguration {
 
         m_emailSender = emailSender;
     }
+
+    /**
+     * Parses the name of a cache engine.<p>
+     * 
+     * @param engine the name of the cache engine
+     * 
+     * @return the cache engine
+     */
+    private CacheEngine parseCacheEngine(String engine) {
+
+        return CacheEngine.valueOf(engine.trim().toUpperCase());
+    }
 }
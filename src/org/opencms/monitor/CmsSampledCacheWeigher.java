@@ -0,0 +1,379 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.cache.I_CmsCacheWeigher;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Weighs the entries of the memory monitor caches by estimating their memory size in bytes.<p>
+ * 
+ * Objects of the types known to {@link CmsMemoryMonitor#getKnownMemorySize(Object)} are weighed 
+ * with its estimates. Collections, maps and arrays are weighed by sampling up to {@link #SAMPLE_SIZE} 
+ * of their elements and extrapolating the average element size to all elements.<p>
+ * 
+ * Objects of other types are measured by walking their fields, up to a depth of {@link #MAX_DEPTH}. 
+ * This is only done for the first {@link #SAMPLES_PER_CLASS} instances of each class, after that the 
+ * average measured size of the class is used. This way, weighing an object of a sampled class neither 
+ * allocates memory nor uses reflection.<p>
+ * 
+ * All sizes are estimations, objects referenced more than once within an entry are counted each time.
+ * The weigher is thread safe, one instance can be shared by all caches.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsSampledCacheWeigher implements I_CmsCacheWeigher<Object, Object> {
+
+    /**
+     * The sampled sizes of the instances of a class.<p>
+     */
+    private static class CmsClassSample {
+
+        /** The average size of the instances, -1 until enough instances have been sampled. */
+        protected volatile int m_averageSize = -1;
+
+        /** The number of sampled instances. */
+        protected int m_count;
+
+        /** The accessible reference fields of the class and its super classes. */
+        protected Field[] m_fields;
+
+        /** The size of an instance without the objects referenced by its fields. */
+        protected long m_shallowSize;
+
+        /** The total size of the sampled instances. */
+        protected long m_totalSize;
+
+        /**
+         * Creates a new sample for the given class.<p>
+         * 
+         * @param cls the class
+         */
+        protected CmsClassSample(Class<?> cls) {
+
+            m_shallowSize = OBJECT_HEADER_SIZE;
+            List<Field> fields = new ArrayList<Field>();
+            for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    if (field.getType().isPrimitive()) {
+                        m_shallowSize += getPrimitiveSize(field.getType());
+                        continue;
+                    }
+                    m_shallowSize += REFERENCE_SIZE;
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (Exception e) {
+                        // the field is not accessible, only the reference is counted
+                    }
+                }
+            }
+            m_fields = fields.toArray(new Field[fields.size()]);
+        }
+
+        /**
+         * Adds the size of a sampled instance.<p>
+         * 
+         * @param size the size of the sampled instance
+         */
+        protected synchronized void addSample(long size) {
+
+            if (m_averageSize >= 0) {
+                return;
+            }
+            m_count++;
+            m_totalSize += size;
+            if (m_count >= SAMPLES_PER_CLASS) {
+                m_averageSize = (int)Math.min(m_totalSize / m_count, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    /** The maximum depth up to which referenced objects are measured. */
+    public static final int MAX_DEPTH = 3;
+
+    /** The number of instances of a class that are measured before the average size of the class is used. */
+    public static final int SAMPLES_PER_CLASS = 16;
+
+    /** The maximum number of elements sampled from a collection, map or array. */
+    public static final int SAMPLE_SIZE = 8;
+
+    /** The estimated size of a map entry without its key and value. */
+    private static final int MAP_ENTRY_SIZE = 32;
+
+    /** The estimated size of an object header. */
+    private static final int OBJECT_HEADER_SIZE = 16;
+
+    /** The estimated size of an object reference. */
+    private static final int REFERENCE_SIZE = 8;
+
+    /** The sampled sizes by class. */
+    private ConcurrentHashMap<Class<?>, CmsClassSample> m_samples;
+
+    /**
+     * Creates a new weigher.<p>
+     */
+    public CmsSampledCacheWeigher() {
+
+        m_samples = new ConcurrentHashMap<Class<?>, CmsClassSample>();
+    }
+
+    /**
+     * Returns the size of a value of the given primitive type.<p>
+     * 
+     * @param type the primitive type
+     * 
+     * @return the size of a value of the given primitive type
+     */
+    private static int getPrimitiveSize(Class<?> type) {
+
+        if ((type == long.class) || (type == double.class)) {
+            return 8;
+        }
+        if ((type == int.class) || (type == float.class)) {
+            return 4;
+        }
+        if ((type == short.class) || (type == char.class)) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the estimated size of the given object in bytes.<p>
+     * 
+     * @param obj the object, may be <code>null</code>
+     * 
+     * @return the estimated size of the object
+     */
+    public long getSize(Object obj) {
+
+        return getSize(obj, 0);
+    }
+
+    /**
+     * @see org.opencms.cache.I_CmsCacheWeigher#weigh(java.lang.Object, java.lang.Object)
+     */
+    public int weigh(Object key, Object value) {
+
+        return (int)Math.min(getSize(key, 0) + getSize(value, 0), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the estimated size of the given object.<p>
+     * 
+     * @param obj the object
+     * @param depth the depth of the object within the measured entry
+     * 
+     * @return the estimated size of the object
+     */
+    protected long getSize(Object obj, int depth) {
+
+        if (obj == null) {
+            return 0;
+        }
+        int knownSize = CmsMemoryMonitor.getKnownMemorySize(obj);
+        if (knownSize >= 0) {
+            return knownSize;
+        }
+        if ((obj instanceof Enum) || (obj instanceof Class)) {
+            // shared constants, only the reference is counted
+            return 0;
+        }
+        if (depth > MAX_DEPTH) {
+            return OBJECT_HEADER_SIZE;
+        }
+        if (obj instanceof Map) {
+            return getMapSize((Map<?, ?>)obj, depth);
+        }
+        if (obj instanceof Collection) {
+            return getCollectionSize((Collection<?>)obj, depth);
+        }
+        if (obj.getClass().isArray()) {
+            return getArraySize(obj, depth);
+        }
+        return getInstanceSize(obj, depth);
+    }
+
+    /**
+     * Returns the estimated size of the given array, sampling its elements.<p>
+     * 
+     * @param array the array
+     * @param depth the depth of the array within the measured entry
+     * 
+     * @return the estimated size of the array
+     */
+    private long getArraySize(Object array, int depth) {
+
+        int length = Array.getLength(array);
+        Class<?> componentType = array.getClass().getComponentType();
+        if (componentType.isPrimitive()) {
+            return OBJECT_HEADER_SIZE + ((long)length * getPrimitiveSize(componentType));
+        }
+        long size = OBJECT_HEADER_SIZE + ((long)length * REFERENCE_SIZE);
+        if (length > 0) {
+            int samples = Math.min(length, SAMPLE_SIZE);
+            long sampledSize = 0;
+            for (int i = 0; i < samples; i++) {
+                sampledSize += getSize(Array.get(array, (int)(((long)i * length) / samples)), depth + 1);
+            }
+            size += (sampledSize * length) / samples;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated size of the given collection, sampling its elements.<p>
+     * 
+     * Elements of lists with random access are sampled evenly, the elements of other collections 
+     * are sampled in iteration order.<p>
+     * 
+     * @param collection the collection
+     * @param depth the depth of the collection within the measured entry
+     * 
+     * @return the estimated size of the collection
+     */
+    private long getCollectionSize(Collection<?> collection, int depth) {
+
+        int length = collection.size();
+        long size = OBJECT_HEADER_SIZE + ((long)length * REFERENCE_SIZE);
+        if (length == 0) {
+            return size;
+        }
+        int samples = 0;
+        long sampledSize = 0;
+        try {
+            if ((collection instanceof List) && (collection instanceof RandomAccess)) {
+                List<?> list = (List<?>)collection;
+                int count = Math.min(length, SAMPLE_SIZE);
+                for (; samples < count; samples++) {
+                    sampledSize += getSize(list.get((int)(((long)samples * length) / count)), depth + 1);
+                }
+            } else {
+                Iterator<?> it = collection.iterator();
+                while ((samples < SAMPLE_SIZE) && it.hasNext()) {
+                    sampledSize += getSize(it.next(), depth + 1);
+                    samples++;
+                }
+            }
+        } catch (ConcurrentModificationException e) {
+            // the collection has been modified while sampling, use the samples taken so far
+        } catch (IndexOutOfBoundsException e) {
+            // the list has been shortened while sampling, use the samples taken so far
+        }
+        if (samples > 0) {
+            size += (sampledSize * length) / samples;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated size of an object of a type not known to the memory monitor.<p>
+     * 
+     * @param obj the object
+     * @param depth the depth of the object within the measured entry
+     * 
+     * @return the estimated size of the object
+     */
+    private long getInstanceSize(Object obj, int depth) {
+
+        Class<?> cls = obj.getClass();
+        CmsClassSample sample = m_samples.get(cls);
+        if (sample == null) {
+            sample = new CmsClassSample(cls);
+            CmsClassSample existing = m_samples.putIfAbsent(cls, sample);
+            if (existing != null) {
+                sample = existing;
+            }
+        }
+        int averageSize = sample.m_averageSize;
+        if (averageSize >= 0) {
+            return averageSize;
+        }
+        long size = sample.m_shallowSize;
+        for (Field field : sample.m_fields) {
+            try {
+                size += getSize(field.get(obj), depth + 1);
+            } catch (IllegalAccessException e) {
+                // should not happen since the field has been made accessible, only the reference is counted
+            }
+        }
+        if (depth == 0) {
+            // nested objects may have been measured incompletely because of the depth limit
+            sample.addSample(size);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated size of the given map, sampling its entries in iteration order.<p>
+     * 
+     * @param map the map
+     * @param depth the depth of the map within the measured entry
+     * 
+     * @return the estimated size of the map
+     */
+    private long getMapSize(Map<?, ?> map, int depth) {
+
+        int length = map.size();
+        long size = OBJECT_HEADER_SIZE + ((long)length * MAP_ENTRY_SIZE);
+        if (length == 0) {
+            return size;
+        }
+        int samples = 0;
+        long sampledSize = 0;
+        try {
+            Iterator<? extends Map.Entry<?, ?>> it = map.entrySet().iterator();
+            while ((samples < SAMPLE_SIZE) && it.hasNext()) {
+                Map.Entry<?, ?> entry = it.next();
+                sampledSize += getSize(entry.getKey(), depth + 1) + getSize(entry.getValue(), depth + 1);
+                samples++;
+            }
+        } catch (ConcurrentModificationException e) {
+            // the map has been modified while sampling, use the samples taken so far
+        }
+        if (samples > 0) {
+            size += (sampledSize * length) / samples;
+        }
+        return size;
+    }
+}
@@ -43,12 +43,24 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLEAR_CACHE_MEM_CONS_0 = "LOG_CLEAR_CACHE_MEM_CONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_ENGINE_3 = "LOG_MM_CACHE_ENGINE_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CACHE_METRICS_2 = "LOG_MM_CACHE_METRICS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CONNECTIONS_3 = "LOG_MM_CONNECTIONS_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_CONNECTION_METRICS_7 = "LOG_MM_CONNECTION_METRICS_7";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CREATED_1 = "LOG_MM_CREATED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_DEPENDENCY_INDEX_OVERFLOW_2 = "LOG_MM_DEPENDENCY_INDEX_OVERFLOW_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_EMAIL_DISABLED_0 = "LOG_MM_EMAIL_DISABLED_0";
 
@@ -85,6 +97,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_STATUS_EMAIL_SENT_0 = "LOG_MM_STATUS_EMAIL_SENT_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_UNCACHED_ACL_DEPENDENCIES_2 = "LOG_MM_UNCACHED_ACL_DEPENDENCIES_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_UNCACHED_PROPERTY_DEPENDENCIES_2 = "LOG_MM_UNCACHED_PROPERTY_DEPENDENCIES_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_UNCACHED_PUBLISHED_RESOURCES_2 = "LOG_MM_UNCACHED_PUBLISHED_RESOURCES_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_UNCACHED_RESOURCE_DEPENDENCIES_2 = "LOG_MM_UNCACHED_RESOURCE_DEPENDENCIES_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_WARNING_EMAIL_SENT_0 = "LOG_MM_WARNING_EMAIL_SENT_0";
 
@@ -0,0 +1,298 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Invalidates the caches of this server for publish jobs finished on other servers of a cluster.<p>
+ * 
+ * Without this, the caches of a server are only flushed for its own publish jobs. The invalidator sends
+ * a notification with the configured {@link I_CmsClusterTransport} for every publish job finished on this server,
+ * and regularly receives the notifications about the publish jobs of the other servers. For every received
+ * publish job, the published resources are read from the publish history and an
+ * {@link I_CmsEventListener#EVENT_REMOTE_PUBLISH_PROJECT} event is fired, so that the caches remove
+ * only the published resources instead of being flushed completely. If the published resources of a publish job
+ * can not be read, an {@link I_CmsEventListener#EVENT_CLEAR_CACHES} event is fired instead, so that no publish job
+ * is lost.<p>
+ * 
+ * The lag between the time a publish job finished on another server and the time the caches of this server
+ * have been invalidated is recorded. If the clocks of the servers are not in sync, the lag is not exact.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsClusterCacheInvalidator extends Thread {
+
+    /** The default interval in milliseconds to receive notifications. */
+    public static final long DEFAULT_INTERVAL = 5000L;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClusterCacheInvalidator.class);
+
+    /** Indicates that this invalidator is alive. */
+    private volatile boolean m_alive;
+
+    /** The number of publish jobs of other servers handled. */
+    private long m_count;
+
+    /** The interval in milliseconds to receive notifications. */
+    private long m_interval;
+
+    /** The lag in milliseconds of the last publish job handled. */
+    private long m_lastLag;
+
+    /** The maximum lag in milliseconds of all publish jobs handled. */
+    private long m_maxLag;
+
+    /** The publish engine. */
+    private CmsPublishEngine m_publishEngine;
+
+    /** The listener sending the notifications for the publish jobs of this server. */
+    private I_CmsPublishEventListener m_publishListener;
+
+    /** The sum of the lags in milliseconds of all publish jobs handled. */
+    private long m_totalLag;
+
+    /** The transport. */
+    private I_CmsClusterTransport m_transport;
+
+    /**
+     * Creates a new cluster cache invalidator.<p>
+     * 
+     * The invalidator has to be started to receive notifications from other servers.<p>
+     * 
+     * @param publishEngine the publish engine of this server
+     * @param transport the transport to use
+     * @param interval the interval in milliseconds to receive notifications
+     * 
+     * @throws CmsException if the transport can not be initialized
+     */
+    protected CmsClusterCacheInvalidator(CmsPublishEngine publishEngine, I_CmsClusterTransport transport, long interval)
+    throws CmsException {
+
+        super("OpenCms: Cluster cache invalidator");
+        setDaemon(true);
+        m_publishEngine = publishEngine;
+        m_transport = transport;
+        m_interval = interval;
+        m_alive = true;
+        m_transport.initialize(publishEngine);
+        m_publishListener = new CmsPublishEventAdapter() {
+
+            /**
+             * @see org.opencms.publish.CmsPublishEventAdapter#onFinish(org.opencms.publish.CmsPublishJobRunning)
+             */
+            @Override
+            public void onFinish(CmsPublishJobRunning publishJob) {
+
+                try {
+                    m_transport.send(new CmsClusterPublishNotification(
+                        publishJob.getPublishHistoryId(),
+                        System.currentTimeMillis()));
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+            }
+        };
+        m_publishEngine.addPublishListener(m_publishListener);
+    }
+
+    /**
+     * Returns the average lag in milliseconds of all publish jobs of other servers handled.<p>
+     * 
+     * @return the average lag in milliseconds
+     */
+    public synchronized long getAverageLag() {
+
+        return m_count == 0 ? 0 : m_totalLag / m_count;
+    }
+
+    /**
+     * Returns the number of publish jobs of other servers handled.<p>
+     * 
+     * @return the number of publish jobs of other servers handled
+     */
+    public synchronized long getInvalidationCount() {
+
+        return m_count;
+    }
+
+    /**
+     * Returns the lag in milliseconds of the last publish job of another server handled.<p>
+     * 
+     * @return the lag in milliseconds
+     */
+    public synchronized long getLastLag() {
+
+        return m_lastLag;
+    }
+
+    /**
+     * Returns the maximum lag in milliseconds of all publish jobs of other servers handled.<p>
+     * 
+     * @return the maximum lag in milliseconds
+     */
+    public synchronized long getMaxLag() {
+
+        return m_maxLag;
+    }
+
+    /**
+     * Returns the transport.<p>
+     * 
+     * @return the transport
+     */
+    public I_CmsClusterTransport getTransport() {
+
+        return m_transport;
+    }
+
+    /**
+     * @see java.lang.Thread#run()
+     */
+    @Override
+    public void run() {
+
+        while (m_alive) {
+            try {
+                sleep(m_interval);
+            } catch (InterruptedException e) {
+                // check if still alive
+                continue;
+            }
+            try {
+                invalidate();
+            } catch (Throwable t) {
+                // keep the thread alive, the next attempt may succeed
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.ERR_CLUSTER_INVALIDATION_1,
+                        m_transport.getClass().getName()),
+                    t);
+            }
+        }
+    }
+
+    /**
+     * Stops the invalidator and shuts down the transport.<p>
+     */
+    public void shutDown() {
+
+        m_alive = false;
+        interrupt();
+        m_publishEngine.removePublishListener(m_publishListener);
+        m_transport.shutDown();
+    }
+
+    /**
+     * Receives the notifications about the publish jobs of other servers and invalidates the caches.<p>
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected void invalidate() throws CmsException {
+
+        List<CmsClusterPublishNotification> notifications = m_transport.receive();
+        boolean cleared = false;
+        for (CmsClusterPublishNotification notification : notifications) {
+            if (cleared) {
+                // the caches have been cleared after this job has finished
+                continue;
+            }
+            List<CmsPublishedResource> publishedResources;
+            try {
+                publishedResources = readPublishedResources(notification.getPublishHistoryId());
+            } catch (CmsException e) {
+                // the notifications can not be received again, so the caches are cleared completely instead
+                LOG.error(
+                    Messages.get().getBundle().key(
+                        Messages.ERR_CLUSTER_READ_PUBLISHED_RESOURCES_1,
+                        notification.getPublishHistoryId()),
+                    e);
+                OpenCms.fireCmsEvent(new CmsEvent(
+                    I_CmsEventListener.EVENT_CLEAR_CACHES,
+                    new HashMap<String, Object>(0)));
+                cleared = true;
+                continue;
+            }
+            Map<String, Object> eventData = new HashMap<String, Object>();
+            eventData.put(I_CmsEventListener.KEY_PUBLISHID, notification.getPublishHistoryId().toString());
+            eventData.put(I_CmsEventListener.KEY_RESOURCES, publishedResources);
+            OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_REMOTE_PUBLISH_PROJECT, eventData));
+
+            long lag = Math.max(0, System.currentTimeMillis() - notification.getFinishTime());
+            synchronized (this) {
+                m_count++;
+                m_lastLag = lag;
+                m_maxLag = Math.max(m_maxLag, lag);
+                m_totalLag += lag;
+            }
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(
+                    Messages.LOG_CLUSTER_PUBLISH_INVALIDATED_3,
+                    notification.getPublishHistoryId(),
+                    Integer.valueOf(publishedResources.size()),
+                    Long.valueOf(lag)));
+            }
+        }
+    }
+
+    /**
+     * Reads the resources published by the given publish job from the publish history.<p>
+     * 
+     * @param publishHistoryId the publish history id of the publish job
+     * 
+     * @return the published resources
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected List<CmsPublishedResource> readPublishedResources(CmsUUID publishHistoryId) throws CmsException {
+
+        CmsDbContext dbc = m_publishEngine.getDbContext(null);
+        try {
+            return m_publishEngine.getDriverManager().readPublishedResources(dbc, publishHistoryId);
+        } catch (CmsException e) {
+            dbc.rollback();
+            throw e;
+        } finally {
+            dbc.clear();
+        }
+    }
+}
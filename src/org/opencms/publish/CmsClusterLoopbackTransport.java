@@ -0,0 +1,93 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cluster transport that delivers the notifications sent by this server back to this server.<p>
+ * 
+ * This transport is intended for testing the cache invalidation on a single server: every publish job
+ * finished on this server is handled a second time as if it had been finished by another server.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsClusterLoopbackTransport implements I_CmsClusterTransport {
+
+    /** The notifications sent and not yet received. */
+    private Queue<CmsClusterPublishNotification> m_notifications;
+
+    /**
+     * Creates a new loopback transport.<p>
+     */
+    public CmsClusterLoopbackTransport() {
+
+        m_notifications = new ConcurrentLinkedQueue<CmsClusterPublishNotification>();
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#initialize(org.opencms.publish.CmsPublishEngine)
+     */
+    public void initialize(CmsPublishEngine publishEngine) {
+
+        // nothing to initialize
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#receive()
+     */
+    public List<CmsClusterPublishNotification> receive() {
+
+        List<CmsClusterPublishNotification> result = new ArrayList<CmsClusterPublishNotification>();
+        CmsClusterPublishNotification notification = m_notifications.poll();
+        while (notification != null) {
+            result.add(notification);
+            notification = m_notifications.poll();
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#send(org.opencms.publish.CmsClusterPublishNotification)
+     */
+    public void send(CmsClusterPublishNotification notification) {
+
+        m_notifications.add(notification);
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#shutDown()
+     */
+    public void shutDown() {
+
+        m_notifications.clear();
+    }
+}
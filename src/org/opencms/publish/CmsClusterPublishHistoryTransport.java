@@ -0,0 +1,136 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsDbContext;
+import org.opencms.main.CmsException;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cluster transport that reads the publish jobs finished by other servers from the publish history in the database.<p>
+ * 
+ * No messages are exchanged between the servers. Every server writes its finished publish jobs to the
+ * <code>CMS_PUBLISH_JOBS</code> table, so this transport regularly reads the jobs finished since the last
+ * call, and ignores the jobs that have been finished on this server.<p>
+ * 
+ * The finish times of the publish jobs are set by the clocks of the servers that ran them. Each read goes back
+ * {@link #DEFAULT_TIME_OVERLAP} milliseconds before the local time of the previous read, jobs that have already
+ * been handled are skipped. The jobs of servers with clocks behind the clock of this server are therefore
+ * found as long as the difference is smaller than the overlap, clocks ahead of the clock of this server
+ * do not cause any jobs to be missed.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsClusterPublishHistoryTransport implements I_CmsClusterTransport {
+
+    /** The time in milliseconds each read goes back before the local time of the previous read. */
+    public static final long DEFAULT_TIME_OVERLAP = 60000L;
+
+    /** The local time of the previous read. */
+    private long m_lastReadTime;
+
+    /** The publish engine. */
+    private CmsPublishEngine m_publishEngine;
+
+    /** The finish times of the publish jobs already handled, by publish history id. */
+    private Map<CmsUUID, Long> m_seenJobs = new HashMap<CmsUUID, Long>();
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#initialize(org.opencms.publish.CmsPublishEngine)
+     */
+    public synchronized void initialize(CmsPublishEngine publishEngine) {
+
+        m_publishEngine = publishEngine;
+        // the caches are empty at startup, so older publish jobs do not have to be handled
+        m_lastReadTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#receive()
+     */
+    public synchronized List<CmsClusterPublishNotification> receive() throws CmsException {
+
+        List<CmsClusterPublishNotification> result = new ArrayList<CmsClusterPublishNotification>();
+        List<CmsPublishJobInfoBean> publishJobs;
+        // jobs finished by another server after this point in time are found by the next read
+        long readTime = System.currentTimeMillis();
+        CmsDbContext dbc = m_publishEngine.getDbContext(null);
+        try {
+            publishJobs = m_publishEngine.getDriverManager().readPublishJobs(
+                dbc,
+                m_lastReadTime - DEFAULT_TIME_OVERLAP,
+                Long.MAX_VALUE);
+        } catch (CmsException e) {
+            dbc.rollback();
+            throw e;
+        } finally {
+            dbc.clear();
+        }
+        for (CmsPublishJobInfoBean publishJob : publishJobs) {
+            if ((publishJob.getFinishTime() <= 0) || m_seenJobs.containsKey(publishJob.getPublishHistoryId())) {
+                continue;
+            }
+            m_seenJobs.put(publishJob.getPublishHistoryId(), Long.valueOf(publishJob.getFinishTime()));
+            result.add(new CmsClusterPublishNotification(
+                publishJob.getPublishHistoryId(),
+                publishJob.getFinishTime()));
+        }
+        m_lastReadTime = readTime;
+        // forget the jobs that can not be read again
+        Iterator<Long> itFinishTimes = m_seenJobs.values().iterator();
+        while (itFinishTimes.hasNext()) {
+            if (itFinishTimes.next().longValue() < (m_lastReadTime - (2 * DEFAULT_TIME_OVERLAP))) {
+                itFinishTimes.remove();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#send(org.opencms.publish.CmsClusterPublishNotification)
+     */
+    public synchronized void send(CmsClusterPublishNotification notification) {
+
+        // the publish job is written to the publish history anyway, it only must not be handled by this server
+        m_seenJobs.put(notification.getPublishHistoryId(), Long.valueOf(notification.getFinishTime()));
+    }
+
+    /**
+     * @see org.opencms.publish.I_CmsClusterTransport#shutDown()
+     */
+    public synchronized void shutDown() {
+
+        m_seenJobs.clear();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.util.CmsUUID;
+
+import java.io.Serializable;
+
+/**
+ * Notification about a finished publish job, sent between the servers of a cluster.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see I_CmsClusterTransport
+ */
+public class CmsClusterPublishNotification implements Serializable {
+
+    /** The serial version id. */
+    private static final long serialVersionUID = -4315236708253465710L;
+
+    /** The time the publish job finished. */
+    private long m_finishTime;
+
+    /** The publish history id of the publish job. */
+    private CmsUUID m_publishHistoryId;
+
+    /**
+     * Creates a new notification.<p>
+     * 
+     * @param publishHistoryId the publish history id of the publish job
+     * @param finishTime the time the publish job finished
+     */
+    public CmsClusterPublishNotification(CmsUUID publishHistoryId, long finishTime) {
+
+        m_publishHistoryId = publishHistoryId;
+        m_finishTime = finishTime;
+    }
+
+    /**
+     * Returns the time the publish job finished.<p>
+     * 
+     * @return the time the publish job finished
+     */
+    public long getFinishTime() {
+
+        return m_finishTime;
+    }
+
+    /**
+     * Returns the publish history id of the publish job.<p>
+     * 
+     * @return the publish history id of the publish job
+     */
+    public CmsUUID getPublishHistoryId() {
+
+        return m_publishHistoryId;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_publishHistoryId + " (" + m_finishTime + ")";
+    }
+}
@@ -34,6 +34,7 @@ import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsUser;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
 import org.opencms.relations.CmsRelation;
@@ -79,6 +80,15 @@ public class CmsPublishManager {
     /** Milliseconds in a second. */
     private static final int MS_ONE_SECOND = 1000;
 
+    /** The invalidator for the caches of this server, if cluster cache invalidation is configured. */
+    private CmsClusterCacheInvalidator m_clusterCacheInvalidator;
+
+    /** The interval in milliseconds to receive notifications from the other servers of the cluster. */
+    private long m_clusterInterval;
+
+    /** The class name of the cluster transport, <code>null</code> if cluster cache invalidation is disabled. */
+    private String m_clusterTransport;
+
     /** Indicates if the configuration can be modified. */
     private boolean m_frozen;
 
@@ -192,6 +202,36 @@ public class CmsPublishManager {
         m_publishEngine.enableEngine();
     }
 
+    /**
+     * Returns the invalidator for the caches of this server.<p>
+     *
+     * @return the invalidator, or <code>null</code> if cluster cache invalidation is not configured
+     */
+    public CmsClusterCacheInvalidator getClusterCacheInvalidator() {
+
+        return m_clusterCacheInvalidator;
+    }
+
+    /**
+     * Returns the interval in milliseconds to receive notifications from the other servers of the cluster.<p>
+     *
+     * @return the interval in milliseconds
+     */
+    public long getClusterInterval() {
+
+        return m_clusterInterval;
+    }
+
+    /**
+     * Returns the class name of the cluster transport.<p>
+     *
+     * @return the class name of the cluster transport, or <code>null</code> if cluster cache invalidation is disabled
+     */
+    public String getClusterTransport() {
+
+        return m_clusterTransport;
+    }
+
     /**
      * Returns the current running publish job.<p>
      *
@@ -455,6 +495,27 @@ public class CmsPublishManager {
     public void initialize(CmsObject cms) throws CmsException {
 
         m_publishEngine.initialize(cms, m_publishQueuePersistance, m_publishQueueShutdowntime);
+        if (m_clusterTransport != null) {
+            try {
+                I_CmsClusterTransport transport = Class.forName(m_clusterTransport).asSubclass(
+                    I_CmsClusterTransport.class).getConstructor().newInstance();
+                m_clusterCacheInvalidator = new CmsClusterCacheInvalidator(
+                    m_publishEngine,
+                    transport,
+                    m_clusterInterval);
+                m_clusterCacheInvalidator.start();
+                if (CmsLog.INIT.isInfoEnabled()) {
+                    CmsLog.INIT.info(Messages.get().getBundle().key(
+                        Messages.INIT_CLUSTER_TRANSPORT_2,
+                        m_clusterTransport,
+                        Long.valueOf(m_clusterInterval)));
+                }
+            } catch (Exception e) {
+                CmsLog.INIT.error(
+                    Messages.get().getBundle().key(Messages.ERR_CLUSTER_TRANSPORT_INIT_1, m_clusterTransport),
+                    e);
+            }
+        }
         m_frozen = true;
     }
 
@@ -632,6 +693,22 @@ public class CmsPublishManager {
         m_securityManager.removeResourceFromUsersPubList(cms.getRequestContext(), structureIds);
     }
 
+    /**
+     * Sets the cluster transport used to invalidate the caches for publish jobs of other servers.<p>
+     *
+     * @param className the class name of the {@link I_CmsClusterTransport} implementation
+     * @param interval the interval in milliseconds to receive notifications, parsed as <code>long</code>,
+     *      if <code>null</code> the {@link CmsClusterCacheInvalidator#DEFAULT_INTERVAL} is used
+     */
+    public void setClusterTransport(String className, String interval) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_FROZEN_0));
+        }
+        m_clusterTransport = className;
+        m_clusterInterval = interval != null ? Long.parseLong(interval) : CmsClusterCacheInvalidator.DEFAULT_INTERVAL;
+    }
+
     /**
      * Sets the publish engine during initialization.<p>
      *
@@ -710,6 +787,16 @@ public class CmsPublishManager {
         m_securityManager = securityManager;
     }
 
+    /**
+     * Stops the cluster cache invalidation at system shutdown.<p>
+     */
+    public void shutDown() {
+
+        if (m_clusterCacheInvalidator != null) {
+            m_clusterCacheInvalidator.shutDown();
+        }
+    }
+
     /**
      * Starts publishing of enqueued publish jobs.<p>
      */
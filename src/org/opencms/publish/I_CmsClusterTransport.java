@@ -0,0 +1,80 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.main.CmsException;
+
+import java.util.List;
+
+/**
+ * Transport for the notifications about finished publish jobs between the servers of a cluster.<p>
+ * 
+ * All servers of a cluster share the same database, but each server has its own caches. The
+ * {@link CmsClusterCacheInvalidator} sends a notification for every publish job finished on this server,
+ * and regularly receives the notifications about publish jobs finished on the other servers in order
+ * to remove the published resources from the caches of this server.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see CmsClusterPublishHistoryTransport
+ * @see CmsClusterLoopbackTransport
+ */
+public interface I_CmsClusterTransport {
+
+    /**
+     * Initializes the transport.<p>
+     * 
+     * @param publishEngine the publish engine of this server
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    void initialize(CmsPublishEngine publishEngine) throws CmsException;
+
+    /**
+     * Returns the notifications about publish jobs of other servers received since the last call.<p>
+     * 
+     * @return the received notifications, an empty list if there are none
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    List<CmsClusterPublishNotification> receive() throws CmsException;
+
+    /**
+     * Sends a notification about a publish job finished on this server.<p>
+     * 
+     * @param notification the notification to send
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    void send(CmsClusterPublishNotification notification) throws CmsException;
+
+    /**
+     * Shuts down the transport.<p>
+     */
+    void shutDown();
+}
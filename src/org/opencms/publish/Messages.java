@@ -37,6 +37,15 @@ import org.opencms.i18n.I_CmsMessageBundle;
  */
 public final class Messages extends A_CmsMessageBundle {
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_INVALIDATION_1 = "ERR_CLUSTER_INVALIDATION_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_READ_PUBLISHED_RESOURCES_1 = "ERR_CLUSTER_READ_PUBLISHED_RESOURCES_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_TRANSPORT_INIT_1 = "ERR_CLUSTER_TRANSPORT_INIT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_CONFIG_FROZEN_0 = "ERR_CONFIG_FROZEN_0";
 
@@ -112,6 +121,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_PUBLISH_TRHEAD_NAME_0 = "GUI_PUBLISH_TRHEAD_NAME_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CLUSTER_TRANSPORT_2 = "INIT_CLUSTER_TRANSPORT_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_PUBLISH_ENGINE_READY_0 = "INIT_PUBLISH_ENGINE_READY_0";
 
@@ -124,6 +136,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_PUBLISH_REPORT_PATH_SET_1 = "INIT_PUBLISH_REPORT_PATH_SET_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_PUBLISH_INVALIDATED_3 = "LOG_CLUSTER_PUBLISH_INVALIDATED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_PUBLISH_ENGINE_DEAD_JOB_0 = "LOG_PUBLISH_ENGINE_DEAD_JOB_0";
 
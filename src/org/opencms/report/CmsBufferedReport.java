@@ -0,0 +1,345 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import org.opencms.i18n.CmsMessageContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Report that keeps its output until it is flushed to another report.<p>
+ *
+ * This is used to write the output of an operation to the actual report only
+ * after the operation has been completed, for example after a database transaction
+ * has been committed. Everything except the output is read from the actual report.<p>
+ *
+ * @since 9.5.0
+ */
+public class CmsBufferedReport implements I_CmsReport {
+
+    /**
+     * Output kept until the buffer is flushed.<p>
+     */
+    private abstract static class A_CmsBufferedOutput {
+
+        /**
+         * Writes the output to the given report.<p>
+         *
+         * @param report the report to write to
+         */
+        abstract void write(I_CmsReport report);
+    }
+
+    /** The kept output. */
+    private List<A_CmsBufferedOutput> m_output;
+
+    /** The report the output is flushed to. */
+    private I_CmsReport m_report;
+
+    /**
+     * Creates a new buffered report.<p>
+     *
+     * @param report the report the output is flushed to
+     */
+    public CmsBufferedReport(I_CmsReport report) {
+
+        m_report = report;
+        m_output = new ArrayList<A_CmsBufferedOutput>();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#addError(java.lang.Object)
+     */
+    public void addError(final Object obj) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.addError(obj);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#addWarning(java.lang.Object)
+     */
+    public void addWarning(final Object obj) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.addWarning(obj);
+            }
+        });
+    }
+
+    /**
+     * Drops the kept output.<p>
+     */
+    public void clear() {
+
+        m_output.clear();
+    }
+
+    /**
+     * Writes the kept output to the actual report and drops it from this report.<p>
+     */
+    public void flush() {
+
+        for (A_CmsBufferedOutput output : m_output) {
+            output.write(m_report);
+        }
+        m_output.clear();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#formatRuntime()
+     */
+    public String formatRuntime() {
+
+        return m_report.formatRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getErrors()
+     */
+    public List<Object> getErrors() {
+
+        return m_report.getErrors();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getLastEntryTime()
+     */
+    public long getLastEntryTime() {
+
+        return m_report.getLastEntryTime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getLocale()
+     */
+    public Locale getLocale() {
+
+        return m_report.getLocale();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return m_report.getReportUpdate();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getRuntime()
+     */
+    public long getRuntime() {
+
+        return m_report.getRuntime();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getSiteRoot()
+     */
+    public String getSiteRoot() {
+
+        return m_report.getSiteRoot();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getWarnings()
+     */
+    public List<Object> getWarnings() {
+
+        return m_report.getWarnings();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#hasError()
+     */
+    public boolean hasError() {
+
+        return m_report.hasError();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#hasWarning()
+     */
+    public boolean hasWarning() {
+
+        return m_report.hasWarning();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#print(org.opencms.i18n.CmsMessageContainer)
+     */
+    public void print(final CmsMessageContainer container) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.print(container);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#print(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    public void print(final CmsMessageContainer container, final int format) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.print(container, format);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public void println() {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.println();
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(org.opencms.i18n.CmsMessageContainer)
+     */
+    public void println(final CmsMessageContainer container) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.println(container);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    public void println(final CmsMessageContainer container, final int format) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.println(container, format);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public void println(final Throwable t) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.println(t);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#printMessageWithParam(org.opencms.i18n.CmsMessageContainer, java.lang.Object)
+     */
+    public void printMessageWithParam(final CmsMessageContainer container, final Object param) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.printMessageWithParam(container, param);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#printMessageWithParam(int, int, org.opencms.i18n.CmsMessageContainer, java.lang.Object)
+     */
+    public void printMessageWithParam(
+        final int m,
+        final int n,
+        final CmsMessageContainer container,
+        final Object param) {
+
+        m_output.add(new A_CmsBufferedOutput() {
+
+            @Override
+            void write(I_CmsReport report) {
+
+                report.printMessageWithParam(m, n, container, param);
+            }
+        });
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#removeSiteRoot(java.lang.String)
+     */
+    public String removeSiteRoot(String resourcename) {
+
+        return m_report.removeSiteRoot(resourcename);
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#resetRuntime()
+     */
+    public void resetRuntime() {
+
+        m_report.resetRuntime();
+    }
+}
@@ -35,6 +35,11 @@ import org.opencms.file.wrapper.CmsObjectWrapper;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsSpooledInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Represents a single entry in the repository. In the context of OpenCms
@@ -102,6 +107,31 @@ public class CmsRepositoryItem implements I_CmsRepositoryItem {
         return m_resource.getLength();
     }
 
+    /**
+     * @see org.opencms.repository.I_CmsRepositoryItem#getContentStream()
+     */
+    public InputStream getContentStream() {
+
+        if (!m_resource.isFile()) {
+            return null;
+        }
+
+        if (m_content != null) {
+            return new ByteArrayInputStream(m_content);
+        }
+        try {
+            // copy the content first, so the database connection is not held while the client reads it
+            return CmsSpooledInputStream.spool(
+                m_cms.readFileContentStream(m_resource, CmsResourceFilter.IGNORE_EXPIRATION),
+                CmsSpooledInputStream.DEFAULT_MEMORY_THRESHOLD);
+        } catch (CmsException ex) {
+            // noop
+        } catch (IOException ex) {
+            // noop
+        }
+        return null;
+    }
+
     /**
      * @see org.opencms.repository.I_CmsRepositoryItem#getCreationDate()
      */
@@ -27,12 +27,12 @@
 
 package org.opencms.repository;
 
-import org.opencms.file.CmsFile;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsUser;
 import org.opencms.file.CmsVfsResourceAlreadyExistsException;
 import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.file.types.CmsResourceTypeBinary;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.wrapper.CmsObjectWrapper;
 import org.opencms.lock.CmsLock;
@@ -41,6 +41,7 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsSecurityException;
 import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsSpooledInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -367,57 +368,15 @@ public class CmsRepositorySession extends A_CmsRepositorySession {
     public void save(String path, InputStream inputStream, boolean overwrite) throws CmsException, IOException {
 
         path = validatePath(path);
-        byte[] content = CmsFileUtil.readFully(inputStream);
-
+        // receive the content completely first, so a slow client does not keep a database connection busy
+        CmsSpooledInputStream content = CmsSpooledInputStream.spool(
+            inputStream,
+            CmsSpooledInputStream.DEFAULT_MEMORY_THRESHOLD);
         try {
-            CmsFile file = m_cms.readFile(path, CmsResourceFilter.DEFAULT);
-
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_UPDATE_ITEM_1, path));
-            }
-
-            if (overwrite) {
-
-                file.setContents(content);
-
-                CmsLock lock = m_cms.getLock(file);
-
-                // lock resource
-                if (!lock.isInherited()) {
-                    m_cms.lockResource(path);
-                }
-
-                // write file
-                m_cms.writeFile(file);
-
-                if (lock.isNullLock()) {
-                    m_cms.unlockResource(path);
-                }
-            } else {
-
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug(Messages.get().getBundle().key(Messages.ERR_DEST_EXISTS_0));
-                }
-
-                throw new CmsVfsResourceAlreadyExistsException(Messages.get().container(Messages.ERR_DEST_EXISTS_0));
-            }
-        } catch (CmsVfsResourceNotFoundException ex) {
-
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_CREATE_ITEM_1, path));
-            }
-
-            int type = OpenCms.getResourceManager().getDefaultTypeForName(path).getTypeId();
-
-            // create the file
-            CmsResource res = m_cms.createResource(path, type, content, null);
-
-            // unlock file after creation if lock is not inherited
-            if (!m_cms.getLock(res).isInherited()) {
-                m_cms.unlockResource(path);
-            }
+            saveContent(path, content, (int)content.getLength(), overwrite);
+        } finally {
+            content.close();
         }
-
     }
 
     /**
@@ -462,6 +421,79 @@ public class CmsRepositorySession extends A_CmsRepositorySession {
         return ret;
     }
 
+    /**
+     * Saves the spooled content of a file to the VFS.<p>
+     * 
+     * @param path the validated path of the file
+     * @param content the content of the file
+     * @param length the length of the content
+     * @param overwrite if the file should be overwritten if it exists
+     * 
+     * @throws CmsException if something goes wrong
+     * @throws IOException if reading the content fails
+     */
+    private void saveContent(String path, InputStream content, int length, boolean overwrite)
+    throws CmsException, IOException {
+
+        try {
+            // the old content is replaced, so there is no need to read it
+            CmsResource resource = m_cms.readResource(path, CmsResourceFilter.DEFAULT);
+            if (resource.isFolder()) {
+                throw new CmsVfsResourceAlreadyExistsException(Messages.get().container(Messages.ERR_DEST_EXISTS_0));
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_UPDATE_ITEM_1, path));
+            }
+
+            if (overwrite) {
+
+                CmsLock lock = m_cms.getLock(resource);
+
+                // lock resource
+                if (!lock.isInherited()) {
+                    m_cms.lockResource(path);
+                }
+
+                // write file
+                m_cms.writeFileContentStream(resource, content, length);
+
+                if (lock.isNullLock()) {
+                    m_cms.unlockResource(path);
+                }
+            } else {
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.ERR_DEST_EXISTS_0));
+                }
+
+                throw new CmsVfsResourceAlreadyExistsException(Messages.get().container(Messages.ERR_DEST_EXISTS_0));
+            }
+        } catch (CmsVfsResourceNotFoundException ex) {
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_CREATE_ITEM_1, path));
+            }
+
+            int type = OpenCms.getResourceManager().getDefaultTypeForName(path).getTypeId();
+
+            // create the file
+            CmsResource res;
+            if (type == CmsResourceTypeBinary.getStaticTypeId()) {
+                // binary content is not processed, so it can be written without loading it into memory
+                res = m_cms.createResource(path, type, new byte[0], null);
+                res = m_cms.writeFileContentStream(res, content, length);
+            } else {
+                res = m_cms.createResource(path, type, CmsFileUtil.readFully(content, length, false), null);
+            }
+
+            // unlock file after creation if lock is not inherited
+            if (!m_cms.getLock(res).isInherited()) {
+                m_cms.unlockResource(path);
+            }
+        }
+
+    }
+
     /**
      * Validates (translates) the given path and checks if it is filtered out.<p>
      * 
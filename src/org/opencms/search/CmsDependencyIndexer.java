@@ -99,6 +99,11 @@ public class CmsDependencyIndexer extends CmsVfsIndexer {
                             }
                         } while (dep != null);
                     }
+                } else if (pubRes.isFolder()
+                    && pubRes.getState().isChanged()
+                    && CmsProject.isInsideProject(source.getResourcesNames(), pubRes.getRootPath())) {
+                    // changed folders are checked for permissions inherited by the resources below
+                    addResourceToUpdateData(pubRes, result);
                 }
             }
             return result;
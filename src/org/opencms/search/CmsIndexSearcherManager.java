@@ -0,0 +1,157 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+
+/**
+ * Manages the Lucene index searchers of a search index.<p>
+ * 
+ * Searchers are acquired with {@link #acquire()} and must be released with {@link #release(Object)}
+ * after use. This way any number of searches can run concurrently, and a refreshed searcher 
+ * can be installed at any time. The index reader of a replaced searcher is closed after the 
+ * last search using it has released it.<p>
+ * 
+ * In near real time mode, an index writer can be set with {@link #setIndexWriter(IndexWriter)}.
+ * Refreshed searchers are then opened from this writer, so that they also see the changes 
+ * that have not been committed yet. If the writer is closed, the searchers are opened from the 
+ * index directory again.<p>
+ * 
+ * @since 9.5.0
+ */
+public class CmsIndexSearcherManager extends ReferenceManager<IndexSearcher> {
+
+    /** The index directory. */
+    private Directory m_directory;
+
+    /** The similarity used by the searchers. */
+    private Similarity m_similarity;
+
+    /** The index writer used to open near real time searchers, may be <code>null</code>. */
+    private volatile IndexWriter m_writer;
+
+    /**
+     * Creates a new searcher manager for the given index directory.<p>
+     * 
+     * @param directory the index directory
+     * @param similarity the similarity used by the searchers
+     * 
+     * @throws IOException if the index can not be opened
+     */
+    public CmsIndexSearcherManager(Directory directory, Similarity similarity)
+    throws IOException {
+
+        m_directory = directory;
+        m_similarity = similarity;
+        current = createSearcher(DirectoryReader.open(directory));
+    }
+
+    /**
+     * Returns the index writer used to open near real time searchers.<p>
+     * 
+     * @return the index writer used to open near real time searchers, or <code>null</code>
+     */
+    public IndexWriter getIndexWriter() {
+
+        return m_writer;
+    }
+
+    /**
+     * Sets the index writer used to open near real time searchers.<p>
+     * 
+     * @param writer the index writer to use, or <code>null</code> to open searchers from the index directory
+     */
+    public void setIndexWriter(IndexWriter writer) {
+
+        m_writer = writer;
+    }
+
+    /**
+     * @see org.apache.lucene.search.ReferenceManager#decRef(java.lang.Object)
+     */
+    @Override
+    protected void decRef(IndexSearcher reference) throws IOException {
+
+        reference.getIndexReader().decRef();
+    }
+
+    /**
+     * @see org.apache.lucene.search.ReferenceManager#refreshIfNeeded(java.lang.Object)
+     */
+    @Override
+    protected IndexSearcher refreshIfNeeded(IndexSearcher referenceToRefresh) throws IOException {
+
+        DirectoryReader reader = (DirectoryReader)referenceToRefresh.getIndexReader();
+        DirectoryReader newReader;
+        IndexWriter writer = m_writer;
+        try {
+            if (writer != null) {
+                newReader = DirectoryReader.openIfChanged(reader, writer, true);
+            } else {
+                newReader = DirectoryReader.openIfChanged(reader);
+            }
+        } catch (AlreadyClosedException e) {
+            // the writer has been closed, continue with the committed state of the index
+            m_writer = null;
+            newReader = DirectoryReader.open(m_directory);
+        }
+        return newReader == null ? null : createSearcher(newReader);
+    }
+
+    /**
+     * @see org.apache.lucene.search.ReferenceManager#tryIncRef(java.lang.Object)
+     */
+    @Override
+    protected boolean tryIncRef(IndexSearcher reference) {
+
+        return reference.getIndexReader().tryIncRef();
+    }
+
+    /**
+     * Creates a new searcher for the given index reader.<p>
+     * 
+     * @param reader the index reader
+     * 
+     * @return the new searcher
+     */
+    private IndexSearcher createSearcher(IndexReader reader) {
+
+        IndexSearcher searcher = new IndexSearcher(reader);
+        searcher.setSimilarity(m_similarity);
+        return searcher;
+    }
+}
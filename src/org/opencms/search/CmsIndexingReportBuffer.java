@@ -0,0 +1,180 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.report.A_CmsReport;
+import org.opencms.report.I_CmsReport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report that buffers the output of a single indexing thread.<p>
+ *
+ * When resources are indexed in parallel, the output of the indexing threads is
+ * collected in a buffer and written to the report of the indexer in the order the
+ * resources have been scheduled, so that the output lines do not get mixed up.<p>
+ *
+ * @since 9.5.0
+ */
+public class CmsIndexingReportBuffer extends A_CmsReport {
+
+    /**
+     * A single buffered report entry.<p>
+     */
+    private static class CmsReportEntry {
+
+        /** The message, <code>null</code> for a line break. */
+        protected CmsMessageContainer m_container;
+
+        /** The format of the message. */
+        protected int m_format;
+
+        /** The throwable, if a throwable was printed. */
+        protected Throwable m_throwable;
+
+        /**
+         * Creates a new report entry.<p>
+         *
+         * @param container the message, <code>null</code> for a line break
+         * @param format the format of the message
+         * @param throwable the throwable, if a throwable was printed
+         */
+        protected CmsReportEntry(CmsMessageContainer container, int format, Throwable throwable) {
+
+            m_container = container;
+            m_format = format;
+            m_throwable = throwable;
+        }
+    }
+
+    /** The buffered entries. */
+    private List<CmsReportEntry> m_entries;
+
+    /**
+     * Creates a new report buffer for the given report.<p>
+     *
+     * @param report the report the buffer will be written to
+     */
+    public CmsIndexingReportBuffer(I_CmsReport report) {
+
+        init(report.getLocale(), report.getSiteRoot());
+        m_entries = new ArrayList<CmsReportEntry>();
+    }
+
+    /**
+     * Writes all buffered entries to the given report and clears the buffer.<p>
+     *
+     * @param report the report to write the buffered entries to
+     */
+    public void flush(I_CmsReport report) {
+
+        List<CmsReportEntry> entries;
+        synchronized (m_entries) {
+            entries = new ArrayList<CmsReportEntry>(m_entries);
+            m_entries.clear();
+        }
+        for (CmsReportEntry entry : entries) {
+            if (entry.m_throwable != null) {
+                report.println(entry.m_throwable);
+            } else if (entry.m_container == null) {
+                report.println();
+            } else {
+                report.print(entry.m_container, entry.m_format);
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#getReportUpdate()
+     */
+    public String getReportUpdate() {
+
+        return "";
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public void print(CmsMessageContainer container, int format) {
+
+        add(new CmsReportEntry(container, format, null));
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println()
+     */
+    public void println() {
+
+        add(new CmsReportEntry(null, FORMAT_DEFAULT, null));
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#println(org.opencms.i18n.CmsMessageContainer, int)
+     */
+    @Override
+    public void println(CmsMessageContainer container, int format) {
+
+        print(container, format);
+        println();
+    }
+
+    /**
+     * @see org.opencms.report.I_CmsReport#println(java.lang.Throwable)
+     */
+    public void println(Throwable t) {
+
+        add(new CmsReportEntry(null, FORMAT_ERROR, t));
+    }
+
+    /**
+     * @see org.opencms.report.A_CmsReport#print(java.lang.String, int)
+     */
+    @Override
+    protected void print(String value, int format) {
+
+        print(
+            org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_ARGUMENT_1, value),
+            format);
+    }
+
+    /**
+     * Adds an entry to the buffer.<p>
+     *
+     * @param entry the entry to add
+     */
+    private void add(CmsReportEntry entry) {
+
+        synchronized (m_entries) {
+            m_entries.add(entry);
+        }
+        setLastEntryTime(System.currentTimeMillis());
+    }
+}
@@ -28,29 +28,151 @@
 package org.opencms.search;
 
 import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 
 import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
 /**
  * Implements the management of indexing threads.<p>
  * 
+ * If the manager is configured with more than one indexing thread, the documents are extracted 
+ * by a bounded pool of worker threads, while all modifications of the index are still done
+ * by the thread that calls {@link #createIndexingThread(CmsVfsIndexer, I_CmsIndexWriter, CmsResource)}.
+ * The extracted documents are handed over to the index writer in the order the resources have been
+ * scheduled, and the report output of the workers is written in the same order.<p>
+ * 
+ * With a single indexing thread, each resource is indexed in a new thread the manager waits for.<p>
+ * 
  * @since 6.0.0 
  */
 public class CmsIndexingThreadManager {
 
+    /**
+     * A document extraction that has been scheduled in the worker pool, but not yet handed over to the index writer.<p>
+     */
+    private class CmsIndexingTask implements Runnable {
+
+        /** The future of the task. */
+        protected Future<?> m_future;
+
+        /** The indexer that scheduled the task. */
+        protected CmsVfsIndexer m_indexer;
+
+        /** The report buffer of the task. */
+        protected CmsIndexingReportBuffer m_reportBuffer;
+
+        /** The resource to index. */
+        protected CmsResource m_resource;
+
+        /** The time the extraction has been started, 0 if it has not been started yet. */
+        protected volatile long m_startTime;
+
+        /** The indexing thread doing the actual work, it is executed by the pool and never started itself. */
+        protected CmsIndexingThread m_thread;
+
+        /** Flag indicating if the task has been abandoned. */
+        private boolean m_abandoned;
+
+        /** Flag indicating if the task has finished. */
+        private boolean m_finished;
+
+        /**
+         * Creates a new indexing task.<p>
+         * 
+         * @param indexer the indexer that scheduled the task
+         * @param cms the OpenCms user context of the task, must not be shared with other tasks
+         * @param res the resource to index
+         * @param count the report count
+         */
+        protected CmsIndexingTask(CmsVfsIndexer indexer, CmsObject cms, CmsResource res, int count) {
+
+            m_indexer = indexer;
+            m_resource = res;
+            I_CmsReport report = indexer.getReport();
+            m_reportBuffer = (report != null) ? new CmsIndexingReportBuffer(report) : null;
+            m_thread = new CmsIndexingThread(cms, res, indexer.getIndex(), count, m_reportBuffer);
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            m_startTime = System.currentTimeMillis();
+            try {
+                m_thread.run();
+            } finally {
+                boolean abandoned;
+                synchronized (this) {
+                    m_finished = true;
+                    abandoned = m_abandoned;
+                }
+                if (abandoned) {
+                    // this worker had been replaced, so remove the additional worker again
+                    resizePool(-1);
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(Messages.get().getBundle().key(
+                            Messages.LOG_ABANDONED_THREAD_FINISHED_1,
+                            m_resource.getRootPath()));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks the task as abandoned.<p>
+         * 
+         * @return <code>true</code> if the task was still running and has been abandoned
+         */
+        protected synchronized boolean abandon() {
+
+            if (m_finished) {
+                return false;
+            }
+            m_abandoned = true;
+            return true;
+        }
+    }
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsIndexingThreadManager.class);
 
+    /** Counter for the names of the worker threads. */
+    private static final AtomicInteger POOL_THREAD_COUNT = new AtomicInteger();
+
     /** Number of threads abandoned. */
     private int m_abandonedCounter;
 
+    /** The time the first indexing thread was started. */
+    private long m_firstStartTime;
+
+    /** The name of the index the last document was written to. */
+    private String m_indexName;
+
+    /** The number of threads used to extract documents. */
+    private int m_indexingThreads;
+
+    /** The time the last document was handed over to the index writer. */
+    private long m_lastHandOffTime;
+
     /** The time the last error was written to the log. */
     private long m_lastLogErrorTime;
 
@@ -60,6 +182,12 @@ public class CmsIndexingThreadManager {
     /** The maximum number of modifications before a commit in the search index is triggered. */
     private int m_maxModificationsBeforeCommit;
 
+    /** The tasks that have been scheduled but not yet handed over to the index writer, in scheduling order. */
+    private LinkedList<CmsIndexingTask> m_pendingTasks;
+
+    /** The worker pool, only used with more than one indexing thread. */
+    private ThreadPoolExecutor m_pool;
+
     /** Number of thread returned. */
     private int m_returnedCounter;
 
@@ -69,6 +197,12 @@ public class CmsIndexingThreadManager {
     /** Timeout for abandoning threads. */
     private long m_timeout;
 
+    /** The index writer for the pending tasks. */
+    private I_CmsIndexWriter m_writer;
+
+    /** Number of documents written to or deleted from the index. */
+    private int m_writtenCounter;
+
     /**
      * Creates and starts a thread manager for indexing threads.<p>
      * 
@@ -77,24 +211,48 @@ public class CmsIndexingThreadManager {
      */
     public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit) {
 
+        this(timeout, maxModificationsBeforeCommit, 1);
+    }
+
+    /**
+     * Creates and starts a thread manager for indexing threads.<p>
+     * 
+     * @param timeout timeout after a thread is abandoned
+     * @param maxModificationsBeforeCommit the maximum number of modifications before a commit in the search index is triggered
+     * @param indexingThreads the number of threads used to extract documents in parallel
+     */
+    public CmsIndexingThreadManager(long timeout, int maxModificationsBeforeCommit, int indexingThreads) {
+
         m_timeout = timeout;
         m_maxModificationsBeforeCommit = maxModificationsBeforeCommit;
+        m_indexingThreads = Math.max(1, indexingThreads);
+        m_pendingTasks = new LinkedList<CmsIndexingTask>();
     }
 
     /**
      * Creates and starts a new indexing thread for a resource.<p>
      * 
-     * After an indexing thread was started, the manager suspends itself 
+     * With a single indexing thread, after an indexing thread was started, the manager suspends itself 
      * and waits for an amount of time specified by the <code>timeout</code>
      * value. If the timeout value is reached, the indexing thread is
      * aborted by an interrupt signal.<p>
      * 
+     * With more than one indexing thread, the document is extracted in the worker pool
+     * and this method only waits if too many extracted documents are waiting to be written to the index.<p>
+     * 
      * @param indexer the VFS indexer to create the index thread for 
      * @param writer the index writer that can update the index
      * @param res the resource
      */
     public void createIndexingThread(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
 
+        if (m_firstStartTime == 0) {
+            m_firstStartTime = System.currentTimeMillis();
+        }
+        if (m_indexingThreads > 1) {
+            scheduleIndexingTask(indexer, writer, res);
+            return;
+        }
         I_CmsReport report = indexer.getReport();
         m_startedCounter++;
         CmsIndexingThread thread = new CmsIndexingThread(
@@ -114,52 +272,28 @@ public class CmsIndexingThreadManager {
             // the thread has not finished - so it must be marked as an abandoned thread 
             m_abandonedCounter++;
             thread.interrupt();
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
-            }
-            if (report != null) {
-                report.println();
-                report.print(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
-                    I_CmsReport.FORMAT_WARNING);
-                report.println(
-                    Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
-                    I_CmsReport.FORMAT_WARNING);
-            }
+            reportTimeout(report, res);
         } else {
             // the thread finished normally
             m_returnedCounter++;
         }
-        I_CmsSearchDocument doc = thread.getResult();
-        if (doc != null) {
-            // write the document to the index
-            indexer.updateResource(writer, res.getRootPath(), doc);
-        } else {
-            indexer.deleteResource(writer, new CmsPublishedResource(res));
-        }
-        if ((m_startedCounter % m_maxModificationsBeforeCommit) == 0) {
-            try {
-                writer.commit();
-            } catch (IOException e) {
-                if (LOG.isWarnEnabled()) {
-                    LOG.warn(
-                        Messages.get().getBundle().key(
-                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
-                            indexer.getIndex().getName(),
-                            indexer.getIndex().getPath()),
-                        e);
-                }
-            }
-        }
+        writeDocument(indexer, writer, res, thread.getResult());
     }
 
     /**
      * Returns if the indexing manager still have indexing threads.<p>
      * 
+     * With more than one indexing thread, this method writes all pending documents
+     * to the index before it returns, so it must be called from the thread that owns the index writer.<p>
+     * 
      * @return true if the indexing manager still have indexing threads
      */
     public boolean isRunning() {
 
+        if (!m_pendingTasks.isEmpty()) {
+            handOffPendingTasks(0);
+        }
+
         if (m_lastLogErrorTime <= 0) {
             m_lastLogErrorTime = System.currentTimeMillis();
             m_lastLogWarnTime = m_lastLogErrorTime;
@@ -200,6 +334,7 @@ public class CmsIndexingThreadManager {
      * (equals to the number of indexed files), the number of returned
      * threads (equals to the number of successfully indexed files),
      * and the number of abandoned threads (hanging threads reaching the timeout).
+     * It also reports the throughput of the index in documents per second.<p>
      * 
      * @param report the report to write the statistics to
      */
@@ -219,6 +354,257 @@ public class CmsIndexingThreadManager {
                 // only write to the log if report is not already a log report
                 LOG.info(message.key());
             }
+
+            long duration = m_lastHandOffTime - m_firstStartTime;
+            if ((m_startedCounter > 0) && (duration > 0)) {
+                CmsMessageContainer throughput = Messages.get().container(
+                    Messages.RPT_SEARCH_INDEXING_THROUGHPUT_3,
+                    m_indexName,
+                    String.valueOf(Math.round((m_startedCounter * 1000.0) / duration)),
+                    Integer.valueOf(m_indexingThreads));
+                report.println(throughput);
+                if (!(report instanceof CmsLogReport) && LOG.isInfoEnabled()) {
+                    LOG.info(throughput.key());
+                }
+            }
+        }
+    }
+
+    /**
+     * Shuts down the worker pool of this manager.<p>
+     * 
+     * Pending documents that have not been written to the index are discarded.
+     * Call {@link #isRunning()} before to make sure all documents have been written.<p>
+     */
+    public void shutDown() {
+
+        if (m_pool != null) {
+            m_pool.shutdownNow();
+            m_pool = null;
+        }
+        m_pendingTasks.clear();
+    }
+
+    /**
+     * Changes the number of worker threads of the pool by the given delta.<p>
+     * 
+     * This is used to replace workers that are blocked by abandoned tasks.<p>
+     * 
+     * @param delta the number of workers to add (may be negative)
+     */
+    protected synchronized void resizePool(int delta) {
+
+        ThreadPoolExecutor pool = m_pool;
+        if ((pool == null) || pool.isShutdown()) {
+            return;
+        }
+        if (delta > 0) {
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+        } else {
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+        }
+    }
+
+    /**
+     * Creates the worker pool.<p>
+     * 
+     * @return the worker pool
+     */
+    private ThreadPoolExecutor createPool() {
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: Indexing worker " + POOL_THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+        return new ThreadPoolExecutor(
+            m_indexingThreads,
+            m_indexingThreads,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            threadFactory);
+    }
+
+    /**
+     * Hands over the oldest pending tasks to the index writer until no more than the given number of tasks are pending.<p>
+     * 
+     * @param maxPending the maximum number of pending tasks
+     */
+    private void handOffPendingTasks(int maxPending) {
+
+        while (m_pendingTasks.size() > maxPending) {
+            CmsIndexingTask task = m_pendingTasks.removeFirst();
+            if (!waitForTask(task)) {
+                // the thread has been interrupted, so stop indexing and discard the pending documents
+                m_pendingTasks.addFirst(task);
+                for (CmsIndexingTask pendingTask : m_pendingTasks) {
+                    if (pendingTask.abandon()) {
+                        m_abandonedCounter++;
+                        pendingTask.m_future.cancel(true);
+                    } else {
+                        m_returnedCounter++;
+                    }
+                }
+                m_pendingTasks.clear();
+                return;
+            }
+            if (task.m_reportBuffer != null) {
+                task.m_reportBuffer.flush(task.m_indexer.getReport());
+            }
+            if (task.abandon()) {
+                // the task has not finished - so it must be marked as abandoned 
+                m_abandonedCounter++;
+                task.m_future.cancel(true);
+                // replace the blocked worker, it will be removed when the abandoned task terminates
+                resizePool(1);
+                reportTimeout(task.m_indexer.getReport(), task.m_resource);
+                writeDocument(task.m_indexer, m_writer, task.m_resource, null);
+            } else {
+                // the task finished normally
+                m_returnedCounter++;
+                writeDocument(task.m_indexer, m_writer, task.m_resource, task.m_thread.getResult());
+            }
+        }
+    }
+
+    /**
+     * Writes the timeout information for the given resource to the log and the report.<p>
+     * 
+     * @param report the report to write to
+     * @param res the resource that could not be indexed in time
+     */
+    private void reportTimeout(I_CmsReport report, CmsResource res) {
+
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_INDEXING_TIMEOUT_1, res.getRootPath()));
+        }
+        if (report != null) {
+            report.println();
+            report.print(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_FAILED_0),
+                I_CmsReport.FORMAT_WARNING);
+            report.println(
+                Messages.get().container(Messages.RPT_SEARCH_INDEXING_TIMEOUT_1, res.getRootPath()),
+                I_CmsReport.FORMAT_WARNING);
+        }
+    }
+
+    /**
+     * Schedules the document extraction for the given resource in the worker pool.<p>
+     * 
+     * @param indexer the VFS indexer to create the index thread for 
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     */
+    private void scheduleIndexingTask(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res) {
+
+        if (Thread.currentThread().isInterrupted()) {
+            // indexing has been stopped, e.g. during shutdown
+            return;
+        }
+        if ((m_writer != null) && (m_writer != writer)) {
+            // documents must be written with the writer they have been scheduled for
+            handOffPendingTasks(0);
+        }
+        m_writer = writer;
+        // the request context is modified during the extraction, so each worker needs its own context
+        CmsObject cms;
+        try {
+            cms = OpenCms.initCmsObject(indexer.getCms());
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return;
+        }
+        if (m_pool == null) {
+            m_pool = createPool();
+        }
+        m_startedCounter++;
+        CmsIndexingTask task = new CmsIndexingTask(indexer, cms, res, m_startedCounter);
+        task.m_future = m_pool.submit(task);
+        m_pendingTasks.add(task);
+        // limit the number of extracted documents waiting for the index writer
+        handOffPendingTasks(2 * m_indexingThreads);
+    }
+
+    /**
+     * Waits until the given task has finished, or until the timeout for the task is reached.<p>
+     * 
+     * The timeout is measured from the time the worker has started the task.<p>
+     * 
+     * @param task the task to wait for
+     * 
+     * @return <code>false</code> if the current thread has been interrupted while waiting
+     */
+    private boolean waitForTask(CmsIndexingTask task) {
+
+        while (!task.m_future.isDone()) {
+            long startTime = task.m_startTime;
+            long wait = (startTime == 0) ? m_timeout : ((startTime + m_timeout) - System.currentTimeMillis());
+            if (wait <= 0) {
+                return true;
+            }
+            try {
+                task.m_future.get(wait, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (task.m_startTime != 0) {
+                    // if the task had not been started, wait again with the start time now known 
+                    if ((task.m_startTime + m_timeout) <= System.currentTimeMillis()) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // restore the interrupt flag, so the caller can stop as well
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (ExecutionException e) {
+                // can not happen, the indexing thread catches all exceptions
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the document for a resource to the index, or deletes the resource from the index 
+     * if no document could be created.<p>
+     * 
+     * @param indexer the VFS indexer for the resource
+     * @param writer the index writer that can update the index
+     * @param res the resource
+     * @param doc the document for the resource, may be <code>null</code>
+     */
+    private void writeDocument(CmsVfsIndexer indexer, I_CmsIndexWriter writer, CmsResource res, I_CmsSearchDocument doc) {
+
+        if (doc != null) {
+            // write the document to the index
+            indexer.updateResource(writer, res.getRootPath(), doc);
+        } else {
+            indexer.deleteResource(writer, new CmsPublishedResource(res));
+        }
+        m_writtenCounter++;
+        m_indexName = indexer.getIndex().getName();
+        m_lastHandOffTime = System.currentTimeMillis();
+        if ((m_writtenCounter % m_maxModificationsBeforeCommit) == 0) {
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_IO_INDEX_WRITER_COMMIT_2,
+                            indexer.getIndex().getName(),
+                            indexer.getIndex().getPath()),
+                        e);
+                }
+            }
         }
     }
-}
\ No newline at end of file
+}
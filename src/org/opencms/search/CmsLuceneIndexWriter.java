@@ -121,6 +121,10 @@ public class CmsLuceneIndexWriter implements I_CmsIndexWriter {
                 m_index.getPath()));
         }
         m_indexWriter.commit();
+        if (m_index != null) {
+            // make the committed changes visible to searches
+            m_index.indexWriterCommitted(this);
+        }
     }
 
     /**
@@ -50,6 +50,7 @@ import org.opencms.search.documents.I_CmsTermHighlighter;
 import org.opencms.search.fields.CmsLuceneFieldConfiguration;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
+import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
@@ -66,6 +67,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.analysis.Analyzer;
@@ -95,6 +97,7 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.similarities.Similarity;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.IOContext;
@@ -181,6 +184,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Constant for years max range span in document search. */
     public static final int MAX_YEAR_RANGE = 12;
 
+    /** Constant for additional parameter to enable near real time searches (default: false). */
+    public static final String NEAR_REAL_TIME = A_PARAM_PREFIX + ".nearRealTime";
+
     /** Constant for additional parameter to enable permission checks (default: true). */
     public static final String PERMISSIONS = A_PARAM_PREFIX + ".checkPermissions";
 
@@ -202,6 +208,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** Offline ("offline") index rebuild mode. */
     public static final String REBUILD_MODE_OFFLINE = "offline";
 
+    /** Constant for additional parameter for the minimum milliseconds between two searcher refreshes (default: 0). */
+    public static final String REFRESH_INTERVAL = A_PARAM_PREFIX + ".refreshInterval";
+
     /** Constant for additional parameter to enable time range checks (default: true). */
     public static final String TIME_RANGE = A_PARAM_PREFIX + ".checkTimeRange";
 
@@ -229,6 +238,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSearchIndex.class);
 
+    /** The maximum number of cached permission filters, one is required per set of principals. */
+    private static final int PERMISSION_FILTERS_MAX = 256;
+
     /** The configured Lucene analyzer used for this index. */
     private Analyzer m_analyzer;
 
@@ -268,15 +280,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     private boolean m_ignoreExpiration;
 
-    /** The Lucene index searcher to use. */
-    private IndexSearcher m_indexSearcher;
-
     /** The index writer to use. */
     private I_CmsIndexWriter m_indexWriter;
 
     /** Signals whether the language detection. */
     private boolean m_languageDetection;
 
+    /** The time of the last searcher refresh. */
+    private volatile long m_lastRefresh;
+
     /** The locale of this index. */
     private Locale m_locale;
 
@@ -289,9 +301,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The name of this index. */
     private String m_name;
 
+    /** Indicates if searchers see the changes of the index writer before they are committed. */
+    private boolean m_nearRealTime;
+
     /** The path where this index stores it's data in the "real" file system. */
     private String m_path;
 
+    /** The cached permission filters by the key of the principals. */
+    private Map<String, CmsSearchPermissionFilter> m_permissionFilters;
+
     /** The thread priority for a search. */
     private int m_priority;
 
@@ -301,9 +319,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The rebuild mode for this index. */
     private String m_rebuild;
 
+    /** The minimum milliseconds between two searcher refreshes. */
+    private long m_refreshInterval;
+
     /** Controls if a resource requires view permission to be displayed in the result list. */
     private boolean m_requireViewPermission;
 
+    /** The manager for the Lucene index searchers of this index. */
+    private volatile CmsIndexSearcherManager m_searcherManager;
+
     /** The cms specific Similarity implementation. */
     private final Similarity m_sim = new CmsSearchSimilarity();
 
@@ -488,6 +512,35 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return result;
     }
 
+    /**
+     * Acquires the current Lucene index searcher of this index.<p>
+     * 
+     * The searcher is reserved for the caller until it is released with {@link #releaseSearcher(IndexSearcher)},
+     * even if a newer searcher is installed in the meantime. Any number of threads can search 
+     * with acquired searchers at the same time.<p>
+     * 
+     * @return the current index searcher, or <code>null</code> if no searcher is available
+     */
+    public IndexSearcher acquireSearcher() {
+
+        CmsIndexSearcherManager manager = m_searcherManager;
+        while (manager != null) {
+            try {
+                return manager.acquire();
+            } catch (AlreadyClosedException e) {
+                // the searcher manager has been replaced in the meantime, try again with the new one
+                if (manager == m_searcherManager) {
+                    return null;
+                }
+                manager = m_searcherManager;
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
+                return null;
+            }
+        }
+        return null;
+    }
+
     /**
      * Adds a parameter.<p>
      * 
@@ -546,6 +599,18 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             } catch (NumberFormatException e) {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
             }
+        } else if (NEAR_REAL_TIME.equals(key)) {
+            m_nearRealTime = Boolean.valueOf(value).booleanValue();
+        } else if (REFRESH_INTERVAL.equals(key)) {
+            try {
+                m_refreshInterval = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
+            if (m_refreshInterval < 0) {
+                m_refreshInterval = 0;
+                LOG.error(Messages.get().getBundle().key(Messages.LOG_INVALID_PARAM_3, value, key, getName()));
+            }
         }
     }
 
@@ -597,6 +662,22 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return isEnabled();
     }
 
+    /**
+     * Discards the cached permission filters of this index.<p>
+     * 
+     * This is required if the access control of resources has changed without the documents 
+     * of the resources being updated in the index.<p>
+     * 
+     * @see CmsSearchPermissionFilter
+     */
+    public void clearPermissionFilters() {
+
+        Map<String, CmsSearchPermissionFilter> permissionFilters = m_permissionFilters;
+        if (permissionFilters != null) {
+            permissionFilters.clear();
+        }
+    }
+
     /**
      * Creates an empty document that can be used by this search field configuration.<p>
      * 
@@ -664,6 +745,12 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         if (m_luceneRAMBufferSizeMB != null) {
             result.put(LUCENE_RAM_BUFFER_SIZE_MB, String.valueOf(m_luceneRAMBufferSizeMB));
         }
+        if (isNearRealTime()) {
+            result.put(NEAR_REAL_TIME, String.valueOf(m_nearRealTime));
+        }
+        if (getRefreshInterval() > 0) {
+            result.put(REFRESH_INTERVAL, String.valueOf(m_refreshInterval));
+        }
         // always write time range check parameter because of logic change in OpenCms 8.0
         result.put(TIME_RANGE, String.valueOf(m_checkTimeRange));
         return result;
@@ -678,11 +765,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     public I_CmsSearchDocument getDocument(int docId) {
 
-        try {
-            IndexSearcher searcher = getSearcher();
-            return new CmsLuceneDocument(searcher.doc(docId));
-        } catch (IOException e) {
-            // ignore, return null and assume document was not found
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher != null) {
+            try {
+                return new CmsLuceneDocument(searcher.doc(docId));
+            } catch (IOException e) {
+                // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
+            }
         }
         return null;
     }
@@ -715,10 +806,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * 
      * @return the first document where the given term matches the selected index field
      */
-    public synchronized I_CmsSearchDocument getDocument(String field, String term) {
+    public I_CmsSearchDocument getDocument(String field, String term) {
 
         Document result = null;
-        IndexSearcher searcher = getSearcher();
+        IndexSearcher searcher = acquireSearcher();
         if (searcher != null) {
             // search for an exact match on the selected field
             Term resultTerm = new Term(field, term);
@@ -729,6 +820,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 }
             } catch (IOException e) {
                 // ignore, return null and assume document was not found
+            } finally {
+                releaseSearcher(searcher);
             }
         }
         if (result != null) {
@@ -948,14 +1041,37 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_rebuild;
     }
 
+    /**
+     * Returns the minimum milliseconds between two refreshes of the index searcher.<p>
+     * 
+     * A value of 0 means that the index is checked for changes on every search.<p>
+     *
+     * @return the minimum milliseconds between two refreshes of the index searcher
+     */
+    public long getRefreshInterval() {
+
+        return m_refreshInterval;
+    }
+
     /**
      * Returns the Lucene index searcher used for this search index.<p>
+     * 
+     * The returned searcher is not reserved for the caller, so its index reader may be closed
+     * as soon as the index changes.<p>
      *
      * @return the Lucene index searcher used for this search index
+     * 
+     * @deprecated use {@link #acquireSearcher()} and release the searcher with {@link #releaseSearcher(IndexSearcher)} 
+     *      when the search is finished
      */
+    @Deprecated
     public IndexSearcher getSearcher() {
 
-        return m_indexSearcher;
+        IndexSearcher searcher = acquireSearcher();
+        if (searcher != null) {
+            releaseSearcher(searcher);
+        }
+        return searcher;
     }
 
     /**
@@ -1194,6 +1310,17 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_languageDetection;
     }
 
+    /**
+     * Returns <code>true</code> if the index searcher sees the changes of the index writer 
+     * used for incremental updates before they are committed.<p>
+     * 
+     * @return <code>true</code> if near real time searches are enabled
+     */
+    public boolean isNearRealTime() {
+
+        return m_nearRealTime;
+    }
+
     /**
      * Returns <code>true</code> if a resource requires read permission to be included in the result list.<p>
      * 
@@ -1219,6 +1346,21 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return m_indexWriter != null;
     }
 
+    /**
+     * Releases a Lucene index searcher acquired with {@link #acquireSearcher()}.<p>
+     * 
+     * @param searcher the searcher to release
+     */
+    public void releaseSearcher(IndexSearcher searcher) {
+
+        try {
+            // the reader is closed once the last reference to an outdated searcher is released
+            searcher.getIndexReader().decRef();
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
+        }
+    }
+
     /**
      * Removes an index source from this search index.<p>
      * 
@@ -1242,7 +1384,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      * 
      * @throws CmsSearchException if something goes wrong
      */
-    public synchronized CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) throws CmsSearchException {
+    public CmsSearchResultList search(CmsObject cms, CmsSearchParameters params) throws CmsSearchException {
 
         long timeTotal = -System.currentTimeMillis();
         long timeLucene;
@@ -1260,6 +1402,9 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
         int previousPriority = Thread.currentThread().getPriority();
 
+        // the index searcher, reserved for this search
+        IndexSearcher searcher = null;
+
         try {
             // copy the user OpenCms context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
@@ -1290,6 +1435,11 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 params.getMaxDateLastModified());
             // append date created filter
             filter = appendDateCreatedFilter(filter, params.getMinDateCreated(), params.getMaxDateCreated());
+            // exclude the documents the user is already known not to be allowed to read
+            CmsSearchPermissionFilter permissionFilter = getPermissionFilter(searchCms);
+            if (permissionFilter != null) {
+                filter.add(new FilterClause(permissionFilter, BooleanClause.Occur.MUST));
+            }
 
             // the search query to use, will be constructed in the next lines 
             Query query = null;
@@ -1298,7 +1448,7 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
             // get an index searcher that is certainly up to date
             indexSearcherUpdate();
-            IndexSearcher searcher = getSearcher();
+            searcher = acquireSearcher();
 
             if (!params.isIgnoreQuery()) {
                 // since OpenCms 8 the query can be empty in which case only filters are used for the result
@@ -1431,7 +1581,13 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                         Document doc = searcher.doc(hits.scoreDocs[i].doc, returnFields);
                         I_CmsSearchDocument searchDoc = new CmsLuceneDocument(doc);
                         searchDoc.setScore(hits.scoreDocs[i].score);
-                        if ((isInTimeRange(doc, params)) && (hasReadPermission(searchCms, searchDoc))) {
+                        if ((isInTimeRange(doc, params))
+                            && (hasReadPermission(
+                                searchCms,
+                                searchDoc,
+                                permissionFilter,
+                                searcher.getIndexReader(),
+                                hits.scoreDocs[i].doc))) {
                             // user has read permission
                             if (cnt >= start) {
                                 // do not use the resource to obtain the raw content, read it from the lucene document!
@@ -1469,6 +1625,10 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             throw new CmsSearchException(Messages.get().container(Messages.ERR_SEARCH_PARAMS_1, params), e);
         } finally {
 
+            // release the index searcher
+            if (searcher != null) {
+                releaseSearcher(searcher);
+            }
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
         }
@@ -1968,6 +2128,11 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             indexConfig.setSimilarity(m_sim);
 
             indexWriter = new IndexWriter(dir, indexConfig);
+            CmsIndexSearcherManager manager = m_searcherManager;
+            if (!create && isNearRealTime() && (manager != null)) {
+                // let the searchers see the changes of the writer used for incremental updates
+                manager.setIndexWriter(indexWriter);
+            }
         } catch (Exception e) {
             throw new CmsIndexException(Messages.get().container(
                 Messages.ERR_IO_INDEX_WRITER_OPEN_2,
@@ -2096,7 +2261,8 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             }
             termsStr = buf.toString();
         }
-        Filter result = m_displayFilters.get((new StringBuffer(64)).append(field).append('|').append(termsStr).toString());
+        String key = (new StringBuffer(64)).append(field).append('|').append(termsStr).toString();
+        Filter result = m_displayFilters.get(key);
         if (result == null) {
             List<Term> terms = new ArrayList<Term>();
             if (termsList == null) {
@@ -2106,7 +2272,36 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
                 terms.add(new Term(field, termsList.get(i)));
             }
             result = new CachingWrapperFilter(new TermsFilter(terms));
-            m_displayFilters.put(field + termsStr, result);
+            m_displayFilters.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the permission filter for the principals of the user of the given OpenCms context.<p>
+     * 
+     * @param cms the OpenCms user context
+     * 
+     * @return the permission filter, or <code>null</code> if no permission check is performed 
+     *      or the principals of the user can not be read
+     */
+    protected CmsSearchPermissionFilter getPermissionFilter(CmsObject cms) {
+
+        Map<String, CmsSearchPermissionFilter> permissionFilters = m_permissionFilters;
+        if (!isCheckingPermissions() || (permissionFilters == null)) {
+            return null;
+        }
+        String key;
+        try {
+            key = CmsSearchPermissionFilter.getPrincipalKey(cms);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+        CmsSearchPermissionFilter result = permissionFilters.get(key);
+        if (result == null) {
+            result = new CmsSearchPermissionFilter();
+            permissionFilters.put(key, result);
         }
         return result;
     }
@@ -2173,14 +2368,87 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         return !needsPermissionCheck(doc) ? true : (null != getResource(cms, doc));
     }
 
+    /**
+     * Checks if the OpenCms resource referenced by the result document can be read 
+     * by the user of the given OpenCms context, using the permissions recorded in the given filter.<p>
+     * 
+     * If the document has not been checked yet, the resource is read and the result is recorded in the filter.
+     * Resources that can be read only until their expiration date, and resources that can not be read because 
+     * they are not released yet, are not recorded, since their permission depends on the time of the search.<p>
+     * 
+     * @param cms the OpenCms user context to use for permission testing
+     * @param doc the search result document to check
+     * @param permissionFilter the permission filter for the user, may be <code>null</code>
+     * @param reader the index reader the document has been found with
+     * @param docId the id of the document in the index reader
+     * 
+     * @return <code>true</code> if the user has read permissions to the resource
+     */
+    protected boolean hasReadPermission(
+        CmsObject cms,
+        I_CmsSearchDocument doc,
+        CmsSearchPermissionFilter permissionFilter,
+        IndexReader reader,
+        int docId) {
+
+        if ((permissionFilter == null) || !needsPermissionCheck(doc)) {
+            return hasReadPermission(cms, doc);
+        }
+        Boolean permission = permissionFilter.getPermission(reader, docId);
+        if (permission != null) {
+            return permission.booleanValue();
+        }
+        CmsResource resource = getResource(cms, doc);
+        if (resource != null) {
+            if (isIgnoreExpiration() || (resource.getDateExpired() == CmsResource.DATE_EXPIRED_DEFAULT)) {
+                permissionFilter.setPermission(reader, docId, true);
+            }
+            return true;
+        }
+        // check if the resource can not be read because of its release and expiration dates only
+        CmsResourceFilter filter = CmsResourceFilter.IGNORE_EXPIRATION;
+        if (isRequireViewPermission()) {
+            filter = filter.addRequireVisible();
+        }
+        try {
+            CmsObject clone = OpenCms.initCmsObject(cms);
+            clone.getRequestContext().setSiteRoot("");
+            clone.readResource(doc.getPath(), filter);
+        } catch (CmsException e) {
+            // the user is not allowed to read the resource, or the resource has been deleted
+            permissionFilter.setPermission(reader, docId, false);
+        }
+        return false;
+    }
+
     /**
      * Closes the index searcher for this index.<p>
      * 
+     * Searches still running with an acquired searcher are not affected.<p>
+     * 
      * @see #indexSearcherOpen(String)
      */
     protected synchronized void indexSearcherClose() {
 
-        indexSearcherClose(m_indexSearcher);
+        CmsIndexSearcherManager manager = m_searcherManager;
+        m_searcherManager = null;
+        indexSearcherClose(manager);
+    }
+
+    /**
+     * Closes the given Lucene index searcher manager.<p>
+     * 
+     * @param manager the searcher manager to close
+     */
+    protected void indexSearcherClose(CmsIndexSearcherManager manager) {
+
+        if (manager != null) {
+            try {
+                manager.close();
+            } catch (Exception e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_CLOSE_1, getName()), e);
+            }
+        }
     }
 
     /**
@@ -2213,46 +2481,70 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
      */
     protected synchronized void indexSearcherOpen(String path) {
 
-        IndexSearcher oldSearcher = null;
+        CmsIndexSearcherManager oldManager = null;
         try {
             Directory indexDirectory = FSDirectory.open(new File(path));
             if (DirectoryReader.indexExists(indexDirectory)) {
-                IndexReader reader = DirectoryReader.open(indexDirectory);
-                if (m_indexSearcher != null) {
-                    // store old searcher instance to close it later
-                    oldSearcher = m_indexSearcher;
-                }
-                m_indexSearcher = new IndexSearcher(reader);
-                m_indexSearcher.setSimilarity(m_sim);
-                m_displayFilters = new HashMap<String, Filter>();
+                CmsIndexSearcherManager manager = new CmsIndexSearcherManager(indexDirectory, m_sim);
+                // store old searcher manager instance to close it later
+                oldManager = m_searcherManager;
+                m_displayFilters = new ConcurrentHashMap<String, Filter>();
+                Map<String, CmsSearchPermissionFilter> permissionFilters = CmsCollectionsGenericWrapper.createLRUMap(
+                    PERMISSION_FILTERS_MAX);
+                m_permissionFilters = Collections.synchronizedMap(permissionFilters);
+                m_searcherManager = manager;
+                m_lastRefresh = System.currentTimeMillis();
             }
         } catch (IOException e) {
             LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_1, getName()), e);
         }
-        if (oldSearcher != null) {
-            // close the old searcher if required
-            indexSearcherClose(oldSearcher);
+        // close the old searcher manager if required, acquired searchers stay open until they are released
+        indexSearcherClose(oldManager);
+    }
+
+    /**
+     * Reopens the index searcher for this index if the index has changed.<p>
+     * 
+     * In contrast to {@link #indexSearcherUpdate()}, the configured refresh interval is ignored
+     * and the method waits until a refresh started by another thread is finished.<p>
+     */
+    protected void indexSearcherRefresh() {
+
+        CmsIndexSearcherManager manager = m_searcherManager;
+        if (manager != null) {
+            try {
+                manager.maybeRefreshBlocking();
+                m_lastRefresh = System.currentTimeMillis();
+            } catch (Exception e) {
+                LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_REOPEN_1, getName()), e);
+            }
+        } else {
+            // make sure we end up with an open index searcher / reader
+            indexSearcherOpen(getPath());
         }
     }
 
     /**
      * Reopens the index search reader for this index, required after the index has been changed.<p>
      * 
+     * The index is checked for changes at most once per configured refresh interval.
+     * A search never waits for a refresh done by another thread, it uses the previous searcher instead.<p>
+     * 
      * @see #indexSearcherOpen(String)
+     * @see #getRefreshInterval()
      */
-    protected synchronized void indexSearcherUpdate() {
+    protected void indexSearcherUpdate() {
 
-        IndexSearcher oldSearcher = m_indexSearcher;
-        if ((oldSearcher != null) && (oldSearcher.getIndexReader() != null)) {
-            // in case there is an index searcher available close it
+        CmsIndexSearcherManager manager = m_searcherManager;
+        if (manager != null) {
+            long now = System.currentTimeMillis();
+            if ((now - m_lastRefresh) < m_refreshInterval) {
+                // the searcher has been refreshed only recently
+                return;
+            }
             try {
-                if (oldSearcher.getIndexReader() instanceof DirectoryReader) {
-                    IndexReader newReader = DirectoryReader.openIfChanged((DirectoryReader)oldSearcher.getIndexReader());
-                    if (newReader != null) {
-                        m_indexSearcher = new IndexSearcher(newReader);
-                        m_indexSearcher.setSimilarity(m_sim);
-                        indexSearcherClose(oldSearcher);
-                    }
+                if (manager.maybeRefresh()) {
+                    m_lastRefresh = now;
                 }
             } catch (Exception e) {
                 LOG.error(Messages.get().getBundle().key(Messages.ERR_INDEX_SEARCHER_REOPEN_1, getName()), e);
@@ -2263,6 +2555,23 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         }
     }
 
+    /**
+     * Called by the index writers of this index after changes have been committed.<p>
+     * 
+     * If the committing writer is the writer used for incremental updates, the index searcher 
+     * is refreshed immediately, so that the changes are visible to searches. Commits of an
+     * index writer that rebuilds the whole index are ignored, since the new index is not complete 
+     * before the rebuild has finished.<p>
+     * 
+     * @param writer the index writer that committed the changes
+     */
+    protected void indexWriterCommitted(I_CmsIndexWriter writer) {
+
+        if ((writer != null) && (writer == m_indexWriter)) {
+            indexSearcherRefresh();
+        }
+    }
+
     /**
      * Unlocks the Lucene index writer of this index if required.<p>
      * 
@@ -2300,6 +2609,23 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
         }
     }
 
+    /**
+     * Checks if the access control inherited from the given folder has changed since the resources 
+     * below the folder have been indexed, so they must be indexed again.<p>
+     * 
+     * The default implementation always returns <code>false</code>, 
+     * since the access control is not stored in the documents of this index.<p>
+     * 
+     * @param cms the OpenCms user context used to access the OpenCms VFS
+     * @param folder the published folder to check
+     * 
+     * @return <code>true</code> if the resources below the folder must be indexed again
+     */
+    protected boolean isAccessControlChanged(CmsObject cms, CmsResource folder) {
+
+        return false;
+    }
+
     /**
      * Checks if the document is in the time range specified in the search parameters.<p>
      * 
@@ -29,6 +29,7 @@ package org.opencms.search;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishList;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.file.CmsObject;
@@ -68,6 +69,7 @@ import org.opencms.search.solr.CmsSolrFieldConfiguration;
 import org.opencms.search.solr.CmsSolrIndex;
 import org.opencms.search.solr.CmsSolrIndexWriter;
 import org.opencms.search.solr.spellchecking.CmsSolrSpellchecker;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.A_CmsModeStringEnumeration;
@@ -158,6 +160,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected class CmsSearchOfflineHandler implements I_CmsEventListener {
 
+        /** The structure ids of the folders with changed access control entries, checked in the next update. */
+        private Set<CmsUUID> m_accessControlChanges;
+
+        /** The structure ids of the folders with changed access control entries, checked in the current update. */
+        private volatile Set<CmsUUID> m_indexedAccessControlChanges;
+
         /** Indicates if the event handlers for the offline search have been already registered. */
         private boolean m_isEventRegistered;
 
@@ -170,6 +178,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         protected CmsSearchOfflineHandler() {
 
             m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+            m_accessControlChanges = new HashSet<CmsUUID>();
+            m_indexedAccessControlChanges = Collections.emptySet();
         }
 
         /**
@@ -189,9 +199,19 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                         // skip lock & unlock
                         return;
                     }
+                    CmsResource resource = (CmsResource)event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+                    if ((change instanceof Integer)
+                        && ((((Integer)change).intValue() & CmsDriverManager.CHANGED_ACCESSCONTROL) > 0)) {
+                        // the permissions recorded for the offline indexes may have become invalid
+                        for (CmsSearchIndex index : m_offlineIndexes) {
+                            index.clearPermissionFilters();
+                        }
+                        if ((resource != null) && resource.isFolder()) {
+                            addAccessControlChange(resource);
+                        }
+                    }
                     // a resource has been modified - offline indexes require (re)indexing
-                    List<CmsResource> resources = Collections.singletonList((CmsResource)event.getData().get(
-                        I_CmsEventListener.KEY_RESOURCE));
+                    List<CmsResource> resources = Collections.singletonList(resource);
                     reIndexResources(resources);
                     break;
                 case I_CmsEventListener.EVENT_RESOURCE_DELETED:
@@ -219,6 +239,17 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             }
         }
 
+        /**
+         * Adds a folder with changed access control entries, so the resources below the folder
+         * are checked in the next update.<p>
+         * 
+         * @param folder the folder with changed access control entries
+         */
+        protected synchronized void addAccessControlChange(CmsResource folder) {
+
+            m_accessControlChanges.add(folder.getStructureId());
+        }
+
         /**
          * Adds a list of {@link CmsPublishedResource} objects to be indexed.<p>
          * 
@@ -240,6 +271,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             synchronized (this) {
                 result = m_resourcesToIndex;
                 m_resourcesToIndex = new ArrayList<CmsPublishedResource>();
+                // the updates run one after another, so the folders are kept until the next update starts
+                m_indexedAccessControlChanges = m_accessControlChanges;
+                m_accessControlChanges = new HashSet<CmsUUID>();
             }
             try {
                 CmsObject cms = m_adminCms;
@@ -293,6 +327,19 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             }
         }
 
+        /**
+         * Returns if the access control entries of the given folder have been changed 
+         * before the current update has started.<p>
+         * 
+         * @param folder the folder to check
+         * 
+         * @return <code>true</code> if the access control entries of the folder have been changed
+         */
+        protected boolean isAccessControlChanged(CmsResource folder) {
+
+            return m_indexedAccessControlChanges.contains(folder.getStructureId());
+        }
+
         /**
          * Updates all offline indexes for the given list of {@link CmsResource} objects.<p>
          * 
@@ -610,6 +657,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** The default value used for keeping the extraction results in the cache (672 hours = 4 weeks). */
     public static final float DEFAULT_EXTRACTION_CACHE_MAX_AGE = 672.0f;
 
+    /** The default number of threads used to extract documents while indexing (1). */
+    public static final int DEFAULT_INDEXING_THREADS = 1;
+
     /** Default for the maximum number of modifications before a commit in the search index is triggered (500). */
     public static final int DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT = 500;
 
@@ -679,6 +729,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Configured index sources. */
     private Map<String, CmsSearchIndexSource> m_indexSources;
 
+    /** The number of threads used to extract documents while indexing. */
+    private int m_indexingThreads;
+
     /** The max. char. length of the excerpt in the search result. */
     private int m_maxExcerptLength;
 
@@ -694,6 +747,9 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
     /** Path to index files below WEB-INF/. */
     private String m_path;
 
+    /** The structure ids of the published folders with changed access control entries by publish history id. */
+    private Map<CmsUUID, Set<CmsUUID>> m_publishedAccessControlChanges;
+
     /** The Solr configuration. */
     private CmsSolrConfiguration m_solrConfig;
 
@@ -711,10 +767,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_indexes = new ArrayList<CmsSearchIndex>();
         m_indexSources = new TreeMap<String, CmsSearchIndexSource>();
         m_offlineHandler = new CmsSearchOfflineHandler();
+        m_publishedAccessControlChanges = new HashMap<CmsUUID, Set<CmsUUID>>();
         m_extractionCacheMaxAge = DEFAULT_EXTRACTION_CACHE_MAX_AGE;
         m_maxExcerptLength = DEFAULT_EXCERPT_LENGTH;
         m_offlineUpdateFrequency = DEFAULT_OFFLINE_UPDATE_FREQNENCY;
         m_maxModificationsBeforeCommit = DEFAULT_MAX_MODIFICATIONS_BEFORE_COMMIT;
+        m_indexingThreads = DEFAULT_INDEXING_THREADS;
 
         m_fieldConfigurations = new HashMap<String, CmsSearchFieldConfiguration>();
         // make sure we have a "standard" field configuration
@@ -1026,6 +1084,17 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_CLEAR_CACHES_0), new Exception());
                 }
+                for (CmsSearchIndex index : m_indexes) {
+                    index.clearPermissionFilters();
+                }
+                break;
+            case I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT:
+                // the access control entries can only be compared with the online project before publishing
+                CmsPublishList publishList = (CmsPublishList)event.getData().get(I_CmsEventListener.KEY_PUBLISHLIST);
+                CmsUUID projectId = (CmsUUID)event.getData().get(I_CmsEventListener.KEY_PROJECTID);
+                if ((publishList != null) && (projectId != null)) {
+                    collectAccessControlChanges(projectId, publishList);
+                }
                 break;
             case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
                 // event data contains a list of the published resources
@@ -1033,7 +1102,13 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_EVENT_PUBLISH_PROJECT_1, publishHistoryId));
                 }
-                updateAllIndexes(m_adminCms, publishHistoryId, getEventReport(event));
+                try {
+                    updateAllIndexes(m_adminCms, publishHistoryId, getEventReport(event));
+                } finally {
+                    synchronized (m_publishedAccessControlChanges) {
+                        m_publishedAccessControlChanges.remove(publishHistoryId);
+                    }
+                }
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(
                         Messages.LOG_EVENT_PUBLISH_PROJECT_FINISHED_1,
@@ -1305,6 +1380,16 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return m_highlighter;
     }
 
+    /**
+     * Returns the number of threads used to extract documents while indexing.<p>
+     *
+     * @return the number of threads used to extract documents while indexing
+     */
+    public int getIndexingThreads() {
+
+        return m_indexingThreads;
+    }
+
     /**
      * Returns the Lucene search index configured with the given name.<p>
      * The index must exist, otherwise <code>null</code> is returned.
@@ -1523,6 +1608,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
         // register this object as event listener
         OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_BEFORE_PUBLISH_PROJECT,
             I_CmsEventListener.EVENT_CLEAR_CACHES,
             I_CmsEventListener.EVENT_PUBLISH_PROJECT,
             I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES});
@@ -1559,6 +1645,29 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
 
     }
 
+    /**
+     * Returns if the access control entries of the given folder that are inherited by the resources below 
+     * have been changed, either in the offline project or by the publish job that is currently indexed.<p>
+     * 
+     * @param folder the folder to check
+     * 
+     * @return <code>true</code> if the resources below the folder may inherit a changed access control
+     */
+    public boolean isAccessControlChanged(CmsResource folder) {
+
+        if (m_offlineHandler.isAccessControlChanged(folder)) {
+            return true;
+        }
+        synchronized (m_publishedAccessControlChanges) {
+            for (Set<CmsUUID> changedFolders : m_publishedAccessControlChanges.values()) {
+                if (changedFolders.contains(folder.getStructureId())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns if the offline indexing is paused.<p>
      * 
@@ -2059,6 +2168,39 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the number of threads used to extract documents while indexing.<p>
+     * 
+     * With more than one thread, the documents are extracted in parallel, 
+     * while they are still written to the index by a single thread.<p>
+     *
+     * @param indexingThreads the number of threads used to extract documents
+     */
+    public void setIndexingThreads(int indexingThreads) {
+
+        m_indexingThreads = Math.max(1, indexingThreads);
+    }
+
+    /**
+     * Sets the number of threads used to extract documents while indexing as a String.<p>
+     *
+     * @param value the number of threads used to extract documents
+     */
+    public void setIndexingThreads(String value) {
+
+        try {
+            setIndexingThreads(Integer.parseInt(value.trim()));
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().getBundle().key(
+                    Messages.LOG_PARSE_INDEXING_THREADS_FAILED_2,
+                    value,
+                    Integer.valueOf(DEFAULT_INDEXING_THREADS)),
+                e);
+            setIndexingThreads(DEFAULT_INDEXING_THREADS);
+        }
+    }
+
     /**
      * Sets the seconds to wait for an index lock during an update operation.<p>
      * 
@@ -2261,6 +2403,58 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         m_extractionResultCache.cleanCache(m_extractionCacheMaxAge);
     }
 
+    /**
+     * Collects the changed folders of a publish job whose access control entries that are inherited 
+     * by the resources below differ from the online project.<p>
+     * 
+     * Only the resources below these folders have to be checked for a changed access control 
+     * when the indexes are updated after the publish job.<p>
+     * 
+     * @param projectId the id of the project the publish job is started from
+     * @param publishList the publish list of the publish job
+     */
+    protected void collectAccessControlChanges(CmsUUID projectId, CmsPublishList publishList) {
+
+        Set<CmsUUID> changedFolders = new HashSet<CmsUUID>();
+        CmsObject offlineCms = null;
+        CmsObject onlineCms = null;
+        try {
+            offlineCms = OpenCms.initCmsObject(m_adminCms);
+            offlineCms.getRequestContext().setSiteRoot("");
+            offlineCms.getRequestContext().setCurrentProject(offlineCms.readProject(projectId));
+            onlineCms = OpenCms.initCmsObject(offlineCms);
+            onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        for (CmsResource folder : publishList.getFolderList()) {
+            if (!folder.getState().isChanged()) {
+                // the resources below a new folder are new as well, and a deleted folder has no resources below
+                continue;
+            }
+            try {
+                if (onlineCms == null) {
+                    // the access control entries can not be compared, so the resources below are checked
+                    changedFolders.add(folder.getStructureId());
+                    continue;
+                }
+                CmsResource onlineFolder = onlineCms.readResource(folder.getStructureId(), CmsResourceFilter.ALL);
+                if (!getInheritingAccessControlEntries(offlineCms, folder).equals(
+                    getInheritingAccessControlEntries(onlineCms, onlineFolder))) {
+                    changedFolders.add(folder.getStructureId());
+                }
+            } catch (CmsException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+                changedFolders.add(folder.getStructureId());
+            }
+        }
+        if (!changedFolders.isEmpty()) {
+            synchronized (m_publishedAccessControlChanges) {
+                m_publishedAccessControlChanges.put(publishList.getPublishHistoryId(), changedFolders);
+            }
+        }
+    }
+
     /**
      * Collects the related containerpages to the resources that have been published.<p>
      * 
@@ -2378,7 +2572,7 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
      */
     protected CmsIndexingThreadManager getThreadManager() {
 
-        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit);
+        return new CmsIndexingThreadManager(m_timeout, m_maxModificationsBeforeCommit, m_indexingThreads);
     }
 
     /**
@@ -2523,9 +2717,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
             // When published resources with both states 'new' and 'deleted' exist in the same publish job history, the resource has been moved
 
             List<CmsPublishedResource> updateResources = new ArrayList<CmsPublishedResource>();
+            boolean folderChanged = false;
             for (CmsPublishedResource res : publishedResources) {
-                if (res.isFolder() || res.getState().isUnchanged()) {
-                    // folders and unchanged resources don't need to be indexed after publish
+                folderChanged = folderChanged || (res.isFolder() && res.getState().isChanged());
+                if ((res.isFolder() && !res.getState().isChanged()) || res.getState().isUnchanged()) {
+                    // new or deleted folders and unchanged resources don't need to be indexed after publish,
+                    // changed folders are kept since the resources below may inherit changed permissions
                     continue;
                 }
                 if (res.getState().isDeleted() || res.getState().isNew() || res.getState().isChanged()) {
@@ -2579,6 +2776,12 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
             }
 
+            if (folderChanged) {
+                // the permissions inherited from the changed folders are not stored in the documents
+                for (CmsSearchIndex index : m_indexes) {
+                    index.clearPermissionFilters();
+                }
+            }
             findRelatedContainerPages(adminCms, updateResources);
             if (!updateResources.isEmpty()) {
                 // sort the resource to update
@@ -2760,6 +2963,8 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 }
                 // index has changed - initialize the index searcher instance
                 index.indexSearcherOpen(index.getPath());
+                // stop the worker threads of the thread manager
+                threadManager.shutDown();
             }
 
             // show information about indexing runtime
@@ -2837,25 +3042,29 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
                 if (hasResourcesToUpdate) {
                     // create a new thread manager
                     CmsIndexingThreadManager threadManager = getThreadManager();
-
-                    Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
-                    while (i.hasNext()) {
-                        CmsSearchIndexUpdateData updateCollection = i.next();
-                        if (updateCollection.hasResourceToUpdate()) {
-                            updateCollection.getIndexer().updateResources(
-                                writer,
-                                threadManager,
-                                updateCollection.getResourcesToUpdate());
+                    try {
+                        Iterator<CmsSearchIndexUpdateData> i = updateCollections.iterator();
+                        while (i.hasNext()) {
+                            CmsSearchIndexUpdateData updateCollection = i.next();
+                            if (updateCollection.hasResourceToUpdate()) {
+                                updateCollection.getIndexer().updateResources(
+                                    writer,
+                                    threadManager,
+                                    updateCollection.getResourcesToUpdate());
+                            }
                         }
-                    }
 
-                    // wait for indexing threads to finish
-                    while (threadManager.isRunning()) {
-                        try {
-                            Thread.sleep(500);
-                        } catch (InterruptedException e) {
-                            // just continue with the loop after interruption
+                        // wait for indexing threads to finish
+                        while (threadManager.isRunning()) {
+                            try {
+                                Thread.sleep(500);
+                            } catch (InterruptedException e) {
+                                // just continue with the loop after interruption
+                            }
                         }
+                    } finally {
+                        // stop the worker threads of the thread manager
+                        threadManager.shutDown();
                     }
                 }
             } finally {
@@ -3011,6 +3220,28 @@ public class CmsSearchManager implements I_CmsScheduledJob, I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Returns the access control entries of the given folder that are inherited by the resources below.<p>
+     * 
+     * @param cms the OpenCms user context to read the entries with
+     * @param folder the folder to read the entries of
+     * 
+     * @return the inheriting access control entries of the folder
+     * 
+     * @throws CmsException if reading the entries fails
+     */
+    private Set<CmsAccessControlEntry> getInheritingAccessControlEntries(CmsObject cms, CmsResource folder)
+    throws CmsException {
+
+        Set<CmsAccessControlEntry> result = new HashSet<CmsAccessControlEntry>();
+        for (CmsAccessControlEntry ace : cms.getAccessControlEntries(folder.getRootPath(), false)) {
+            if (ace.isInheriting()) {
+                result.add(ace);
+            }
+        }
+        return result;
+    }
+
     /**
      * Shuts down the Solr core container.<p>
      */
@@ -0,0 +1,210 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsUser;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsRole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.BitsFilteredDocIdSet;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * Lucene filter that excludes the documents a set of principals is not allowed to read.<p>
+ * 
+ * The permissions are not stored in the index. Instead, the result of the permission check for a document
+ * is recorded the first time the document is found by a search. Later searches of users with the same principals 
+ * do not need to read the resource again, and the documents that can not be read are no longer found at all.<p>
+ * 
+ * The permissions are kept in bitsets per segment of the index reader. Documents that are added to the index, 
+ * or updated in the index, are stored in new segments and so start unchecked. If the access control of 
+ * resources changes without the documents being updated, the filter must be discarded.<p>
+ * 
+ * @since 9.5.0
+ * 
+ * @see org.opencms.search.CmsSearchIndex#clearPermissionFilters()
+ */
+public class CmsSearchPermissionFilter extends Filter {
+
+    /**
+     * The permissions of the documents of one segment.<p>
+     */
+    private static class CmsSegmentPermissions {
+
+        /** The documents that have been checked. */
+        protected FixedBitSet m_checked;
+
+        /** The documents that are not known to be unreadable. */
+        protected FixedBitSet m_readable;
+
+        /** Copy of the readable documents used by the searches, <code>null</code> if outdated. */
+        protected FixedBitSet m_snapshot;
+
+        /**
+         * Creates the permissions for a segment with the given number of documents.<p>
+         * 
+         * @param maxDoc the number of documents of the segment
+         */
+        protected CmsSegmentPermissions(int maxDoc) {
+
+            m_checked = new FixedBitSet(maxDoc);
+            m_readable = new FixedBitSet(maxDoc);
+            m_readable.set(0, maxDoc);
+        }
+    }
+
+    /** The permissions by core cache key of the segment readers. */
+    private Map<Object, CmsSegmentPermissions> m_segments;
+
+    /**
+     * Creates a new, empty permission filter.<p>
+     */
+    public CmsSearchPermissionFilter() {
+
+        m_segments = new WeakHashMap<Object, CmsSegmentPermissions>();
+    }
+
+    /**
+     * Returns the key of the principals of the current user, which determine the read permissions of the user.<p>
+     * 
+     * The key contains the ids of the user, the groups of the user and the roles of the user.
+     * Users with the same key share the same permission filter.<p>
+     * 
+     * @param cms the OpenCms context of the current user
+     * 
+     * @return the key of the principals of the current user
+     * 
+     * @throws CmsException if the groups or roles of the user can not be read
+     */
+    public static String getPrincipalKey(CmsObject cms) throws CmsException {
+
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        List<String> principals = new ArrayList<String>();
+        for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+            principals.add(group.getId().toString());
+        }
+        if (!user.isGuestUser()) {
+            for (CmsRole role : OpenCms.getRoleManager().getRolesOfUser(cms, user.getName(), "", true, false, false)) {
+                principals.add(role.getGroupName());
+            }
+        }
+        Collections.sort(principals);
+        StringBuffer result = new StringBuffer(user.getId().toString());
+        for (String principal : principals) {
+            result.append('|').append(principal);
+        }
+        return result.toString();
+    }
+
+    /**
+     * @see org.apache.lucene.search.Filter#getDocIdSet(org.apache.lucene.index.AtomicReaderContext, org.apache.lucene.util.Bits)
+     */
+    @Override
+    public DocIdSet getDocIdSet(AtomicReaderContext context, Bits acceptDocs) {
+
+        FixedBitSet readable;
+        synchronized (this) {
+            CmsSegmentPermissions segment = getSegment(context);
+            if (segment.m_snapshot == null) {
+                segment.m_snapshot = segment.m_readable.clone();
+            }
+            readable = segment.m_snapshot;
+        }
+        return BitsFilteredDocIdSet.wrap(readable, acceptDocs);
+    }
+
+    /**
+     * Returns the recorded read permission for the given document.<p>
+     * 
+     * @param reader the top level index reader the document id belongs to
+     * @param docId the document id
+     * 
+     * @return the read permission, or <code>null</code> if the document has not been checked yet
+     */
+    public synchronized Boolean getPermission(IndexReader reader, int docId) {
+
+        List<AtomicReaderContext> leaves = reader.leaves();
+        AtomicReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+        CmsSegmentPermissions segment = getSegment(leaf);
+        int doc = docId - leaf.docBase;
+        return segment.m_checked.get(doc) ? Boolean.valueOf(segment.m_readable.get(doc)) : null;
+    }
+
+    /**
+     * Records the read permission for the given document.<p>
+     * 
+     * @param reader the top level index reader the document id belongs to
+     * @param docId the document id
+     * @param readable <code>true</code> if the document can be read
+     */
+    public synchronized void setPermission(IndexReader reader, int docId, boolean readable) {
+
+        List<AtomicReaderContext> leaves = reader.leaves();
+        AtomicReaderContext leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+        CmsSegmentPermissions segment = getSegment(leaf);
+        int doc = docId - leaf.docBase;
+        segment.m_checked.set(doc);
+        if (!readable && segment.m_readable.getAndClear(doc)) {
+            // the searches must no longer find this document
+            segment.m_snapshot = null;
+        }
+    }
+
+    /**
+     * Returns the permissions of the given segment, creating them if required.<p>
+     * 
+     * @param context the context of the segment reader
+     * 
+     * @return the permissions of the segment
+     */
+    private CmsSegmentPermissions getSegment(AtomicReaderContext context) {
+
+        Object key = context.reader().getCoreCacheKey();
+        CmsSegmentPermissions segment = m_segments.get(key);
+        if (segment == null) {
+            segment = new CmsSegmentPermissions(context.reader().maxDoc());
+            m_segments.put(key, segment);
+        }
+        return segment;
+    }
+}
@@ -39,8 +39,10 @@ import org.opencms.util.CmsUUID;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 
@@ -235,7 +237,7 @@ public class CmsVfsIndexer implements I_CmsIndexer {
         }
 
         // contains all resources already updated to avoid multiple updates in case of siblings
-        List<String> resourcesAlreadyUpdated = new ArrayList<String>(resourcesToUpdate.size());
+        Set<String> resourcesAlreadyUpdated = new HashSet<String>(resourcesToUpdate.size());
 
         // index all resources that are in the given list
         Iterator<CmsPublishedResource> i = resourcesToUpdate.iterator();
@@ -262,6 +264,10 @@ public class CmsVfsIndexer implements I_CmsIndexer {
                         resourcesAlreadyUpdated.add(resource.getRootPath());
                         updateResource(writer, threadManager, resource);
                     }
+                    if (resource.isFolder() && m_index.isAccessControlChanged(m_cms, resource)) {
+                        // the inherited permissions of all resources below the folder have changed
+                        updateSubResources(writer, threadManager, resource, resourcesAlreadyUpdated);
+                    }
                 }
             }
         }
@@ -384,4 +390,44 @@ public class CmsVfsIndexer implements I_CmsIndexer {
             }
         }
     }
+
+    /**
+     * Updates (writes) all resources below the given folder in the index.<p>
+     * 
+     * @param writer the index writer to use
+     * @param threadManager the thread manager to use when extracting the document text
+     * @param folder the folder to update the resources for
+     * @param resourcesAlreadyUpdated the root paths of the resources already updated, will be extended
+     * 
+     * @throws CmsIndexException if something goes wrong
+     */
+    protected void updateSubResources(
+        I_CmsIndexWriter writer,
+        CmsIndexingThreadManager threadManager,
+        CmsResource folder,
+        Set<String> resourcesAlreadyUpdated) throws CmsIndexException {
+
+        List<CmsResource> resources;
+        try {
+            resources = m_cms.readResources(
+                m_cms.getRequestContext().removeSiteRoot(folder.getRootPath()),
+                CmsResourceFilter.IGNORE_EXPIRATION,
+                true);
+        } catch (CmsException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_UNABLE_TO_READ_RESOURCE_2,
+                        folder.getRootPath(),
+                        m_index.getName()),
+                    e);
+            }
+            return;
+        }
+        for (CmsResource resource : resources) {
+            if (!resource.isFolder() && resourcesAlreadyUpdated.add(resource.getRootPath())) {
+                updateResource(writer, threadManager, resource);
+            }
+        }
+    }
 }
@@ -43,12 +43,14 @@ import org.opencms.search.CmsLuceneDocument;
 import org.opencms.search.CmsSearchException;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchParameters;
+import org.opencms.search.CmsSearchPermissionFilter;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.Messages;
 import org.opencms.search.documents.I_CmsDocumentFactory;
 import org.opencms.search.documents.I_CmsTermHighlighter;
 import org.opencms.search.fields.CmsSearchField;
 import org.opencms.search.fields.CmsSearchFieldConfiguration;
+import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.xml.containerpage.CmsXmlDynamicFunctionHandler;
@@ -56,11 +58,14 @@ import org.opencms.xml.containerpage.CmsXmlDynamicFunctionHandler;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queries.BooleanFilter;
 import org.apache.lucene.queries.FilterClause;
@@ -106,6 +111,15 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsGallerySearchIndex.class);
 
+    /** The maximum number of cached gallery search results. */
+    private static final int RESULT_CACHE_MAX = 100;
+
+    /** The time span in milliseconds a cached gallery search result is reused for later request times. */
+    private static final long RESULT_CACHE_TIME_SPAN = 60000;
+
+    /** The cached gallery search results by normalized search parameters, user principals and index version. */
+    private Map<String, CmsGallerySearchResultList> m_resultCache;
+
     /**
      * Default constructor only intended to be used by the XML configuration. <p>
      * 
@@ -135,6 +149,21 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
         setRequireViewPermission(true);
     }
 
+    /**
+     * Discards the cached permission filters and the cached gallery search results of this index.<p>
+     * 
+     * @see org.opencms.search.CmsSearchIndex#clearPermissionFilters()
+     */
+    @Override
+    public void clearPermissionFilters() {
+
+        super.clearPermissionFilters();
+        Map<String, CmsGallerySearchResultList> resultCache = m_resultCache;
+        if (resultCache != null) {
+            resultCache.clear();
+        }
+    }
+
     /**
      * Computes the search root folders for the given search parameters based on the search scope.<p>
      * 
@@ -264,6 +293,10 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
     /**
      * Performs a search on the gallery index.<p>
      * 
+     * Searches may run concurrently. The results of a search are cached for the index version 
+     * they have been found in, so a repeated search with equal parameters by a user with the same 
+     * principals is answered from the cache as long as the index has not changed.<p>
+     * 
      * @param cms the current users OpenCms context
      * @param params the parameters to use for the search
      * 
@@ -271,7 +304,7 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
      * 
      * @throws CmsSearchException if something goes wrong
      */
-    public synchronized CmsGallerySearchResultList searchGallery(CmsObject cms, CmsGallerySearchParameters params)
+    public CmsGallerySearchResultList searchGallery(CmsObject cms, CmsGallerySearchParameters params)
     throws CmsSearchException {
 
         // the hits found during the search
@@ -280,6 +313,9 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
         // storage for the results found
         CmsGallerySearchResultList searchResults = new CmsGallerySearchResultList();
 
+        // the index searcher, reserved for this search
+        IndexSearcher searcher = null;
+
         try {
             // copy the user OpenCms context
             CmsObject searchCms = OpenCms.initCmsObject(cms);
@@ -315,14 +351,15 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
             filter = appendResourceTypeFilter(searchCms, filter, params.getResourceTypes());
 
             // only append scope filter if no no folders or galleries given
+            List<String> scopeFolders = null;
             if (folders.isEmpty()) {
+                scopeFolders = computeScopeFolders(cms, params);
                 if ((params.getResourceTypes() != null)
                     && params.getResourceTypes().contains(CmsXmlDynamicFunctionHandler.TYPE_FUNCTION)) {
                     Filter functionTypeFilter = getTermQueryFilter(
                         CmsSearchField.FIELD_TYPE,
                         CmsXmlDynamicFunctionHandler.TYPE_FUNCTION);
-                    List<String> searchRootsForOtherTypes = computeScopeFolders(cms, params);
-                    List<String> searchRootsForFunctions = new ArrayList<String>(searchRootsForOtherTypes);
+                    List<String> searchRootsForFunctions = new ArrayList<String>(scopeFolders);
                     searchRootsForFunctions.add(CmsGallerySearchIndex.FOLDER_SYTEM_MODULES);
 
                     // build a filter with two cases joined by OR:
@@ -331,10 +368,9 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
 
                     BooleanFilter scopeFilter = filterOr(
                         filterAnd(functionTypeFilter, createPathFilter(searchRootsForFunctions)),
-                        filterAnd(filterNot(functionTypeFilter), createPathFilter(searchRootsForOtherTypes)));
+                        filterAnd(filterNot(functionTypeFilter), createPathFilter(scopeFolders)));
                     filter.add(scopeFilter, Occur.MUST);
                 } else {
-                    List<String> scopeFolders = computeScopeFolders(cms, params);
                     filter = appendPathFilter(searchCms, filter, scopeFolders);
                 }
             }
@@ -361,7 +397,23 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
 
             // get an index searcher that is certainly up to date
             indexSearcherUpdate();
-            IndexSearcher searcher = getSearcher();
+            searcher = acquireSearcher();
+
+            // check if the same search has already been performed on this version of the index
+            Map<String, CmsGallerySearchResultList> resultCache = m_resultCache;
+            String cacheKey = null;
+            if (resultCache != null) {
+                cacheKey = getResultCacheKey(
+                    searchCms,
+                    params,
+                    scopeFolders == null ? folders : scopeFolders,
+                    searcher);
+                CmsGallerySearchResultList cachedResults = cacheKey != null ? resultCache.get(cacheKey) : null;
+                if (cachedResults != null) {
+                    searchResults.append(cachedResults);
+                    return searchResults;
+                }
+            }
 
             Locale locale = params.getLocale() == null ? null : CmsLocaleManager.getLocale(params.getLocale());
             if (params.getSearchWords() != null) {
@@ -415,7 +467,7 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
                 int visibleHitCount = hitCount;
                 for (int i = 0, cnt = 0; (i < hitCount) && (cnt < end); i++) {
                     try {
-                        doc = getSearcher().doc(hits.scoreDocs[i].doc);
+                        doc = searcher.doc(hits.scoreDocs[i].doc);
                         I_CmsSearchDocument searchDoc = new CmsLuceneDocument(doc);
                         if (hasReadPermission(searchCms, searchDoc)) {
                             // user has read permission
@@ -457,10 +509,22 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
                 searchResults.setHitCount(0);
             }
 
+            if (cacheKey != null) {
+                // cache a copy, the returned list may be modified by the caller
+                CmsGallerySearchResultList cachedResults = new CmsGallerySearchResultList(searchResults.size());
+                cachedResults.append(searchResults);
+                resultCache.put(cacheKey, cachedResults);
+            }
+
         } catch (RuntimeException e) {
             throw new CmsSearchException(Messages.get().container(Messages.ERR_SEARCH_PARAMS_1, params), e);
         } catch (Exception e) {
             throw new CmsSearchException(Messages.get().container(Messages.ERR_SEARCH_PARAMS_1, params), e);
+        } finally {
+            // release the index searcher
+            if (searcher != null) {
+                releaseSearcher(searcher);
+            }
         }
 
         return searchResults;
@@ -657,6 +721,36 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
         return null;
     }
 
+    /**
+     * Opens the index searcher for this index and discards the cached gallery search results.<p>
+     * 
+     * @see org.opencms.search.CmsSearchIndex#indexSearcherOpen(java.lang.String)
+     */
+    @Override
+    protected synchronized void indexSearcherOpen(String path) {
+
+        super.indexSearcherOpen(path);
+        Map<String, CmsGallerySearchResultList> resultCache = CmsCollectionsGenericWrapper.createLRUMap(
+            RESULT_CACHE_MAX);
+        m_resultCache = Collections.synchronizedMap(resultCache);
+    }
+
+    /**
+     * Appends the given values to the given cache key, in sorted order.<p>
+     * 
+     * @param key the cache key to extend
+     * @param values the values to append, may be <code>null</code>
+     */
+    private void appendCacheKey(StringBuffer key, Collection<String> values) {
+
+        if ((values != null) && !values.isEmpty()) {
+            List<String> sortedValues = new ArrayList<String>(values);
+            Collections.sort(sortedValues);
+            key.append(sortedValues);
+        }
+        key.append('|');
+    }
+
     /**
      * Creates a filter which represents the "AND" operation on two other filters.<p>
      * 
@@ -703,4 +797,55 @@ public class CmsGallerySearchIndex extends CmsSearchIndex {
         return filter;
     }
 
+    /**
+     * Returns the key for caching the results of a gallery search.<p>
+     * 
+     * The order of the values of list parameters does not matter for the search, so the values are sorted. 
+     * Instead of the reference path, the folders actually searched are used.
+     * Since the readable results depend on the user and the request time, the principals of the user and the 
+     * request time, reduced to the reuse time span, are part of the key as well as the version of the index.<p>
+     * 
+     * @param cms the OpenCms context of the search
+     * @param params the search parameters
+     * @param folders the folders searched
+     * @param searcher the index searcher used for the search
+     * 
+     * @return the key for caching the results, or <code>null</code> if the results can not be cached
+     */
+    private String getResultCacheKey(
+        CmsObject cms,
+        CmsGallerySearchParameters params,
+        List<String> folders,
+        IndexSearcher searcher) {
+
+        if (!(searcher.getIndexReader() instanceof DirectoryReader)) {
+            return null;
+        }
+        StringBuffer key = new StringBuffer(256);
+        key.append(((DirectoryReader)searcher.getIndexReader()).getVersion()).append('|');
+        key.append(cms.getRequestContext().getRequestTime() / RESULT_CACHE_TIME_SPAN).append('|');
+        try {
+            key.append(CmsSearchPermissionFilter.getPrincipalKey(cms)).append('|');
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+        appendCacheKey(key, folders);
+        appendCacheKey(key, params.getCategories());
+        appendCacheKey(key, params.getContainerTypes());
+        appendCacheKey(key, params.getResourceTypes());
+        appendCacheKey(key, params.getFields());
+        key.append(params.getLocale()).append('|');
+        key.append(params.getDateLastModifiedRange().getStartTime()).append('-');
+        key.append(params.getDateLastModifiedRange().getEndTime()).append('|');
+        key.append(params.getDateCreatedRange().getStartTime()).append('-');
+        key.append(params.getDateCreatedRange().getEndTime()).append('|');
+        key.append(params.isIgnoreSearchExclude()).append('|');
+        key.append(params.getSortOrder()).append('|');
+        key.append(params.getMatchesPerPage()).append('|');
+        key.append(params.getResultPage()).append('|');
+        key.append(params.getSearchWords());
+        return key.toString();
+    }
+
 }
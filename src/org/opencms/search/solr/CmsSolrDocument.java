@@ -39,6 +39,10 @@ import org.opencms.relations.CmsCategory;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.documents.CmsDocumentDependency;
 import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
@@ -50,8 +54,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.solr.client.solrj.util.ClientUtils;
@@ -113,6 +121,66 @@ public class CmsSolrDocument implements I_CmsSearchDocument {
         DF.setTimeZone(DateUtil.UTC);
     }
 
+    /**
+     * Returns the values of the access control fields for the given access control list.<p>
+     * 
+     * The fields contain the ids of the principals with an entry in the list, of the principals 
+     * allowed to read and of the principals denied to read. The "all others" principal is only 
+     * contained in the read fields, since it only applies if no other entry matches a user.<p>
+     * 
+     * @param acl the access control list of the resource, including the inherited entries
+     * 
+     * @return the values of the access control fields, by field name
+     */
+    public static Map<String, Set<String>> getAccessControlFields(CmsAccessControlList acl) {
+
+        Map<String, Set<String>> fields = new LinkedHashMap<String, Set<String>>();
+        Set<String> principals = new HashSet<String>();
+        Set<String> allowed = new HashSet<String>();
+        Set<String> denied = new HashSet<String>();
+        for (Map.Entry<CmsUUID, CmsPermissionSetCustom> entry : acl.getPermissionMap().entrySet()) {
+            CmsUUID principalId = entry.getKey();
+            if (principalId.equals(CmsAccessControlEntry.PRINCIPAL_OVERWRITE_ALL_ID)) {
+                continue;
+            }
+            String id = principalId.toString();
+            if (!principalId.equals(CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID)) {
+                principals.add(id);
+            }
+            if ((entry.getValue().getAllowedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                allowed.add(id);
+            }
+            if ((entry.getValue().getDeniedPermissions() & CmsPermissionSet.PERMISSION_READ) > 0) {
+                denied.add(id);
+            }
+        }
+        fields.put(CmsSearchField.FIELD_ACL_PRINCIPALS, principals);
+        fields.put(CmsSearchField.FIELD_ACL_READ_ALLOWED, allowed);
+        fields.put(CmsSearchField.FIELD_ACL_READ_DENIED, denied);
+        return fields;
+    }
+
+    /**
+     * Adds the access control fields for the given access control list to this document.<p>
+     * 
+     * @param acl the access control list of the resource, including the inherited entries
+     * 
+     * @see #getAccessControlFields(CmsAccessControlList)
+     */
+    public void addAccessControlFields(CmsAccessControlList acl) {
+
+        if (!OpenCms.getSearchManager().getSolrServerConfiguration().getSolrSchema().hasExplicitField(
+            CmsSearchField.FIELD_ACL_PRINCIPALS)) {
+            // the schema has not been updated yet
+            return;
+        }
+        for (Map.Entry<String, Set<String>> field : getAccessControlFields(acl).entrySet()) {
+            for (String value : field.getValue()) {
+                m_doc.addField(field.getKey(), value);
+            }
+        }
+    }
+
     /**
      * @see org.opencms.search.I_CmsSearchDocument#addCategoryField(java.util.List)
      */
@@ -445,6 +513,25 @@ public class CmsSolrDocument implements I_CmsSearchDocument {
         return getFieldValueAsString(CmsSearchField.FIELD_TYPE);
     }
 
+    /**
+     * Checks if the access control fields of this document match the given access control list.<p>
+     * 
+     * @param acl the current access control list of the resource, including the inherited entries
+     * 
+     * @return <code>true</code> if the access control fields of this document match the given list
+     */
+    public boolean isAccessControlEqual(CmsAccessControlList acl) {
+
+        for (Map.Entry<String, Set<String>> field : getAccessControlFields(acl).entrySet()) {
+            List<String> values = getMultivaluedFieldAsStringList(field.getKey());
+            Set<String> indexed = values != null ? new HashSet<String>(values) : Collections.<String> emptySet();
+            if (!indexed.equals(field.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @see org.opencms.search.I_CmsSearchDocument#setBoost(float)
      */
@@ -51,6 +51,7 @@ import org.opencms.search.fields.CmsSearchFieldConfiguration;
 import org.opencms.search.fields.CmsSearchFieldMapping;
 import org.opencms.search.fields.CmsSearchFieldMappingType;
 import org.opencms.search.fields.I_CmsSearchFieldMapping;
+import org.opencms.security.CmsAccessControlList;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.containerpage.CmsContainerElementBean;
@@ -155,6 +156,16 @@ public class CmsSolrFieldConfiguration extends CmsSearchFieldConfiguration {
 
         document.addSearchField(m_solrFields.get(CmsSearchField.FIELD_VERSION), "" + resource.getVersion());
 
+        if (document instanceof CmsSolrDocument) {
+            // index the read permissions, so searches can filter the documents the user may not read
+            try {
+                CmsAccessControlList acl = cms.getAccessControlList(cms.getSitePath(resource));
+                ((CmsSolrDocument)document).addAccessControlFields(acl);
+            } catch (CmsException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+
         return document;
     }
 
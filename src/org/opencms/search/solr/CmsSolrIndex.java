@@ -33,10 +33,12 @@ package org.opencms.search.solr;
 
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsGroup;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsUser;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
@@ -56,6 +58,7 @@ import org.opencms.search.I_CmsIndexWriter;
 import org.opencms.search.I_CmsSearchDocument;
 import org.opencms.search.documents.I_CmsDocumentFactory;
 import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsAccessControlEntry;
 import org.opencms.security.CmsRole;
 import org.opencms.security.CmsRoleViolationException;
 import org.opencms.util.CmsRequestUtil;
@@ -76,6 +79,7 @@ import javax.servlet.ServletResponse;
 import org.apache.commons.logging.Log;
 import org.apache.lucene.index.Term;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrQuery.ORDER;
 import org.apache.solr.client.solrj.SolrServer;
 import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
 import org.apache.solr.client.solrj.response.QueryResponse;
@@ -129,6 +133,9 @@ public class CmsSolrIndex extends CmsSearchIndex {
     /** A constant for debug formatting output. */
     protected static final int DEBUG_PADDING_RIGHT = 50;
 
+    /** The number of documents below a published folder read at once when checking for changed access control. */
+    private static final int ACL_CHECK_ROWS = 500;
+
     /** The name for the parameters key of the response header. */
     private static final String HEADER_PARAMS_NAME = "params";
 
@@ -663,6 +670,59 @@ public class CmsSolrIndex extends CmsSearchIndex {
         // nothing to do here
     }
 
+    /**
+     * @see org.opencms.search.CmsSearchIndex#isAccessControlChanged(org.opencms.file.CmsObject, org.opencms.file.CmsResource)
+     */
+    @Override
+    protected boolean isAccessControlChanged(CmsObject cms, CmsResource folder) {
+
+        if (!OpenCms.getSearchManager().getSolrServerConfiguration().getSolrSchema().hasExplicitField(
+            CmsSearchField.FIELD_ACL_PRINCIPALS)) {
+            return false;
+        }
+        if (!OpenCms.getSearchManager().isAccessControlChanged(folder)) {
+            // the inherited access control entries of the folder are unchanged, so are the documents below
+            return false;
+        }
+        // folders are not indexed, so compare all documents below the folder with the current access control,
+        // an inherited access control entry of the folder may only affect some of them
+        SolrQuery query = new SolrQuery(CmsSearchField.FIELD_PARENT_FOLDERS + ":\"" + folder.getRootPath() + "\"");
+        query.setRows(Integer.valueOf(ACL_CHECK_ROWS));
+        query.addSort(CmsSearchField.FIELD_PATH, ORDER.asc);
+        query.setFields(
+            CmsSearchField.FIELD_PATH,
+            CmsSearchField.FIELD_ACL_PRINCIPALS,
+            CmsSearchField.FIELD_ACL_READ_ALLOWED,
+            CmsSearchField.FIELD_ACL_READ_DENIED);
+        try {
+            CmsObject clone = OpenCms.initCmsObject(cms);
+            clone.getRequestContext().setSiteRoot("");
+            int start = 0;
+            SolrDocumentList docs;
+            do {
+                query.setStart(Integer.valueOf(start));
+                docs = m_solr.query(query).getResults();
+                for (SolrDocument doc : docs) {
+                    CmsSolrDocument searchDoc = new CmsSolrDocument(doc);
+                    try {
+                        if (!searchDoc.isAccessControlEqual(clone.getAccessControlList(searchDoc.getPath()))) {
+                            return true;
+                        }
+                    } catch (CmsException e) {
+                        // the resource might have been deleted meanwhile, go on with the next document
+                        LOG.debug(e.getLocalizedMessage(), e);
+                    }
+                }
+                start += docs.size();
+            } while (!docs.isEmpty() && (start < docs.getNumFound()));
+        } catch (Exception e) {
+            // index the resources below the folder again, otherwise they might keep an outdated access control
+            LOG.error(e.getLocalizedMessage(), e);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Checks if the given resource should be indexed by this index or not.<p>
      *
@@ -710,6 +770,65 @@ public class CmsSolrIndex extends CmsSearchIndex {
         }
     }
 
+    /**
+     * Returns the filter query that restricts a search to the documents the current user may read.<p>
+     *
+     * The filter evaluates the access control fields of the documents the same way as
+     * {@link org.opencms.security.CmsAccessControlList#getPermissions(CmsUser, List, List)}: A document matches
+     * if one of the principals of the user is allowed to read and none is denied, or if no entry applies to any
+     * of the principals and the entry for all others allows reading. Documents indexed without access control
+     * fields always match and are only checked against the VFS.<p>
+     *
+     * @param cms the OpenCms context of the current user
+     *
+     * @return the filter query, or <code>null</code> if the search must not be filtered
+     */
+    private String getAccessControlFilter(CmsObject cms) {
+
+        if (!isCheckingPermissions()
+            || !OpenCms.getSearchManager().getSolrServerConfiguration().getSolrSchema().hasExplicitField(
+                CmsSearchField.FIELD_ACL_PRINCIPALS)
+            || OpenCms.getRoleManager().hasRole(cms, CmsRole.VFS_MANAGER)) {
+            // the VFS managers are allowed to read everything
+            return null;
+        }
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        List<String> principals = new ArrayList<String>();
+        principals.add("\"" + user.getId() + "\"");
+        try {
+            for (CmsGroup group : cms.getGroupsOfUser(user.getName(), false)) {
+                principals.add("\"" + group.getId() + "\"");
+            }
+            if (!user.isGuestUser()) {
+                List<CmsRole> roles = OpenCms.getRoleManager().getRolesOfUser(
+                    cms,
+                    user.getName(),
+                    "",
+                    true,
+                    false,
+                    false);
+                for (CmsRole role : roles) {
+                    principals.add("\"" + role.forOrgUnit(null).getId() + "\"");
+                }
+            }
+        } catch (CmsException e) {
+            // the search results are still checked against the VFS
+            LOG.error(e.getLocalizedMessage(), e);
+            return null;
+        }
+        String any = "(" + CmsStringUtil.listAsString(principals, " OR ") + ")";
+        String allOthers = "\"" + CmsAccessControlEntry.PRINCIPAL_ALL_OTHERS_ID + "\"";
+        StringBuffer filter = new StringBuffer();
+        filter.append("(").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(":").append(any);
+        filter.append(" -").append(CmsSearchField.FIELD_ACL_READ_DENIED).append(":").append(any).append(")");
+        filter.append(" OR (").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(":").append(allOthers);
+        filter.append(" -").append(CmsSearchField.FIELD_ACL_READ_DENIED).append(":").append(allOthers);
+        filter.append(" -").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(":").append(any).append(")");
+        filter.append(" OR (*:* -").append(CmsSearchField.FIELD_ACL_PRINCIPALS).append(":[* TO *]");
+        filter.append(" -").append(CmsSearchField.FIELD_ACL_READ_ALLOWED).append(":[* TO *])");
+        return filter.toString();
+    }
+
     /**
      * <h4>Performs a search on the Solr index</h4>
      *
@@ -736,6 +855,10 @@ public class CmsSolrIndex extends CmsSearchIndex {
      *
      * <li>Also make sure we perform the permission check for all found documents, so start with
      * the first found doc.</li>
+     *
+     * <li>If the index contains the access control fields, the documents the user may not read are
+     * filtered by Solr already. In this case only the requested page is fetched and the permission
+     * check is performed for the documents of this page only.</li>
      * </ul>
      *
      * <b>NOTE:</b> If latter pages than the current one are containing protected documents the
@@ -776,6 +899,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
         query.setHighlight(false);
         LocalSolrQueryRequest solrQueryRequest = null;
+        String aclFilter = null;
         try {
 
             // initialize the search context
@@ -802,9 +926,21 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 page = Math.round(start / rows) + 1;
             }
 
-            // set the start to '0' and expand the rows before performing the query
-            query.setStart(new Integer(0));
-            query.setRows(new Integer((5 * rows * page) + start));
+            // let Solr filter the documents the user may not read, so the requested page can be fetched directly
+            aclFilter = getAccessControlFilter(searchCms);
+            int offset = 0;
+            if (aclFilter != null) {
+                query.addFilterQuery(aclFilter);
+            }
+            if ((aclFilter != null) && (rows > 0)) {
+                offset = rows * (page - 1);
+                query.setStart(Integer.valueOf(offset));
+                query.setRows(Integer.valueOf(rows));
+            } else {
+                // set the start to '0' and expand the rows before performing the query
+                query.setStart(Integer.valueOf(0));
+                query.setRows(Integer.valueOf((5 * rows * page) + start));
+            }
 
             // perform the Solr query and remember the original Solr response
             QueryResponse queryResponse = m_solr.query(query);
@@ -836,7 +972,7 @@ public class CmsSolrIndex extends CmsSearchIndex {
 
             // process found documents
             List<CmsSearchResource> allDocs = new ArrayList<CmsSearchResource>();
-            int cnt = 0;
+            int cnt = offset;
             for (int i = 0; (i < queryResponse.getResults().size()) && (cnt < end); i++) {
                 try {
                     SolrDocument doc = queryResponse.getResults().get(i);
@@ -1037,6 +1173,11 @@ public class CmsSolrIndex extends CmsSearchIndex {
                 CmsEncoder.decode(query.toString())), e);
         } finally {
 
+            // remove the access control filter, so the query can be used again
+            if (aclFilter != null) {
+                query.removeFilterQuery(aclFilter);
+            }
+
             // re-set thread to previous priority
             Thread.currentThread().setPriority(previousPriority);
         }
@@ -212,7 +212,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
             }
         }
         if (dbc.getProjectId().isNullUUID()) {
-            OpenCms.getMemoryMonitor().cachePermission(cacheKey, result);
+            OpenCms.getMemoryMonitor().cachePermission(cacheKey, result, resource);
         }
 
         return result;
@@ -33,6 +33,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
 import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
@@ -46,6 +47,7 @@ import org.opencms.workplace.CmsWorkplace;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.ArrayList;
@@ -54,9 +56,21 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
@@ -68,24 +82,154 @@ import org.apache.commons.logging.Log;
  * 
  * This handler exports all changes immediately after something is published.<p>
  * 
+ * The resources are exported by the number of threads configured with 
+ * {@link CmsStaticExportManager#getExportThreads()}. Template resources are requested from the 
+ * export URL with HTTP keep-alive, and the number of concurrent requests per host can be limited with
+ * {@link CmsStaticExportManager#getExportHostConnections()}. The report is written in the original order.<p>
+ * 
  * @since 6.0.0 
  * 
  * @see I_CmsStaticExportHandler
  */
 public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler {
 
+    /**
+     * An export task that has been scheduled, but not yet written to the report.<p>
+     */
+    private static class CmsExportTask {
+
+        /** The report count of the task. */
+        protected int m_count;
+
+        /** The export data of the exported resource. */
+        protected CmsStaticExportData m_data;
+
+        /** The future of the task. */
+        protected Future<Integer> m_future;
+
+        /**
+         * Creates a new export task.<p>
+         * 
+         * @param count the report count
+         * @param data the export data of the exported resource
+         * @param future the future of the task
+         */
+        protected CmsExportTask(int count, CmsStaticExportData data, Future<Integer> future) {
+
+            m_count = count;
+            m_data = data;
+            m_future = future;
+        }
+    }
+
+    /**
+     * The worker threads used to export resources in parallel.<p>
+     * 
+     * With a single export thread, the tasks are executed immediately by the calling thread.<p>
+     */
+    private static class CmsExportWorkers {
+
+        /** The executor, <code>null</code> with a single export thread. */
+        private ThreadPoolExecutor m_executor;
+
+        /** The number of export threads. */
+        private int m_threads;
+
+        /**
+         * Creates the worker threads.<p>
+         * 
+         * @param threads the number of export threads
+         */
+        protected CmsExportWorkers(int threads) {
+
+            m_threads = Math.max(1, threads);
+            if (m_threads > 1) {
+                ThreadFactory threadFactory = new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: Static export worker "
+                            + POOL_THREAD_COUNT.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                };
+                m_executor = new ThreadPoolExecutor(
+                    m_threads,
+                    m_threads,
+                    60,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    threadFactory);
+            }
+        }
+
+        /**
+         * Returns the maximum number of scheduled tasks that have not been written to the report yet.<p>
+         * 
+         * @return the maximum number of pending tasks
+         */
+        protected int getMaxPending() {
+
+            return (m_threads > 1) ? (2 * m_threads) : 0;
+        }
+
+        /**
+         * Returns the number of export threads.<p>
+         * 
+         * @return the number of export threads
+         */
+        protected int getThreads() {
+
+            return m_threads;
+        }
+
+        /**
+         * Stops the worker threads.<p>
+         */
+        protected void shutDown() {
+
+            if (m_executor != null) {
+                m_executor.shutdownNow();
+            }
+        }
+
+        /**
+         * Schedules an export task.<p>
+         * 
+         * @param task the task
+         * 
+         * @return the future of the task
+         */
+        protected Future<Integer> submit(Callable<Integer> task) {
+
+            if (m_executor != null) {
+                return m_executor.submit(task);
+            }
+            FutureTask<Integer> future = new FutureTask<Integer>(task);
+            future.run();
+            return future;
+        }
+    }
+
     /** Header field set-cookie constant. */
     private static final String HEADER_FIELD_SET_COOKIE = "Set-Cookie";
 
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsAfterPublishStaticExportHandler.class);
 
+    /** Counter for the names of the worker threads. */
+    private static final AtomicInteger POOL_THREAD_COUNT = new AtomicInteger();
+
     /** Request method get constant. */
     private static final String REQUEST_METHOD_GET = "GET";
 
     /** Request property cookie constant. */
     private static final String REQUEST_PROPERTY_COOKIE = "Cookie";
 
+    /** The permits for concurrent export requests, by host. */
+    private ConcurrentHashMap<String, Semaphore> m_hostPermits = new ConcurrentHashMap<String, Semaphore>();
+
     /**
      * Does the actual static export.<p>
      *  
@@ -314,49 +458,41 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_NUM_EXPORT_1, new Integer(size)));
         }
-        // now do the export
-        Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
-        while (i.hasNext()) {
-            CmsStaticExportData exportData = i.next();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(
-                    Messages.LOG_EXPORT_FILE_2,
-                    exportData.getVfsName(),
-                    exportData.getRfsName()));
-            }
+        long startTime = System.currentTimeMillis();
+        final CmsObject exportCms = cms;
+        final CmsStaticExportManager exportManager = manager;
+        CmsExportWorkers workers = new CmsExportWorkers(manager.getExportThreads());
+        LinkedList<CmsExportTask> pendingTasks = new LinkedList<CmsExportTask>();
+        try {
+            // now do the export
+            Iterator<CmsStaticExportData> i = resourcesToExport.iterator();
+            while (i.hasNext()) {
+                final CmsStaticExportData exportData = i.next();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_EXPORT_FILE_2,
+                        exportData.getVfsName(),
+                        exportData.getRfsName()));
+                }
+                Future<Integer> future = workers.submit(new Callable<Integer>() {
 
-            report.print(
-                org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_SUCCESSION_2,
-                    new Integer(count++),
-                    new Integer(size)),
-                I_CmsReport.FORMAT_NOTE);
-            report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-            report.print(org.opencms.report.Messages.get().container(
-                org.opencms.report.Messages.RPT_ARGUMENT_1,
-                exportData.getVfsName()));
-            report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            int status = manager.export(null, null, cms, exportData);
-            if (status == HttpServletResponse.SC_OK) {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                    I_CmsReport.FORMAT_OK);
-            } else {
-                report.println(
-                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                    I_CmsReport.FORMAT_NOTE);
-            }
+                    public Integer call() throws Exception {
 
-            if (LOG.isInfoEnabled()) {
-                Object[] arguments = new Object[] {
-                    exportData.getVfsName(),
-                    exportData.getRfsName(),
-                    new Integer(status)};
-                LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+                        return Integer.valueOf(exportManager.export(null, null, exportCms, exportData));
+                    }
+                });
+                pendingTasks.add(new CmsExportTask(count++, exportData, future));
+                while (pendingTasks.size() > workers.getMaxPending()) {
+                    reportNonTemplateResource(pendingTasks.removeFirst(), size, report);
+                }
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well 
-            Thread.yield();
+            while (!pendingTasks.isEmpty()) {
+                reportNonTemplateResource(pendingTasks.removeFirst(), size, report);
+            }
+        } finally {
+            workers.shutDown();
         }
+        reportThroughput(report, count - 1, startTime, workers.getThreads());
 
         resourcesToExport = null;
 
@@ -567,23 +703,40 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
                 exportFile.getName(),
                 new Long((dateLastModified / 1000) * 1000)));
         }
-        if (cookies.length() > 0) {
-            // set the cookies, included the session id to keep the same session
-            urlcon.setRequestProperty(REQUEST_PROPERTY_COOKIE, cookies.toString());
+        // the cookies are shared by all export threads
+        synchronized (cookies) {
+            if (cookies.length() > 0) {
+                // set the cookies, included the session id to keep the same session
+                urlcon.setRequestProperty(REQUEST_PROPERTY_COOKIE, cookies.toString());
+            }
         }
 
         // now perform the request
-        urlcon.connect();
-        int status = urlcon.getResponseCode();
-
-        if (cookies.length() == 0) {
-            //Now retrieve the cookies. The jsessionid is here
-            cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+        int status;
+        Semaphore permits = getHostPermits(exportUrl);
+        if (permits != null) {
+            permits.acquireUninterruptibly();
+        }
+        try {
+            urlcon.connect();
+            status = urlcon.getResponseCode();
+
+            synchronized (cookies) {
+                if (cookies.length() == 0) {
+                    //Now retrieve the cookies. The jsessionid is here
+                    cookies.append(urlcon.getHeaderField(HEADER_FIELD_SET_COOKIE));
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(Messages.get().getBundle().key(Messages.LOG_STATICEXPORT_COOKIES_1, cookies));
+                    }
+                }
+            }
+            // read the response instead of disconnecting, so that the connection is kept alive for the next request
+            consumeResponse(urlcon);
+        } finally {
+            if (permits != null) {
+                permits.release();
             }
         }
-        urlcon.disconnect();
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(
                 Messages.LOG_REQUEST_RESULT_3,
@@ -614,93 +767,83 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_BEGIN_0),
             I_CmsReport.FORMAT_HEADLINE);
 
-        StringBuffer cookies = new StringBuffer();
-        // now loop through all of them and request them from the server
-        Iterator<String> i = publishedTemplateResources.iterator();
-        while (i.hasNext()) {
-            String rfsName = i.next();
-            CmsStaticExportData data = null;
-            try {
-                data = manager.getVfsNameInternal(cms, rfsName);
-            } catch (CmsVfsResourceNotFoundException e) {
-                String rfsBaseName = rfsName;
-                int pos = rfsName.lastIndexOf('_');
-                if (pos >= 0) {
-                    rfsBaseName = rfsName.substring(0, pos);
-                }
+        final StringBuffer cookies = new StringBuffer();
+        long startTime = System.currentTimeMillis();
+        CmsExportWorkers workers = new CmsExportWorkers(manager.getExportThreads());
+        LinkedList<CmsExportTask> pendingTasks = new LinkedList<CmsExportTask>();
+        try {
+            // now loop through all of them and request them from the server
+            Iterator<String> i = publishedTemplateResources.iterator();
+            while (i.hasNext()) {
+                String rfsName = i.next();
+                CmsStaticExportData data = null;
                 try {
-                    data = manager.getVfsNameInternal(cms, rfsBaseName);
-                } catch (CmsVfsResourceNotFoundException e2) {
-                    if (LOG.isInfoEnabled()) {
-                        LOG.info(Messages.get().getBundle().key(
-                            Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
-                            new String[] {rfsName}));
+                    data = manager.getVfsNameInternal(cms, rfsName);
+                } catch (CmsVfsResourceNotFoundException e) {
+                    String rfsBaseName = rfsName;
+                    int pos = rfsName.lastIndexOf('_');
+                    if (pos >= 0) {
+                        rfsBaseName = rfsName.substring(0, pos);
+                    }
+                    try {
+                        data = manager.getVfsNameInternal(cms, rfsBaseName);
+                    } catch (CmsVfsResourceNotFoundException e2) {
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info(Messages.get().getBundle().key(
+                                Messages.LOG_NO_INTERNAL_VFS_RESOURCE_FOUND_1,
+                                new String[] {rfsName}));
+                        }
                     }
                 }
-            }
-            if (data != null) {
+                if (data == null) {
+                    // no valid resource found for rfs name (already deleted), skip it
+                    continue;
+                }
                 data.setRfsName(rfsName);
-                report.print(
-                    org.opencms.report.Messages.get().container(
-                        org.opencms.report.Messages.RPT_SUCCESSION_2,
-                        new Integer(count++),
-                        new Integer(size)),
-                    I_CmsReport.FORMAT_NOTE);
-                report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
-                report.print(org.opencms.report.Messages.get().container(
-                    org.opencms.report.Messages.RPT_ARGUMENT_1,
-                    rfsName));
-                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
-            } else {
-                // no valid resource found for rfs name (already deleted), skip it
-                continue;
-            }
 
-            try {
-                CmsResource resource = data.getResource();
+                // the detail pages are read here, the cms context is not passed to the worker threads
+                final List<CmsStaticExportData> exports = new ArrayList<CmsStaticExportData>();
                 try {
-                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(cms, resource);
+                    Collection<String> detailPages = CmsDetailPageUtil.getAllDetailPagesWithUrlName(
+                        cms,
+                        data.getResource());
                     for (String detailPageUri : detailPages) {
                         String altRfsName = manager.getRfsName(cms, detailPageUri);
-                        CmsStaticExportData detailData = new CmsStaticExportData(
+                        exports.add(new CmsStaticExportData(
                             data.getVfsName(),
                             altRfsName,
                             data.getResource(),
-                            data.getParameters());
-                        exportTemplateResource(detailData, cookies);
+                            data.getParameters()));
                     }
                 } catch (CmsException e) {
                     LOG.error(e.getLocalizedMessage(), e);
                 }
+                // the resource itself is exported last, its status is written to the report
+                exports.add(data);
 
-                int status = exportTemplateResource(data, cookies);
-
-                // write the report
-                if (status == HttpServletResponse.SC_OK) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
-                        I_CmsReport.FORMAT_OK);
-                } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else if (status == HttpServletResponse.SC_SEE_OTHER) {
-                    report.println(
-                        org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
-                        I_CmsReport.FORMAT_NOTE);
-                } else {
-                    report.println(
-                        org.opencms.report.Messages.get().container(
-                            org.opencms.report.Messages.RPT_ARGUMENT_1,
-                            new Integer(status)),
-                        I_CmsReport.FORMAT_OK);
+                Future<Integer> future = workers.submit(new Callable<Integer>() {
+
+                    public Integer call() throws IOException {
+
+                        int status = 0;
+                        for (CmsStaticExportData export : exports) {
+                            status = exportTemplateResource(export, cookies);
+                        }
+                        return Integer.valueOf(status);
+                    }
+                });
+                pendingTasks.add(new CmsExportTask(count++, data, future));
+                while (pendingTasks.size() > workers.getMaxPending()) {
+                    reportTemplateResource(pendingTasks.removeFirst(), size, report);
                 }
-            } catch (IOException e) {
-                report.println(e);
             }
-            //don't lock up the CPU exclusively - allow other Threads to run as well 
-            Thread.yield();
+            while (!pendingTasks.isEmpty()) {
+                reportTemplateResource(pendingTasks.removeFirst(), size, report);
+            }
+        } finally {
+            workers.shutDown();
         }
+        reportThroughput(report, count - 1, startTime, workers.getThreads());
         report.println(
             Messages.get().container(Messages.RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0),
             I_CmsReport.FORMAT_HEADLINE);
@@ -890,4 +1033,222 @@ public class CmsAfterPublishStaticExportHandler extends A_CmsStaticExportHandler
 
         return templatesFound;
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads and discards the response of an export request.<p>
+     * 
+     * The connection can only be reused for further requests to the same host
+     * if the response has been read completely.<p>
+     * 
+     * @param urlcon the connection
+     */
+    private void consumeResponse(HttpURLConnection urlcon) {
+
+        InputStream in = null;
+        try {
+            try {
+                in = urlcon.getInputStream();
+            } catch (IOException e) {
+                in = urlcon.getErrorStream();
+            }
+            if (in != null) {
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                    // discard the content, it has already been written to the export folder
+                }
+            }
+        } catch (IOException e) {
+            // the connection can not be reused
+            urlcon.disconnect();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the result of an export task.<p>
+     * 
+     * @param future the future of the export task
+     * 
+     * @return the status of the export
+     * 
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet 
+     */
+    private int getExportStatus(Future<Integer> future) throws CmsException, IOException, ServletException {
+
+        try {
+            return future.get().intValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CmsStaticExportException(Messages.get().container(Messages.ERR_EXPORT_WORKER_FAILED_0), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CmsException) {
+                throw (CmsException)cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException)cause;
+            } else if (cause instanceof ServletException) {
+                throw (ServletException)cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new CmsStaticExportException(Messages.get().container(Messages.ERR_EXPORT_WORKER_FAILED_0), cause);
+        }
+    }
+
+    /**
+     * Returns the permits for concurrent requests to the host of the given URL.<p>
+     * 
+     * @param url the URL
+     * 
+     * @return the permits, or <code>null</code> if the number of requests per host is not limited
+     */
+    private Semaphore getHostPermits(URL url) {
+
+        int limit = OpenCms.getStaticExportManager().getExportHostConnections();
+        if (limit <= 0) {
+            return null;
+        }
+        String host = url.getHost() + ":" + url.getPort();
+        Semaphore permits = m_hostPermits.get(host);
+        if (permits == null) {
+            permits = new Semaphore(limit);
+            Semaphore existing = m_hostPermits.putIfAbsent(host, permits);
+            if (existing != null) {
+                permits = existing;
+            }
+        }
+        return permits;
+    }
+
+    /**
+     * Writes the result of an export task for a non-template resource to the report.<p>
+     * 
+     * @param task the export task
+     * @param size the number of resources to export
+     * @param report the report to write to
+     * 
+     * @throws CmsException in case of errors accessing the VFS
+     * @throws IOException in case of errors writing to the export output stream
+     * @throws ServletException in case of errors accessing the servlet 
+     */
+    private void reportNonTemplateResource(CmsExportTask task, int size, I_CmsReport report)
+    throws CmsException, IOException, ServletException {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                Integer.valueOf(task.m_count),
+                Integer.valueOf(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(
+            org.opencms.report.Messages.RPT_ARGUMENT_1,
+            task.m_data.getVfsName()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        int status = getExportStatus(task.m_future);
+        if (status == HttpServletResponse.SC_OK) {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
+        } else {
+            report.println(
+                org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                I_CmsReport.FORMAT_NOTE);
+        }
+
+        if (LOG.isInfoEnabled()) {
+            Object[] arguments = new Object[] {
+                task.m_data.getVfsName(),
+                task.m_data.getRfsName(),
+                Integer.valueOf(status)};
+            LOG.info(Messages.get().getBundle().key(Messages.LOG_EXPORT_FILE_STATUS_3, arguments));
+        }
+    }
+
+    /**
+     * Writes the result of an export task for a template resource to the report.<p>
+     * 
+     * @param task the export task
+     * @param size the number of resources to export
+     * @param report the report to write to
+     */
+    private void reportTemplateResource(CmsExportTask task, int size, I_CmsReport report) {
+
+        report.print(
+            org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_SUCCESSION_2,
+                Integer.valueOf(task.m_count),
+                Integer.valueOf(size)),
+            I_CmsReport.FORMAT_NOTE);
+        report.print(Messages.get().container(Messages.RPT_EXPORTING_0), I_CmsReport.FORMAT_NOTE);
+        report.print(org.opencms.report.Messages.get().container(
+            org.opencms.report.Messages.RPT_ARGUMENT_1,
+            task.m_data.getRfsName()));
+        report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+        try {
+            int status = getExportStatus(task.m_future);
+
+            // write the report
+            if (status == HttpServletResponse.SC_OK) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            } else if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_SKIPPED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else if (status == HttpServletResponse.SC_SEE_OTHER) {
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_IGNORED_0),
+                    I_CmsReport.FORMAT_NOTE);
+            } else {
+                report.println(
+                    org.opencms.report.Messages.get().container(
+                        org.opencms.report.Messages.RPT_ARGUMENT_1,
+                        Integer.valueOf(status)),
+                    I_CmsReport.FORMAT_OK);
+            }
+        } catch (Exception e) {
+            report.println(e);
+        }
+    }
+
+    /**
+     * Writes the throughput of an export phase to the report.<p>
+     * 
+     * @param report the report to write to
+     * @param count the number of exported resources
+     * @param startTime the start time of the export phase
+     * @param threads the number of export threads
+     */
+    private void reportThroughput(I_CmsReport report, int count, long startTime, int threads) {
+
+        if (count <= 0) {
+            return;
+        }
+        long runtime = System.currentTimeMillis() - startTime;
+        String perSecond = String.valueOf((count * 1000L) / Math.max(1, runtime));
+        CmsMessageContainer message = Messages.get().container(
+            Messages.RPT_STATICEXPORT_THROUGHPUT_4,
+            new Object[] {
+                Integer.valueOf(count),
+                CmsStringUtil.formatRuntime(runtime),
+                perSecond,
+                Integer.valueOf(threads)});
+        report.println(message, I_CmsReport.FORMAT_NOTE);
+        if (LOG.isInfoEnabled()) {
+            LOG.info(message.key());
+        }
+    }
+}
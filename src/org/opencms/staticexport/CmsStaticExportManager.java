@@ -175,6 +175,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** The additional http headers for the static export. */
     private List<String> m_exportHeaders;
 
+    /** The maximum number of concurrent export requests per host, 0 for no limit. */
+    private int m_exportHostConnections;
+
     /** List of all resources that have the "exportname" property set: &lt;system-wide unique export name, root path&gt;. */
     private Map<String, String> m_exportnameResources;
 
@@ -190,6 +193,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** List of export suffixes where the "export" property default is always <code>true</code>. */
     private List<String> m_exportSuffixes;
 
+    /** The number of threads used to export resources. */
+    private int m_exportThreads;
+
     /** Temporary variable for reading the xml config file. */
     private CmsStaticExportExportRule m_exportTmpRule;
 
@@ -214,6 +220,9 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     /** Lock object for write access to the {@link #cmsEvent(CmsEvent)} method. */
     private Object m_lockCmsEvent;
 
+    /** Lock object for the full static export in {@link #exportFullStaticRender(boolean, I_CmsReport)}. */
+    private Object m_lockFullStaticRender;
+
     /** Lock object for export folder deletion in {@link #scrubExportFolders(I_CmsReport)}. */
     private Object m_lockScrubExportFolders;
 
@@ -275,6 +284,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     public CmsStaticExportManager() {
 
         m_lockCmsEvent = new Object();
+        m_lockFullStaticRender = new Object();
         m_lockScrubExportFolders = new Object();
         m_lockSetExportnames = new Object();
         m_exportSuffixes = new ArrayList<String>();
@@ -285,6 +295,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportTmpRule = new CmsStaticExportExportRule("", "");
         m_rfsTmpRule = new CmsStaticExportRfsRule("", "", "", "", "", "", null, null);
         m_fullStaticExport = false;
+        m_exportThreads = 1;
     }
 
     /**
@@ -687,72 +698,77 @@ public class CmsStaticExportManager implements I_CmsEventListener {
      * @throws IOException in case of errors writing to the export output stream
      * @throws ServletException in case of errors accessing the servlet 
      */
-    public synchronized void exportFullStaticRender(boolean purgeFirst, I_CmsReport report)
+    public void exportFullStaticRender(boolean purgeFirst, I_CmsReport report)
     throws CmsException, IOException, ServletException {
 
-        // set member to true to get temporary export paths for rules
-        m_fullStaticExport = true;
-        // save the real export path
-        String staticExportPathStore = m_staticExportPath;
-
-        if (m_useTempDirs) {
-            // set the export path to the export work path
-            m_staticExportPath = m_staticExportWorkPath;
-        }
-
-        // delete all old exports if the purgeFirst flag is set
-        if (purgeFirst) {
-            Map<String, Object> eventData = new HashMap<String, Object>();
-            eventData.put(I_CmsEventListener.KEY_REPORT, report);
-            CmsEvent clearCacheEvent = new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, eventData);
-            OpenCms.fireCmsEvent(clearCacheEvent);
-
-            scrubExportFolders(report);
-            // this will always use the root site
-            CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
-            cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITHOUT_PARAMETER);
-            cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITH_PARAMETER);
-        }
-
-        // do the export
-        CmsAfterPublishStaticExportHandler handler = new CmsAfterPublishStaticExportHandler();
-        // export everything
-        handler.doExportAfterPublish(null, report);
-
-        // set export path to the original one
-        m_staticExportPath = staticExportPathStore;
+        // only one full static export at a time, the export paths are changed while exporting
+        synchronized (m_lockFullStaticRender) {
+            // set member to true to get temporary export paths for rules
+            m_fullStaticExport = true;
+            // save the real export path
+            String staticExportPathStore = m_staticExportPath;
 
-        // set member to false for further exports
-        m_fullStaticExport = false;
+            if (m_useTempDirs) {
+                // set the export path to the export work path
+                m_staticExportPath = m_staticExportWorkPath;
+            }
 
-        // check if report contents no errors
-        if (m_useTempDirs && !report.hasError()) {
-            // backup old export folders for default export 
-            File staticExport = new File(m_staticExportPath);
-            createExportBackupFolders(staticExport, m_staticExportPath, getExportBackups().intValue(), null);
+            // delete all old exports if the purgeFirst flag is set
+            if (purgeFirst) {
+                Map<String, Object> eventData = new HashMap<String, Object>();
+                eventData.put(I_CmsEventListener.KEY_REPORT, report);
+                CmsEvent clearCacheEvent = new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, eventData);
+                OpenCms.fireCmsEvent(clearCacheEvent);
 
-            // change the name of the used temporary export folder to the original default export path
-            File staticExportWork = new File(m_staticExportWorkPath);
-            staticExportWork.renameTo(new File(m_staticExportPath));
+                scrubExportFolders(report);
+                // this will always use the root site
+                CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserExport());
+                cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITHOUT_PARAMETER);
+                cms.deleteAllStaticExportPublishedResources(EXPORT_LINK_WITH_PARAMETER);
+            }
 
-            // backup old export folders of rule based exports
-            Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
-            while (it.hasNext()) {
-                CmsStaticExportRfsRule rule = it.next();
-                File staticExportRule = new File(rule.getExportPath());
-                File staticExportWorkRule = new File(rule.getExportWorkPath());
-                // only backup if a temporary folder exists for this rule
-                if (staticExportWorkRule.exists()) {
-                    createExportBackupFolders(
-                        staticExportRule,
-                        rule.getExportPath(),
-                        rule.getExportBackups().intValue(),
-                        OpenCms.getResourceManager().getFileTranslator().translateResource(rule.getName()));
-                    staticExportWorkRule.renameTo(new File(rule.getExportPath()));
+            // do the export
+            CmsAfterPublishStaticExportHandler handler = new CmsAfterPublishStaticExportHandler();
+            // export everything
+            handler.doExportAfterPublish(null, report);
+
+            // set export path to the original one
+            m_staticExportPath = staticExportPathStore;
+
+            // set member to false for further exports
+            m_fullStaticExport = false;
+
+            // check if report contents no errors
+            if (m_useTempDirs && !report.hasError()) {
+                // backup old export folders for default export 
+                File staticExport = new File(m_staticExportPath);
+                createExportBackupFolders(staticExport, m_staticExportPath, getExportBackups().intValue(), null);
+
+                // change the name of the used temporary export folder to the original default export path
+                File staticExportWork = new File(m_staticExportWorkPath);
+                staticExportWork.renameTo(new File(m_staticExportPath));
+
+                // backup old export folders of rule based exports
+                Iterator<CmsStaticExportRfsRule> it = m_rfsRules.iterator();
+                while (it.hasNext()) {
+                    CmsStaticExportRfsRule rule = it.next();
+                    File staticExportRule = new File(rule.getExportPath());
+                    File staticExportWorkRule = new File(rule.getExportWorkPath());
+                    // only backup if a temporary folder exists for this rule
+                    if (staticExportWorkRule.exists()) {
+                        createExportBackupFolders(
+                            staticExportRule,
+                            rule.getExportPath(),
+                            rule.getExportBackups().intValue(),
+                            OpenCms.getResourceManager().getFileTranslator().translateResource(rule.getName()));
+                        staticExportWorkRule.renameTo(new File(rule.getExportPath()));
+                    }
                 }
+            } else if (report.hasError()) {
+                report.println(
+                    Messages.get().container(Messages.ERR_EXPORT_NOT_SUCCESSFUL_0),
+                    I_CmsReport.FORMAT_WARNING);
             }
-        } else if (report.hasError()) {
-            report.println(Messages.get().container(Messages.ERR_EXPORT_NOT_SUCCESSFUL_0), I_CmsReport.FORMAT_WARNING);
         }
     }
 
@@ -960,6 +976,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return Collections.unmodifiableList(m_exportHeaders);
     }
 
+    /**
+     * Returns the maximum number of concurrent export requests per host.<p>
+     * 
+     * @return the maximum number of concurrent export requests per host, 0 for no limit
+     */
+    public int getExportHostConnections() {
+
+        return m_exportHostConnections;
+    }
+
     /**
      * Returns a map of all export names with export name as key 
      * and the vfs folder path as value.<p>
@@ -1068,6 +1094,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         return m_exportSuffixes;
     }
 
+    /**
+     * Returns the number of threads used to export resources.<p>
+     * 
+     * @return the number of threads used to export resources
+     */
+    public int getExportThreads() {
+
+        return m_exportThreads;
+    }
+
     /**
      * Returns the export URL used for internal requests for exporting resources that require a 
      * request / response (like JSP).<p>
@@ -2081,6 +2117,16 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Sets the maximum number of concurrent export requests per host.<p>
+     * 
+     * @param value the maximum number of concurrent export requests per host, 0 for no limit
+     */
+    public void setExportHostConnections(String value) {
+
+        m_exportHostConnections = Math.max(0, Integer.parseInt(value.trim()));
+    }
+
     /**
      * Sets the path where the static export is written.<p>
      * 
@@ -2101,6 +2147,19 @@ public class CmsStaticExportManager implements I_CmsEventListener {
         m_exportSuffixes.add(suffix.toLowerCase());
     }
 
+    /**
+     * Sets the number of threads used to export resources.<p>
+     * 
+     * With more than one thread, the resources are exported in parallel, 
+     * while the report is still written in the original order.<p>
+     * 
+     * @param value the number of threads used to export resources
+     */
+    public void setExportThreads(String value) {
+
+        m_exportThreads = Math.max(1, Integer.parseInt(value.trim()));
+    }
+
     /**
      * Sets the export url.<p>
      * 
@@ -52,6 +52,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_EXPORT_NOT_SUPPORTED_2 = "ERR_EXPORT_NOT_SUPPORTED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_EXPORT_WORKER_FAILED_0 = "ERR_EXPORT_WORKER_FAILED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INVALID_ENCODING_1 = "ERR_INVALID_ENCODING_1";
 
@@ -337,6 +340,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0 = "RPT_STATICEXPORT_TEMPLATE_RESOURCES_END_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_STATICEXPORT_THROUGHPUT_4 = "RPT_STATICEXPORT_THROUGHPUT_4";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.staticexport.messages";
 
@@ -0,0 +1,191 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A table of read-write locks, one lock for each key that is currently in use.<p>
+ *
+ * A lock is obtained with {@link #acquire(String)} and must be given back with {@link #release(String)}
+ * once the caller has unlocked it, usually in a <code>finally</code> block. The table counts the callers
+ * using the lock of a key and removes the lock when the last caller has released it. So a lock is never
+ * removed while it is held or waited for, and the table contains only the keys that are currently in use.<p>
+ *
+ * The table is split into stripes selected by the hash code of the key, each guarded by its own monitor,
+ * which is held only while the lock of a key is looked up or released. Callers that use different keys
+ * therefore do not block each other, and callers that use the same key only block each other
+ * as required by the read-write lock of the key.<p>
+ *
+ * @since 9.5.0
+ */
+public class CmsReadWriteLockTable {
+
+    /**
+     * A lock of the table together with the number of callers using it.<p>
+     */
+    private static class CmsLockEntry {
+
+        /** The read-write lock. */
+        protected ReentrantReadWriteLock m_lock;
+
+        /** The number of callers that have acquired and not yet released the lock. */
+        protected int m_references;
+
+        /**
+         * Creates a new lock entry.<p>
+         *
+         * @param fair if the lock should use a fair ordering policy
+         */
+        protected CmsLockEntry(boolean fair) {
+
+            m_lock = new ReentrantReadWriteLock(fair);
+        }
+    }
+
+    /** The default number of stripes. */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /** Indicates if the locks use a fair ordering policy. */
+    private boolean m_fair;
+
+    /** The lock entries by key, one map per stripe. */
+    private Map<String, CmsLockEntry>[] m_stripes;
+
+    /**
+     * Creates a new lock table with the default number of stripes.<p>
+     *
+     * @param fair if the locks should use a fair ordering policy
+     */
+    public CmsReadWriteLockTable(boolean fair) {
+
+        this(DEFAULT_STRIPES, fair);
+    }
+
+    /**
+     * Creates a new lock table.<p>
+     *
+     * @param stripes the number of stripes, will be rounded up to the next power of 2
+     * @param fair if the locks should use a fair ordering policy
+     */
+    public CmsReadWriteLockTable(int stripes, boolean fair) {
+
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        m_fair = fair;
+        // generic arrays can not be created, the array only ever holds the maps created below
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Map<String, CmsLockEntry>[] stripeArray = new Map[size];
+        m_stripes = stripeArray;
+        for (int i = 0; i < size; i++) {
+            m_stripes[i] = new HashMap<String, CmsLockEntry>();
+        }
+    }
+
+    /**
+     * Returns the lock for the given key, creating it if the key is not in use.<p>
+     *
+     * The lock is not locked by this method. Every call must be followed by a call of
+     * {@link #release(String)} with the same key.<p>
+     *
+     * @param key the key
+     *
+     * @return the lock for the key
+     */
+    public ReentrantReadWriteLock acquire(String key) {
+
+        Map<String, CmsLockEntry> stripe = getStripe(key);
+        synchronized (stripe) {
+            CmsLockEntry entry = stripe.get(key);
+            if (entry == null) {
+                entry = new CmsLockEntry(m_fair);
+                stripe.put(key, entry);
+            }
+            entry.m_references++;
+            return entry.m_lock;
+        }
+    }
+
+    /**
+     * Returns the number of keys currently in use.<p>
+     *
+     * @return the number of keys currently in use
+     */
+    public int getSize() {
+
+        int size = 0;
+        for (Map<String, CmsLockEntry> stripe : m_stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gives back the lock for the given key, which must have been obtained with {@link #acquire(String)}.<p>
+     *
+     * The caller must have unlocked the lock before. If no other caller uses the lock,
+     * it is removed from the table.<p>
+     *
+     * @param key the key
+     */
+    public void release(String key) {
+
+        Map<String, CmsLockEntry> stripe = getStripe(key);
+        synchronized (stripe) {
+            CmsLockEntry entry = stripe.get(key);
+            if (entry != null) {
+                entry.m_references--;
+                if (entry.m_references <= 0) {
+                    stripe.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the stripe used for the given key.<p>
+     *
+     * @param key the key
+     *
+     * @return the stripe used for the given key
+     */
+    private Map<String, CmsLockEntry> getStripe(String key) {
+
+        int hash = key.hashCode();
+        // spread the bits of the hash code, since string hash codes often differ in the low bits only
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return m_stripes[hash & (m_stripes.length - 1)];
+    }
+}
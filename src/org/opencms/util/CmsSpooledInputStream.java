@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream on content that has been copied completely from another stream.<p>
+ *
+ * Spooling the content releases the source of the content, for example a database connection
+ * or the connection to a client, no matter how slowly the spooled content is read afterwards.
+ * Content up to a given size is kept in memory, larger content is copied to a temporary file
+ * that is deleted when the stream is closed. Callers must therefore always close the stream,
+ * usually in a <code>finally</code> block.<p>
+ *
+ * @since 9.5.0
+ */
+public final class CmsSpooledInputStream extends FilterInputStream {
+
+    /** The default size up to which content is kept in memory. */
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    /** The size of the buffer used to copy the content. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The temporary file, <code>null</code> if the content is kept in memory. */
+    private File m_file;
+
+    /** The length of the content. */
+    private long m_length;
+
+    /**
+     * Creates a new spooled input stream.<p>
+     *
+     * @param in the stream on the spooled content
+     * @param file the temporary file, <code>null</code> if the content is kept in memory
+     * @param length the length of the content
+     */
+    private CmsSpooledInputStream(InputStream in, File file, long length) {
+
+        super(in);
+        m_file = file;
+        m_length = length;
+    }
+
+    /**
+     * Copies the given stream completely and closes it.<p>
+     *
+     * @param in the stream to copy
+     * @param memoryThreshold the size up to which the content is kept in memory
+     *
+     * @return a stream on the copied content
+     *
+     * @throws IOException if reading the stream or writing the temporary file fails
+     */
+    public static CmsSpooledInputStream spool(InputStream in, int memoryThreshold) throws IOException {
+
+        ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        OutputStream out = memory;
+        File file = null;
+        long length = 0;
+        boolean success = false;
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if ((file == null) && ((length + read) > memoryThreshold)) {
+                    // the content is too large to be kept in memory
+                    file = File.createTempFile("opencms-spool", ".tmp");
+                    out = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+                    memory.writeTo(out);
+                    memory = null;
+                }
+                out.write(buffer, 0, read);
+                length += read;
+            }
+            out.close();
+            success = true;
+        } finally {
+            try {
+                in.close();
+            } finally {
+                if (!success && (file != null)) {
+                    out.close();
+                    file.delete();
+                }
+            }
+        }
+        if (file == null) {
+            return new CmsSpooledInputStream(new ByteArrayInputStream(memory.toByteArray()), null, length);
+        }
+        return new CmsSpooledInputStream(
+            new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE),
+            file,
+            length);
+    }
+
+    /**
+     * @see java.io.FilterInputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+            super.close();
+        } finally {
+            if (m_file != null) {
+                m_file.delete();
+                m_file = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the spooled content.<p>
+     *
+     * @return the length of the spooled content
+     */
+    public long getLength() {
+
+        return m_length;
+    }
+
+    /**
+     * Returns if the content has been copied to a temporary file.<p>
+     *
+     * @return <code>true</code> if the content has been copied to a temporary file
+     */
+    public boolean isTemporaryFile() {
+
+        return m_file != null;
+    }
+}
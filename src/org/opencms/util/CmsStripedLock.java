@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A fixed number of reentrant locks, the lock used for a key is selected by the hash code of the key.<p>
+ *
+ * This allows to serialize operations on the same key, e.g. the same resource path, while operations
+ * on different keys can proceed in parallel, without keeping a lock object for every key.<p>
+ *
+ * All keys of an operation must be passed to {@link #lock(Object...)} at once, the stripes are then 
+ * acquired in ascending order, so that two threads locking the same keys can not deadlock. A thread that 
+ * already holds a stripe may lock further keys in a nested operation, as long as the stripes are above 
+ * the stripes it already holds, or are free. Since waiting for a lower stripe could cause a deadlock, 
+ * a nested operation that needs a lower stripe held by another thread fails with an 
+ * {@link IllegalStateException}. Held stripes are never released before they are unlocked by the caller.<p>
+ * 
+ * Operations that can not determine all their keys in advance must use {@link #lockAll()} instead, 
+ * which excludes all other threads from all stripes.<p>
+ *
+ * @since 9.5.0
+ */
+public class CmsStripedLock {
+
+    /** The default number of stripes. */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /** Held for reading while stripes are held, and for writing to lock all stripes at once. */
+    private ReentrantReadWriteLock m_allStripes = new ReentrantReadWriteLock();
+
+    /** The lock stripes. */
+    private ReentrantLock[] m_stripes;
+
+    /**
+     * Creates a new striped lock with the default number of stripes.<p>
+     */
+    public CmsStripedLock() {
+
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a new striped lock.<p>
+     *
+     * @param stripes the number of stripes, will be rounded up to the next power of 2
+     */
+    public CmsStripedLock(int stripes) {
+
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        m_stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            m_stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the number of stripes.<p>
+     *
+     * @return the number of stripes
+     */
+    public int getStripeCount() {
+
+        return m_stripes.length;
+    }
+
+    /**
+     * Returns the index of the stripe used for the given key.<p>
+     *
+     * @param key the key
+     *
+     * @return the index of the stripe used for the given key
+     */
+    public int getStripeIndex(Object key) {
+
+        int hash = key.hashCode();
+        // spread the bits of the hash code, since string hash codes often differ in the low bits only
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return hash & (m_stripes.length - 1);
+    }
+
+    /**
+     * Locks the stripes for the given keys, waiting until they are available.<p>
+     *
+     * <code>null</code> keys are ignored. The returned locks must be released with
+     * {@link #unlock(List)}, usually in a <code>finally</code> block.<p>
+     *
+     * @param keys the keys to lock
+     *
+     * @return the locks that have been acquired
+     * 
+     * @throws IllegalStateException if this is a nested call that needs a stripe below a stripe held 
+     *      by the current thread, and that stripe is held by another thread
+     */
+    public List<Lock> lock(Object... keys) throws IllegalStateException {
+
+        int[] indexes = new int[keys.length];
+        int count = 0;
+        for (Object key : keys) {
+            if (key != null) {
+                indexes[count++] = getStripeIndex(key);
+            }
+        }
+        indexes = Arrays.copyOf(indexes, count);
+        Arrays.sort(indexes);
+
+        // no thread can hold a stripe while another thread has locked all stripes
+        Lock stripes = m_allStripes.readLock();
+        stripes.lock();
+        List<Lock> result = new ArrayList<Lock>(count + 1);
+        result.add(stripes);
+        boolean success = false;
+        try {
+            // only a nested call can hold stripes already
+            int highestHeld = m_allStripes.getReadHoldCount() > 1 ? getHighestHeldStripe() : -1;
+            int previous = -1;
+            for (int index : indexes) {
+                if (index == previous) {
+                    // several keys may map to the same stripe
+                    continue;
+                }
+                previous = index;
+                ReentrantLock stripe = m_stripes[index];
+                if ((index > highestHeld) || stripe.isHeldByCurrentThread()) {
+                    stripe.lock();
+                } else if (!stripe.tryLock()) {
+                    // waiting for the stripe while holding higher stripes could cause a deadlock
+                    throw new IllegalStateException("Nested lock on stripe "
+                        + index
+                        + " below held stripe "
+                        + highestHeld
+                        + " is not available");
+                }
+                result.add(stripe);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                unlock(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Locks all stripes at once, waiting until no other thread holds a stripe.<p>
+     *
+     * The current thread may lock any keys with {@link #lock(Object...)} while it holds all stripes.
+     * The returned locks must be released with {@link #unlock(List)}, usually in a <code>finally</code> block.<p>
+     *
+     * @return the locks that have been acquired
+     * 
+     * @throws IllegalStateException if the current thread already holds a stripe
+     */
+    public List<Lock> lockAll() throws IllegalStateException {
+
+        if (m_allStripes.getReadHoldCount() > 0) {
+            // upgrading from a stripe to all stripes would deadlock
+            throw new IllegalStateException("Can not lock all stripes while holding a stripe");
+        }
+        Lock all = m_allStripes.writeLock();
+        all.lock();
+        return Collections.singletonList(all);
+    }
+
+    /**
+     * Releases the given locks.<p>
+     *
+     * @param locks the locks as returned by {@link #lock(Object...)} or {@link #lockAll()}
+     */
+    public void unlock(List<Lock> locks) {
+
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    /**
+     * Returns the index of the highest stripe held by the current thread.<p>
+     *
+     * @return the index of the highest stripe held by the current thread, or -1 if the thread holds no stripe
+     */
+    private int getHighestHeldStripe() {
+
+        for (int i = m_stripes.length - 1; i >= 0; i--) {
+            if (m_stripes[i].isHeldByCurrentThread()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -564,15 +564,12 @@ public class CmsWebdavServlet extends HttpServlet {
         IOException exception = null;
         InputStream resourceInputStream = null;
 
-        // Optimization: If the binary content has already been loaded, send
-        // it directly
+        // stream the content, so that large files are not loaded into memory at once
         if (!item.isCollection()) {
-            byte[] buffer = item.getContent();
-            if (buffer != null) {
-                ostream.write(buffer, 0, buffer.length);
+            resourceInputStream = item.getContentStream();
+            if (resourceInputStream == null) {
                 return;
             }
-            resourceInputStream = new ByteArrayInputStream(item.getContent());
         } else {
             resourceInputStream = is;
         }
@@ -710,7 +707,10 @@ public class CmsWebdavServlet extends HttpServlet {
 
         IOException exception = null;
 
-        InputStream resourceInputStream = new ByteArrayInputStream(item.getContent());
+        InputStream resourceInputStream = item.getContentStream();
+        if (resourceInputStream == null) {
+            return;
+        }
         InputStream istream = new BufferedInputStream(resourceInputStream, m_input);
         exception = copyRange(istream, ostream, range.getStart(), range.getEnd());
 
@@ -2175,7 +2175,7 @@ public class CmsWebdavServlet extends HttpServlet {
         try {
             I_CmsRepositoryItem item = m_session.getItem(path);
 
-            oldResourceStream = new ByteArrayInputStream(item.getContent());
+            oldResourceStream = item.getContentStream();
         } catch (CmsException e) {
             if (LOG.isErrorEnabled()) {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_ITEM_NOT_FOUND_1, path), e);
@@ -2185,13 +2185,15 @@ public class CmsWebdavServlet extends HttpServlet {
         // Copy data in oldRevisionContent to contentFile
         if (oldResourceStream != null) {
 
-            int numBytesRead;
-            byte[] copyBuffer = new byte[BUFFER_SIZE];
-            while ((numBytesRead = oldResourceStream.read(copyBuffer)) != -1) {
-                randAccessContentFile.write(copyBuffer, 0, numBytesRead);
+            try {
+                int numBytesRead;
+                byte[] copyBuffer = new byte[BUFFER_SIZE];
+                while ((numBytesRead = oldResourceStream.read(copyBuffer)) != -1) {
+                    randAccessContentFile.write(copyBuffer, 0, numBytesRead);
+                }
+            } finally {
+                oldResourceStream.close();
             }
-
-            oldResourceStream.close();
         }
 
         randAccessContentFile.setLength(range.getLength());
@@ -28,6 +28,7 @@
 package org.opencms.xml.containerpage;
 
 import org.opencms.cache.CmsVfsCache;
+import org.opencms.db.CmsPublishedResource;
 import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeXmlContainerPage;
 import org.opencms.main.CmsLog;
@@ -38,6 +39,7 @@ import org.opencms.xml.content.CmsXmlContent;
 
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -69,6 +71,9 @@ public final class CmsADECache extends CmsVfsCache {
     /** Read-write lock to ensure that the cache maps aren't accessed while we iterate through them to remove invalid entries. */
     private ReadWriteLock m_lock = new ReentrantReadWriteLock(true);
 
+    /** Cache for online XML contents. */
+    private Map<String, CmsXmlContent> m_xmlContentsOnline;
+
     /**
      * Initializes the cache. Only intended to be called during startup.<p>
      * 
@@ -121,6 +126,19 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Flushes the online XML contents cache.<p>
+     */
+    public void flushXmlContents() {
+
+        try {
+            m_lock.writeLock().lock();
+            m_xmlContentsOnline.clear();
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Returns the cached container page under the given key and for the given project.<p>
      * 
@@ -233,6 +251,38 @@ public final class CmsADECache extends CmsVfsCache {
         return structureId.toString() + "_" + keepEncoding;
     }
 
+    /**
+     * Returns the cached online XML content with the given structure id.<p>
+     * 
+     * The cached XML content must not be modified or handed out, 
+     * use it only as a prototype for copies.<p>
+     * 
+     * @param structureId the structure id of the XML content
+     * 
+     * @return the cached XML content or <code>null</code> if not found
+     */
+    public CmsXmlContent getCacheXmlContent(CmsUUID structureId) {
+
+        try {
+            m_lock.readLock().lock();
+            CmsXmlContent retValue = m_xmlContentsOnline.get(structureId.toString());
+            if (LOG.isDebugEnabled()) {
+                if (retValue == null) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_DEBUG_CACHE_MISSED_ONLINE_1,
+                        new Object[] {structureId}));
+                } else {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_DEBUG_CACHE_MATCHED_ONLINE_2,
+                        new Object[] {structureId, retValue}));
+                }
+            }
+            return retValue;
+        } finally {
+            m_lock.readLock().unlock();
+        }
+    }
+
     /**
      * Caches the given container page under the given key and for the given project.<p>
      * 
@@ -297,6 +347,27 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Caches the given online XML content under the structure id of its file.<p>
+     * 
+     * @param xmlContent the XML content to cache, must not be modified afterwards
+     */
+    public void setCacheXmlContent(CmsXmlContent xmlContent) {
+
+        CmsUUID structureId = xmlContent.getFile().getStructureId();
+        try {
+            m_lock.writeLock().lock();
+            m_xmlContentsOnline.put(structureId.toString(), xmlContent);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(
+                    Messages.LOG_DEBUG_CACHE_SET_ONLINE_2,
+                    new Object[] {structureId, xmlContent}));
+            }
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Removes the container page identified by its structure id from the cache.<p>
      * 
@@ -341,6 +412,21 @@ public final class CmsADECache extends CmsVfsCache {
         }
     }
 
+    /**
+     * Removes the online XML content identified by its structure id from the cache.<p>
+     * 
+     * @param structureId the structure id of the XML content
+     */
+    public void uncacheXmlContent(CmsUUID structureId) {
+
+        try {
+            m_lock.writeLock().lock();
+            m_xmlContentsOnline.remove(structureId.toString());
+        } finally {
+            m_lock.writeLock().unlock();
+        }
+    }
+
     /**
      * @see org.opencms.cache.CmsVfsCache#flush(boolean)
      */
@@ -351,11 +437,27 @@ public final class CmsADECache extends CmsVfsCache {
             m_lock.writeLock().lock();
             flushContainerPages(online);
             flushGroupContainers(online);
+            if (online) {
+                flushXmlContents();
+            }
         } finally {
             m_lock.writeLock().unlock();
         }
     }
 
+    /**
+     * @see org.opencms.cache.CmsVfsCache#uncacheOnlineResources(java.util.List)
+     */
+    @Override
+    protected void uncacheOnlineResources(List<CmsPublishedResource> publishedResources) {
+
+        for (CmsPublishedResource publishedResource : publishedResources) {
+            uncacheContainerPage(publishedResource.getStructureId(), true);
+            uncacheGroupContainer(publishedResource.getStructureId(), true);
+            uncacheXmlContent(publishedResource.getStructureId());
+        }
+    }
+
     /**
      * @see org.opencms.cache.CmsVfsCache#uncacheResource(org.opencms.file.CmsResource)
      */
@@ -403,6 +505,11 @@ public final class CmsADECache extends CmsVfsCache {
         lruMapGroupContainer = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupContainerOnlineSize());
         m_groupContainersOnline = Collections.synchronizedMap(lruMapGroupContainer);
         memMonitor.register(CmsADECache.class.getName() + ".groupContainersOnline", lruMapGroupContainer);
+
+        // online XML content cache
+        Map<String, CmsXmlContent> lruMapXmlContent = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getXmlContentOnlineSize());
+        m_xmlContentsOnline = Collections.synchronizedMap(lruMapXmlContent);
+        memMonitor.register(CmsADECache.class.getName() + ".xmlContentsOnline", lruMapXmlContent);
     }
 
     /**
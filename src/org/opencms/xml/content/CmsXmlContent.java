@@ -884,6 +884,29 @@ public class CmsXmlContent extends A_CmsXmlDocument {
         return value;
     }
 
+    /**
+     * Creates an independent copy of this XML content for the given OpenCms context.<p>
+     * 
+     * In contrast to {@link #clone()}, the copy does not share the XML document with this XML content,
+     * so the copy can be modified without affecting this XML content. Broken links are removed from
+     * the copy for the given context, just like for a newly unmarshalled XML content.<p>
+     * 
+     * @param cms the current OpenCms context, if <code>null</code> no link validation is performed
+     * 
+     * @return the copy of this XML content
+     */
+    protected CmsXmlContent copy(CmsObject cms) {
+
+        CmsXmlContent copy = new CmsXmlContent();
+        copy.m_autoCorrectionEnabled = m_autoCorrectionEnabled;
+        copy.m_conversion = m_conversion;
+        if (m_file != null) {
+            copy.m_file = (CmsFile)m_file.clone();
+        }
+        copy.initDocument(cms, (Document)m_document.clone(), m_encoding, m_contentDefinition);
+        return copy;
+    }
+
     /**
      * @see org.opencms.xml.A_CmsXmlDocument#getBookmark(java.lang.String)
      */
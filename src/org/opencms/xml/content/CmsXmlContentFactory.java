@@ -31,15 +31,20 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeXmlContent;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.loader.CmsLoaderException;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionViolationException;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
 import org.opencms.xml.CmsXmlException;
 import org.opencms.xml.CmsXmlUtils;
+import org.opencms.xml.containerpage.CmsADECache;
 
 import java.io.UnsupportedEncodingException;
 import java.util.Locale;
@@ -210,21 +215,7 @@ public final class CmsXmlContentFactory {
 
         byte[] contentBytes = file.getContents();
         String filename = cms.getSitePath(file);
-
-        String encoding = null;
-        try {
-            encoding = cms.readPropertyObject(filename, CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING, true).getValue();
-        } catch (CmsException e) {
-            // encoding will be null 
-        }
-        if (encoding == null) {
-            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
-        } else {
-            encoding = CmsEncoder.lookupEncoding(encoding, null);
-            if (encoding == null) {
-                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
-            }
-        }
+        String encoding = getEncoding(cms, file);
 
         CmsXmlContent content;
         if (contentBytes.length > 0) {
@@ -258,6 +249,11 @@ public final class CmsXmlContentFactory {
      * Factory method to unmarshal (read) a XML content instance from
      * a resource, using the request attributes as cache.<p>
      * 
+     * In the online project, the parsed XML contents are also cached across requests.
+     * Every request gets its own copy of the cached XML content, so the returned instance may be modified.
+     * The cache entries are validated against the date of last modification and the encoding of the resource, 
+     * and are removed when the resource is published.<p>
+     * 
      * @param cms the current OpenCms context object
      * @param resource the resource to unmarshal
      * @param req the current request
@@ -285,8 +281,15 @@ public final class CmsXmlContentFactory {
         CmsXmlContent content = (CmsXmlContent)req.getAttribute(rootPath);
 
         if (content == null) {
-            // unmarshal XML structure from the file content
-            content = unmarshal(cms, cms.readFile(resource));
+            if (cms.getRequestContext().getCurrentProject().isOnlineProject()
+                && !(resource instanceof I_CmsHistoryResource)
+                && (OpenCms.getADEManager() != null)) {
+                // use the cache of parsed online XML contents
+                content = unmarshalOnline(cms, resource);
+            } else {
+                // unmarshal XML structure from the file content
+                content = unmarshal(cms, cms.readFile(resource));
+            }
             // store the content as request attribute for future read requests
             req.setAttribute(rootPath, content);
         }
@@ -372,4 +375,82 @@ public final class CmsXmlContentFactory {
 
         return unmarshal(null, xmlData, encoding, resolver);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the encoding of the given XML content resource.<p>
+     * 
+     * @param cms the current cms object
+     * @param resource the XML content resource
+     * 
+     * @return the encoding from the content encoding property of the resource, or the default encoding
+     * 
+     * @throws CmsXmlException if the encoding set in the property is not valid
+     */
+    private static String getEncoding(CmsObject cms, CmsResource resource) throws CmsXmlException {
+
+        String filename = cms.getSitePath(resource);
+        String encoding = null;
+        try {
+            encoding = cms.readPropertyObject(filename, CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING, true).getValue();
+        } catch (CmsException e) {
+            // encoding will be null 
+        }
+        if (encoding == null) {
+            encoding = OpenCms.getSystemInfo().getDefaultEncoding();
+        } else {
+            encoding = CmsEncoder.lookupEncoding(encoding, null);
+            if (encoding == null) {
+                throw new CmsXmlException(Messages.get().container(Messages.ERR_XMLCONTENT_INVALID_ENC_1, filename));
+            }
+        }
+        return encoding;
+    }
+
+    /**
+     * Unmarshals a XML content instance from an online resource, using the cache of parsed online XML contents.<p>
+     * 
+     * The cached XML content is unmarshalled without an OpenCms context, so its links are not validated 
+     * and its document is never modified. The returned XML content is a copy of it for the given context.
+     * The read permission of the current user is checked before, since the file is not read on a cache hit.<p>
+     * 
+     * @param cms the current cms object
+     * @param resource the online resource to unmarshal
+     * 
+     * @return the unmarshalled XML content
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private static CmsXmlContent unmarshalOnline(CmsObject cms, CmsResource resource) throws CmsException {
+
+        // a cached XML content is handed out without reading the file, so the permissions must be checked here
+        if (!cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, false, CmsResourceFilter.ALL)) {
+            throw new CmsPermissionViolationException(org.opencms.db.Messages.get().container(
+                org.opencms.db.Messages.ERR_PERM_DENIED_2,
+                cms.getSitePath(resource),
+                CmsPermissionSet.ACCESS_READ.getPermissionString()));
+        }
+        CmsADECache cache = OpenCms.getADEManager().getCache();
+        String encoding = getEncoding(cms, resource);
+        CmsXmlContent cachedContent = cache.getCacheXmlContent(resource.getStructureId());
+        if ((cachedContent == null)
+            || (cachedContent.getFile().getDateLastModified() != resource.getDateLastModified())
+            || !cachedContent.getEncoding().equals(encoding)) {
+            CmsFile file = cms.readFile(resource);
+            if (file.getContents().length == 0) {
+                // empty contents are not cached
+                return unmarshal(cms, file);
+            }
+            EntityResolver resolver = new CmsXmlEntityResolver(cms);
+            cachedContent = new CmsXmlContent(
+                null,
+                CmsXmlUtils.unmarshalHelper(file.getContents(), resolver),
+                encoding,
+                resolver);
+            cachedContent.setFile(file);
+            cache.setCacheXmlContent(cachedContent);
+        }
+        CmsXmlContent content = cachedContent.copy(cms);
+        // call prepare for use content handler and return the result 
+        return content.getHandler().prepareForUse(cms, content);
+    }
+}
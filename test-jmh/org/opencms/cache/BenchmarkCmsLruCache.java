@@ -0,0 +1,207 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for touching objects in the LRU cache, single threaded and contended.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsLruCache {
+
+    /**
+     * Simple cache object with constant costs.<p>
+     */
+    private static class CmsBenchmarkCacheObject implements I_CmsLruCacheObject {
+
+        /** The next object in the cache. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the cache. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return 1;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /**
+     * Per thread position in the cached objects.<p>
+     */
+    @State(Scope.Thread)
+    public static class CmsThreadPosition {
+
+        /** The current position. */
+        int m_position;
+    }
+
+    /** The number of objects in the cache. */
+    @Param({"1000", "100000"})
+    public int m_size;
+
+    /** The cache. */
+    private CmsLruCache m_cache;
+
+    /** The cached objects. */
+    private I_CmsLruCacheObject[] m_objects;
+
+    /**
+     * Creates and fills the cache.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        m_cache = new CmsLruCache(m_size, m_size / 2, m_size);
+        m_objects = new I_CmsLruCacheObject[m_size];
+        for (int i = 0; i < m_size; i++) {
+            m_objects[i] = new CmsBenchmarkCacheObject();
+            m_cache.add(m_objects[i]);
+        }
+    }
+
+    /**
+     * Benchmarks touching cached objects.<p>
+     *
+     * @param position the position of the current thread
+     *
+     * @return the result of the touch operation
+     */
+    @Benchmark
+    public boolean touch(CmsThreadPosition position) {
+
+        return m_cache.touch(next(position));
+    }
+
+    /**
+     * Benchmarks touching cached objects with 4 threads.<p>
+     *
+     * @param position the position of the current thread
+     *
+     * @return the result of the touch operation
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean touchContended(CmsThreadPosition position) {
+
+        return m_cache.touch(next(position));
+    }
+
+    /**
+     * Returns the next object to touch for the given thread.<p>
+     *
+     * @param position the position of the current thread
+     *
+     * @return the next object to touch
+     */
+    private I_CmsLruCacheObject next(CmsThreadPosition position) {
+
+        position.m_position = (position.m_position + 7919) % m_size;
+        return m_objects[position.m_position];
+    }
+}
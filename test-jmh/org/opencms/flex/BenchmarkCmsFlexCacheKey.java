@@ -0,0 +1,166 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.test.OpenCmsBenchmarkFixture;
+import org.opencms.test.OpenCmsBenchmarkRequest;
+import org.opencms.util.CmsRequestUtil;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for matching a Flex request key against the cache directives of a resource.<p>
+ *
+ * This is the hit path of every cacheable include. To see the allocation per match in addition 
+ * to the latency, run the benchmark with the GC profiler: 
+ * <code>gradle jmh -PjmhArgs='-prof gc BenchmarkCmsFlexCacheKey'</code>.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsFlexCacheKey {
+
+    /** The resource used for the request. */
+    private static final String RESOURCE = "/index.html";
+
+    /** A cache key with many directives. */
+    private CmsFlexCacheKey m_keyAll;
+
+    /** A cache key that is always cached. */
+    private CmsFlexCacheKey m_keyAlways;
+
+    /** A cache key with parameter exclusions. */
+    private CmsFlexCacheKey m_keyNoParams;
+
+    /** A cache key with typical directives. */
+    private CmsFlexCacheKey m_keyTypical;
+
+    /** The request key to match. */
+    private CmsFlexRequestKey m_requestKey;
+
+    /**
+     * Benchmarks matching a key with many directives.<p>
+     *
+     * @return the variation
+     */
+    @Benchmark
+    public String matchAllDirectives() {
+
+        return m_keyAll.matchRequestKey(m_requestKey);
+    }
+
+    /**
+     * Benchmarks matching a key that is always cached.<p>
+     *
+     * @return the variation
+     */
+    @Benchmark
+    public String matchAlways() {
+
+        return m_keyAlways.matchRequestKey(m_requestKey);
+    }
+
+    /**
+     * Benchmarks matching a key with excluded parameters.<p>
+     *
+     * @return the variation
+     */
+    @Benchmark
+    public String matchNoParams() {
+
+        return m_keyNoParams.matchRequestKey(m_requestKey);
+    }
+
+    /**
+     * Benchmarks matching a key with typical directives.<p>
+     *
+     * @return the variation
+     */
+    @Benchmark
+    public String matchTypical() {
+
+        return m_keyTypical.matchRequestKey(m_requestKey);
+    }
+
+    /**
+     * Creates the request key and the cache keys.<p>
+     *
+     * @param fixture the OpenCms instance
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setUp(OpenCmsBenchmarkFixture fixture) throws Exception {
+
+        CmsObject cms = fixture.getCmsObject();
+        cms.getRequestContext().setUri(RESOURCE);
+
+        OpenCmsBenchmarkRequest req = new OpenCmsBenchmarkRequest();
+        req.addHeader(CmsRequestUtil.HEADER_USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64; rv:31.0) Firefox/31.0");
+        req.addHeader(CmsRequestUtil.HEADER_ACCEPT, "text/html");
+        req.addParameter("id", "42");
+        req.addParameter("page", "2");
+        req.addParameter("sort", "date");
+        CmsFlexController controller = new CmsFlexController(
+            cms,
+            cms.readResource(RESOURCE),
+            null,
+            req,
+            null,
+            false,
+            true);
+        req.setAttribute(CmsFlexController.ATTRIBUTE_NAME, controller);
+        req.setAttribute("theme", "dark");
+
+        m_requestKey = new CmsFlexRequestKey(req, RESOURCE, false);
+        m_keyTypical = new CmsFlexCacheKey(RESOURCE, "uri;user;locale;params=(id,page)", false);
+        m_keyAll = new CmsFlexCacheKey(
+            RESOURCE,
+            "uri;site;user;locale;encoding;device;container-element;params;attrs=(theme)",
+            false);
+        m_keyAlways = new CmsFlexCacheKey(RESOURCE, "no-params=(preview,edit);always", false);
+        m_keyNoParams = new CmsFlexCacheKey(RESOURCE, "no-params=(preview,edit);uri;params=(id)", false);
+    }
+}
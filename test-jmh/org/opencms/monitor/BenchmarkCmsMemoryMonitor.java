@@ -0,0 +1,168 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsBenchmarkFixture;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading and writing the resource cache of the memory monitor.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsMemoryMonitor {
+
+    /**
+     * Per thread position in the cache keys.<p>
+     */
+    @State(Scope.Thread)
+    public static class CmsThreadPosition {
+
+        /** The current position. */
+        int m_position;
+    }
+
+    /** The cache keys. */
+    private String[] m_keys;
+
+    /** The memory monitor. */
+    private CmsMemoryMonitor m_monitor;
+
+    /** The resources to cache. */
+    private CmsResource[] m_resources;
+
+    /**
+     * Benchmarks reading cached resources.<p>
+     *
+     * @param position the position of the current thread
+     *
+     * @return the cached resource
+     */
+    @Benchmark
+    public CmsResource get(CmsThreadPosition position) {
+
+        return m_monitor.getCachedResource(m_keys[next(position)]);
+    }
+
+    /**
+     * Benchmarks reading cached resources with 4 threads.<p>
+     *
+     * @param position the position of the current thread
+     *
+     * @return the cached resource
+     */
+    @Benchmark
+    @Threads(4)
+    public CmsResource getContended(CmsThreadPosition position) {
+
+        return m_monitor.getCachedResource(m_keys[next(position)]);
+    }
+
+    /**
+     * Benchmarks caching resources.<p>
+     *
+     * @param position the position of the current thread
+     */
+    @Benchmark
+    public void put(CmsThreadPosition position) {
+
+        int index = next(position);
+        m_monitor.cacheResource(m_keys[index], m_resources[index]);
+    }
+
+    /**
+     * Benchmarks caching resources with 4 threads.<p>
+     *
+     * @param position the position of the current thread
+     */
+    @Benchmark
+    @Threads(4)
+    public void putContended(CmsThreadPosition position) {
+
+        int index = next(position);
+        m_monitor.cacheResource(m_keys[index], m_resources[index]);
+    }
+
+    /**
+     * Reads the resources of the test site and puts them into the cache.<p>
+     *
+     * @param fixture the OpenCms instance
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setUp(OpenCmsBenchmarkFixture fixture) throws Exception {
+
+        CmsObject cms = fixture.getCmsObject();
+        List<CmsResource> resources = cms.readResources("/", CmsResourceFilter.ALL, true);
+        m_monitor = OpenCms.getMemoryMonitor();
+        m_resources = resources.toArray(new CmsResource[resources.size()]);
+        m_keys = new String[m_resources.length];
+        for (int i = 0; i < m_resources.length; i++) {
+            m_keys[i] = "benchmark_" + m_resources[i].getRootPath();
+            m_monitor.cacheResource(m_keys[i], m_resources[i]);
+        }
+    }
+
+    /**
+     * Returns the next index for the given thread.<p>
+     *
+     * @param position the position of the current thread
+     *
+     * @return the next index
+     */
+    private int next(CmsThreadPosition position) {
+
+        position.m_position = (position.m_position + 1) % m_keys.length;
+        return position.m_position;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.test.OpenCmsBenchmarkFixture;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for replacing link macros in HTML with the link processor.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsLinkProcessor {
+
+    /** The HTML to process. */
+    private static final String HTML = "<h1>Benchmark</h1>\n"
+        + "<p>Some text with <a href=\"/index.html\">a link</a> to the start page, "
+        + "<a href=\"/folder1/page1.html?a=b&amp;c=d\">a link with parameters</a> and "
+        + "<a href=\"/folder1/subfolder11/page1.html#anchor\">a link with an anchor</a>.</p>\n"
+        + "<p><img src=\"/folder1/image1.gif\" alt=\"image\"/> "
+        + "<a href=\"http://www.opencms.org/\">an external link</a>.</p>\n";
+
+    /** The HTML with link macros. */
+    private String m_content;
+
+    /** The link processor. */
+    private CmsLinkProcessor m_processor;
+
+    /**
+     * Benchmarks replacing the link macros.<p>
+     *
+     * @return the processed HTML
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public String processLinks() throws Exception {
+
+        return m_processor.processLinks(m_content);
+    }
+
+    /**
+     * Creates the link processor and the HTML with link macros.<p>
+     *
+     * @param fixture the OpenCms instance
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setUp(OpenCmsBenchmarkFixture fixture) throws Exception {
+
+        CmsObject cms = fixture.getCmsObject();
+        cms.getRequestContext().setUri("/index.html");
+        m_processor = new CmsLinkProcessor(cms, new CmsLinkTable(), CmsEncoder.ENCODING_UTF_8, "/folder1/");
+        m_content = m_processor.replaceLinks(HTML);
+    }
+}
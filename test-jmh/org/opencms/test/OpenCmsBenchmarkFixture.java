@@ -0,0 +1,93 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.test;
+
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state that provides an OpenCms instance with the "simpletest" VFS
+ * in an in-memory HSQLDB database.<p>
+ *
+ * The instance is set up with {@link OpenCmsTestCase#setupOpenCms(String, String)}, so the
+ * database configuration is the same as for the unit tests.<p>
+ *
+ * Benchmarks that need the VFS use this state as a parameter of their benchmark or setup methods.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Benchmark)
+public class OpenCmsBenchmarkFixture {
+
+    /** The site root of the test site. */
+    public static final String SITE_ROOT = "/sites/default/";
+
+    /** The Admin user context. */
+    private CmsObject m_cms;
+
+    /**
+     * Returns a new Admin user context in the Offline project with the site root set to the test site.<p>
+     *
+     * @return a new Admin user context
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsObject getCmsObject() throws CmsException {
+
+        CmsObject cms = OpenCms.initCmsObject(m_cms);
+        cms.getRequestContext().setSiteRoot(SITE_ROOT);
+        return cms;
+    }
+
+    /**
+     * Sets up the OpenCms instance.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+        // creating a test case reads the database configuration
+        new OpenCmsTestCase(OpenCmsBenchmarkFixture.class.getName());
+        m_cms = OpenCmsTestCase.setupOpenCms("simpletest", "/");
+    }
+
+    /**
+     * Removes the OpenCms instance.<p>
+     */
+    @TearDown
+    public void tearDown() {
+
+        OpenCmsTestCase.removeOpenCms();
+    }
+}
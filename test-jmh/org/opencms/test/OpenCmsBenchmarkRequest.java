@@ -0,0 +1,174 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.test;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpSession;
+
+/**
+ * Servlet request for benchmarks that stores attributes, parameters and headers in memory.<p>
+ *
+ * @since 9.5.0
+ */
+public class OpenCmsBenchmarkRequest extends OpenCmsTestServletRequest {
+
+    /** The request attributes. */
+    private Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+    /** The request headers. */
+    private Map<String, String> m_headers = new HashMap<String, String>();
+
+    /** The request parameters. */
+    private Map<String, String[]> m_parameters = new HashMap<String, String[]>();
+
+    /**
+     * Adds a request header.<p>
+     *
+     * @param name the header name
+     * @param value the header value
+     */
+    public void addHeader(String name, String value) {
+
+        m_headers.put(name.toLowerCase(), value);
+    }
+
+    /**
+     * Adds a request parameter.<p>
+     *
+     * @param name the parameter name
+     * @param value the parameter value
+     */
+    public void addParameter(String name, String value) {
+
+        m_parameters.put(name, new String[] {value});
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getAttribute(java.lang.String)
+     */
+    @Override
+    public Object getAttribute(String name) {
+
+        return m_attributes.get(name);
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getAttributeNames()
+     */
+    @Override
+    public Enumeration getAttributeNames() {
+
+        return Collections.enumeration(m_attributes.keySet());
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getHeader(java.lang.String)
+     */
+    @Override
+    public String getHeader(String name) {
+
+        return m_headers.get(name.toLowerCase());
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getParameter(java.lang.String)
+     */
+    @Override
+    public String getParameter(String name) {
+
+        String[] values = m_parameters.get(name);
+        return values == null ? null : values[0];
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getParameterMap()
+     */
+    @Override
+    public Map getParameterMap() {
+
+        return Collections.unmodifiableMap(m_parameters);
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getParameterNames()
+     */
+    @Override
+    public Enumeration getParameterNames() {
+
+        return Collections.enumeration(m_parameters.keySet());
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getParameterValues(java.lang.String)
+     */
+    @Override
+    public String[] getParameterValues(String name) {
+
+        return m_parameters.get(name);
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getSession()
+     */
+    @Override
+    public HttpSession getSession() {
+
+        return null;
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#getSession(boolean)
+     */
+    @Override
+    public HttpSession getSession(boolean create) {
+
+        return null;
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#removeAttribute(java.lang.String)
+     */
+    @Override
+    public void removeAttribute(String name) {
+
+        m_attributes.remove(name);
+    }
+
+    /**
+     * @see org.opencms.test.OpenCmsTestServletRequest#setAttribute(java.lang.String, java.lang.Object)
+     */
+    @Override
+    public void setAttribute(String name, Object value) {
+
+        m_attributes.put(name, value);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for resolving macros.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsMacroResolver {
+
+    /** Input with macros of both formats. */
+    private static final String INPUT = "Hello %(user.firstname) ${user.lastname}, "
+        + "this is %(site.title) on page ${page} of %(pages). "
+        + "Unknown macros like %(unknown.macro) are kept.";
+
+    /** Input without any macros. */
+    private static final String INPUT_PLAIN = "Hello, this is a text without any macros, "
+        + "which is the most common case in practice.";
+
+    /** The macro resolver. */
+    private CmsMacroResolver m_resolver;
+
+    /**
+     * Benchmarks resolving macros.<p>
+     *
+     * @return the resolved input
+     */
+    @Benchmark
+    public String resolveMacros() {
+
+        return m_resolver.resolveMacros(INPUT);
+    }
+
+    /**
+     * Benchmarks resolving an input without macros.<p>
+     *
+     * @return the resolved input
+     */
+    @Benchmark
+    public String resolveMacrosPlain() {
+
+        return m_resolver.resolveMacros(INPUT_PLAIN);
+    }
+
+    /**
+     * Creates the macro resolver.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        m_resolver = CmsMacroResolver.newInstance();
+        m_resolver.setKeepEmptyMacros(true);
+        m_resolver.addMacro("user.firstname", "Jane");
+        m_resolver.addMacro("user.lastname", "Doe");
+        m_resolver.addMacro("site.title", "OpenCms");
+        m_resolver.addMacro("page", "2");
+        m_resolver.addMacro("pages", "10");
+    }
+}
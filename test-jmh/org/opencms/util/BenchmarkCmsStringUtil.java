@@ -0,0 +1,130 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for frequently used string helpers.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsStringUtil {
+
+    /** Text for escaping. */
+    private static final String HTML = "<p class=\"text\">Some \"text\" with <b>markup</b> & entities</p>";
+
+    /** A resource path. */
+    private static final String PATH = "/sites/default/folder1/subfolder11/subsubfolder111/page1.html";
+
+    /** A list of values. */
+    private static final String VALUES = "uri, user, locale, params=(id,page), container-element, device";
+
+    /**
+     * Benchmarks escaping HTML.<p>
+     *
+     * @return the escaped HTML
+     */
+    @Benchmark
+    public String escapeHtml() {
+
+        return CmsStringUtil.escapeHtml(HTML);
+    }
+
+    /**
+     * Benchmarks the whitespace check.<p>
+     *
+     * @return the result of the check
+     */
+    @Benchmark
+    public boolean isEmptyOrWhitespaceOnly() {
+
+        return CmsStringUtil.isEmptyOrWhitespaceOnly(VALUES);
+    }
+
+    /**
+     * Benchmarks joining paths.<p>
+     *
+     * @return the joined path
+     */
+    @Benchmark
+    public String joinPaths() {
+
+        return CmsStringUtil.joinPaths("/sites/default/", "/folder1/", "page1.html");
+    }
+
+    /**
+     * Benchmarks splitting a path by a character.<p>
+     *
+     * @return the path elements
+     */
+    @Benchmark
+    public List<String> splitAsListChar() {
+
+        return CmsStringUtil.splitAsList(PATH, '/');
+    }
+
+    /**
+     * Benchmarks splitting a list by a string with trimming.<p>
+     *
+     * @return the list elements
+     */
+    @Benchmark
+    public List<String> splitAsListString() {
+
+        return CmsStringUtil.splitAsList(VALUES, ", ", true);
+    }
+
+    /**
+     * Benchmarks substituting a string.<p>
+     *
+     * @return the substituted text
+     */
+    @Benchmark
+    public String substitute() {
+
+        return CmsStringUtil.substitute(PATH, "/sites/default/", "/");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for parsing and formatting UUIDs.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsUUID {
+
+    /** A valid UUID string. */
+    private static final String UUID = "c300ba5c-01e8-3727-b305-5dcc9ccae1ee";
+
+    /** An invalid UUID string. */
+    private static final String UUID_INVALID = "c300ba5c-01e8-3727-b305-5dcc9ccae1eX";
+
+    /** A UUID to format. */
+    private CmsUUID m_uuid;
+
+    /**
+     * Benchmarks checking an invalid UUID.<p>
+     *
+     * @return the result of the check
+     */
+    @Benchmark
+    public boolean isValidUUIDInvalid() {
+
+        return CmsUUID.isValidUUID(UUID_INVALID);
+    }
+
+    /**
+     * Benchmarks parsing a UUID.<p>
+     *
+     * @return the parsed UUID
+     */
+    @Benchmark
+    public CmsUUID parse() {
+
+        return new CmsUUID(UUID);
+    }
+
+    /**
+     * Creates the UUID to format.<p>
+     */
+    @Setup
+    public void setUp() {
+
+        m_uuid = new CmsUUID(UUID);
+    }
+
+    /**
+     * Benchmarks formatting a UUID.<p>
+     *
+     * @return the UUID string
+     */
+    @Benchmark
+    public String toStringUUID() {
+
+        return m_uuid.toString();
+    }
+
+    /**
+     * Benchmarks parsing a UUID with {@link CmsUUID#valueOf(String)}.<p>
+     *
+     * @return the parsed UUID
+     */
+    @Benchmark
+    public CmsUUID valueOf() {
+
+        return CmsUUID.valueOf(UUID);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.xml.content;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.test.OpenCmsBenchmarkFixture;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for unmarshalling XML contents.<p>
+ *
+ * @since 9.5.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkCmsXmlContentFactory {
+
+    /** The user context. */
+    private CmsObject m_cms;
+
+    /** The file to unmarshal. */
+    private CmsFile m_file;
+
+    /**
+     * Reads the XML content file.<p>
+     *
+     * @param fixture the OpenCms instance
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setUp(OpenCmsBenchmarkFixture fixture) throws Exception {
+
+        m_cms = fixture.getCmsObject();
+        m_file = m_cms.readFile("/xmlcontent/article_0001.html");
+    }
+
+    /**
+     * Benchmarks unmarshalling an XML content from a file.<p>
+     *
+     * @return the XML content
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Benchmark
+    public CmsXmlContent unmarshal() throws Exception {
+
+        return CmsXmlContentFactory.unmarshal(m_cms, m_file);
+    }
+}
@@ -59,6 +59,9 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
          suite.addTest(TestCache.suite());
+        suite.addTestSuite(TestCmsConcurrentLruCache.class);
+        suite.addTestSuite(TestCmsTinyLfuMap.class);
+        suite.addTestSuite(TestCmsWeightedLruMap.class);
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,267 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test cases for {@link org.opencms.cache.CmsConcurrentLruCache}.<p>
+ */
+public class TestCmsConcurrentLruCache extends OpenCmsTestCase {
+
+    /**
+     * Simple cache object for the tests.<p>
+     */
+    private static class CmsTestCacheObject implements I_CmsLruCacheObject {
+
+        /** The number of times the object is currently cached. */
+        protected AtomicInteger m_cached = new AtomicInteger();
+
+        /** The costs of the object. */
+        private int m_costs;
+
+        /**
+         * Creates a new test cache object.<p>
+         * 
+         * @param costs the costs of the object
+         */
+        protected CmsTestCacheObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            m_cached.incrementAndGet();
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return null;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            m_cached.decrementAndGet();
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            // not used
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            // not used
+        }
+    }
+
+    /**
+     * Tests adding, touching and removing objects.<p>
+     */
+    public void testBasicOperations() {
+
+        CmsLruCache cache = new CmsConcurrentLruCache(1000, 800, 100);
+        CmsTestCacheObject a = new CmsTestCacheObject(10);
+        CmsTestCacheObject b = new CmsTestCacheObject(20);
+        assertTrue(cache.add(a));
+        assertTrue(cache.add(b));
+        assertTrue(cache.add(a));
+        assertEquals(2, cache.size());
+        assertEquals(30, cache.getObjectCosts());
+        assertEquals(1, a.m_cached.get());
+
+        // objects too expensive are not cached
+        assertFalse(cache.add(new CmsTestCacheObject(101)));
+        assertEquals(2, cache.size());
+
+        assertTrue(cache.touch(b));
+        assertSame(b, cache.remove(b));
+        assertNull(cache.remove(b));
+        assertFalse(cache.touch(b));
+        assertEquals(0, b.m_cached.get());
+        assertEquals(10, cache.getObjectCosts());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+        assertEquals(0, a.m_cached.get());
+    }
+
+    /**
+     * Tests that concurrent access keeps the cache statistics consistent.<p>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsLruCache cache = new CmsConcurrentLruCache(5000, 4000, 100);
+        final CmsTestCacheObject[] objects = new CmsTestCacheObject[500];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestCacheObject(1 + (i % 50));
+        }
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            threads.add(new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 50000; i++) {
+                            CmsTestCacheObject object = objects[((i * 31) + seed) % objects.length];
+                            if ((i % 4) == 0) {
+                                cache.add(object);
+                            } else if ((i % 97) == 0) {
+                                cache.remove(object);
+                            } else {
+                                cache.touch(object);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (error.get() != null) {
+            throw new Exception(error.get());
+        }
+        int count = 0;
+        int costs = 0;
+        for (CmsTestCacheObject object : objects) {
+            assertTrue(object.m_cached.get() >= 0);
+            assertTrue(object.m_cached.get() <= 1);
+            if (object.m_cached.get() == 1) {
+                count++;
+                costs += object.getLruCacheCosts();
+            }
+        }
+        assertEquals(count, cache.size());
+        assertEquals(costs, cache.getObjectCosts());
+        assertTrue(cache.getObjectCosts() <= 5000);
+    }
+
+    /**
+     * Tests that the last recently used objects are removed first.<p>
+     */
+    public void testEviction() {
+
+        CmsLruCache cache = new CmsConcurrentLruCache(100, 50, -1);
+        CmsTestCacheObject[] objects = new CmsTestCacheObject[10];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestCacheObject(10);
+            cache.add(objects[i]);
+            // keep the first object in use
+            cache.touch(objects[0]);
+        }
+        assertEquals(100, cache.getObjectCosts());
+
+        // exceeding the max. costs removes objects until the costs are below the avg. costs
+        CmsTestCacheObject last = new CmsTestCacheObject(10);
+        cache.add(last);
+        assertTrue(cache.getObjectCosts() < 50);
+        assertEquals(1, objects[0].m_cached.get());
+        assertEquals(1, last.m_cached.get());
+        assertEquals(0, objects[1].m_cached.get());
+    }
+
+    /**
+     * Tests that objects in use are kept if the cache removes objects out of samples.<p>
+     */
+    public void testEvictionSampling() {
+
+        CmsLruCache cache = new CmsConcurrentLruCache(1000, 500, -1);
+        CmsTestCacheObject hot = new CmsTestCacheObject(1);
+        cache.add(hot);
+        CmsTestCacheObject[] objects = new CmsTestCacheObject[5000];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = new CmsTestCacheObject(1);
+            cache.add(objects[i]);
+            cache.touch(hot);
+            assertTrue(cache.getObjectCosts() <= 1000);
+        }
+        assertEquals(1, hot.m_cached.get());
+        assertEquals(cache.size(), cache.getObjectCosts());
+        // the most recently added objects are newer than all objects they could be compared with
+        assertEquals(1, objects[objects.length - 1].m_cached.get());
+        assertEquals(0, objects[0].m_cached.get());
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test cases for {@link org.opencms.cache.CmsTinyLfuMap}.<p>
+ */
+public class TestCmsTinyLfuMap extends OpenCmsTestCase {
+
+    /**
+     * Tests the basic map operations.<p>
+     */
+    public void testBasicOperations() {
+
+        Map<String, String> map = new CmsTinyLfuMap<String, String>(100);
+        assertNull(map.put("a", "1"));
+        assertNull(map.put("b", "2"));
+        assertEquals("1", map.put("a", "3"));
+        assertEquals(2, map.size());
+        assertEquals("3", map.get("a"));
+        assertTrue(map.containsKey("b"));
+        assertFalse(map.containsKey("c"));
+        assertEquals("2", map.remove("b"));
+        assertNull(map.remove("b"));
+        assertEquals(1, map.size());
+
+        Iterator<String> it = map.keySet().iterator();
+        assertEquals("a", it.next());
+        it.remove();
+        assertTrue(map.isEmpty());
+
+        map.put("x", "y");
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("x"));
+    }
+
+    /**
+     * Tests that evicted entries are passed to the eviction callback outside of the stripe lock.<p>
+     */
+    public void testEvictionCallback() {
+
+        final List<Integer> evicted = new ArrayList<Integer>();
+        final CmsTinyLfuMap<Integer, Integer> map = new CmsTinyLfuMap<Integer, Integer>(100) {
+
+            @Override
+            protected void evicted(Integer key, Integer value) {
+
+                assertEquals(key, value);
+                assertFalse(containsKey(key));
+                // the map must be writable from the callback
+                remove(key);
+                evicted.add(key);
+            }
+        };
+        for (int i = 0; i < 1000; i++) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i));
+        }
+        assertEquals(900, evicted.size());
+        assertEquals(map.getEvictionCount(), evicted.size());
+        for (Integer key : map.keySet()) {
+            assertFalse(evicted.contains(key));
+        }
+        map.remove(Integer.valueOf(999));
+        map.put(Integer.valueOf(998), Integer.valueOf(998));
+        assertEquals(900, evicted.size());
+    }
+
+    /**
+     * Tests that the map never grows beyond its maximum size.<p>
+     */
+    public void testBounded() {
+
+        CmsTinyLfuMap<Integer, Integer> map = new CmsTinyLfuMap<Integer, Integer>(500);
+        for (int i = 0; i < 10000; i++) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i));
+            assertTrue(map.size() <= 500);
+        }
+        assertEquals(500, map.size());
+        assertEquals(10000 - 500, map.getEvictionCount());
+    }
+
+    /**
+     * Tests concurrent reads and writes.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsTinyLfuMap<Integer, Integer> map = new CmsTinyLfuMap<Integer, Integer>(1000);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            threads.add(new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 50000; i++) {
+                            Integer key = Integer.valueOf(((i * 31) + seed) % 3000);
+                            if ((i % 3) == 0) {
+                                map.put(key, key);
+                            } else if ((i % 101) == 0) {
+                                map.remove(key);
+                            } else {
+                                Integer value = map.get(key);
+                                if ((value != null) && !value.equals(key)) {
+                                    throw new IllegalStateException("Wrong value for key " + key);
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (error.get() != null) {
+            throw new Exception(error.get());
+        }
+        assertTrue(map.size() <= 1000);
+    }
+
+    /**
+     * Tests that frequently used entries survive a scan of entries that are only used once.<p>
+     * 
+     * The frequently used entries are still read during the scan, at a lower rate than the scan itself.<p>
+     */
+    public void testScanResistance() {
+
+        CmsTinyLfuMap<String, String> map = new CmsTinyLfuMap<String, String>(200);
+        for (int i = 0; i < 100; i++) {
+            map.put("hot" + i, "hot");
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                map.get("hot" + i);
+            }
+        }
+        for (int i = 0; i < 5000; i++) {
+            map.put("scan" + i, "scan");
+            if ((i % 2) == 0) {
+                map.get("hot" + ((i / 2) % 100));
+            }
+        }
+        int hits = 0;
+        for (int i = 0; i < 100; i++) {
+            if (map.containsKey("hot" + i)) {
+                hits++;
+            }
+        }
+        assertTrue("Only " + hits + " frequently used entries left", hits > 90);
+    }
+
+    /**
+     * Tests that the total weight of the entries is tracked and bounds the map.<p>
+     */
+    public void testWeight() {
+
+        I_CmsCacheWeigher<String, String> weigher = new I_CmsCacheWeigher<String, String>() {
+
+            public int weigh(String key, String value) {
+
+                return value.length();
+            }
+        };
+        CmsTinyLfuMap<String, String> map = new CmsTinyLfuMap<String, String>(100, 0, weigher);
+        map.put("a", "12345");
+        map.put("b", "123");
+        assertEquals(8, map.getWeight());
+        map.put("a", "1");
+        assertEquals(4, map.getWeight());
+        map.remove("b");
+        assertEquals(1, map.getWeight());
+        map.clear();
+        assertEquals(0, map.getWeight());
+
+        map = new CmsTinyLfuMap<String, String>(1000, 1000, weigher);
+        for (int i = 0; i < 1000; i++) {
+            map.put("key" + i, "0123456789");
+            assertTrue(map.getWeight() <= 1000);
+        }
+        assertTrue(map.size() <= 100);
+        assertEquals(10 * map.size(), map.getWeight());
+        assertEquals(1000 - map.size(), map.getEvictionCount());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+
+/**
+ * Test cases for {@link org.opencms.cache.CmsWeightedLruMap}.<p>
+ */
+public class TestCmsWeightedLruMap extends OpenCmsTestCase {
+
+    /** Weighs the entries by the length of their values. */
+    private static final I_CmsCacheWeigher<Object, Object> WEIGHER = new I_CmsCacheWeigher<Object, Object>() {
+
+        public int weigh(Object key, Object value) {
+
+            return ((String)value).length();
+        }
+    };
+
+    /**
+     * Tests that the total weight of the entries is tracked.<p>
+     */
+    public void testWeight() {
+
+        CmsWeightedLruMap map = new CmsWeightedLruMap(2, 0, WEIGHER);
+        map.put("a", "12345");
+        map.put("b", "123");
+        assertEquals(8, map.getWeight());
+        map.put("a", "1");
+        assertEquals(4, map.getWeight());
+        map.remove("b");
+        assertEquals(1, map.getWeight());
+
+        // the maximum number of entries is reached, so "a" is evicted
+        map.put("b", "123");
+        map.put("c", "12");
+        assertFalse(map.containsKey("a"));
+        assertEquals(5, map.getWeight());
+
+        map.clear();
+        assertEquals(0, map.getWeight());
+        map.put("a", "1");
+        assertEquals(1, map.getWeight());
+    }
+
+    /**
+     * Tests that the least recently used entries are removed if the maximum weight is exceeded.<p>
+     */
+    public void testWeightBounded() {
+
+        CmsWeightedLruMap map = new CmsWeightedLruMap(100, 10, WEIGHER);
+        map.put("a", "12345");
+        map.put("b", "1234");
+        map.put("c", "123");
+        assertFalse(map.containsKey("a"));
+        assertEquals(7, map.getWeight());
+
+        map.get("b");
+        map.put("d", "1234");
+        assertFalse(map.containsKey("c"));
+        assertTrue(map.containsKey("b"));
+        assertEquals(8, map.getWeight());
+
+        // an entry exceeding the maximum weight on its own is kept
+        map.put("e", "12345678901");
+        assertEquals(1, map.size());
+        assertEquals(11, map.getWeight());
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * Test cases for {@link org.opencms.db.CmsConcurrentConnectionPool}, this does not require a database.<p>
+ */
+public class TestCmsConcurrentConnectionPool extends OpenCmsTestCase {
+
+    /**
+     * Factory that counts the created and destroyed objects.<p>
+     */
+    private static class CmsCountingFactory extends BasePoolableObjectFactory {
+
+        /** The number of created objects. */
+        protected AtomicInteger m_created = new AtomicInteger();
+
+        /** The number of destroyed objects. */
+        protected AtomicInteger m_destroyed = new AtomicInteger();
+
+        /**
+         * @see org.apache.commons.pool.BasePoolableObjectFactory#destroyObject(java.lang.Object)
+         */
+        @Override
+        public void destroyObject(Object obj) {
+
+            m_destroyed.incrementAndGet();
+        }
+
+        /**
+         * @see org.apache.commons.pool.BasePoolableObjectFactory#makeObject()
+         */
+        @Override
+        public Object makeObject() {
+
+            return Integer.valueOf(m_created.incrementAndGet());
+        }
+    }
+
+    /**
+     * Tests borrowing and returning objects.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testBorrowAndReturn() throws Exception {
+
+        CmsCountingFactory factory = new CmsCountingFactory();
+        CmsConcurrentConnectionPool pool = new CmsConcurrentConnectionPool();
+        pool.setFactory(factory);
+        pool.setMaxActive(2);
+        pool.setMaxIdle(1);
+
+        Object first = pool.borrowObject();
+        Object second = pool.borrowObject();
+        assertEquals(2, pool.getNumActive());
+        pool.returnObject(first);
+        pool.returnObject(second);
+        // only one object may stay idle
+        assertEquals(0, pool.getNumActive());
+        assertEquals(1, pool.getNumIdle());
+        assertEquals(1, factory.m_destroyed.get());
+
+        assertSame(first, pool.borrowObject());
+        assertEquals(2, factory.m_created.get());
+        assertEquals(3, pool.getMetrics().getBorrowCount());
+
+        pool.close();
+        assertEquals(0, pool.getNumIdle());
+    }
+
+    /**
+     * Tests that the number of active objects never exceeds the limit if the pool is used concurrently.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentBorrow() throws Exception {
+
+        final CmsConcurrentConnectionPool pool = new CmsConcurrentConnectionPool();
+        pool.setFactory(new CmsCountingFactory());
+        pool.setMaxActive(4);
+        pool.setMaxIdle(4);
+        pool.setMaxWait(0);
+        pool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            Object obj = pool.borrowObject();
+                            if (pool.getNumActive() > 4) {
+                                throw new IllegalStateException("Too many active objects: " + pool.getNumActive());
+                            }
+                            pool.returnObject(obj);
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (error.get() != null) {
+            throw new Exception(error.get());
+        }
+        assertEquals(0, pool.getNumActive());
+        assertTrue(pool.getNumIdle() <= 4);
+        assertEquals(16000, pool.getMetrics().getBorrowCount());
+        pool.close();
+    }
+
+    /**
+     * Tests the eviction of idle objects.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testEvict() throws Exception {
+
+        CmsCountingFactory factory = new CmsCountingFactory();
+        CmsConcurrentConnectionPool pool = new CmsConcurrentConnectionPool();
+        pool.setFactory(factory);
+        pool.setMinIdle(1);
+        pool.setNumTestsPerEvictionRun(-1);
+        pool.setMinEvictableIdleTimeMillis(1);
+        for (int i = 0; i < 3; i++) {
+            pool.addObject();
+        }
+        Thread.sleep(20);
+        pool.evict();
+        assertEquals(1, pool.getNumIdle());
+        assertEquals(2, factory.m_destroyed.get());
+        pool.close();
+    }
+
+    /**
+     * Tests the "when exhausted" actions.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testExhausted() throws Exception {
+
+        CmsConcurrentConnectionPool pool = new CmsConcurrentConnectionPool();
+        pool.setFactory(new CmsCountingFactory());
+        pool.setMaxActive(1);
+        Object obj = pool.borrowObject();
+
+        pool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_FAIL);
+        try {
+            pool.borrowObject();
+            fail("Borrowing from an exhausted pool must fail");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+
+        pool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_BLOCK);
+        pool.setMaxWait(50);
+        try {
+            pool.borrowObject();
+            fail("Borrowing from an exhausted pool must time out");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        assertEquals(2, pool.getMetrics().getBorrowFailureCount());
+
+        pool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_GROW);
+        Object grown = pool.borrowObject();
+        assertEquals(2, pool.getNumActive());
+        pool.returnObject(grown);
+        pool.returnObject(obj);
+
+        // the pool is limited to one active object again
+        pool.setWhenExhaustedAction(GenericObjectPool.WHEN_EXHAUSTED_FAIL);
+        obj = pool.borrowObject();
+        try {
+            pool.borrowObject();
+            fail("Borrowing from an exhausted pool must fail");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+        pool.returnObject(obj);
+        pool.close();
+    }
+}
@@ -29,6 +29,8 @@ package org.opencms.file;
 
 import org.opencms.db.CmsPublishList;
 import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.OpenCms;
 import org.opencms.publish.CmsPublishJobFinished;
 import org.opencms.report.CmsShellReport;
@@ -79,6 +81,7 @@ public class TestConcurrentOperations extends OpenCmsTestCase {
         suite.addTest(new TestConcurrentOperations("testConcurrentPublishResourceWithRelated"));
         suite.addTest(new TestConcurrentOperations("testConcurrentPublishProject"));
         suite.addTest(new TestConcurrentOperations("testConcurrentCreationIssue"));
+        suite.addTest(new TestConcurrentOperations("testConcurrentCreationThroughput"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -120,6 +123,30 @@ public class TestConcurrentOperations extends OpenCmsTestCase {
             + count.intValue());
     }
 
+    /**
+     * Concurrent creation test method that creates a number of files in a separate folder for each thread.<p>
+     * 
+     * @param cms the OpenCms user context to use
+     * @param count the count for this test
+     * @param prefix the prefix for the folder name
+     * @param files the number of files to create
+     * 
+     * @throws Exception if something goes wrong, unexpected
+     */
+    public void doConcurrentCreationInFolderOperation(CmsObject cms, Integer count, String prefix, Integer files)
+    throws Exception {
+
+        String folder = prefix + count + "/";
+        I_CmsResourceType folderType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypeFolder.RESOURCE_TYPE_ID);
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(folder, folderType);
+        for (int i = 0; i < files.intValue(); i++) {
+            cms.createResource(folder + "file" + i + ".txt", plainType);
+        }
+    }
+
     /**
      * Concurrent publish project test method.<p>
      * 
@@ -296,6 +323,63 @@ public class TestConcurrentOperations extends OpenCmsTestCase {
         echo("Total runtime of concurrent test suite: " + CmsStringUtil.formatRuntime(suite.getRuntime()));
     }
 
+    /**
+     * Benchmarks the creation of resources in different folders with an increasing number of threads.<p>
+     * 
+     * Since resources in different folders are created in parallel, the throughput should
+     * increase with the number of threads, as far as the database allows.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentCreationThroughput() throws Exception {
+
+        int files = 50;
+        echo("Concurrent creation benchmark: Creating " + files + " files per thread in separate folders");
+
+        CmsObject cms = getCmsObject();
+        cms.createResource(
+            "/benchmark/",
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.RESOURCE_TYPE_ID));
+
+        for (int count = 1; count <= 8; count *= 2) {
+            String prefix = "/benchmark/threads" + count + "_";
+            Object[] parameters = new Object[] {
+                OpenCmsThreadedTestCaseSuite.PARAM_CMSOBJECT,
+                OpenCmsThreadedTestCaseSuite.PARAM_COUNTER,
+                prefix,
+                Integer.valueOf(files)};
+            OpenCmsThreadedTestCaseSuite suite = new OpenCmsThreadedTestCaseSuite(
+                count,
+                this,
+                "doConcurrentCreationInFolderOperation",
+                parameters);
+            suite.setAllowedRuntime(120000);
+            OpenCmsThreadedTestCase[] threads = suite.run();
+
+            if (suite.getThrowable() != null) {
+                throw new Exception(suite.getThrowable());
+            }
+            for (int i = 0; i < count; i++) {
+                Throwable e = threads[i].getThrowable();
+                if (e != null) {
+                    throw new Exception(e);
+                }
+                assertEquals(files, cms.getFilesInFolder(prefix + i + "/", CmsResourceFilter.ALL).size());
+            }
+
+            long runtime = Math.max(suite.getRuntime(), 1);
+            echo("Created "
+                + (count * (files + 1))
+                + " resources with "
+                + count
+                + " threads in "
+                + CmsStringUtil.formatRuntime(runtime)
+                + " - "
+                + ((count * (files + 1) * 1000L) / runtime)
+                + " resources per second");
+        }
+    }
+
     /**
      * Test concurrently publish same project.<p>
      * 
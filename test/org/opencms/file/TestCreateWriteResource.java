@@ -27,6 +27,7 @@
 
 package org.opencms.file;
 
+import org.opencms.file.types.CmsResourceTypeBinary;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypeJsp;
 import org.opencms.file.types.CmsResourceTypePlain;
@@ -43,6 +44,7 @@ import org.opencms.test.OpenCmsTestResourceConfigurableFilter;
 import org.opencms.test.OpenCmsTestResourceFilter;
 import org.opencms.util.CmsUUID;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -91,6 +93,7 @@ public class TestCreateWriteResource extends OpenCmsTestCase {
         suite.addTest(new TestCreateWriteResource("testCreateDotnameResources"));
         suite.addTest(new TestCreateWriteResource("testOverwriteInvisibleResource"));
         suite.addTest(new TestCreateWriteResource("testCreateResourceWithSpecialChars"));
+        suite.addTest(new TestCreateWriteResource("testWriteFileContentStream"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -953,4 +956,68 @@ public class TestCreateWriteResource extends OpenCmsTestCase {
         assertFilter(cms, source, OpenCmsTestResourceFilter.FILTER_EQUAL);
         assertFilter(cms, target, OpenCmsTestResourceFilter.FILTER_EQUAL);
     }
+
+    /**
+     * Tests writing the content of files from a stream.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testWriteFileContentStream() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing write file content stream");
+
+        // binary content is written without loading it into memory
+        String binaryname = "/folder1/stream.bin";
+        cms.createResource(
+            binaryname,
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeBinary.getStaticTypeId()),
+            new byte[0],
+            null);
+        long timestamp = System.currentTimeMillis() - 1;
+        byte[] content = "Binary content written from a stream".getBytes();
+        // the stream may contain more bytes than the given length
+        byte[] streamed = new byte[content.length + 10];
+        System.arraycopy(content, 0, streamed, 0, content.length);
+        CmsResource resource = cms.writeFileContentStream(
+            cms.readResource(binaryname),
+            new ByteArrayInputStream(streamed),
+            content.length);
+        assertEquals(content.length, resource.getLength());
+        assertContent(cms, binaryname, content);
+        assertDateContentAfter(cms, binaryname, timestamp);
+        assertUserLastModified(cms, binaryname, cms.getRequestContext().getCurrentUser());
+
+        // other resource types read the stream and write the content as usual
+        String plainname = "/folder1/stream.txt";
+        cms.createResource(
+            plainname,
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypePlain.getStaticTypeId()),
+            new byte[0],
+            null);
+        content = "Plain content written from a stream".getBytes();
+        cms.writeFileContentStream(cms.readResource(plainname), new ByteArrayInputStream(content), content.length);
+        assertContent(cms, plainname, content);
+
+        // folders can not be written
+        try {
+            cms.writeFileContentStream(cms.readResource("/folder1/"), new ByteArrayInputStream(content), 0);
+            fail("content of a folder could be written");
+        } catch (CmsVfsException e) {
+            // expected
+        }
+
+        // publish the project
+        cms.unlockProject(cms.getRequestContext().getCurrentProject().getUuid());
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        assertState(cms, binaryname, CmsResource.STATE_UNCHANGED);
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertContent(cms, plainname, content);
+        assertEquals(
+            "Binary content written from a stream",
+            new String(cms.readFile(binaryname).getContents()));
+        cms.getRequestContext().setCurrentProject(cms.readProject("Offline"));
+    }
 }
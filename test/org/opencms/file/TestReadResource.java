@@ -31,8 +31,12 @@ import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
 
+import java.io.InputStream;
+import java.util.Arrays;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -74,6 +78,7 @@ public class TestReadResource extends OpenCmsTestCase {
         suite.addTest(new TestReadResource("testReadWithResourceID"));
         suite.addTest(new TestReadResource("testReadWithWrongResourceID"));
         suite.addTest(new TestReadResource("testReadFileWithResourceID"));
+        suite.addTest(new TestReadResource("testReadFileContentStream"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -340,6 +345,37 @@ public class TestReadResource extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Test reading the file content as a stream.<p>
+     *
+     * @throws Throwable if something is wrong
+     */
+    public void testReadFileContentStream() throws Throwable {
+
+        String path = "/folder1/subfolder11/page1.html";
+        CmsObject cms = getCmsObject();
+        CmsFile file = cms.readFile(path);
+        CmsResource resource = cms.readResource(path);
+        InputStream in = cms.readFileContentStream(resource);
+        try {
+            assertTrue(Arrays.equals(file.getContents(), CmsFileUtil.readFully(in, false)));
+        } finally {
+            in.close();
+        }
+
+        // a file with loaded contents must be served from memory
+        file.setContents("changed".getBytes());
+        in = cms.readFileContentStream(file);
+        assertEquals("changed", new String(CmsFileUtil.readFully(in)));
+
+        try {
+            cms.readFileContentStream(cms.readResource("/folder1/"));
+            fail("content of a folder could be read");
+        } catch (CmsException e) {
+            // expected
+        }
+    }
+
     /**
      * Test readFile with the structure id.<p>
      *
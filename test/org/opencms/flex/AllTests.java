@@ -59,6 +59,9 @@ public final class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestCmsFlexCacheEntry.class));
+        suite.addTest(TestCmsFlexCacheKey.suite());
+        suite.addTest(new TestSuite(TestCmsFlexCacheOffHeapStore.class));
+        suite.addTest(new TestSuite(TestCmsFlexOutputBuffer.class));
         suite.addTest(TestCmsFlexResponse.suite());
         //$JUnit-END$
         return suite;
@@ -0,0 +1,466 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.flex.TestCmsFlexResponse.RecordingMock;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestLogAppender;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import junit.extensions.TestSetup;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for matching the cache directives of a {@link CmsFlexCacheKey} with a {@link CmsFlexRequestKey}.<p>
+ *
+ * @since 9.5.0
+ */
+public class TestCmsFlexCacheKey extends OpenCmsTestCase {
+
+    /**
+     * A partial implementation of {@link HttpServletRequest} with the values used by the request key.<p>
+     */
+    public static class RequestStub {
+
+        /** Attribute map. */
+        Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+        /** Parameter map. */
+        Map<String, String[]> m_parameters = new HashMap<String, String[]>();
+
+        /** The server port. */
+        int m_port = 80;
+
+        /** The scheme. */
+        String m_scheme = "http";
+
+        /** The session, or <code>null</code> if the request has no session. */
+        HttpSession m_session;
+
+        /**
+         * Returns the named attribute value.<p>
+         *
+         * @param name the name of the attribute to return
+         * @return the value of the attribute
+         */
+        public Object getAttribute(String name) {
+
+            return m_attributes.get(name);
+        }
+
+        /**
+         * Returns the names of the attributes.<p>
+         *
+         * @return the names of the attributes
+         */
+        public Enumeration<String> getAttributeNames() {
+
+            return Collections.enumeration(m_attributes.keySet());
+        }
+
+        /**
+         * Returns the first value of the named parameter.<p>
+         *
+         * @param name the name of the parameter
+         * @return the first value of the parameter
+         */
+        public String getParameter(String name) {
+
+            String[] values = m_parameters.get(name);
+            return values != null ? values[0] : null;
+        }
+
+        /**
+         * Returns the parameter map.<p>
+         *
+         * @return the parameter map
+         */
+        public Map<String, String[]> getParameterMap() {
+
+            return m_parameters;
+        }
+
+        /**
+         * Returns the scheme.<p>
+         *
+         * @return the scheme
+         */
+        public String getScheme() {
+
+            return m_scheme;
+        }
+
+        /**
+         * Returns the server port.<p>
+         *
+         * @return the server port
+         */
+        public int getServerPort() {
+
+            return m_port;
+        }
+
+        /**
+         * Returns the session.<p>
+         *
+         * @param create ignored, a session is never created
+         * @return the session, or <code>null</code> if the request has no session
+         */
+        public HttpSession getSession(boolean create) {
+
+            return m_session;
+        }
+
+        /**
+         * Removes the named attribute.<p>
+         *
+         * @param name the name of the attribute to remove
+         */
+        public void removeAttribute(String name) {
+
+            m_attributes.remove(name);
+        }
+
+        /**
+         * Sets the named attribute to the given value.<p>
+         *
+         * @param name the name of the attribute to set
+         * @param value the value to set
+         */
+        public void setAttribute(String name, Object value) {
+
+            m_attributes.put(name, value);
+        }
+    }
+
+    /**
+     * A partial implementation of {@link HttpSession} which allows for the getting of session attributes.<p>
+     */
+    public static class SessionStub {
+
+        /** Attribute map. */
+        Map<String, Object> m_attributes = new HashMap<String, Object>();
+
+        /**
+         * Returns the named attribute value.<p>
+         *
+         * @param name the name of the attribute to return
+         * @return the value of the attribute
+         */
+        public Object getAttribute(String name) {
+
+            return m_attributes.get(name);
+        }
+    }
+
+    /** The name of the resource used by the tests. */
+    private static final String RESOURCE_NAME = "/sites/default/index.html";
+
+    /** Servlet request to use with the tests. */
+    private HttpServletRequest m_request;
+
+    /** Request stub with the values used by the request key. */
+    private RequestStub m_requestStub;
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCacheKey(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static TestSetup suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsFlexCacheKey.class.getName());
+
+        suite.addTest(new TestCmsFlexCacheKey("testAlways"));
+        suite.addTest(new TestCmsFlexCacheKey("testNoCache"));
+        suite.addTest(new TestCmsFlexCacheKey("testNoParams"));
+        suite.addTest(new TestCmsFlexCacheKey("testParams"));
+        suite.addTest(new TestCmsFlexCacheKey("testPorts"));
+        suite.addTest(new TestCmsFlexCacheKey("testSchemes"));
+        suite.addTest(new TestCmsFlexCacheKey("testSession"));
+        suite.addTest(new TestCmsFlexCacheKey("testTimeout"));
+        suite.addTest(new TestCmsFlexCacheKey("testUser"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests the "always" directive, which caches one variation for all requests.<p>
+     */
+    public void testAlways() {
+
+        assertEquals("always", match("always"));
+        assertEquals("always", match("true"));
+        m_requestStub.m_parameters.put("a", new String[] {"1"});
+        assertEquals("always", match("user;params;always"));
+
+        // "never" behind "always" disables the cache
+        assertNull(match("always;never"));
+    }
+
+    /**
+     * Tests the cases in which a resource is not cached at all.<p>
+     */
+    public void testNoCache() {
+
+        assertNull(match(null));
+        assertNull(match("never"));
+        assertNull(match("false"));
+        assertNull(match("user;never"));
+
+        // an invalid directive disables the cache
+        CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE_NAME, "user;unknown", true);
+        assertTrue(key.hadParseError());
+        assertNull(key.matchRequestKey(createRequestKey()));
+        OpenCmsTestLogAppender.setBreakOnError(false);
+        try {
+            assertTrue(new CmsFlexCacheKey(RESOURCE_NAME, "session=()", true).hadParseError());
+        } finally {
+            OpenCmsTestLogAppender.setBreakOnError(true);
+        }
+    }
+
+    /**
+     * Tests the "no-params" directive.<p>
+     */
+    public void testNoParams() {
+
+        assertEquals("user=(Guest);", match("user;no-params"));
+        assertEquals("user=(Guest);", match("user;no-params=(a)"));
+
+        m_requestStub.m_parameters.put("b", new String[] {"2"});
+        assertNull(match("user;no-params"));
+        assertEquals("user=(Guest);", match("user;no-params=(a)"));
+
+        m_requestStub.m_parameters.put("a", new String[] {"1"});
+        assertNull(match("user;no-params=(a)"));
+        assertNull(match("always;no-params=(a)"));
+    }
+
+    /**
+     * Tests the "params" directive.<p>
+     */
+    public void testParams() {
+
+        assertEquals("params=();", match("params"));
+        assertEquals("params=();", match("params=(a)"));
+
+        m_requestStub.m_parameters.put("a", new String[] {"1", "2"});
+        assertEquals("params=(a=1);", match("params"));
+        assertEquals("params=(a=1);", match("params=(a)"));
+        assertEquals("params=();", match("params=(b)"));
+        assertEquals("user=(Guest);params=(a=1);", match("params=(a);user"));
+    }
+
+    /**
+     * Tests the "ports" directive.<p>
+     */
+    public void testPorts() {
+
+        assertEquals("ports=(80);", match("ports=(80,8080)"));
+        m_requestStub.m_port = 8080;
+        assertEquals("ports=(8080);", match("ports=(80,8080)"));
+        m_requestStub.m_port = 8443;
+        assertNull(match("ports=(80,8080)"));
+        assertNull(match("user;ports=(80)"));
+    }
+
+    /**
+     * Tests the "schemes" directive.<p>
+     */
+    public void testSchemes() {
+
+        assertEquals("schemes=(http);", match("schemes=(http)"));
+        assertEquals("user=(Guest);schemes=(http);", match("user;schemes=(http,https)"));
+        m_requestStub.m_scheme = "HTTPS";
+        assertEquals("schemes=(https);", match("schemes=(http,https)"));
+        assertNull(match("schemes=(http)"));
+        assertNull(match("user;schemes=(http)"));
+    }
+
+    /**
+     * Tests the "session" directive.<p>
+     */
+    public void testSession() {
+
+        // without a session, the session segment is omitted
+        assertEquals("user=(Guest);", match("user;session=(a)"));
+        assertNull(match("session=(a)"));
+
+        SessionStub sessionStub = new SessionStub();
+        m_requestStub.m_session = (HttpSession)createProxy(HttpSession.class, new RecordingMock(sessionStub));
+        assertEquals("user=(Guest);", match("user;session=(a)"));
+
+        sessionStub.m_attributes.put("a", "x");
+        sessionStub.m_attributes.put("b", "y");
+        assertEquals("user=(Guest);session=(a=x);", match("user;session=(a)"));
+        assertEquals("session=(a=x);", match("session=(a)"));
+    }
+
+    /**
+     * Tests the "timeout" directive.<p>
+     */
+    public void testTimeout() {
+
+        assertEquals("timeout=(10);", match("timeout=10"));
+        assertEquals("user=(Guest);timeout=(10);", match("timeout=10;user"));
+        assertEquals("user=(Guest);", match("timeout=0;user"));
+    }
+
+    /**
+     * Tests the "user" directive.<p>
+     */
+    public void testUser() {
+
+        assertEquals("user=(Guest);", match("user"));
+        assertEquals("uri=(/sites/default/index.html);user=(Guest);", match("user;uri"));
+    }
+
+    /**
+     * Initializes a flex controller and a servlet request stub to be used by this unit tests.<p>
+     *
+     * @throws Exception if the setup fails
+     *
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        cms.getRequestContext().setSiteRoot("/sites/default");
+        cms.getRequestContext().setUri("/index.html");
+
+        m_requestStub = new RequestStub();
+        m_request = (HttpServletRequest)createProxy(HttpServletRequest.class, new RecordingMock(m_requestStub));
+        HttpServletResponse response = (HttpServletResponse)createProxy(
+            HttpServletResponse.class,
+            new RecordingMock());
+
+        CmsFlexController controller = new CmsFlexController(
+            cms,
+            null,
+            CmsFlexDummyLoader.getFlexCache(),
+            m_request,
+            response,
+            false,
+            true);
+        CmsFlexController.setController(m_request, controller);
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown() throws Exception {
+
+        super.tearDown();
+        m_requestStub = null;
+        m_request = null;
+    }
+
+    /**
+     * Creates a proxy for the given interface backed by the given mock.<p>
+     *
+     * @param interfaceClass the interface to implement
+     * @param mock the mock to handle the method calls
+     *
+     * @return the proxy
+     */
+    private Object createProxy(Class<?> interfaceClass, RecordingMock mock) {
+
+        return Proxy.newProxyInstance(
+            Thread.currentThread().getContextClassLoader(),
+            new Class[] {interfaceClass},
+            mock);
+    }
+
+    /**
+     * Creates a request key for the current state of the request stub.<p>
+     *
+     * @return the request key
+     */
+    private CmsFlexRequestKey createRequestKey() {
+
+        return new CmsFlexRequestKey(m_request, "/index.html", true);
+    }
+
+    /**
+     * Matches the given cache directives with the current state of the request stub.<p>
+     *
+     * @param cacheDirectives the cache directives
+     *
+     * @return the variation, or <code>null</code> if the request is not cacheable
+     */
+    private String match(String cacheDirectives) {
+
+        CmsFlexCacheKey key = new CmsFlexCacheKey(RESOURCE_NAME, cacheDirectives, true);
+        assertFalse(key.hadParseError());
+        return key.matchRequestKey(createRequestKey());
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.List;
+
+/**
+ * Tests for the CmsFlexCacheOffHeapStore.<p>
+ */
+public class TestCmsFlexCacheOffHeapStore extends OpenCmsTestCase {
+
+    /**
+     * Tests that entries are dropped in LRU order once the byte budget is exceeded.<p>
+     */
+    public void testBudget() {
+
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(10);
+        assertTrue(store.demote("/a.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX, "v", createEntry("12345")));
+        assertTrue(store.demote("/b.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX, "v", createEntry("12345")));
+        assertEquals(10, store.getSize());
+        assertTrue(store.demote("/c.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX, "v", createEntry("123")));
+        assertEquals(2, store.size());
+        assertEquals(8, store.getSize());
+        assertNull(store.promote("/a.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX, "v"));
+
+        // entries larger than the whole store are rejected
+        assertFalse(store.demote("/d.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX, "v", createEntry("12345678901")));
+    }
+
+    /**
+     * Tests that entries added to the FlexCache before the store has been cleared are not demoted.<p>
+     */
+    public void testClearGeneration() {
+
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(1024);
+        String onlineName = "/a.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX;
+        String offlineName = "/a.jsp" + CmsFlexCache.CACHE_OFFLINESUFFIX;
+        CmsFlexCacheEntry online = createEntry("a");
+        online.setClearGeneration(store.getClearGeneration(onlineName));
+        CmsFlexCacheEntry offline = createEntry("a");
+        offline.setClearGeneration(store.getClearGeneration(offlineName));
+
+        // removing the online entries only affects the online entries added before
+        store.removeBySuffix(CmsFlexCache.CACHE_ONLINESUFFIX);
+        assertFalse(store.demote(onlineName, "v", online));
+        assertTrue(store.demote(offlineName, "v", offline));
+        online.setClearGeneration(store.getClearGeneration(onlineName));
+        assertTrue(store.demote(onlineName, "v", online));
+
+        // clearing the store affects all entries added before
+        store.clear();
+        assertFalse(store.demote(onlineName, "v", online));
+        assertFalse(store.demote(offlineName, "v", offline));
+        assertEquals(0, store.size());
+    }
+
+    /**
+     * Tests a demote and promote round trip.<p>
+     */
+    public void testDemoteAndPromote() {
+
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(1024);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add("Hello ".getBytes());
+        entry.add("/system/include.jsp", null, null);
+        entry.add("World".getBytes());
+        entry.complete();
+        String resourceName = "/test.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX;
+
+        assertTrue(store.demote(resourceName, "v1", entry));
+        assertEquals(1, store.size());
+        assertEquals(11, store.getSize());
+        // the variation and the online / offline suffix are part of the key
+        assertNull(store.promote(resourceName, "v2"));
+        assertNull(store.promote("/test.jsp" + CmsFlexCache.CACHE_OFFLINESUFFIX, "v1"));
+
+        CmsFlexCacheEntry promoted = store.promote(resourceName, "v1");
+        assertNotNull(promoted);
+        assertEquals(0, store.size());
+        assertEquals(0, store.getSize());
+        assertEquals(entry.getDateExpires(), promoted.getDateExpires());
+        List<Object> elements = promoted.elements();
+        assertEquals(5, elements.size());
+        assertEquals("Hello ", new String((byte[])elements.get(0)));
+        assertEquals("/system/include.jsp", elements.get(1));
+        assertEquals("World", new String((byte[])elements.get(4)));
+        // a promoted entry is removed from the store
+        assertNull(store.promote(resourceName, "v1"));
+    }
+
+    /**
+     * Tests that entries spanning several arena blocks are restored intact and their blocks are reused.<p>
+     */
+    public void testBlockReuse() {
+
+        // 64 KB budget results in 64 byte blocks
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(64 * 1024);
+        StringBuffer content = new StringBuffer();
+        for (int i = 0; content.length() < 1000; i++) {
+            content.append(i).append(',');
+        }
+        String resourceName = "/large.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX;
+        for (int i = 0; i < 200; i++) {
+            CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+            entry.add(("start " + i).getBytes());
+            entry.add(content.toString().getBytes());
+            entry.complete();
+            assertTrue(store.demote(resourceName, "v" + i, entry));
+            assertTrue(store.getSize() <= store.getMaxBytes());
+        }
+        // the budget only holds some of the entries, the oldest have been dropped
+        assertTrue(store.size() < 200);
+        assertNull(store.promote(resourceName, "v0"));
+
+        CmsFlexCacheEntry promoted = store.promote(resourceName, "v199");
+        assertNotNull(promoted);
+        assertEquals("start 199", new String((byte[])promoted.elements().get(0)));
+        assertEquals(content.toString(), new String((byte[])promoted.elements().get(1)));
+
+        store.removeResource(resourceName);
+        assertEquals(0, store.size());
+        assertEquals(0, store.getSize());
+    }
+
+    /**
+     * Tests the removal of entries by resource name and suffix.<p>
+     */
+    public void testRemove() {
+
+        CmsFlexCacheOffHeapStore store = new CmsFlexCacheOffHeapStore(1024);
+        store.demote("/a.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX, "v1", createEntry("a"));
+        store.demote("/a.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX, "v2", createEntry("a"));
+        store.demote("/a.jsp" + CmsFlexCache.CACHE_OFFLINESUFFIX, "v1", createEntry("a"));
+        store.demote("/b.jsp" + CmsFlexCache.CACHE_OFFLINESUFFIX, "v1", createEntry("b"));
+        assertEquals(4, store.size());
+
+        store.removeResource("/a.jsp" + CmsFlexCache.CACHE_ONLINESUFFIX);
+        assertEquals(2, store.size());
+        store.removeBySuffix(CmsFlexCache.CACHE_OFFLINESUFFIX);
+        assertEquals(0, store.size());
+        assertEquals(0, store.getSize());
+    }
+
+    /**
+     * Creates a completed cache entry with the given content.<p>
+     * 
+     * @param content the content of the entry
+     * 
+     * @return the cache entry
+     */
+    private CmsFlexCacheEntry createEntry(String content) {
+
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        entry.add(content.getBytes());
+        entry.complete();
+        return entry;
+    }
+}
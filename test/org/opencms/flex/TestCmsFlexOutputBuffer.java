@@ -0,0 +1,94 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.Arrays;
+
+/**
+ * Tests for the CmsFlexOutputBuffer.<p>
+ */
+public class TestCmsFlexOutputBuffer extends OpenCmsTestCase {
+
+    /**
+     * Tests that cleared chunks are returned to the pool and reused.<p>
+     */
+    public void testChunkReuse() {
+
+        CmsFlexOutputBuffer buffer = new CmsFlexOutputBuffer();
+        buffer.write(new byte[CmsFlexBufferPool.CHUNK_SIZE * 2], 0, CmsFlexBufferPool.CHUNK_SIZE * 2);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertTrue(CmsFlexBufferPool.getPooledChunks() >= 2);
+
+        long reused = CmsFlexBufferPool.getReusedChunks();
+        buffer.write('a');
+        assertEquals(reused + 1, CmsFlexBufferPool.getReusedChunks());
+        assertEquals("a", new String(buffer.toByteArray()));
+        buffer.clear();
+    }
+
+    /**
+     * Tests writing and reading content that spans several chunks.<p>
+     */
+    public void testWriteAcrossChunks() {
+
+        int size = (CmsFlexBufferPool.CHUNK_SIZE * 3) + 17;
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte)((i % 100) + 1);
+        }
+        int delimiter = CmsFlexBufferPool.CHUNK_SIZE + 5;
+        content[delimiter] = 0;
+
+        CmsFlexOutputBuffer buffer = new CmsFlexOutputBuffer();
+        // write in odd sized pieces and single bytes to cross the chunk borders at different offsets
+        int pos = 0;
+        while (pos < size) {
+            if ((pos % 3) == 0) {
+                buffer.write(content[pos]);
+                pos++;
+            } else {
+                int len = Math.min(1000, size - pos);
+                buffer.write(content, pos, len);
+                pos += len;
+            }
+        }
+        assertEquals(size, buffer.size());
+        assertTrue(Arrays.equals(content, buffer.toByteArray()));
+        assertEquals(delimiter, buffer.indexOf((byte)0, 0));
+        assertEquals(delimiter, buffer.indexOf((byte)0, delimiter));
+        assertEquals(-1, buffer.indexOf((byte)0, delimiter + 1));
+
+        int start = CmsFlexBufferPool.CHUNK_SIZE - 3;
+        int end = (CmsFlexBufferPool.CHUNK_SIZE * 3) + 2;
+        assertTrue(Arrays.equals(Arrays.copyOfRange(content, start, end), buffer.toByteArray(start, end)));
+        buffer.clear();
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypeJsp;
+import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the {@link CmsJspWarmup}.<p>
+ */
+public class TestCmsJspWarmup extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspWarmup(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspWarmup.class.getName());
+
+        suite.addTest(new TestCmsJspWarmup("testWarmup"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the warm-up writes the template JSPs and skips them while they are unchanged.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testWarmup() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the JSP warm-up");
+
+        cms.createResource(
+            "/warmup",
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.getStaticTypeId()));
+        I_CmsResourceType jspType = OpenCms.getResourceManager().getResourceType(CmsResourceTypeJsp.getJSPTypeId());
+        CmsResource include = cms.createResource(
+            "/warmup/include.jsp",
+            jspType,
+            "Include".getBytes("UTF-8"),
+            null);
+        CmsResource main = cms.createResource(
+            "/warmup/main.jsp",
+            jspType,
+            ("<%@ include file=\"%(link.strong:" + include.getRootPath() + ")\" %>").getBytes("UTF-8"),
+            null);
+        cms.writePropertyObject("/warmup", new CmsProperty(
+            CmsPropertyDefinition.PROPERTY_TEMPLATE,
+            main.getRootPath(),
+            null));
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsJspLoader loader = (CmsJspLoader)OpenCms.getResourceManager().getLoader(CmsJspLoader.RESOURCE_LOADER_ID);
+        CmsJspWarmup warmup = new CmsJspWarmup(loader, cms, 2, null);
+        warmup.run();
+        assertEquals(0, warmup.getFailedCount());
+        assertTrue(warmup.getUpdatedCount() >= 2);
+        assertTrue(getRepositoryFile(loader, main).exists());
+        assertTrue(getRepositoryFile(loader, include).exists());
+        assertTrue(new File(loader.getJspRepository(), CmsJspWarmup.MANIFEST_FILE_NAME).exists());
+
+        // nothing has changed, so nothing is written
+        warmup = new CmsJspWarmup(loader, cms, 2, null);
+        warmup.run();
+        assertEquals(0, warmup.getFailedCount());
+        assertEquals(0, warmup.getUpdatedCount());
+        assertTrue(warmup.getSkippedCount() >= 2);
+
+        // a changed include must also write the JSP including it
+        cms.lockResource(include);
+        CmsFile file = cms.readFile(include);
+        file.setContents("Changed".getBytes("UTF-8"));
+        cms.writeFile(file);
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        warmup = new CmsJspWarmup(loader, cms, 2, null);
+        warmup.run();
+        assertEquals(0, warmup.getFailedCount());
+        assertEquals(2, warmup.getUpdatedCount());
+        File rfsFile = getRepositoryFile(loader, cms.readResource(main.getStructureId()));
+        assertTrue(rfsFile.lastModified() > 0);
+    }
+
+    /**
+     * Returns the file of the given JSP in the online JSP repository.<p>
+     * 
+     * @param loader the JSP loader
+     * @param jsp the JSP
+     * 
+     * @return the file of the JSP in the online repository
+     */
+    private File getRepositoryFile(CmsJspLoader loader, CmsResource jsp) {
+
+        String jspVfsName = jsp.getRootPath();
+        if (!jspVfsName.endsWith(CmsJspLoader.JSP_EXTENSION)) {
+            jspVfsName += CmsJspLoader.JSP_EXTENSION;
+        }
+        return new File(CmsFileUtil.getRepositoryName(loader.getJspRepository(), jspVfsName, true));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the asynchronous event manager, this does not require an OpenCms context.<p>
+ */
+public class TestCmsAsyncEventManager extends OpenCmsTestCase {
+
+    /**
+     * Event listener that records the received events and can be blocked.<p>
+     */
+    private static class CmsBlockingListener implements I_CmsAsyncEventListener {
+
+        /** The latch the listener waits for before handling an event. */
+        protected CountDownLatch m_block = new CountDownLatch(0);
+
+        /** The types of the received events. */
+        protected List<Integer> m_events = Collections.synchronizedList(new ArrayList<Integer>());
+
+        /** The threads that delivered the events. */
+        protected List<Thread> m_threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            try {
+                m_block.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            m_events.add(event.getTypeInteger());
+            m_threads.add(Thread.currentThread());
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsAsyncEventListener#getEventDelivery(org.opencms.main.CmsEvent)
+         */
+        public Delivery getEventDelivery(CmsEvent event) {
+
+            switch (event.getType()) {
+                case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                    return Delivery.COALESCED;
+                case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                    return Delivery.SYNCHRONOUS;
+                default:
+                    return Delivery.ASYNCHRONOUS;
+            }
+        }
+    }
+
+    /**
+     * Tests that asynchronous events are queued, coalesced and delivered in order.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAsyncDelivery() throws Exception {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager();
+        CmsBlockingListener listener = new CmsBlockingListener();
+        listener.m_block = new CountDownLatch(1);
+        manager.addCmsEventListener(listener);
+
+        manager.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put("action", Integer.valueOf(1));
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, data);
+
+        // the listener is blocked, so the firing thread must not have waited
+        CmsEventListenerQueue queue = manager.getListenerQueues().get(0);
+        assertTrue(listener.m_events.isEmpty());
+        assertEquals(1, queue.getCoalescedCount());
+
+        listener.m_block.countDown();
+        // a synchronous event is delivered after all queued events
+        manager.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT);
+
+        assertEquals(4, listener.m_events.size());
+        assertEquals(I_CmsEventListener.EVENT_LOGIN_USER, listener.m_events.get(0).intValue());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, listener.m_events.get(1).intValue());
+        assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, listener.m_events.get(2).intValue());
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, listener.m_events.get(3).intValue());
+        assertSame(Thread.currentThread(), listener.m_threads.get(3));
+        assertEquals(0, queue.getQueueSize());
+        assertTrue(queue.getMaxQueueSize() >= 1);
+        assertEquals(4, queue.getDeliveredCount());
+
+        manager.shutDown();
+    }
+
+    /**
+     * Tests that events are delivered synchronously if the queue is full.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testFullQueue() throws Exception {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager(1);
+        final CmsBlockingListener listener = new CmsBlockingListener();
+        listener.m_block = new CountDownLatch(1);
+        manager.addCmsEventListener(listener);
+
+        manager.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        // wait until the worker thread is blocked in the listener, so that the queue is empty again
+        CmsEventListenerQueue queue = manager.getListenerQueues().get(0);
+        for (int i = 0; (i < 100) && (queue.getQueueSize() > 0); i++) {
+            Thread.sleep(10);
+        }
+        manager.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                listener.m_block.countDown();
+            }
+        }.start();
+        // the queue is full, so this event is delivered by this thread
+        manager.fireEvent(I_CmsEventListener.EVENT_UPDATE_EXPORTS);
+        assertEquals(1, queue.getRejectedCount());
+        assertEquals(3, listener.m_events.size());
+        assertEquals(I_CmsEventListener.EVENT_UPDATE_EXPORTS, listener.m_events.get(2).intValue());
+
+        manager.shutDown();
+    }
+
+    /**
+     * Tests that listeners not implementing the asynchronous interface receive their events synchronously.<p>
+     */
+    public void testSyncListener() {
+
+        CmsAsyncEventManager manager = new CmsAsyncEventManager();
+        CmsTestEventListener listener = new CmsTestEventListener();
+        manager.addCmsEventListener(listener, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+
+        manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+        manager.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        assertEquals(1, listener.getEvents().size());
+        assertTrue(listener.hasRecievedEvent(I_CmsEventListener.EVENT_CLEAR_CACHES));
+        assertEquals(1, manager.getListenerQueues().get(0).getDeliveredCount());
+
+        manager.removeCmsEventListener(listener);
+        assertTrue(manager.getListenerQueues().isEmpty());
+    }
+}
@@ -58,6 +58,9 @@ public final class AllTests {
         TestSuite suite = new TestSuite("Tests for package " + AllTests.class.getPackage().getName());
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
+        suite.addTestSuite(TestCmsCacheDependencyIndex.class);
+        suite.addTest(TestCmsResourceCacheDependencies.suite());
+        suite.addTestSuite(TestCmsSampledCacheWeigher.class);
         suite.addTest(TestMemoryMonitor.suite());
         //$JUnit-END$
         return suite;
@@ -0,0 +1,92 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test cases for {@link org.opencms.monitor.CmsCacheDependencyIndex}.<p>
+ */
+public class TestCmsCacheDependencyIndex extends OpenCmsTestCase {
+
+    /**
+     * Tests the registration and removal of dependencies.<p>
+     */
+    public void testAddRemove() {
+
+        CmsCacheDependencyIndex index = new CmsCacheDependencyIndex(100);
+        assertTrue(index.add("key1", Arrays.asList("P:/a/", "I:1")));
+        assertTrue(index.add("key2", Arrays.asList("P:/b/", "I:1")));
+        assertEquals(4, index.size());
+
+        assertEquals(new HashSet<String>(Arrays.asList("key1", "key2")), index.remove("I:1"));
+        assertEquals(2, index.size());
+        assertTrue(index.remove("I:1").isEmpty());
+        assertEquals(Collections.singleton("key1"), index.remove("P:/a/"));
+        assertEquals(1, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.remove("P:/b/").isEmpty());
+    }
+
+    /**
+     * Tests that the maximum number of registrations is reported.<p>
+     */
+    public void testOverflow() {
+
+        CmsCacheDependencyIndex index = new CmsCacheDependencyIndex(3);
+        assertTrue(index.add("key1", Arrays.asList("a", "b")));
+        assertTrue(index.add("key1", Arrays.asList("a", "b")));
+        assertTrue(index.add("key2", Collections.singleton("a")));
+        assertFalse(index.add("key3", Collections.singleton("c")));
+    }
+
+    /**
+     * Tests the removal of all dependencies with a common prefix.<p>
+     */
+    public void testRemovePrefix() {
+
+        CmsCacheDependencyIndex index = new CmsCacheDependencyIndex(100);
+        index.add("folder", Collections.singleton("P:/a/"));
+        index.add("file", Collections.singleton("P:/a/b/c.html"));
+        index.add("other", Collections.singleton("P:/ab/"));
+        index.add("tree", Collections.singleton("T:/a/"));
+
+        Set<String> keys = index.removePrefix("P:/a/");
+        assertEquals(new HashSet<String>(Arrays.asList("folder", "file")), keys);
+        assertEquals(2, index.size());
+        assertEquals(Collections.singleton("other"), index.remove("P:/ab/"));
+        assertEquals(Collections.singleton("tree"), index.remove("T:/a/"));
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor.CacheType;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the selective invalidation of the resource caches on resource changes.<p>
+ */
+public class TestCmsResourceCacheDependencies extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsResourceCacheDependencies(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsResourceCacheDependencies.class.getName());
+
+        suite.addTest(new TestCmsResourceCacheDependencies("testAccessControlListInvalidation"));
+        suite.addTest(new TestCmsResourceCacheDependencies("testPropertyListInvalidation"));
+        suite.addTest(new TestCmsResourceCacheDependencies("testResourceListInvalidation"));
+        suite.addTest(new TestCmsResourceCacheDependencies("testResourceTreeInvalidation"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that changing the access control entries of a folder only removes the acls of the folder subtree.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testAccessControlListInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the invalidation of the acls below a folder with changed access control entries");
+
+        CmsGroup group = cms.createGroup("aclCacheGroup", "Test group for the acl cache", 0, null);
+        CmsCacheMetrics metrics = OpenCms.getMemoryMonitor().getCacheMetrics(CacheType.ACL);
+        String inside = "/folder1/subfolder11/index.html";
+        String outside = "/folder2/index.html";
+        assertNull(cms.getAccessControlList(inside).getPermissions(group.getId()));
+        cms.getAccessControlList(outside);
+
+        cms.lockResource("/folder1/");
+        cms.chacc(
+            "/folder1/",
+            I_CmsPrincipal.PRINCIPAL_GROUP,
+            group.getName(),
+            CmsPermissionSet.PERMISSION_READ,
+            0,
+            CmsAccessControlEntry.ACCESS_FLAGS_INHERIT | CmsAccessControlEntry.ACCESS_FLAGS_GROUP);
+        cms.unlockResource("/folder1/");
+        assertTrue(metrics.getEvictionCount() > 0);
+
+        // the acl outside of the changed folder is still cached
+        long hits = metrics.getHitCount();
+        long misses = metrics.getMissCount();
+        cms.getAccessControlList(outside);
+        assertEquals(hits + 1, metrics.getHitCount());
+        assertEquals(misses, metrics.getMissCount());
+
+        // the acl below the changed folder has to be read again and contains the inherited entry
+        CmsAccessControlList acl = cms.getAccessControlList(inside);
+        assertTrue(metrics.getMissCount() > misses);
+        assertNotNull(acl.getPermissions(group.getId()));
+    }
+
+    /**
+     * Tests that changing the properties of a folder only removes the property lists of the folder subtree.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPropertyListInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the invalidation of the property lists below a folder with changed properties");
+
+        CmsCacheMetrics metrics = OpenCms.getMemoryMonitor().getCacheMetrics(CacheType.PROPERTY_LIST);
+        String inside = "/folder1/subfolder11/index.html";
+        String outside = "/folder2/index.html";
+        assertTrue(cms.readPropertyObject(inside, CmsPropertyDefinition.PROPERTY_LOCALE, true).isNullProperty());
+        cms.readPropertyObjects(outside, true);
+
+        cms.lockResource("/folder1/");
+        cms.writePropertyObject("/folder1/", new CmsProperty(CmsPropertyDefinition.PROPERTY_LOCALE, "de", null));
+        cms.unlockResource("/folder1/");
+        assertTrue(metrics.getEvictionCount() > 0);
+
+        // the property list outside of the changed folder is still cached
+        long hits = metrics.getHitCount();
+        long misses = metrics.getMissCount();
+        cms.readPropertyObjects(outside, true);
+        assertEquals(hits + 1, metrics.getHitCount());
+        assertEquals(misses, metrics.getMissCount());
+
+        // the property list below the changed folder has to be read again and contains the inherited property
+        CmsProperty locale = cms.readPropertyObject(inside, CmsPropertyDefinition.PROPERTY_LOCALE, true);
+        assertTrue(metrics.getMissCount() > misses);
+        assertEquals("de", locale.getValue());
+    }
+
+    /**
+     * Tests that changing a resource only removes the resource lists of its parent folder from the cache.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testResourceListInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the invalidation of the resource lists of the parent folder of a changed resource");
+
+        CmsCacheMetrics metrics = OpenCms.getMemoryMonitor().getCacheMetrics(CacheType.RESOURCE_LIST);
+        cms.getResourcesInFolder("/folder1/", CmsResourceFilter.DEFAULT);
+        cms.getResourcesInFolder("/folder2/", CmsResourceFilter.DEFAULT);
+
+        String changed = "/folder1/page1.html";
+        cms.lockResource(changed);
+        cms.writePropertyObject(changed, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Changed", null));
+        cms.unlockResource(changed);
+        assertTrue(metrics.getEvictionCount() > 0);
+
+        // the list of the unchanged folder is still cached
+        long hits = metrics.getHitCount();
+        long misses = metrics.getMissCount();
+        cms.getResourcesInFolder("/folder2/", CmsResourceFilter.DEFAULT);
+        assertEquals(hits + 1, metrics.getHitCount());
+        assertEquals(misses, metrics.getMissCount());
+
+        // the list of the parent folder of the changed resource has to be read again
+        cms.getResourcesInFolder("/folder1/", CmsResourceFilter.DEFAULT);
+        assertEquals(hits + 1, metrics.getHitCount());
+        assertEquals(misses + 1, metrics.getMissCount());
+    }
+
+    /**
+     * Tests that changing a resource removes the resource trees of all its parent folders from the cache.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testResourceTreeInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the invalidation of the resource trees containing a changed resource");
+
+        CmsCacheMetrics metrics = OpenCms.getMemoryMonitor().getCacheMetrics(CacheType.RESOURCE_LIST);
+        cms.readResources("/folder1/", CmsResourceFilter.DEFAULT, true);
+        cms.readResources("/folder2/", CmsResourceFilter.DEFAULT, true);
+
+        String changed = "/folder1/subfolder11/index.html";
+        cms.lockResource(changed);
+        cms.setDateLastModified(changed, System.currentTimeMillis(), false);
+        cms.unlockResource(changed);
+
+        long hits = metrics.getHitCount();
+        long misses = metrics.getMissCount();
+        cms.readResources("/folder2/", CmsResourceFilter.DEFAULT, true);
+        assertEquals(hits + 1, metrics.getHitCount());
+        cms.readResources("/folder1/", CmsResourceFilter.DEFAULT, true);
+        assertEquals(misses + 1, metrics.getMissCount());
+    }
+}
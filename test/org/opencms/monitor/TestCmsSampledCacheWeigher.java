@@ -0,0 +1,112 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test cases for {@link org.opencms.monitor.CmsSampledCacheWeigher}.<p>
+ */
+public class TestCmsSampledCacheWeigher extends OpenCmsTestCase {
+
+    /**
+     * An object of a type not known to the memory monitor.<p>
+     */
+    private static class CmsTestObject {
+
+        /** A primitive field. */
+        protected long m_id;
+
+        /** A reference field. */
+        protected String m_name;
+
+        /**
+         * Creates a new test object.<p>
+         * 
+         * @param name the name
+         */
+        protected CmsTestObject(String name) {
+
+            m_name = name;
+        }
+    }
+
+    /**
+     * Tests that collections and maps are weighed by extrapolating their sampled elements.<p>
+     */
+    public void testCollections() {
+
+        CmsSampledCacheWeigher weigher = new CmsSampledCacheWeigher();
+        String value = "0123456789";
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(value);
+        }
+        assertEquals(16 + (1000 * (8 + CmsMemoryMonitor.getMemorySize(value))), weigher.getSize(list));
+
+        Map<String, String> map = new HashMap<String, String>();
+        for (int i = 100; i < 200; i++) {
+            map.put("key" + i, value);
+        }
+        int entrySize = 32 + CmsMemoryMonitor.getMemorySize("key100") + CmsMemoryMonitor.getMemorySize(value);
+        assertEquals(16 + (100 * entrySize), weigher.getSize(map));
+    }
+
+    /**
+     * Tests that objects of known types are weighed with the estimates of the memory monitor.<p>
+     */
+    public void testKnownTypes() {
+
+        CmsSampledCacheWeigher weigher = new CmsSampledCacheWeigher();
+        assertEquals(CmsMemoryMonitor.getMemorySize("abc"), weigher.getSize("abc"));
+        assertEquals(
+            CmsMemoryMonitor.getMemorySize("key") + CmsMemoryMonitor.getMemorySize(new byte[100]),
+            weigher.weigh("key", new byte[100]));
+        assertEquals(0, weigher.weigh(null, null));
+    }
+
+    /**
+     * Tests that the average size of a class is used once enough instances have been sampled.<p>
+     */
+    public void testUnknownTypes() {
+
+        CmsSampledCacheWeigher weigher = new CmsSampledCacheWeigher();
+        String name = "name";
+        long size = 16 + 8 + 8 + CmsMemoryMonitor.getMemorySize(name);
+        for (int i = 0; i < CmsSampledCacheWeigher.SAMPLES_PER_CLASS; i++) {
+            assertEquals(size, weigher.getSize(new CmsTestObject(name)));
+        }
+        // the object is not measured anymore, so the long name is not taken into account
+        assertEquals(size, weigher.getSize(new CmsTestObject("a much longer name than before")));
+    }
+}
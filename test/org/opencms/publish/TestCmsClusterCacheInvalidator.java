@@ -0,0 +1,246 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.main.CmsException;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestLogAppender;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the cluster cache invalidation.<p>
+ */
+public class TestCmsClusterCacheInvalidator extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsClusterCacheInvalidator(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsClusterCacheInvalidator.class.getName());
+
+        suite.addTest(new TestCmsClusterCacheInvalidator("testLoopbackInvalidation"));
+        suite.addTest(new TestCmsClusterCacheInvalidator("testInvalidationFallback"));
+        suite.addTest(new TestCmsClusterCacheInvalidator("testPublishHistoryTransport"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the caches are cleared completely if the published resources of a received publish job
+     * can not be read.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testInvalidationFallback() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cache invalidation if the published resources can not be read");
+
+        CmsClusterLoopbackTransport transport = new CmsClusterLoopbackTransport();
+        CmsClusterCacheInvalidator invalidator = new CmsClusterCacheInvalidator(
+            OpenCms.getPublishManager().getEngine(),
+            transport,
+            CmsClusterCacheInvalidator.DEFAULT_INTERVAL) {
+
+            /**
+             * @see org.opencms.publish.CmsClusterCacheInvalidator#readPublishedResources(org.opencms.util.CmsUUID)
+             */
+            @Override
+            protected List<CmsPublishedResource> readPublishedResources(CmsUUID publishHistoryId)
+            throws CmsException {
+
+                throw new CmsException(Messages.get().container(Messages.ERR_CLUSTER_INVALIDATION_1, "test"));
+            }
+        };
+        try {
+            String unchanged = "/folder1/page2.html";
+            CmsObject onlineCms = OpenCms.initCmsObject(cms);
+            onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            onlineCms.readPropertyObjects(unchanged, false);
+            String unchangedKey = CmsDriverManager.CACHE_ALL_PROPERTIES + "-+" + cms.addSiteRoot(unchanged);
+            CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+            assertNotNull(monitor.getCachedPropertyList(unchangedKey));
+
+            // two jobs of another server, the published resources of the first can not be read
+            transport.send(new CmsClusterPublishNotification(new CmsUUID(), System.currentTimeMillis()));
+            transport.send(new CmsClusterPublishNotification(new CmsUUID(), System.currentTimeMillis()));
+            OpenCmsTestLogAppender.setBreakOnError(false);
+            try {
+                invalidator.invalidate();
+            } finally {
+                OpenCmsTestLogAppender.setBreakOnError(true);
+            }
+
+            // all caches have been cleared, so no job is lost
+            assertNull(monitor.getCachedPropertyList(unchangedKey));
+            assertTrue(transport.receive().isEmpty());
+        } finally {
+            invalidator.shutDown();
+        }
+    }
+
+    /**
+     * Tests that a publish job received with the loopback transport only removes the properties
+     * of the published resources from the property cache.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testLoopbackInvalidation() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cache invalidation for a publish job received with the loopback transport");
+
+        CmsClusterLoopbackTransport transport = new CmsClusterLoopbackTransport();
+        CmsClusterCacheInvalidator invalidator = new CmsClusterCacheInvalidator(
+            OpenCms.getPublishManager().getEngine(),
+            transport,
+            CmsClusterCacheInvalidator.DEFAULT_INTERVAL);
+        try {
+            String published = "/folder1/page1.html";
+            String unchanged = "/folder1/page2.html";
+            cms.lockResource(published);
+            cms.setDateLastModified(published, System.currentTimeMillis(), false);
+            cms.unlockResource(published);
+            CmsUUID publishHistoryId = OpenCms.getPublishManager().publishResource(cms, published);
+            OpenCms.getPublishManager().waitWhileRunning();
+
+            // the loopback transport has received the local publish job
+            List<CmsClusterPublishNotification> notifications = transport.receive();
+            assertEquals(1, notifications.size());
+            assertEquals(publishHistoryId, notifications.get(0).getPublishHistoryId());
+
+            // read the properties of both resources in the online project, so they are cached
+            CmsObject onlineCms = OpenCms.initCmsObject(cms);
+            onlineCms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            onlineCms.readPropertyObjects(published, false);
+            onlineCms.readPropertyObjects(unchanged, false);
+            String publishedKey = CmsDriverManager.CACHE_ALL_PROPERTIES + "-+" + cms.addSiteRoot(published);
+            String unchangedKey = CmsDriverManager.CACHE_ALL_PROPERTIES + "-+" + cms.addSiteRoot(unchanged);
+            CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+            assertNotNull(monitor.getCachedPropertyList(publishedKey));
+            assertNotNull(monitor.getCachedPropertyList(unchangedKey));
+
+            // handle the publish job again as if it had been finished by another server
+            transport.send(notifications.get(0));
+            invalidator.invalidate();
+
+            assertNull(monitor.getCachedPropertyList(publishedKey));
+            assertNotNull(monitor.getCachedPropertyList(unchangedKey));
+            assertEquals(1, invalidator.getInvalidationCount());
+            assertTrue(invalidator.getMaxLag() >= invalidator.getLastLag());
+            assertEquals(invalidator.getLastLag(), invalidator.getAverageLag());
+        } finally {
+            invalidator.shutDown();
+        }
+    }
+
+    /**
+     * Tests that the publish history transport ignores the publish jobs of this server.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishHistoryTransport() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the publish history transport");
+
+        CmsClusterPublishHistoryTransport transport = new CmsClusterPublishHistoryTransport();
+        transport.initialize(OpenCms.getPublishManager().getEngine());
+        // skip the publish jobs of the previous tests
+        transport.receive();
+
+        String path = "/folder1/page2.html";
+        cms.lockResource(path);
+        cms.setDateLastModified(path, System.currentTimeMillis(), false);
+        cms.unlockResource(path);
+        CmsUUID publishHistoryId = OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        // the job has not been sent by this server, so it is handled like a job of another server
+        List<CmsClusterPublishNotification> notifications = transport.receive();
+        assertEquals(1, notifications.size());
+        assertEquals(publishHistoryId, notifications.get(0).getPublishHistoryId());
+        assertTrue(notifications.get(0).getFinishTime() > 0);
+        // every job is only received once
+        assertTrue(transport.receive().isEmpty());
+
+        // a job sent by this server is not received
+        cms.lockResource(path);
+        cms.setDateLastModified(path, System.currentTimeMillis(), false);
+        cms.unlockResource(path);
+        publishHistoryId = OpenCms.getPublishManager().publishResource(cms, path);
+        transport.send(new CmsClusterPublishNotification(publishHistoryId, System.currentTimeMillis()));
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertTrue(transport.receive().isEmpty());
+        transport.shutDown();
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.db.CmsDriverManager;
+import org.opencms.db.generic.CmsProjectDriver;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.I_CmsResourceType;
+import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationFilter;
+import org.opencms.relations.CmsRelationType;
+import org.opencms.report.CmsStringBufferReport;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestLogAppender;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestResourceFilter;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for publishing with JDBC batches.<p>
+ */
+public class TestPublishBatch extends OpenCmsTestCase {
+
+    /** The folder with the resources that can not all be published. */
+    private static final String ERROR_FOLDER = "/batcherror/";
+
+    /** The number of files in the test folder. */
+    private static final int FILE_COUNT = 7;
+
+    /** The folder with the resources to publish. */
+    private static final String FOLDER = "/batch/";
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishBatch(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestPublishBatch.class.getName());
+
+        suite.addTest(new TestPublishBatch("testPublishNewResources"));
+        suite.addTest(new TestPublishBatch("testPublishChangedResources"));
+        suite.addTest(new TestPublishBatch("testPublishDeletedResources"));
+        suite.addTest(new TestPublishBatch("testPublishError"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+                // small batches and commit intervals, so every publish executes and commits several batches
+                setPublishBatch(3, 2);
+            }
+
+            @Override
+            protected void tearDown() {
+
+                setPublishBatch(0, 500);
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Sets the batch size and the commit interval of the project driver.<p>
+     * 
+     * @param batchSize the batch size, 0 to publish without batches
+     * @param commitInterval the commit interval
+     */
+    protected static void setPublishBatch(int batchSize, int commitInterval) {
+
+        CmsDriverManager driverManager = OpenCms.getPublishManager().getEngine().getDriverManager();
+        CmsProjectDriver projectDriver = (CmsProjectDriver)driverManager.getProjectDriver();
+        projectDriver.setPublishBatchSize(batchSize);
+        projectDriver.setPublishCommitInterval(commitInterval);
+    }
+
+    /**
+     * Tests publishing changed contents, properties, permissions and relations in batches.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishChangedResources() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing changed resources in batches");
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+
+        cms.lockResource(FOLDER);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            String file = getFileName(i);
+            if ((i % 2) == 0) {
+                CmsFile content = cms.readFile(file);
+                content.setContents(("changed content " + i).getBytes());
+                cms.writeFile(content);
+            }
+            cms.writePropertyObject(file, new CmsProperty(
+                CmsPropertyDefinition.PROPERTY_TITLE,
+                "Changed title " + i,
+                null));
+        }
+        cms.chacc(FOLDER, I_CmsPrincipal.PRINCIPAL_GROUP, OpenCms.getDefaultUsers().getGroupUsers(), "+r+v+w");
+        cms.deleteRelationsFromResource(
+            getFileName(1),
+            CmsRelationFilter.TARGETS.filterType(CmsRelationType.CATEGORY));
+        cms.addRelationToResource(getFileName(1), getFileName(3), CmsRelationType.CATEGORY.getName());
+        cms.unlockResource(FOLDER);
+        storeResources(cms, FOLDER);
+
+        OpenCms.getPublishManager().publishResource(cms, FOLDER);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertPublished(cms);
+        List<CmsRelation> relations = cms.getRelationsForResource(getFileName(1), CmsRelationFilter.TARGETS);
+        assertEquals(1, relations.size());
+        assertEquals(cms.getRequestContext().addSiteRoot(getFileName(3)), relations.get(0).getTargetPath());
+        assertEquals(2, cms.readAllAvailableVersions(getFileName(0)).size());
+
+        cms.getRequestContext().setCurrentProject(offlineProject);
+        assertUnchanged(cms);
+    }
+
+    /**
+     * Tests publishing deleted resources in batches.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishDeletedResources() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing deleted resources in batches");
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+
+        cms.lockResource(FOLDER);
+        cms.deleteResource(getFileName(2), CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cms.deleteResource(getFileName(3), CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cms.deleteResource(FOLDER + "sibling.txt", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        cms.unlockResource(FOLDER);
+
+        OpenCms.getPublishManager().publishResource(cms, FOLDER);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertFalse(cms.existsResource(getFileName(2)));
+        assertFalse(cms.existsResource(getFileName(3)));
+        assertFalse(cms.existsResource(FOLDER + "sibling.txt"));
+        assertTrue(cms.existsResource(getFileName(0)));
+
+        cms.getRequestContext().setCurrentProject(offlineProject);
+        assertFalse(cms.existsResource(getFileName(2)));
+        assertEquals(CmsResource.STATE_UNCHANGED, cms.readResource(FOLDER).getState());
+    }
+
+    /**
+     * Tests that an error publishing a resource in a batch is reported for this resource,
+     * and that the resources published before are kept.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishError() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing an error publishing a resource in batches");
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+
+        cms.createResource(
+            ERROR_FOLDER,
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.getStaticTypeId()));
+        cms.unlockResource(ERROR_FOLDER);
+        OpenCms.getPublishManager().publishResource(cms, ERROR_FOLDER);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeId());
+        for (int i = 0; i < FILE_COUNT; i++) {
+            cms.createResource(ERROR_FOLDER + "file" + i + ".txt", plainType, ("content " + i).getBytes(), null);
+            cms.unlockResource(ERROR_FOLDER + "file" + i + ".txt");
+        }
+
+        // the online structure entry of the fourth file can not be written
+        String failingFile = cms.getRequestContext().addSiteRoot(ERROR_FOLDER + "file3.txt");
+        executeSql("ALTER TABLE CMS_ONLINE_STRUCTURE ADD CONSTRAINT TEST_PUBLISH_ERROR CHECK (RESOURCE_PATH <> '"
+            + failingFile
+            + "')");
+        CmsStringBufferReport report = new CmsStringBufferReport(Locale.ENGLISH);
+        OpenCmsTestLogAppender.setBreakOnError(false);
+        try {
+            OpenCms.getPublishManager().publishProject(cms, report);
+            OpenCms.getPublishManager().waitWhileRunning();
+        } finally {
+            OpenCmsTestLogAppender.setBreakOnError(true);
+            executeSql("ALTER TABLE CMS_ONLINE_STRUCTURE DROP CONSTRAINT TEST_PUBLISH_ERROR");
+        }
+
+        assertTrue(report.hasError());
+        assertTrue(report.toString().contains(failingFile));
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        for (int i = 0; i < FILE_COUNT; i++) {
+            assertEquals(i < 3, cms.existsResource(ERROR_FOLDER + "file" + i + ".txt"));
+        }
+
+        cms.getRequestContext().setCurrentProject(offlineProject);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            assertState(
+                cms,
+                ERROR_FOLDER + "file" + i + ".txt",
+                (i < 3) ? CmsResource.STATE_UNCHANGED : CmsResource.STATE_NEW);
+        }
+
+        // the remaining files are published once the error has been removed
+        OpenCms.getPublishManager().publishProject(cms);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        for (int i = 0; i < FILE_COUNT; i++) {
+            assertTrue(cms.existsResource(ERROR_FOLDER + "file" + i + ".txt"));
+        }
+        cms.getRequestContext().setCurrentProject(offlineProject);
+    }
+
+    /**
+     * Tests publishing new resources with properties, permissions, relations and siblings in batches.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishNewResources() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing publishing new resources in batches");
+
+        CmsProject offlineProject = cms.getRequestContext().getCurrentProject();
+
+        cms.createResource(
+            FOLDER,
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.getStaticTypeId()));
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeId());
+        for (int i = 0; i < FILE_COUNT; i++) {
+            List<CmsProperty> properties = new ArrayList<CmsProperty>();
+            properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Title " + i, null));
+            properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_DESCRIPTION, null, "Description " + i));
+            properties.add(new CmsProperty(CmsPropertyDefinition.PROPERTY_KEYWORDS, "Keywords " + i, "Keywords"));
+            cms.createResource(
+                getFileName(i),
+                plainType,
+                ("content " + i).getBytes(),
+                properties);
+        }
+        cms.createSibling(getFileName(0), FOLDER + "sibling.txt", null);
+        cms.chacc(FOLDER, I_CmsPrincipal.PRINCIPAL_GROUP, OpenCms.getDefaultUsers().getGroupUsers(), "+r+v-w");
+        cms.chacc(getFileName(1), I_CmsPrincipal.PRINCIPAL_GROUP, OpenCms.getDefaultUsers().getGroupGuests(), "-r");
+        cms.addRelationToResource(getFileName(1), getFileName(2), CmsRelationType.CATEGORY.getName());
+        cms.unlockResource(FOLDER);
+        storeResources(cms, FOLDER);
+
+        OpenCms.getPublishManager().publishResource(cms, FOLDER);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertPublished(cms);
+        assertFilter(cms, FOLDER + "sibling.txt", OpenCmsTestResourceFilter.FILTER_PUBLISHRESOURCE);
+        List<CmsRelation> relations = cms.getRelationsForResource(getFileName(1), CmsRelationFilter.TARGETS);
+        assertEquals(1, relations.size());
+        assertEquals(cms.getRequestContext().addSiteRoot(getFileName(2)), relations.get(0).getTargetPath());
+        assertEquals(1, cms.readAllAvailableVersions(getFileName(0)).size());
+
+        cms.getRequestContext().setCurrentProject(offlineProject);
+        assertUnchanged(cms);
+    }
+
+    /**
+     * Checks that the test folder and its files have been published.<p>
+     * 
+     * @param cms the CMS context in the online project
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void assertPublished(CmsObject cms) throws Exception {
+
+        assertFilter(cms, FOLDER, OpenCmsTestResourceFilter.FILTER_PUBLISHRESOURCE);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            assertFilter(cms, getFileName(i), OpenCmsTestResourceFilter.FILTER_PUBLISHRESOURCE);
+        }
+    }
+
+    /**
+     * Checks that the test folder and its files are unchanged in the offline project.<p>
+     * 
+     * @param cms the CMS context in the offline project
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void assertUnchanged(CmsObject cms) throws Exception {
+
+        assertState(cms, FOLDER, CmsResource.STATE_UNCHANGED);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            assertState(cms, getFileName(i), CmsResource.STATE_UNCHANGED);
+        }
+    }
+
+    /**
+     * Executes a SQL statement on the default database pool.<p>
+     * 
+     * @param sql the SQL statement
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void executeSql(String sql) throws Exception {
+
+        Connection conn = OpenCms.getSqlManager().getConnection(OpenCms.getSqlManager().getDefaultDbPoolName());
+        try {
+            Statement stmt = conn.createStatement();
+            try {
+                stmt.execute(sql);
+            } finally {
+                stmt.close();
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Returns the name of a file in the test folder.<p>
+     * 
+     * @param index the index of the file
+     * 
+     * @return the file name
+     */
+    private String getFileName(int index) {
+
+        return FOLDER + "file" + index + ".txt";
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.search;
+
+import org.opencms.search.fields.CmsSearchField;
+import org.opencms.test.OpenCmsTestCase;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+
+/**
+ * Tests the searcher manager of the Lucene search indexes, this does not require an OpenCms context.<p>
+ */
+public class TestCmsIndexSearcherManager extends OpenCmsTestCase {
+
+    /**
+     * Tests that acquired searchers stay usable until they are released.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAcquireAndRefresh() throws Exception {
+
+        Directory dir = new RAMDirectory();
+        IndexWriter writer = createWriter(dir);
+        addDocument(writer, "/a");
+        writer.commit();
+
+        CmsIndexSearcherManager manager = new CmsIndexSearcherManager(dir, new CmsSearchSimilarity());
+        IndexSearcher first = manager.acquire();
+        assertEquals(1, first.getIndexReader().numDocs());
+
+        // uncommitted changes are not visible without near real time mode
+        addDocument(writer, "/b");
+        manager.maybeRefreshBlocking();
+        IndexSearcher second = manager.acquire();
+        assertSame(first, second);
+        manager.release(second);
+
+        writer.commit();
+        manager.maybeRefreshBlocking();
+        IndexSearcher third = manager.acquire();
+        assertNotSame(first, third);
+        assertEquals(2, third.getIndexReader().numDocs());
+
+        // the outdated searcher can still be used until it is released
+        assertEquals(1, first.getIndexReader().numDocs());
+        manager.release(first);
+        assertEquals(0, first.getIndexReader().getRefCount());
+
+        manager.release(third);
+        manager.close();
+        assertEquals(0, third.getIndexReader().getRefCount());
+        writer.close();
+    }
+
+    /**
+     * Tests the near real time mode.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testNearRealTime() throws Exception {
+
+        Directory dir = new RAMDirectory();
+        IndexWriter writer = createWriter(dir);
+        addDocument(writer, "/a");
+        writer.commit();
+
+        CmsIndexSearcherManager manager = new CmsIndexSearcherManager(dir, new CmsSearchSimilarity());
+        manager.setIndexWriter(writer);
+
+        // uncommitted changes are visible in near real time mode
+        addDocument(writer, "/b");
+        manager.maybeRefreshBlocking();
+        IndexSearcher searcher = manager.acquire();
+        assertEquals(2, searcher.getIndexReader().numDocs());
+        manager.release(searcher);
+
+        // after the writer is closed the searchers are opened from the directory again
+        addDocument(writer, "/c");
+        writer.close();
+        manager.maybeRefreshBlocking();
+        assertNull(manager.getIndexWriter());
+        searcher = manager.acquire();
+        assertEquals(3, searcher.getIndexReader().numDocs());
+        manager.release(searcher);
+        manager.close();
+    }
+
+    /**
+     * Adds a document with the given path to the index.<p>
+     * 
+     * @param writer the index writer
+     * @param path the path of the document
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void addDocument(IndexWriter writer, String path) throws Exception {
+
+        Document doc = new Document();
+        doc.add(new StringField(CmsSearchField.FIELD_PATH, path, Field.Store.YES));
+        writer.addDocument(doc);
+    }
+
+    /**
+     * Creates an index writer for the given directory.<p>
+     * 
+     * @param dir the index directory
+     * 
+     * @return the index writer
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private IndexWriter createWriter(Directory dir) throws Exception {
+
+        return new IndexWriter(dir, new IndexWriterConfig(CmsSearchIndex.LUCENE_VERSION, new KeywordAnalyzer()));
+    }
+}
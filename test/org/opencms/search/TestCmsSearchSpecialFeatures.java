@@ -32,10 +32,13 @@ import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.types.CmsResourceTypeBinary;
 import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.I_CmsPrincipal;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 
@@ -48,6 +51,9 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.AtomicReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
 
 /**
  * Unit test for special search features added for OpenCms 7.5.<p>
@@ -82,6 +88,7 @@ public class TestCmsSearchSpecialFeatures extends OpenCmsTestCase {
         suite.addTest(new TestCmsSearchSpecialFeatures("testSearchIndexSetup"));
         suite.addTest(new TestCmsSearchSpecialFeatures("testIncrementalIndexUpdate"));
         suite.addTest(new TestCmsSearchSpecialFeatures("testLazyContentFields"));
+        suite.addTest(new TestCmsSearchSpecialFeatures("testPermissionFilter"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -209,4 +216,89 @@ public class TestCmsSearchSpecialFeatures extends OpenCmsTestCase {
         assertNotNull("No 'content blob' field available", doc.getField(CmsSearchField.FIELD_CONTENT_BLOB));
         // assertTrue("Content blob field not lazy", doc.getField(CmsSearchField.FIELD_CONTENT_BLOB).isLazy());
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the documents a user can not read are recorded in the permission filter of the index.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testPermissionFilter() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the permission filter of the search index");
+
+        cms.createResource(
+            "/permtest/",
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.RESOURCE_TYPE_ID));
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(
+            "/permtest/allowed.txt",
+            plainType,
+            "PermissionEgg".getBytes(),
+            null);
+        cms.createResource(
+            "/permtest/denied.txt",
+            plainType,
+            "PermissionEgg".getBytes(),
+            null);
+        String guestName = OpenCms.getDefaultUsers().getUserGuest();
+        cms.chacc("/permtest/denied.txt", I_CmsPrincipal.PRINCIPAL_USER, guestName, "-r");
+        OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject guestCms = OpenCms.initCmsObject(guestName);
+        CmsSearchIndex searchIndex = OpenCms.getSearchManager().getIndex(INDEX_SPECIAL);
+        assertEquals(0, getUnreadableCount(searchIndex, guestCms));
+
+        // the first search reads the resources and records the denied document
+        for (int i = 0; i < 2; i++) {
+            CmsSearch searchBean = new CmsSearch();
+            searchBean.init(guestCms);
+            searchBean.setIndex(INDEX_SPECIAL);
+            searchBean.setQuery("PermissionEgg");
+            List<CmsSearchResult> searchResult = searchBean.getSearchResult();
+            assertEquals(1, searchResult.size());
+            assertEquals(1, searchBean.getSearchResultCount());
+            assertEquals("/sites/default/permtest/allowed.txt", searchResult.get(0).getPath());
+            assertEquals(1, getUnreadableCount(searchIndex, guestCms));
+        }
+
+        // publishing a changed folder discards the recorded permissions
+        cms.lockResource("/permtest/");
+        cms.writePropertyObject("/permtest/", new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Changed", null));
+        OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals(0, getUnreadableCount(searchIndex, guestCms));
+    }
+
+    /**
+     * Returns the number of documents recorded as unreadable in the permission filter for the given user.<p>
+     * 
+     * @param searchIndex the search index
+     * @param cms the OpenCms context of the user
+     * 
+     * @return the number of documents recorded as unreadable
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    private int getUnreadableCount(CmsSearchIndex searchIndex, CmsObject cms) throws Exception {
+
+        CmsSearchPermissionFilter filter = searchIndex.getPermissionFilter(cms);
+        IndexSearcher searcher = searchIndex.acquireSearcher();
+        try {
+            int result = 0;
+            for (AtomicReaderContext leaf : searcher.getIndexReader().leaves()) {
+                DocIdSetIterator readable = filter.getDocIdSet(leaf, null).iterator();
+                int count = 0;
+                while (readable.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                    count++;
+                }
+                result += leaf.reader().maxDoc() - count;
+            }
+            return result;
+        } finally {
+            searchIndex.releaseSearcher(searcher);
+        }
+    }
+}
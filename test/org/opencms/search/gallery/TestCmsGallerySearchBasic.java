@@ -31,6 +31,7 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsResource.CmsResourceUndoMode;
 import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.report.I_CmsReport;
@@ -50,6 +51,7 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.text.DateFormat;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Locale;
@@ -155,6 +157,7 @@ public class TestCmsGallerySearchBasic extends OpenCmsTestCase {
         //suite.addTest(new TestCmsGallerySearchBasic("testGallerySortSearchResults"));
         //suite.addTest(new TestCmsGallerySearchBasic("testSearchById"));
         suite.addTest(new TestCmsGallerySearchBasic("testSearchForMovedFiles"));
+        suite.addTest(new TestCmsGallerySearchBasic("testSearchResultCache"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -406,4 +409,55 @@ public class TestCmsGallerySearchBasic extends OpenCmsTestCase {
         assertEquals(1, results.size());
         assertTrue(results.get(0).getPath().contains("foo1"));
     }
+
+    /**
+     * Tests that repeated gallery searches are answered from the result cache until the index changes.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testSearchResultCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the gallery search result cache");
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeId());
+        cms.createResource(
+            "/cachetest1.txt",
+            plainType,
+            "cachetest".getBytes(),
+            Collections.singletonList(new CmsProperty("Title", "cachetest", "cachetest")));
+        OpenCms.getSearchManager().updateOfflineIndexes(5000);
+        CmsGallerySearchIndex index = (CmsGallerySearchIndex)OpenCms.getSearchManager().getIndex(
+            CmsGallerySearchIndex.GALLERY_INDEX_NAME);
+
+        CmsGallerySearchParameters params = new CmsGallerySearchParameters();
+        params.setSearchWords("cachetest");
+        params.setFolders(Arrays.asList("/", "/system/"));
+        CmsGallerySearchResultList results = index.searchGallery(cms, params);
+        assertEquals(1, results.size());
+        assertEquals(1, results.getHitCount());
+
+        // the order of the folders must not matter for the cached result
+        params.setFolders(Arrays.asList("/system/", "/"));
+        CmsGallerySearchResultList cachedResults = index.searchGallery(cms, params);
+        assertNotSame(results, cachedResults);
+        assertEquals(1, cachedResults.size());
+        assertEquals(1, cachedResults.getHitCount());
+        assertSame(results.get(0), cachedResults.get(0));
+
+        // modifying the returned list must not change the cached result
+        cachedResults.clear();
+        assertEquals(1, index.searchGallery(cms, params).size());
+
+        // a changed index must not return the cached result
+        cms.createResource(
+            "/cachetest2.txt",
+            plainType,
+            "cachetest".getBytes(),
+            Collections.singletonList(new CmsProperty("Title", "cachetest", "cachetest")));
+        OpenCms.getSearchManager().updateOfflineIndexes(5000);
+        results = index.searchGallery(cms, params);
+        assertEquals(2, results.size());
+        assertEquals(2, results.getHitCount());
+    }
 }
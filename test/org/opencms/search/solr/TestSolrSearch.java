@@ -35,12 +35,16 @@ import org.opencms.file.CmsResource;
 import org.opencms.file.types.CmsResourceTypeBinary;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.I_CmsResourceType;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.search.CmsSearchIndex;
 import org.opencms.search.CmsSearchResource;
 import org.opencms.search.fields.CmsSearchField;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.I_CmsPrincipal;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsRequestUtil;
@@ -103,6 +107,7 @@ public class TestSolrSearch extends OpenCmsTestCase {
         suite.addTest(new TestSolrSearch("testLimitTimeRangesOptimized"));
         suite.addTest(new TestSolrSearch("testLocaleRestriction"));
         suite.addTest(new TestSolrSearch("testMultipleSearchRoots"));
+        suite.addTest(new TestSolrSearch("testPermissionFilter"));
         suite.addTest(new TestSolrSearch("testQueryDefaults"));
         suite.addTest(new TestSolrSearch("testQueryParameterStrength"));
         suite.addTest(new TestSolrSearch("testSortResults"));
@@ -813,6 +818,74 @@ public class TestSolrSearch extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Tests that the search results are filtered by the indexed read permissions.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPermissionFilter() throws Throwable {
+
+        echo("Testing the permission filter of the search results");
+        CmsObject cms = getCmsObject();
+
+        cms.createResource(
+            "/aclTest/",
+            OpenCms.getResourceManager().getResourceType(CmsResourceTypeFolder.getStaticTypeId()));
+        I_CmsResourceType plainType = OpenCms.getResourceManager().getResourceType(
+            CmsResourceTypePlain.getStaticTypeId());
+        for (int i = 1; i <= 3; i++) {
+            cms.createResource(
+                "/aclTest/aclTest" + i + ".txt",
+                plainType,
+                "Permissionfilter".getBytes(),
+                null);
+        }
+        String guestName = OpenCms.getDefaultUsers().getUserGuest();
+        cms.chacc("/aclTest/aclTest2.txt", I_CmsPrincipal.PRINCIPAL_USER, guestName, "-r");
+        OpenCms.getPublishManager().publishProject(cms, new CmsShellReport(cms.getRequestContext().getLocale()));
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsSolrIndex index = OpenCms.getSearchManager().getIndexSolr(AllTests.SOLR_ONLINE);
+        String query = "?rows=10&q=text:Permissionfilter&sort=path asc";
+        CmsObject guestCms = OpenCms.initCmsObject(guestName);
+        CmsSolrResultList results = index.search(guestCms, query);
+        AllTests.printResults(cms, results, false);
+        assertEquals(2, results.size());
+        assertEquals(2, results.getNumFound());
+        assertEquals("/sites/default/aclTest/aclTest1.txt", results.get(0).getRootPath());
+        assertEquals("/sites/default/aclTest/aclTest3.txt", results.get(1).getRootPath());
+
+        // the filter is not applied for the VFS managers
+        results = index.search(getCmsObject(), query);
+        assertEquals(3, results.size());
+
+        // deny reading the folder and check that the changed permissions are indexed for the files below
+        cms.lockResource("/aclTest/");
+        cms.chacc(
+            "/aclTest/",
+            I_CmsPrincipal.PRINCIPAL_USER,
+            guestName,
+            0,
+            CmsPermissionSet.PERMISSION_READ,
+            CmsAccessControlEntry.ACCESS_FLAGS_INHERIT);
+        cms.unlockResource("/aclTest/");
+        OpenCms.getPublishManager().publishResource(cms, "/aclTest/");
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        results = index.search(getCmsObject(), query + "&fl=id,path,type," + CmsSearchField.FIELD_ACL_READ_DENIED);
+        assertEquals(3, results.size());
+        String guestId = guestCms.getRequestContext().getCurrentUser().getId().toString();
+        for (CmsSearchResource result : results) {
+            List<String> denied = result.getDocument().getMultivaluedFieldAsStringList(
+                CmsSearchField.FIELD_ACL_READ_DENIED);
+            assertNotNull(denied);
+            assertTrue(denied.contains(guestId));
+        }
+        results = index.search(guestCms, query);
+        assertEquals(0, results.size());
+        assertEquals(0, results.getNumFound());
+    }
+
     /**
      * @throws Throwable
      */
@@ -68,8 +68,11 @@ public final class AllTests {
         suite.addTest(new TestSuite(TestCmsHtmlParser.class));
         suite.addTest(new TestSuite(TestCmsHtmlStripper.class));
         suite.addTest(new TestSuite(TestCmsMacroResolver.class));
+        suite.addTest(new TestSuite(TestCmsReadWriteLockTable.class));
         suite.addTest(new TestSuite(TestCmsResourceTranslator.class));
+        suite.addTest(new TestSuite(TestCmsSpooledInputStream.class));
         suite.addTest(new TestSuite(TestCmsStringUtil.class));
+        suite.addTest(new TestSuite(TestCmsStripedLock.class));
         suite.addTest(new TestSuite(TestCmsUriSplitter.class));
         suite.addTest(new TestSuite(TestCmsUUID.class));
         suite.addTest(new TestSuite(TestCmsXmlSaxWriter.class));
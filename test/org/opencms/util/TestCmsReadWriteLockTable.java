@@ -0,0 +1,141 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Test cases for {@link org.opencms.util.CmsReadWriteLockTable}.<p>
+ */
+public class TestCmsReadWriteLockTable extends OpenCmsTestCase {
+
+    /**
+     * Tests that a lock is kept as long as it is used and removed afterwards.<p>
+     */
+    public void testCleanup() {
+
+        CmsReadWriteLockTable table = new CmsReadWriteLockTable(4, true);
+        ReentrantReadWriteLock lock1 = table.acquire("/a.jsp");
+        ReentrantReadWriteLock lock2 = table.acquire("/a.jsp");
+        assertSame(lock1, lock2);
+        assertEquals(1, table.getSize());
+
+        lock1.writeLock().lock();
+        table.release("/a.jsp");
+        // the lock is still used by the second caller
+        assertSame(lock1, table.acquire("/a.jsp"));
+        table.release("/a.jsp");
+        lock1.writeLock().unlock();
+        table.release("/a.jsp");
+        assertEquals(0, table.getSize());
+
+        // a new lock is created once the old one has been removed
+        assertNotSame(lock1, table.acquire("/a.jsp"));
+        table.release("/a.jsp");
+        assertEquals(0, table.getSize());
+    }
+
+    /**
+     * Tests that a write lock on one key does not block other keys.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDifferentKeys() throws Exception {
+
+        final CmsReadWriteLockTable table = new CmsReadWriteLockTable(1, true);
+        ReentrantReadWriteLock lock = table.acquire("/a.jsp");
+        lock.writeLock().lock();
+        try {
+            final CountDownLatch done = new CountDownLatch(1);
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    // same stripe, but a different key
+                    ReentrantReadWriteLock other = table.acquire("/b.jsp");
+                    other.writeLock().lock();
+                    other.writeLock().unlock();
+                    table.release("/b.jsp");
+                    done.countDown();
+                }
+            };
+            thread.start();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            lock.writeLock().unlock();
+            table.release("/a.jsp");
+        }
+    }
+
+    /**
+     * Tests that the same key is locked exclusively while the table is cleaned up concurrently.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSameKey() throws Exception {
+
+        final CmsReadWriteLockTable table = new CmsReadWriteLockTable(true);
+        final AtomicBoolean inside = new AtomicBoolean();
+        final AtomicBoolean error = new AtomicBoolean();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    for (int i = 0; i < 1000; i++) {
+                        ReentrantReadWriteLock lock = table.acquire("/same.jsp");
+                        lock.writeLock().lock();
+                        try {
+                            if (!inside.compareAndSet(false, true)) {
+                                error.set(true);
+                            }
+                            inside.set(false);
+                        } finally {
+                            lock.writeLock().unlock();
+                            table.release("/same.jsp");
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(error.get());
+        assertEquals(0, table.getSize());
+    }
+}
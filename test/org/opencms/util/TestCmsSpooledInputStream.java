@@ -0,0 +1,105 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tests for the spooled input stream.<p>
+ * 
+ * @since 9.5.0
+ */
+public class TestCmsSpooledInputStream extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsSpooledInputStream(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that small content is kept in memory.<p>
+     * 
+     * @throws IOException if something goes wrong
+     */
+    public void testSpoolToMemory() throws IOException {
+
+        byte[] content = createContent(100);
+        CmsSpooledInputStream in = CmsSpooledInputStream.spool(new ByteArrayInputStream(content), 100);
+        try {
+            assertFalse(in.isTemporaryFile());
+            assertEquals(content.length, in.getLength());
+            assertTrue(Arrays.equals(content, CmsFileUtil.readFully(in, false)));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Tests that large content is copied to a temporary file that is deleted on close.<p>
+     * 
+     * @throws IOException if something goes wrong
+     */
+    public void testSpoolToTemporaryFile() throws IOException {
+
+        byte[] content = createContent(20000);
+        CmsSpooledInputStream in = CmsSpooledInputStream.spool(new ByteArrayInputStream(content), 100);
+        try {
+            assertTrue(in.isTemporaryFile());
+            assertEquals(content.length, in.getLength());
+            assertTrue(Arrays.equals(content, CmsFileUtil.readFully(in, false)));
+        } finally {
+            in.close();
+        }
+        assertFalse(in.isTemporaryFile());
+    }
+
+    /**
+     * Creates test content of the given length.<p>
+     * 
+     * @param length the length of the content
+     * 
+     * @return the test content
+     */
+    private byte[] createContent(int length) {
+
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte)i;
+        }
+        return content;
+    }
+}
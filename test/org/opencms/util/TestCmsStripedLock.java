@@ -0,0 +1,250 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Test cases for {@link org.opencms.util.CmsStripedLock}.<p>
+ */
+public class TestCmsStripedLock extends OpenCmsTestCase {
+
+    /**
+     * Tests that different keys can be locked by different threads at the same time.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testDifferentKeys() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock(16);
+        String key1 = "/folder1/";
+        String key2 = null;
+        for (int i = 0; (key2 == null) || (lock.getStripeIndex(key2) == lock.getStripeIndex(key1)); i++) {
+            key2 = "/folder2/" + i;
+        }
+        final String otherKey = key2;
+
+        List<Lock> locks = lock.lock(key1);
+        try {
+            final CountDownLatch done = new CountDownLatch(1);
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    List<Lock> otherLocks = lock.lock(otherKey);
+                    lock.unlock(otherLocks);
+                    done.countDown();
+                }
+            };
+            thread.start();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            lock.unlock(locks);
+        }
+    }
+
+    /**
+     * Tests that locking all stripes excludes all other threads, while nested locks of the same thread succeed.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testLockAll() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock(16);
+        final String key = findKey(lock, 3);
+
+        List<Lock> all = lock.lockAll();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch locked = new CountDownLatch(1);
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+
+                started.countDown();
+                List<Lock> locks = lock.lock(key);
+                locked.countDown();
+                lock.unlock(locks);
+            }
+        };
+        try {
+            // nested locks in any order are possible while holding all stripes
+            List<Lock> high = lock.lock(findKey(lock, 10));
+            List<Lock> low = lock.lock(findKey(lock, 1));
+            lock.unlock(low);
+            lock.unlock(high);
+
+            thread.start();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertFalse(locked.await(200, TimeUnit.MILLISECONDS));
+        } finally {
+            lock.unlock(all);
+        }
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        thread.join();
+
+        // all stripes can not be locked while holding a stripe
+        List<Lock> locks = lock.lock(key);
+        try {
+            lock.lockAll();
+            fail("all stripes could be locked while holding a stripe");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            lock.unlock(locks);
+        }
+    }
+
+    /**
+     * Tests that nested locking of out of order stripes fails without releasing the held stripes.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testNestedLocking() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock(16);
+        final String low = findKey(lock, 1);
+        final String middle = findKey(lock, 5);
+        final String high = findKey(lock, 10);
+
+        List<Lock> outer = lock.lock(high);
+        try {
+            // a free lower stripe can be locked
+            List<Lock> inner = lock.lock(middle, high);
+            assertEquals(3, inner.size());
+            assertEquals(2, ((ReentrantLock)inner.get(2)).getHoldCount());
+            lock.unlock(inner);
+
+            final CountDownLatch lowLocked = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+
+                    List<Lock> locks = lock.lock(low);
+                    lowLocked.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                    lock.unlock(locks);
+                }
+            };
+            thread.start();
+            try {
+                assertTrue(lowLocked.await(5, TimeUnit.SECONDS));
+                // the low stripe is held by the other thread, waiting for it could cause a deadlock
+                try {
+                    lock.lock(low, high);
+                    fail("nested lock of a lower stripe held by another thread succeeded");
+                } catch (IllegalStateException e) {
+                    // expected
+                }
+                // the held stripe has not been released
+                ReentrantLock held = (ReentrantLock)outer.get(1);
+                assertTrue(held.isHeldByCurrentThread());
+                assertEquals(1, held.getHoldCount());
+            } finally {
+                release.countDown();
+                thread.join();
+            }
+        } finally {
+            lock.unlock(outer);
+        }
+        assertFalse(((ReentrantLock)outer.get(1)).isLocked());
+    }
+
+    /**
+     * Tests that the same key is locked exclusively.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    public void testSameKey() throws Exception {
+
+        final CmsStripedLock lock = new CmsStripedLock();
+        assertEquals(CmsStripedLock.DEFAULT_STRIPES, lock.getStripeCount());
+        assertEquals(128, new CmsStripedLock(100).getStripeCount());
+
+        final AtomicBoolean inside = new AtomicBoolean();
+        final AtomicBoolean error = new AtomicBoolean();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    for (int i = 0; i < 1000; i++) {
+                        List<Lock> locks = lock.lock("/same/path", new CmsUUID("00000000-0000-0000-0000-000000000001"));
+                        try {
+                            if (!inside.compareAndSet(false, true)) {
+                                error.set(true);
+                            }
+                            inside.set(false);
+                        } finally {
+                            lock.unlock(locks);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(error.get());
+    }
+
+    /**
+     * Finds a key that is mapped to the given stripe.<p>
+     *
+     * @param lock the striped lock
+     * @param stripe the stripe index
+     *
+     * @return the key
+     */
+    private String findKey(CmsStripedLock lock, int stripe) {
+
+        for (int i = 0;; i++) {
+            String key = "/key" + i;
+            if (lock.getStripeIndex(key) == stripe) {
+                return key;
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ package org.opencms.xml.content;
 
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
 import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
@@ -43,9 +44,12 @@ import org.opencms.relations.CmsLink;
 import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationType;
+import org.opencms.security.CmsPermissionViolationException;
+import org.opencms.security.I_CmsPrincipal;
 import org.opencms.staticexport.CmsLinkTable;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.widgets.CmsCheckboxWidget;
 import org.opencms.widgets.CmsHtmlWidget;
@@ -66,6 +70,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 
+import javax.servlet.ServletRequest;
+
 import junit.extensions.TestSetup;
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -166,6 +172,7 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         suite.addTest(new TestCmsXmlContentWithVfs("testMacros"));
         suite.addTest(new TestCmsXmlContentWithVfs("testAddFileReference"));
         suite.addTest(new TestCmsXmlContentWithVfs("testXmlContentCreate"));
+        suite.addTest(new TestCmsXmlContentWithVfs("testOnlineCache"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -1628,6 +1635,75 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         assertSame(definition.getContentHandler().getClass().getName(), TestXmlContentHandler.class.getName());
     }
 
+    /**
+     * Tests the cache of parsed online XML contents.<p>
+     * 
+     * @throws Exception in case something goes wrong
+     */
+    public void testOnlineCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cache of parsed online XML contents");
+
+        String filename = "/xmlcontent-cache.html";
+        CmsResource res = cms.createResource(
+            filename,
+            OpenCms.getResourceManager().getResourceType(OpenCmsTestCase.ARTICLE_TYPEID));
+        CmsFile file = cms.readFile(res);
+        CmsXmlContent xmlcontent = CmsXmlContentFactory.unmarshal(cms, file);
+        xmlcontent.getValue("Author", Locale.ENGLISH).setStringValue(cms, "Published author");
+        file.setContents(xmlcontent.marshal());
+        cms.writeFile(file);
+        OpenCms.getPublishManager().publishResource(cms, filename);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        CmsResource onlineRes = onlineCms.readResource(filename);
+        CmsXmlContent content1 = CmsXmlContentFactory.unmarshal(onlineCms, onlineRes, createRequest());
+        assertNotNull(OpenCms.getADEManager().getCache().getCacheXmlContent(onlineRes.getStructureId()));
+        CmsXmlContent content2 = CmsXmlContentFactory.unmarshal(onlineCms, onlineRes, createRequest());
+        assertNotSame(content1, content2);
+        assertEquals(onlineRes.getRootPath(), content2.getFile().getRootPath());
+        assertEquals("Published author", content2.getStringValue(onlineCms, "Author", Locale.ENGLISH));
+
+        // modifying a returned content must not affect the cached content
+        content1.getValue("Author", Locale.ENGLISH).setStringValue(onlineCms, "Modified author");
+        CmsXmlContent content3 = CmsXmlContentFactory.unmarshal(onlineCms, onlineRes, createRequest());
+        assertEquals("Published author", content3.getStringValue(onlineCms, "Author", Locale.ENGLISH));
+
+        // publishing a new version must remove the cached content
+        cms.lockResource(filename);
+        file = cms.readFile(filename);
+        xmlcontent = CmsXmlContentFactory.unmarshal(cms, file);
+        xmlcontent.getValue("Author", Locale.ENGLISH).setStringValue(cms, "Republished author");
+        file.setContents(xmlcontent.marshal());
+        cms.writeFile(file);
+        OpenCms.getPublishManager().publishResource(cms, filename);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertNull(OpenCms.getADEManager().getCache().getCacheXmlContent(onlineRes.getStructureId()));
+        onlineRes = onlineCms.readResource(filename);
+        CmsXmlContent content4 = CmsXmlContentFactory.unmarshal(onlineCms, onlineRes, createRequest());
+        assertEquals("Republished author", content4.getStringValue(onlineCms, "Author", Locale.ENGLISH));
+
+        // a cached content must not be handed out to a user without read permissions
+        cms.lockResource(filename);
+        cms.chacc(filename, I_CmsPrincipal.PRINCIPAL_USER, OpenCms.getDefaultUsers().getUserGuest(), "-r");
+        cms.unlockResource(filename);
+        OpenCms.getPublishManager().publishResource(cms, filename);
+        OpenCms.getPublishManager().waitWhileRunning();
+        onlineRes = onlineCms.readResource(filename);
+        CmsXmlContentFactory.unmarshal(onlineCms, onlineRes, createRequest());
+        assertNotNull(OpenCms.getADEManager().getCache().getCacheXmlContent(onlineRes.getStructureId()));
+        CmsObject guestCms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+        try {
+            CmsXmlContentFactory.unmarshal(guestCms, onlineRes, createRequest());
+            fail("A cached XML content must not be returned without read permissions");
+        } catch (CmsPermissionViolationException e) {
+            // expected
+        }
+    }
+
     /**
      * Test if the resource bundle in the schema definition is properly initialized.<p>
      * 
@@ -2433,4 +2509,27 @@ public class TestCmsXmlContentWithVfs extends OpenCmsTestCase {
         file.setContents(xmlcontent.marshal());
         cms.writeFile(file);
     }
+
+    /**
+     * Creates a servlet request without request attributes.<p>
+     * 
+     * @return a servlet request without request attributes
+     */
+    private ServletRequest createRequest() {
+
+        return new OpenCmsTestServletRequest() {
+
+            @Override
+            public Object getAttribute(String name) {
+
+                return null;
+            }
+
+            @Override
+            public void setAttribute(String name, Object value) {
+
+                // request attributes are not stored
+            }
+        };
+    }
 }